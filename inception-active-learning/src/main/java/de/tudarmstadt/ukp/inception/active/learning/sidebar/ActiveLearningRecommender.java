@@ -19,13 +19,14 @@ package de.tudarmstadt.ukp.inception.active.learning.sidebar;
 
 import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 import org.apache.uima.cas.Type;
 import org.apache.uima.cas.text.AnnotationFS;
@@ -36,19 +37,24 @@ import de.tudarmstadt.ukp.clarin.webanno.api.annotation.model.AnnotatorState;
 import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationLayer;
 import de.tudarmstadt.ukp.inception.active.learning.ActiveLearningService;
 import de.tudarmstadt.ukp.inception.recommendation.api.LearningRecordService;
+import de.tudarmstadt.ukp.inception.recommendation.api.RecommendationService;
 import de.tudarmstadt.ukp.inception.recommendation.api.model.AnnotationObject;
 import de.tudarmstadt.ukp.inception.recommendation.api.model.LearningRecord;
 import de.tudarmstadt.ukp.inception.recommendation.api.model.LearningRecordUserAction;
+import de.tudarmstadt.ukp.inception.recommendation.api.model.Predictions;
 
 public class ActiveLearningRecommender
     implements Serializable
 {
     private static final long serialVersionUID = -2308436775710912029L;
 
-    private List<AnnotationObject> recommendations;
-    private List<List<AnnotationObject>> listOfRecommendationsForEachToken;
     private AnnotatorState annotatorState;
     private AnnotationLayer selectedLayer;
+
+    /**
+     * Rebuilt when the predictions change, so it does not need to be serialized with the page.
+     */
+    private transient RecommendationPriorityIndex priorityIndex;
     
     public ActiveLearningRecommender(AnnotatorState aState, AnnotationLayer aLayer)
     {
@@ -58,281 +64,88 @@ public class ActiveLearningRecommender
 
     public RecommendationDifference generateRecommendationWithLowestDifference(
             LearningRecordService aRecordService, ActiveLearningService aActiveLearningService,
-            Date learnSkippedRecommendationTime)
-    {
-        listOfRecommendationsForEachToken = aActiveLearningService
-                .getRecommendationFromRecommendationModel(annotatorState, selectedLayer);
-
-        // remove recommendations with Null Annotation
-        listOfRecommendationsForEachToken.forEach(recommendationList -> 
-                removeRecommendationsWithNullAnnotation(recommendationList));
-        listOfRecommendationsForEachToken.removeIf(recommendationList -> 
-                recommendationList.isEmpty());
-
-        // remove duplicate recommendations
-        listOfRecommendationsForEachToken = listOfRecommendationsForEachToken.stream()
-                .map(it -> removeDuplicateRecommendations(it))
-                .collect(Collectors.toList());
-        
-        // remove rejected recommendations
-        removeRejectedOrSkippedAnnotations(aRecordService, true, learnSkippedRecommendationTime);
+            RecommendationService aRecommendationService, Date learnSkippedRecommendationTime)
+    {
+        Predictions predictions = aRecommendationService.getPredictions(annotatorState.getUser(),
+                annotatorState.getProject());
+        List<LearningRecord> records = aRecordService.getAllRecordsByDocumentAndUserAndLayer(
+                annotatorState.getDocument(), annotatorState.getUser().getUsername(),
+                selectedLayer);
+
+        // New learning records are applied to the existing index, only new predictions or
+        // removed learning records require collecting the suggestions again
+        if (priorityIndex == null
+                || !priorityIndex.isFor(predictions, learnSkippedRecommendationTime)
+                || !priorityIndex.applyRecords(records)) {
+            List<List<AnnotationObject>> recommendationsPerToken = predictions != null
+                    ? aActiveLearningService.getRecommendationsForWholeProject(predictions,
+                            selectedLayer)
+                    : new ArrayList<>();
+            priorityIndex = new RecommendationPriorityIndex(predictions, recommendationsPerToken,
+                    learnSkippedRecommendationTime, records);
+        }
 
-        return calculateDifferencesAndReturnLowestDifference(listOfRecommendationsForEachToken);
+        return priorityIndex.peek();
     }
 
     public boolean hasRecommendationWhichIsSkipped(LearningRecordService aRecordService,
             ActiveLearningService aActiveLearningService)
     {
-        listOfRecommendationsForEachToken = aActiveLearningService
+        List<List<AnnotationObject>> listOfRecommendationsForEachToken = aActiveLearningService
                 .getRecommendationFromRecommendationModel(annotatorState, selectedLayer);
-        removeRejectedOrSkippedAnnotations(aRecordService, false, null);
+        removeRejectedAnnotations(aRecordService, listOfRecommendationsForEachToken);
         return !listOfRecommendationsForEachToken.isEmpty();
     }
 
-    private static void removeRecommendationsWithNullAnnotation(
-        List<AnnotationObject> recommendationsList)
-    {
-        if (recommendationsList != null) {
-            recommendationsList.removeIf(recommendation -> recommendation.getLabel() == null);
-        }
-    }
-
-    private static List<AnnotationObject> removeDuplicateRecommendations(
-        List<AnnotationObject> unmodifiedRecommendationList)
-    {
-        List<AnnotationObject> cleanRecommendationList = new ArrayList<>();
-
-        unmodifiedRecommendationList.forEach(recommendationItem -> {
-            if (!isAlreadyInCleanList(cleanRecommendationList, recommendationItem)) {
-                cleanRecommendationList.add(recommendationItem);
-            }
-        });
-
-        return cleanRecommendationList;
-    }
-
-    private static boolean isAlreadyInCleanList(List<AnnotationObject> cleanRecommendationList,
-            AnnotationObject recommendationItem)
-    {
-        String source = recommendationItem.getSource();
-        String annotation = recommendationItem.getLabel();
-        String documentName = recommendationItem.getDocumentName();
-        
-        for (AnnotationObject existedRecommendation : cleanRecommendationList) {
-            if (
-                    existedRecommendation.getSource().equals(source) &&
-                    existedRecommendation.getLabel().equals(annotation) &&
-                    existedRecommendation.getDocumentName().equals(documentName)
-            ) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    private void removeRejectedOrSkippedAnnotations(LearningRecordService aRecordService,
-            boolean filterSkippedRecommendation, Date learnSkippedRecommendationTime)
+    private void removeRejectedAnnotations(LearningRecordService aRecordService,
+            List<List<AnnotationObject>> aListOfRecommendationsForEachToken)
     {
         List<LearningRecord> records = aRecordService.getAllRecordsByDocumentAndUserAndLayer
             (annotatorState.getDocument(), annotatorState.getUser().getUsername(), selectedLayer);
-        for (List<AnnotationObject> recommendations : listOfRecommendationsForEachToken) {
-            recommendations.removeIf(recommendation -> doesContainRejectedOrSkippedRecord(records,
-                recommendation, filterSkippedRecommendation, learnSkippedRecommendationTime));
-        }
-        listOfRecommendationsForEachToken.removeIf(recommendationsList ->
-            recommendationsList.isEmpty());
-    }
-
-    private static boolean doesContainRejectedOrSkippedRecord(List<LearningRecord> records,
-        AnnotationObject aRecommendation, boolean filterSkippedRecommendation,
-        Date learnSkippedRecommendationTime)
-    {
+        Set<List<Object>> rejected = new HashSet<>();
         for (LearningRecord record : records) {
-            if ((record.getUserAction().equals(LearningRecordUserAction.REJECTED)
-                || filterSkippedRecord(record, filterSkippedRecommendation) && needFilterByTime(
-                learnSkippedRecommendationTime, record)) && hasSameTokenAndSuggestion(
-                aRecommendation, record)) {
-                return true;
+            if (record.getUserAction().equals(LearningRecordUserAction.REJECTED)) {
+                rejected.add(Arrays.asList(record.getSourceDocument().getName(),
+                        record.getOffsetTokenBegin(), record.getOffsetTokenEnd(),
+                        record.getAnnotation()));
             }
         }
-        return false;
-    }
-
-    private static boolean filterSkippedRecord(LearningRecord record,
-            boolean filterSkippedRecommendation)
-    {
-        return record.getUserAction().equals(LearningRecordUserAction.SKIPPED)
-                && filterSkippedRecommendation;
-    }
-
-    private static boolean hasSameTokenAndSuggestion(AnnotationObject aRecommendation,
-            LearningRecord aRecord)
-    {
-        return aRecord.getSourceDocument().getName().equals(aRecommendation.getDocumentName()) && 
-                aRecord.getOffsetTokenBegin() == aRecommendation.getOffset().getBeginToken() && 
-                aRecord.getOffsetTokenEnd() == aRecommendation.getOffset().getEndToken() && 
-                aRecord.getAnnotation().equals(aRecommendation.getLabel());
-    }
 
-    /**
-     * If learnSkippedTime is null, this record needs to be filtered.
-     * If the record written time is after the learnSkippedTime, this record needs to be filtered.
-     * @param learnSkippedTime
-     * @param record
-     * @return
-     */
-    private static boolean needFilterByTime(Date learnSkippedTime, LearningRecord record)
-    {
-        return learnSkippedTime == null || learnSkippedTime.compareTo(record.getActionDate()) <= 0;
-    }
-
-    private static RecommendationDifference calculateDifferencesAndReturnLowestDifference(
-            List<List<AnnotationObject>> aListOfRecommendationsForEachToken)
-    {
-        // create list of recommendationsList, each recommendationsList contains all
-        // recommendations from one classifer for one token
-        List<List<AnnotationObject>> listOfRecommendationsPerTokenPerClassifier =
-            createRecommendationListsPerTokenPerClassifier(aListOfRecommendationsForEachToken);
-
-        // get a list of differences, sorted ascendingly
-        List<RecommendationDifference> recommendationDifferences =
-            createDifferencesSortedAscendingly(
-            listOfRecommendationsPerTokenPerClassifier);
-        Optional<RecommendationDifference> recommendationDifference = recommendationDifferences
-            .stream().findFirst();
-        if (recommendationDifference.isPresent()) {
-            return recommendationDifference.get();
-        }
-        else {
-            return null;
-        }
-    }
-
-    private static List<List<AnnotationObject>> createRecommendationListsPerTokenPerClassifier(
-            List<List<AnnotationObject>> aListOfRecommendationsForEachToken)
-    {
-        List<List<AnnotationObject>> listOfRecommendationsPerTokenPerClassifier = new ArrayList<>();
-        for (int i = 0; i < aListOfRecommendationsForEachToken.size(); i++) {
-            List<AnnotationObject> recommendationsPerToken =
-                    aListOfRecommendationsForEachToken.get(i);
-            if (recommendationsPerToken.size() == 1) {
-                listOfRecommendationsPerTokenPerClassifier.add(recommendationsPerToken);
-            }
-            else {
-                if (fromMoreThanOneClassifier(recommendationsPerToken)) {
-                    splitRecommendationsWithRegardToClassifier(
-                        listOfRecommendationsPerTokenPerClassifier, recommendationsPerToken);
-                }
-                else {
-                    listOfRecommendationsPerTokenPerClassifier.add(recommendationsPerToken);
-                }
-            }
-        }
-        return listOfRecommendationsPerTokenPerClassifier;
-    }
-
-    private static boolean fromMoreThanOneClassifier(
-            List<AnnotationObject> recommendationListPerToken)
-    {
-        int numberOfStringMatchingClassifer = 0;
-        int numberOfOpenNLPClassifier = 0;
-        for (AnnotationObject recommendation : recommendationListPerToken) {
-            if (recommendation.getSource().contains("StringMatching")) {
-                numberOfStringMatchingClassifer++;
-            }
-            if (recommendation.getSource().contains("OpenNlp")) {
-                numberOfOpenNLPClassifier++;
-            }
+        for (List<AnnotationObject> recommendations : aListOfRecommendationsForEachToken) {
+            recommendations.removeIf(recommendation -> rejected.contains(Arrays.asList(
+                    recommendation.getDocumentName(),
+                    recommendation.getOffset().getBeginToken(),
+                    recommendation.getOffset().getEndToken(), recommendation.getLabel())));
         }
-        return numberOfOpenNLPClassifier >= 1 && numberOfStringMatchingClassifer >= 1;
-    }
-
-    private static void splitRecommendationsWithRegardToClassifier(
-            List<List<AnnotationObject>> listOfRecommendationsPerTokenPerClassifier,
-            List<AnnotationObject> recommendationsPerToken)
-    {
-        List<AnnotationObject> stringMatchingClassifierAnnotationObject = new ArrayList<>();
-        for (AnnotationObject recommendation : recommendationsPerToken) {
-            if (recommendation.getSource().contains("StringMatching")) {
-                stringMatchingClassifierAnnotationObject.add(recommendation);
-            }
-        }
-        recommendationsPerToken.removeIf(recommendation -> recommendation.getSource()
-            .contains("StringMatching"));
-        listOfRecommendationsPerTokenPerClassifier.add(recommendationsPerToken);
-        listOfRecommendationsPerTokenPerClassifier.add(stringMatchingClassifierAnnotationObject);
-    }
-
-    private static List<RecommendationDifference> createDifferencesSortedAscendingly(
-            List<List<AnnotationObject>> listOfRecommendationsPerTokenPerClassifier)
-    {
-        List<RecommendationDifference> recommendationDifferences = new ArrayList<>();
-        for (List<AnnotationObject> recommendationsList :
-            listOfRecommendationsPerTokenPerClassifier) {
-            RecommendationDifference difference = getSmallestDifferencePerTokenPerClassifier(
-                recommendationsList);
-            recommendationDifferences.add(difference);
-        }
-        sortDifferencesAscending(recommendationDifferences);
-        return recommendationDifferences;
+        aListOfRecommendationsForEachToken.removeIf(recommendationsList ->
+            recommendationsList.isEmpty());
     }
 
-    private static RecommendationDifference getSmallestDifferencePerTokenPerClassifier(
+    private static void removeRecommendationsWithNullAnnotation(
         List<AnnotationObject> recommendationsList)
     {
-        if (recommendationsList.size() == 1) {
-            AnnotationObject recommendation = recommendationsList.get(0);
-            double confidenceDifference = Math.abs(recommendation.getConfidence());
-            return new RecommendationDifference(confidenceDifference, recommendation);
-        }
-        else {
-            Collections.sort(recommendationsList,
-                    Comparator.comparingDouble(AnnotationObject::getConfidence).reversed());
-            List<RecommendationDifference> differencesAmongOneClassifierPerToken =
-                generateDifferencesPerTokenPerClassifier(recommendationsList);
-            sortDifferencesAscending(differencesAmongOneClassifierPerToken);
-            return differencesAmongOneClassifierPerToken.get(0);
-        }
-    }
-
-    private static List<RecommendationDifference> generateDifferencesPerTokenPerClassifier(
-            List<AnnotationObject> sortedRecommendationsList)
-    {
-        List<RecommendationDifference> differencesAmongOneClassifierPerToken = new ArrayList<>();
-        for (int i = 0; i < sortedRecommendationsList.size() - 1; i++) {
-            AnnotationObject firstOp = sortedRecommendationsList.get(i);
-            AnnotationObject secondOp = sortedRecommendationsList.get(i + 1);
-            double difference = Math.abs(firstOp.getConfidence() - secondOp.getConfidence());
-            differencesAmongOneClassifierPerToken
-                .add(new RecommendationDifference(difference, firstOp, secondOp));
+        if (recommendationsList != null) {
+            recommendationsList.removeIf(recommendation -> recommendation.getLabel() == null);
         }
-        return differencesAmongOneClassifierPerToken;
-    }
-
-    private static void sortDifferencesAscending(
-        List<RecommendationDifference> differences)
-    {
-        Collections.sort(differences, (rd1, rd2) -> 
-                Double.compare(rd1.getDifference(), rd2.getDifference()));
     }
 
     public Optional<AnnotationObject> generateRecommendationWithLowestConfidence(
             ActiveLearningService aActiveLearningService, JCas aJcas)
     {
-        recommendations = aActiveLearningService.getFlattenedRecommendationsFromRecommendationModel(
-                aJcas, annotatorState, selectedLayer);
+        List<AnnotationObject> recommendations = aActiveLearningService
+                .getFlattenedRecommendationsFromRecommendationModel(aJcas, annotatorState,
+                        selectedLayer);
         removeRecommendationsWithNullAnnotation(recommendations);
         removeExistingAnnotations(aJcas, selectedLayer, recommendations);
-        Collections.sort(recommendations,
-                Comparator.comparingDouble(AnnotationObject::getConfidence));
-        return recommendations.stream().findFirst();
+        return recommendations.stream()
+                .min(Comparator.comparingDouble(AnnotationObject::getConfidence));
     }
 
     private static void removeExistingAnnotations(JCas aJcas,
             AnnotationLayer aLayer, List<AnnotationObject> aRecommendations)
     {
         Iterator<AnnotationFS> existingAnnotations = getAlreadyExistingAnnotations(aJcas, aLayer);
-        List<Integer> existingAnnotationsSpanBegin = mapToBeginOffsets(existingAnnotations);
+        Set<Integer> existingAnnotationsSpanBegin = mapToBeginOffsets(existingAnnotations);
         aRecommendations.removeIf(recommendation -> existingAnnotationsSpanBegin
                 .contains(recommendation.getOffset().getBeginCharacter()));
     }
@@ -348,10 +161,10 @@ public class ActiveLearningRecommender
         return existingAnnotations;
     }
 
-    private static List<Integer> mapToBeginOffsets(
+    private static Set<Integer> mapToBeginOffsets(
             Iterator<AnnotationFS> existingAnnotations)
     {
-        List<Integer> existingAnnotationsSpanBegin = new ArrayList<>();
+        Set<Integer> existingAnnotationsSpanBegin = new HashSet<>();
         while (existingAnnotations.hasNext()) {
             AnnotationFS fs = (AnnotationFS) existingAnnotations.next();
             existingAnnotationsSpanBegin.add(fs.getBegin());
@@ -362,9 +175,8 @@ public class ActiveLearningRecommender
     public boolean checkRecommendationExist(ActiveLearningService aActiveLearningService,
             LearningRecord aRecord)
     {
-        listOfRecommendationsForEachToken = aActiveLearningService
-                .getRecommendationFromRecommendationModel(annotatorState, selectedLayer);
-        return containSuggestion(listOfRecommendationsForEachToken, aRecord);
+        return containSuggestion(aActiveLearningService
+                .getRecommendationFromRecommendationModel(annotatorState, selectedLayer), aRecord);
     }
 
     private boolean containSuggestion(
@@ -616,7 +616,8 @@ public class ActiveLearningSidebar
         annotationPage.actionRefreshDocument(aTarget);
         currentDifference = activeLearningRecommender
                 .generateRecommendationWithLowestDifference(learningRecordService,
-                        activeLearningService, learnSkippedRecommendationTime);
+                        activeLearningService, recommendationService,
+                        learnSkippedRecommendationTime);
         showAndHighlightRecommendationAndJumpToRecommendationLocation(aTarget);
     }
 
@@ -0,0 +1,299 @@
+/*
+ * Copyright 2018
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.active.learning.sidebar;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+import de.tudarmstadt.ukp.inception.recommendation.api.model.AnnotationObject;
+import de.tudarmstadt.ukp.inception.recommendation.api.model.LearningRecord;
+import de.tudarmstadt.ukp.inception.recommendation.api.model.LearningRecordUserAction;
+import de.tudarmstadt.ukp.inception.recommendation.api.model.Predictions;
+
+/**
+ * Active learning suggestions of one set of predictions, ordered by the uncertainty of the
+ * recommenders. For every token (and classifier), the smallest difference between the
+ * confidences of two suggested labels is kept in a sorted set, so the most uncertain suggestion
+ * is available in logarithmic time.
+ * <p>
+ * Learning records are applied incrementally: when a suggestion is rejected or skipped, only the
+ * token it belongs to is re-ranked. When a suggestion is accepted or corrected, its token is
+ * annotated and drops out of the index.
+ */
+class RecommendationPriorityIndex
+{
+    private static final String STRING_MATCHING = "StringMatching";
+    private static final String OPEN_NLP = "OpenNlp";
+
+    private final Predictions predictions;
+    private final Date learnSkippedRecommendationTime;
+    private final Map<List<Object>, TokenEntry> tokens = new HashMap<>();
+    private final TreeSet<Candidate> queue = new TreeSet<>(Comparator
+            .comparingDouble((Candidate c) -> c.difference.getDifference())
+            .thenComparingLong(c -> c.sequence));
+    private final Set<Long> appliedRecords = new HashSet<>();
+    private long nextSequence = 0;
+    private int lastRecordCount;
+
+    /**
+     * @param aPredictions
+     *            the predictions from which the suggestions have been taken.
+     * @param aRecommendationsPerToken
+     *            the suggestions, grouped by token.
+     * @param aLearnSkippedRecommendationTime
+     *            skipped suggestions are only filtered if they were skipped after this time. If
+     *            it is {@code null}, all skipped suggestions are filtered.
+     * @param aRecords
+     *            the learning records which already exist.
+     */
+    public RecommendationPriorityIndex(Predictions aPredictions,
+            List<List<AnnotationObject>> aRecommendationsPerToken,
+            Date aLearnSkippedRecommendationTime, List<LearningRecord> aRecords)
+    {
+        predictions = aPredictions;
+        learnSkippedRecommendationTime = aLearnSkippedRecommendationTime;
+
+        for (List<AnnotationObject> recommendations : aRecommendationsPerToken) {
+            for (AnnotationObject recommendation : recommendations) {
+                if (recommendation.getLabel() == null) {
+                    continue;
+                }
+                List<Object> key = tokenKey(recommendation.getDocumentName(),
+                        recommendation.getOffset().getBeginToken(),
+                        recommendation.getOffset().getEndToken());
+                tokens.computeIfAbsent(key, k -> new TokenEntry()).add(recommendation);
+            }
+        }
+
+        // Existing records cannot tell whether their annotation still exists, so accepted
+        // suggestions are only dropped for records created while the index is in use
+        for (LearningRecord record : aRecords) {
+            apply(record, false);
+            appliedRecords.add(record.getId());
+        }
+        lastRecordCount = aRecords.size();
+
+        for (TokenEntry entry : tokens.values()) {
+            enqueue(entry);
+        }
+        tokens.values().removeIf(entry -> entry.recommendations.isEmpty());
+    }
+
+    public boolean isFor(Predictions aPredictions, Date aLearnSkippedRecommendationTime)
+    {
+        return predictions == aPredictions && Objects.equals(learnSkippedRecommendationTime,
+                aLearnSkippedRecommendationTime);
+    }
+
+    /**
+     * Applies the learning records which have been created since the last call. The records are
+     * expected to be the most recent ones, newest first, as returned by the
+     * {@code LearningRecordService}.
+     *
+     * @return {@code false} if a record which has already been applied has been removed. In this
+     *         case, the index needs to be rebuilt.
+     */
+    public boolean applyRecords(List<LearningRecord> aRecords)
+    {
+        Set<Long> current = new HashSet<>();
+        long oldest = Long.MAX_VALUE;
+        for (LearningRecord record : aRecords) {
+            current.add(record.getId());
+            oldest = Math.min(oldest, record.getId());
+        }
+
+        // Only the most recent records are returned, so older records may be missing because
+        // newer ones have been added. Missing records are only deleted ones if fewer records are
+        // returned than before or if newer records are still there.
+        for (Long id : appliedRecords) {
+            if (!current.contains(id) && (aRecords.size() < lastRecordCount || id > oldest)) {
+                return false;
+            }
+        }
+        lastRecordCount = aRecords.size();
+
+        for (LearningRecord record : aRecords) {
+            if (appliedRecords.add(record.getId())) {
+                apply(record, true);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the suggestion with the smallest confidence difference or {@code null} if there
+     *         are no more suggestions.
+     */
+    public RecommendationDifference peek()
+    {
+        return queue.isEmpty() ? null : queue.first().difference;
+    }
+
+    private void apply(LearningRecord aRecord, boolean aNewRecord)
+    {
+        List<Object> key = tokenKey(aRecord.getSourceDocument().getName(),
+                aRecord.getOffsetTokenBegin(), aRecord.getOffsetTokenEnd());
+        TokenEntry entry = tokens.get(key);
+        if (entry == null) {
+            return;
+        }
+
+        boolean changed = false;
+        LearningRecordUserAction action = aRecord.getUserAction();
+        if (aNewRecord && (LearningRecordUserAction.ACCEPTED.equals(action)
+                || LearningRecordUserAction.CORRECTED.equals(action))) {
+            entry.recommendations.clear();
+            changed = true;
+        }
+        else if (isFiltered(aRecord)) {
+            changed = entry.recommendations
+                    .removeIf(r -> r.getLabel().equals(aRecord.getAnnotation()));
+        }
+
+        if (changed) {
+            enqueue(entry);
+            if (entry.recommendations.isEmpty()) {
+                tokens.remove(key);
+            }
+        }
+    }
+
+    private boolean isFiltered(LearningRecord aRecord)
+    {
+        if (LearningRecordUserAction.REJECTED.equals(aRecord.getUserAction())) {
+            return true;
+        }
+
+        return LearningRecordUserAction.SKIPPED.equals(aRecord.getUserAction())
+                && (learnSkippedRecommendationTime == null || learnSkippedRecommendationTime
+                        .compareTo(aRecord.getActionDate()) <= 0);
+    }
+
+    /**
+     * (Re-)ranks the given token, replacing its previous candidates in the queue.
+     */
+    private void enqueue(TokenEntry aEntry)
+    {
+        queue.removeAll(aEntry.candidates);
+        aEntry.candidates.clear();
+
+        for (List<AnnotationObject> group : groupByClassifier(aEntry.recommendations)) {
+            Candidate candidate = new Candidate(getSmallestDifference(group), nextSequence++);
+            aEntry.candidates.add(candidate);
+            queue.add(candidate);
+        }
+    }
+
+    /**
+     * Suggestions of the string matching classifier are compared separately if there are also
+     * suggestions from an OpenNLP classifier for the same token.
+     */
+    private static List<List<AnnotationObject>> groupByClassifier(
+            List<AnnotationObject> aRecommendations)
+    {
+        if (aRecommendations.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<AnnotationObject> stringMatching = new ArrayList<>();
+        List<AnnotationObject> others = new ArrayList<>();
+        boolean hasOpenNlp = false;
+        for (AnnotationObject recommendation : aRecommendations) {
+            if (recommendation.getSource().contains(STRING_MATCHING)) {
+                stringMatching.add(recommendation);
+            }
+            else {
+                others.add(recommendation);
+            }
+            hasOpenNlp |= recommendation.getSource().contains(OPEN_NLP);
+        }
+
+        if (hasOpenNlp && !stringMatching.isEmpty()) {
+            return Arrays.asList(others, stringMatching);
+        }
+        return Collections.singletonList(aRecommendations);
+    }
+
+    private static RecommendationDifference getSmallestDifference(
+            List<AnnotationObject> aRecommendations)
+    {
+        if (aRecommendations.size() == 1) {
+            AnnotationObject recommendation = aRecommendations.get(0);
+            return new RecommendationDifference(Math.abs(recommendation.getConfidence()),
+                    recommendation);
+        }
+
+        List<AnnotationObject> sorted = new ArrayList<>(aRecommendations);
+        sorted.sort(Comparator.comparingDouble(AnnotationObject::getConfidence).reversed());
+
+        RecommendationDifference smallest = null;
+        for (int i = 0; i < sorted.size() - 1; i++) {
+            double difference = Math
+                    .abs(sorted.get(i).getConfidence() - sorted.get(i + 1).getConfidence());
+            if (smallest == null || difference < smallest.getDifference()) {
+                smallest = new RecommendationDifference(difference, sorted.get(i),
+                        sorted.get(i + 1));
+            }
+        }
+        return smallest;
+    }
+
+    private static List<Object> tokenKey(String aDocumentName, int aBeginToken, int aEndToken)
+    {
+        return Arrays.asList(aDocumentName, aBeginToken, aEndToken);
+    }
+
+    private static class TokenEntry
+    {
+        private final List<AnnotationObject> recommendations = new ArrayList<>();
+        private final Set<List<Object>> seen = new HashSet<>();
+        private final List<Candidate> candidates = new ArrayList<>();
+
+        /**
+         * Adds a suggestion unless the same classifier already suggested the same label.
+         */
+        public void add(AnnotationObject aRecommendation)
+        {
+            if (seen.add(Arrays.asList(aRecommendation.getSource(), aRecommendation.getLabel()))) {
+                recommendations.add(aRecommendation);
+            }
+        }
+    }
+
+    private static class Candidate
+    {
+        private final RecommendationDifference difference;
+        private final long sequence;
+
+        public Candidate(RecommendationDifference aDifference, long aSequence)
+        {
+            difference = aDifference;
+            sequence = aSequence;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2018
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.active.learning.sidebar;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Test;
+
+import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocument;
+import de.tudarmstadt.ukp.inception.recommendation.api.model.AnnotationObject;
+import de.tudarmstadt.ukp.inception.recommendation.api.model.LearningRecord;
+import de.tudarmstadt.ukp.inception.recommendation.api.model.LearningRecordUserAction;
+import de.tudarmstadt.ukp.inception.recommendation.api.model.Offset;
+import de.tudarmstadt.ukp.inception.recommendation.api.model.TokenObject;
+
+public class RecommendationPriorityIndexTest
+{
+    private long nextRecordId = 1;
+
+    @Test
+    public void thatMostUncertainTokenComesFirst()
+    {
+        List<List<AnnotationObject>> recommendations = asList(
+                asList(suggestion(0, "PER", 0.9), suggestion(0, "LOC", 0.1)),
+                asList(suggestion(1, "PER", 0.5), suggestion(1, "ORG", 0.45)));
+
+        RecommendationPriorityIndex sut = new RecommendationPriorityIndex(null,
+                recommendations, null, Collections.emptyList());
+
+        RecommendationDifference first = sut.peek();
+        assertThat(first.getRecommendation1().getLabel()).isEqualTo("PER");
+        assertThat(first.getRecommendation1().getOffset().getBeginToken()).isEqualTo(1);
+        assertThat(first.getDifference()).isCloseTo(0.05, within(1e-9));
+    }
+
+    @Test
+    public void thatRejectedSuggestionIsRerankedIncrementally()
+    {
+        List<List<AnnotationObject>> recommendations = asList(
+                asList(suggestion(0, "PER", 0.9), suggestion(0, "LOC", 0.1)),
+                asList(suggestion(1, "PER", 0.5), suggestion(1, "ORG", 0.45)));
+        List<LearningRecord> records = new ArrayList<>();
+
+        RecommendationPriorityIndex sut = new RecommendationPriorityIndex(null,
+                recommendations, null, records);
+
+        records.add(record(1, "PER", LearningRecordUserAction.REJECTED));
+
+        assertThat(sut.applyRecords(records)).isTrue();
+        // Only ORG is left for token 1, its confidence is the difference
+        assertThat(sut.peek().getRecommendation1().getLabel()).isEqualTo("ORG");
+        assertThat(sut.peek().getDifference()).isCloseTo(0.45, within(1e-9));
+    }
+
+    @Test
+    public void thatAcceptedTokenIsRemoved()
+    {
+        List<List<AnnotationObject>> recommendations = asList(
+                asList(suggestion(0, "PER", 0.9), suggestion(0, "LOC", 0.1)));
+        List<LearningRecord> records = new ArrayList<>();
+
+        RecommendationPriorityIndex sut = new RecommendationPriorityIndex(null,
+                recommendations, null, records);
+
+        records.add(record(0, "PER", LearningRecordUserAction.ACCEPTED));
+
+        assertThat(sut.applyRecords(records)).isTrue();
+        assertThat(sut.peek()).isNull();
+    }
+
+    @Test
+    public void thatSkippedSuggestionsAreOnlyFilteredAfterLearnSkippedTime()
+    {
+        List<List<AnnotationObject>> recommendations = asList(
+                asList(suggestion(0, "PER", 0.9)));
+        LearningRecord skipped = record(0, "PER", LearningRecordUserAction.SKIPPED);
+        skipped.setActionDate(new Date(1000));
+
+        RecommendationPriorityIndex filtered = new RecommendationPriorityIndex(null,
+                recommendations, null, asList(skipped));
+        RecommendationPriorityIndex learnAgain = new RecommendationPriorityIndex(null,
+                recommendations, new Date(2000), asList(skipped));
+
+        assertThat(filtered.peek()).isNull();
+        assertThat(learnAgain.peek()).isNotNull();
+    }
+
+    @Test
+    public void thatRemovedRecordRequiresRebuild()
+    {
+        List<LearningRecord> records = new ArrayList<>();
+        records.add(record(0, "PER", LearningRecordUserAction.REJECTED));
+
+        RecommendationPriorityIndex sut = new RecommendationPriorityIndex(null,
+                asList(asList(suggestion(0, "PER", 0.9))), null, records);
+
+        assertThat(sut.applyRecords(Collections.emptyList())).isFalse();
+    }
+
+    @Test
+    public void thatRecordsDroppingOutOfRecentRecordsDoNotRequireRebuild()
+    {
+        LearningRecord oldest = record(0, "PER", LearningRecordUserAction.REJECTED);
+        LearningRecord older = record(0, "LOC", LearningRecordUserAction.REJECTED);
+
+        RecommendationPriorityIndex sut = new RecommendationPriorityIndex(null,
+                asList(asList(suggestion(1, "PER", 0.9))), null, asList(older, oldest));
+
+        LearningRecord newest = record(1, "ORG", LearningRecordUserAction.REJECTED);
+
+        assertThat(sut.applyRecords(asList(newest, older))).isTrue();
+    }
+
+    private AnnotationObject suggestion(int aToken, String aLabel, double aConfidence)
+    {
+        TokenObject token = new TokenObject(new Offset(aToken * 10, aToken * 10 + 5, aToken,
+                aToken), "token" + aToken, "doc", "doc", aToken);
+        return new AnnotationObject(token, aLabel, aLabel, aToken, "value", "OpenNlpNer",
+                aConfidence, 1);
+    }
+
+    private LearningRecord record(int aToken, String aLabel, LearningRecordUserAction aAction)
+    {
+        SourceDocument document = new SourceDocument();
+        document.setName("doc");
+
+        LearningRecord record = new LearningRecord();
+        record.setId(nextRecordId++);
+        record.setSourceDocument(document);
+        record.setOffsetTokenBegin(aToken);
+        record.setOffsetTokenEnd(aToken);
+        record.setAnnotation(aLabel);
+        record.setUserAction(aAction);
+        record.setActionDate(new Date());
+        return record;
+    }
+}
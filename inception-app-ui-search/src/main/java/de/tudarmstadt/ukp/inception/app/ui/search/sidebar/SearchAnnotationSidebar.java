@@ -21,7 +21,6 @@ import static org.apache.commons.lang3.StringUtils.isBlank;
 
 import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
 
 import org.apache.wicket.MarkupContainer;
 import org.apache.wicket.ajax.AjaxRequestTarget;
@@ -34,7 +33,9 @@ import org.apache.wicket.markup.html.list.ListItem;
 import org.apache.wicket.markup.html.list.ListView;
 import org.apache.wicket.markup.html.panel.Fragment;
 import org.apache.wicket.model.IModel;
+import org.apache.wicket.model.LoadableDetachableModel;
 import org.apache.wicket.model.Model;
+import org.apache.wicket.model.StringResourceModel;
 import org.apache.wicket.spring.injection.annot.SpringBean;
 import org.wicketstuff.event.annotation.OnEvent;
 
@@ -55,6 +56,8 @@ import de.tudarmstadt.ukp.clarin.webanno.support.lambda.LambdaModel;
 import de.tudarmstadt.ukp.clarin.webanno.ui.annotation.AnnotationPage;
 import de.tudarmstadt.ukp.clarin.webanno.ui.annotation.sidebar.AnnotationSidebar_ImplBase;
 import de.tudarmstadt.ukp.inception.search.SearchResult;
+import de.tudarmstadt.ukp.inception.search.SearchResultsGroup;
+import de.tudarmstadt.ukp.inception.search.SearchResultsPage;
 import de.tudarmstadt.ukp.inception.search.SearchService;
 import wicket.contrib.input.events.EventType;
 import wicket.contrib.input.events.InputBehavior;
@@ -65,6 +68,8 @@ public class SearchAnnotationSidebar
 {
     private static final long serialVersionUID = -3358207848681467993L;
 
+    private static final int RESULTS_PER_PAGE = 50;
+
     private @SpringBean DocumentService documentService;
     private @SpringBean AnnotationSchemaService annotationService;
     private @SpringBean SearchService searchService;
@@ -76,7 +81,8 @@ public class SearchAnnotationSidebar
     final WebMarkupContainer mainContainer;
 
     private Model<String> targetQuery = Model.of("");
-    private IModel<List<SearchResult>> searchResults;
+    private IModel<SearchResultsPage> searchResults;
+    private int currentPage = 0;
     
     private SearchResult selectedResult;
 
@@ -100,7 +106,18 @@ public class SearchAnnotationSidebar
         mainContainer.add(searchForm);
 
         
-        searchResults = LambdaModel.of(this::getSearchResults);
+        // The results are loaded at most once per request and dropped when the sidebar is
+        // detached
+        searchResults = new LoadableDetachableModel<SearchResultsPage>()
+        {
+            private static final long serialVersionUID = -5311264536418066433L;
+
+            @Override
+            protected SearchResultsPage load()
+            {
+                return getSearchResults();
+            }
+        };
         
         // Add link for reindexing the project
         mainContainer.add(new LambdaAjaxLink("reindexProject", t -> {
@@ -109,52 +126,83 @@ public class SearchAnnotationSidebar
             searchService.reindex(project);
         }));
 
-        ListView<String> searchResultGroups = new ListView<String>("searchResultGroups")
+        ListView<SearchResultsGroup> searchResultGroups = new ListView<SearchResultsGroup>(
+                "searchResultGroups")
         {
             private static final long serialVersionUID = -631500052426449048L;
 
             @Override
-            protected void populateItem(ListItem<String> item)
+            protected void populateItem(ListItem<SearchResultsGroup> item)
             {
-                item.add(new Label("documentTitle", LambdaModel.of(() -> item.getModelObject())));
+                item.add(new Label("documentTitle",
+                        LambdaModel.of(() -> item.getModelObject().getDocumentTitle())));
                 item.add(new SearchResultGroup("group", "resultGroup", 
                         SearchAnnotationSidebar.this,
-                        LambdaModel.of(() -> searchResults.getObject().stream().filter((result) -> {
-                            if (result.getDocumentTitle() == null) {
-                                return true;
-                            }
-                            else {
-                                return result.getDocumentTitle().equals(item.getModelObject());
-                            }
-                        }).collect(Collectors.toList()))));
+                        LambdaModel.of(() -> item.getModelObject().getResults())));
             }
         };
-        searchResultGroups.setModel(LambdaModel.of(() -> 
-                searchResults.getObject().stream().map((result -> result.getDocumentTitle()))
-                        .distinct().collect(Collectors.toList())));
+        searchResultGroups.setModel(LambdaModel.of(() -> searchResults.getObject().getGroups()));
         mainContainer.add(searchResultGroups);
+
+        WebMarkupContainer pagingControls = new WebMarkupContainer("pagingControls")
+        {
+            private static final long serialVersionUID = 4524412455066393946L;
+
+            @Override
+            protected void onConfigure()
+            {
+                super.onConfigure();
+                setVisible(searchResults.getObject().getPageCount() > 1);
+            }
+        };
+        pagingControls.add(new LambdaAjaxLink("previousPage",
+            t -> actionShowPage(t, searchResults.getObject().getPage() - 1)));
+        pagingControls.add(new Label("pageInfo", new StringResourceModel("pageInfo", this)
+                .setParameters(
+                        LambdaModel.of(() -> searchResults.getObject().getPage() + 1),
+                        LambdaModel.of(() -> searchResults.getObject().getPageCount()),
+                        LambdaModel.of(() -> searchResults.getObject().getTotalResults()))));
+        pagingControls.add(new LambdaAjaxLink("nextPage",
+            t -> actionShowPage(t, searchResults.getObject().getPage() + 1)));
+        mainContainer.add(pagingControls);
+    }
+
+    @Override
+    protected void onDetach()
+    {
+        super.onDetach();
+        searchResults.detach();
+    }
+
+    private void actionShowPage(AjaxRequestTarget aTarget, int aPage)
+    {
+        currentPage = aPage;
+        searchResults.detach();
+        aTarget.add(mainContainer);
     }
 
     private void actionSearch(AjaxRequestTarget aTarget, Form<Void> aForm) {
         selectedResult = null;
+        currentPage = 0;
         searchResults.detach();
         aTarget.add(mainContainer);
         aTarget.addChildren(getPage(), IFeedback.class);
     }
     
-    private List<SearchResult> getSearchResults()
+    private SearchResultsPage getSearchResults()
     {
         if (isBlank(targetQuery.getObject())) {
-            return Collections.emptyList();
+            return new SearchResultsPage(Collections.emptyList(), 0, RESULTS_PER_PAGE);
         }
         
         try {
             currentProject = getModel().getObject().getProject();
-            return searchService.query(currentUser, currentProject, targetQuery.getObject());
+            return searchService.query(currentUser, currentProject, targetQuery.getObject(),
+                    currentPage, RESULTS_PER_PAGE);
         }
         catch (Exception e) {
             error("Error in the query: " + e.getMessage());
-            return Collections.emptyList();
+            return new SearchResultsPage(Collections.emptyList(), 0, RESULTS_PER_PAGE);
         }
     }
 
@@ -63,8 +63,11 @@ import de.tudarmstadt.ukp.inception.conceptlinking.util.FileUtils;
 import de.tudarmstadt.ukp.inception.conceptlinking.util.LRUCache;
 import de.tudarmstadt.ukp.inception.conceptlinking.util.QueryUtil;
 import de.tudarmstadt.ukp.inception.kb.KnowledgeBaseService;
+import de.tudarmstadt.ukp.inception.kb.RepositoryType;
 import de.tudarmstadt.ukp.inception.kb.event.KnowledgeBaseConfigurationChangedEvent;
+import de.tudarmstadt.ukp.inception.kb.event.KnowledgeBaseDataChangedEvent;
 import de.tudarmstadt.ukp.inception.kb.graph.KBHandle;
+import de.tudarmstadt.ukp.inception.kb.graph.RdfUtils;
 import de.tudarmstadt.ukp.inception.kb.model.KnowledgeBase;
 
 @Component
@@ -74,6 +77,7 @@ public class ConceptLinkingService
 
     private @Resource KnowledgeBaseService kbService;
     private @Resource EntityLinkingProperties properties;
+    private @Resource KnowledgeBaseLabelIndex labelIndex;
 
     @org.springframework.beans.factory.annotation.Value
         (value = "${repository.path}/resources/stopwords-en.txt")
@@ -169,9 +173,42 @@ public class ConceptLinkingService
             return candidateCache.get(pair);
         }
 
+        // Local knowledge bases do not support the full-text search used by the candidate
+        // query, so they are looked up in the label index instead
+        if (aKB.getType() == RepositoryType.LOCAL) {
+            List<CandidateEntity> indexed = labelIndex.search(aKB, processedMention,
+                    properties.getCandidateQueryLimit());
+            if (indexed == null) {
+                // Index is still being built - do not cache the incomplete result
+                return queryCandidates(aKB, processedMention);
+            }
+            candidates.addAll(indexed);
+        }
+        else {
+            candidates.addAll(queryCandidates(aKB, processedMention));
 
+            if (candidates.isEmpty()) {
+                String[] split = processedMention.split(" ");
+                if (split.length > 1) {
+                    for (String s : split) {
+                        candidates.addAll(generateCandidates(aKB, s));
+                    }
+                }
+            }
+        }
+
+        candidateCache.put(pair, candidates);
+        return candidates;
+    }
+
+    /*
+     * Retrieves candidates for a mention using the full-text search of the knowledge base.
+     */
+    private Set<CandidateEntity> queryCandidates(KnowledgeBase aKB, String aMention)
+    {
+        Set<CandidateEntity> candidates = new HashSet<>();
         try (RepositoryConnection conn = kbService.getConnection(aKB)) {
-            TupleQuery query = QueryUtil.generateCandidateQuery(conn, processedMention,
+            TupleQuery query = QueryUtil.generateCandidateQuery(conn, aMention,
                 properties.getCandidateQueryLimit(), aKB.getDescriptionIri());
             try (TupleQueryResult entityResult = query.evaluate()) {
                 while (entityResult.hasNext()) {
@@ -194,17 +231,6 @@ public class ConceptLinkingService
         catch (QueryEvaluationException e) {
             logger.error("Query evaluation was unsuccessful: ", e);
         }
-
-        if (candidates.isEmpty()) {
-            String[] split = processedMention.split(" ");
-            if (split.length > 1) {
-                for (String s : split) {
-                    candidates.addAll(generateCandidates(aKB, s));
-                }
-            }
-        }
-
-        candidateCache.put(pair, candidates);
         return candidates;
     }
 
@@ -305,7 +331,7 @@ public class ConceptLinkingService
         result.parallelStream().forEach(l -> {
             String wikidataId = l.getIRI().replace(WIKIDATA_PREFIX, "");
             
-            l.setIdRank(Math.log(Double.parseDouble(wikidataId.substring(1))));
+            l.setIdRank(getIdRank(wikidataId));
             String altLabel = l.getAltLabel().toLowerCase(Locale.ENGLISH);
             LevenshteinDistance lev = new LevenshteinDistance();
             l.setLevMatchLabel(lev.apply(mention, altLabel));
@@ -333,6 +359,18 @@ public class ConceptLinkingService
         return result;
     }
 
+    /*
+     * Wikidata IDs are a letter followed by a number. Lower numbers indicate older and usually
+     * more prominent entities. Other IRIs (e.g. from local knowledge bases) have no rank.
+     */
+    private double getIdRank(String aId)
+    {
+        if (aId.length() < 2 || !aId.substring(1).chars().allMatch(Character::isDigit)) {
+            return 0;
+        }
+        return Math.log(Double.parseDouble(aId.substring(1)));
+    }
+
     /*
      * Sort candidates by frequency in descending order.
      */
@@ -477,6 +515,34 @@ public class ConceptLinkingService
             .collect(Collectors.toList());
     }
 
+    /**
+     * Finds instances whose label, or a word in their label, starts with the given prefix, e.g.
+     * to suggest instances while the user is typing. Local knowledge bases are searched in the
+     * {@link KnowledgeBaseLabelIndex}. Remote knowledge bases, and local ones while their index
+     * is being built, are searched using {@link KnowledgeBaseService#searchInstances}.
+     *
+     * @param aKB the knowledge base to search.
+     * @param aConceptIri the concept whose instances are searched or {@code null} to search the
+     *                    instances of all concepts.
+     * @param aPrefix what the user has typed so far.
+     * @param aLimit the maximum number of instances to return.
+     * @return the best matching instances.
+     */
+    public List<KBHandle> searchInstances(KnowledgeBase aKB, String aConceptIri, String aPrefix,
+        int aLimit)
+    {
+        List<CandidateEntity> indexed = labelIndex.searchInstances(aKB, aConceptIri, aPrefix,
+            aLimit);
+        if (indexed == null) {
+            return kbService.searchInstances(aKB, aConceptIri, aPrefix, false, aLimit);
+        }
+
+        return indexed.stream()
+            .map(c -> new KBHandle(c.getIRI(), c.getLabel(), c.getDescription()))
+            .filter(h -> h.getIdentifier().contains(":") && !RdfUtils.isFromImplicitNamespace(h))
+            .collect(Collectors.toList());
+    }
+
     /**
      * Remove all cache entries of a specific project
      * @param aEvent
@@ -486,17 +552,28 @@ public class ConceptLinkingService
     public void onKnowledgeBaseConfigurationChangedEvent(
         KnowledgeBaseConfigurationChangedEvent aEvent)
     {
-        for (Map.Entry<ImmutablePair<Project, String>, Set<CandidateEntity>> pair :
-            candidateCache.entrySet()) {
-            if (pair.getKey().getLeft().equals(aEvent.getProject())) {
-                candidateCache.remove(pair.getKey());
-            }
+        clearCaches(aEvent.getProject());
+    }
+
+    /**
+     * Remove all cache entries of the project whose knowledge base data has changed, so that new
+     * or renamed entities become candidates.
+     * @param aEvent
+     *            The event containing the knowledge base
+     */
+    @EventListener
+    public void onKnowledgeBaseDataChangedEvent(KnowledgeBaseDataChangedEvent aEvent)
+    {
+        clearCaches(aEvent.getKnowledgeBase().getProject());
+    }
+
+    private void clearCaches(Project aProject)
+    {
+        synchronized (candidateCache) {
+            candidateCache.keySet().removeIf(key -> key.getLeft().equals(aProject));
         }
-        for (Map.Entry<ImmutablePair<Project, String>, SemanticSignature> pair :
-            semanticSignatureCache.entrySet()) {
-            if (pair.getKey().getLeft().equals(aEvent.getProject())) {
-                semanticSignatureCache.remove(pair.getKey());
-            }
+        synchronized (semanticSignatureCache) {
+            semanticSignatureCache.keySet().removeIf(key -> key.getLeft().equals(aProject));
         }
     }
 
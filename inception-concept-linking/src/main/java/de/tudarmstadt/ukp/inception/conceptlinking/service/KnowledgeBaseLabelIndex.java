@@ -0,0 +1,770 @@
+/*
+ * Copyright 2018
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.conceptlinking.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.SegmentInfos;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.FuzzyQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Literal;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.vocabulary.RDF;
+import org.eclipse.rdf4j.model.vocabulary.SKOS;
+import org.eclipse.rdf4j.repository.RepositoryConnection;
+import org.eclipse.rdf4j.repository.RepositoryResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.FileSystemUtils;
+
+import de.tudarmstadt.ukp.inception.conceptlinking.model.CandidateEntity;
+import de.tudarmstadt.ukp.inception.kb.KnowledgeBaseService;
+import de.tudarmstadt.ukp.inception.kb.RepositoryType;
+import de.tudarmstadt.ukp.inception.kb.event.KnowledgeBaseConfigurationChangedEvent;
+import de.tudarmstadt.ukp.inception.kb.event.KnowledgeBaseDataChangedEvent;
+import de.tudarmstadt.ukp.inception.kb.event.KnowledgeBaseRemovedEvent;
+import de.tudarmstadt.ukp.inception.kb.model.KnowledgeBase;
+
+/**
+ * Full-text index over the labels, aliases and descriptions of the entities in local knowledge
+ * bases. It is used to generate candidates for concept linking, which otherwise relies on the
+ * Virtuoso-specific {@code bif:contains} and therefore does not work on local knowledge bases,
+ * and to suggest instances while the user is typing.
+ * <p>
+ * There is one Lucene index per knowledge base. It is built in the background when it is first
+ * needed or when data has been imported, and it is updated for each entity changed through the
+ * {@link KnowledgeBaseService}. Until an index has been built for the first time, searches return
+ * {@code null} and callers should fall back to querying the knowledge base. When an index is
+ * rebuilt, searches use the previous state of the index until the rebuild has been committed.
+ */
+@Component
+public class KnowledgeBaseLabelIndex
+{
+    private static final String FIELD_IRI = "iri";
+    private static final String FIELD_LABEL = "label";
+    private static final String FIELD_ALIAS = "alias";
+    private static final String FIELD_DESCRIPTION = "description";
+    private static final String FIELD_TEXT = "text";
+    private static final String FIELD_EXACT = "exact";
+    private static final String FIELD_TYPE = "type";
+    private static final String FIELD_INSTANCE = "instance";
+
+    private static final String COMMIT_COMPLETE = "complete";
+    private static final String COMMIT_LABEL_IRI = "labelIri";
+    private static final String COMMIT_DESCRIPTION_IRI = "descriptionIri";
+    private static final String COMMIT_TYPE_IRI = "typeIri";
+    private static final String COMMIT_CLASS_IRI = "classIri";
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private @Resource KnowledgeBaseService kbService;
+
+    @Value(value = "${data.path}/kb-index")
+    private File indexDir;
+
+    private final Analyzer analyzer = new Analyzer()
+    {
+        @Override
+        protected TokenStreamComponents createComponents(String aFieldName)
+        {
+            Tokenizer tokenizer = new StandardTokenizer();
+            return new TokenStreamComponents(tokenizer, new LowerCaseFilter(tokenizer));
+        }
+    };
+
+    private final Map<String, Index> indexes = new ConcurrentHashMap<>();
+    private final Set<String> pendingRebuilds = ConcurrentHashMap.newKeySet();
+    private final Set<String> runningRebuilds = ConcurrentHashMap.newKeySet();
+    private ExecutorService executor;
+
+    public KnowledgeBaseLabelIndex()
+    {
+        // Dependencies are injected by Spring
+    }
+
+    KnowledgeBaseLabelIndex(KnowledgeBaseService aKbService, File aIndexDir)
+    {
+        kbService = aKbService;
+        indexDir = aIndexDir;
+    }
+
+    @PostConstruct
+    public void init()
+    {
+        // All writes happen on this thread, so rebuilds and updates never interleave
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "kb-label-index");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void destroy()
+    {
+        executor.shutdownNow();
+        for (Index index : indexes.values()) {
+            index.release();
+        }
+        indexes.clear();
+    }
+
+    /**
+     * Waits until all rebuilds and updates which have been scheduled so far are done.
+     */
+    void awaitPendingWrites() throws InterruptedException, ExecutionException
+    {
+        executor.submit(() -> { }).get();
+    }
+
+    /**
+     * Finds entities whose labels or aliases match the given text. Matches of the complete
+     * label are ranked first, followed by matches of all words. The last word may also match as
+     * a prefix and longer words may contain typos.
+     *
+     * @return the matching entities or {@code null} if the knowledge base is not local or its
+     *         index is not available yet.
+     */
+    public List<CandidateEntity> search(KnowledgeBase aKB, String aText, int aLimit)
+    {
+        Index index = getUpToDateIndex(aKB);
+        if (index == null) {
+            return null;
+        }
+
+        List<String> tokens = analyze(aText);
+        if (tokens.isEmpty()) {
+            return new ArrayList<>();
+        }
+        String exact = String.join(" ", tokens);
+
+        BooleanQuery.Builder words = new BooleanQuery.Builder();
+        for (int i = 0; i < tokens.size(); i++) {
+            String token = tokens.get(i);
+            BooleanQuery.Builder word = new BooleanQuery.Builder();
+            word.add(new TermQuery(new Term(FIELD_TEXT, token)), Occur.SHOULD);
+            if (i == tokens.size() - 1) {
+                word.add(new BoostQuery(new PrefixQuery(new Term(FIELD_TEXT, token)), 0.5f),
+                        Occur.SHOULD);
+            }
+            if (token.length() >= 4) {
+                word.add(new BoostQuery(new FuzzyQuery(new Term(FIELD_TEXT, token),
+                        token.length() >= 8 ? 2 : 1), 0.3f), Occur.SHOULD);
+            }
+            words.add(word.build(), Occur.MUST);
+        }
+
+        Query query = new BooleanQuery.Builder()
+                .add(new BoostQuery(new TermQuery(new Term(FIELD_EXACT, exact)), 10f),
+                        Occur.SHOULD)
+                .add(words.build(), Occur.SHOULD)
+                .build();
+
+        return search(aKB, index, query, exact, aLimit);
+    }
+
+    /**
+     * Finds instances with a label or alias of which a word starts with the given prefix, e.g. to
+     * suggest instances while the user is typing. If the prefix consists of several words, the
+     * earlier ones must match completely. Names equal to the prefix are ranked first, followed by
+     * names starting with it.
+     *
+     * @param aConceptIri
+     *            the concept whose instances are searched or {@code null} to search all entities
+     *            which have a type other than the class type of the knowledge base.
+     * @return the matching instances or {@code null} if the knowledge base is not local or its
+     *         index is not available yet.
+     */
+    public List<CandidateEntity> searchInstances(KnowledgeBase aKB, String aConceptIri,
+            String aPrefix, int aLimit)
+    {
+        Index index = getUpToDateIndex(aKB);
+        if (index == null) {
+            return null;
+        }
+
+        BooleanQuery.Builder query = new BooleanQuery.Builder();
+        query.add(aConceptIri != null ? new TermQuery(new Term(FIELD_TYPE, aConceptIri))
+                : new TermQuery(new Term(FIELD_INSTANCE, Boolean.TRUE.toString())), Occur.FILTER);
+
+        List<String> tokens = analyze(aPrefix != null ? aPrefix : "");
+        String exact = String.join(" ", tokens);
+        if (!tokens.isEmpty()) {
+            BooleanQuery.Builder words = new BooleanQuery.Builder();
+            for (int i = 0; i < tokens.size(); i++) {
+                Term term = new Term(FIELD_TEXT, tokens.get(i));
+                words.add(i == tokens.size() - 1 ? new PrefixQuery(term) : new TermQuery(term),
+                        Occur.MUST);
+            }
+            query.add(words.build(), Occur.MUST);
+            query.add(new BoostQuery(new TermQuery(new Term(FIELD_EXACT, exact)), 10f),
+                    Occur.SHOULD);
+            query.add(new BoostQuery(new PrefixQuery(new Term(FIELD_EXACT, exact)), 5f),
+                    Occur.SHOULD);
+        }
+
+        return search(aKB, index, query.build(), exact, aLimit);
+    }
+
+    private List<CandidateEntity> search(KnowledgeBase aKB, Index aIndex, Query aQuery,
+            String aExact, int aLimit)
+    {
+        // The index may have been replaced after a failed write in the meantime
+        if (!aIndex.acquire()) {
+            return null;
+        }
+
+        List<CandidateEntity> result = new ArrayList<>();
+        try {
+            IndexSearcher searcher = aIndex.searcherManager.acquire();
+            try {
+                for (ScoreDoc hit : searcher.search(aQuery, Math.max(1, aLimit)).scoreDocs) {
+                    result.add(toCandidate(searcher.doc(hit.doc), aExact));
+                }
+            }
+            finally {
+                aIndex.searcherManager.release(searcher);
+            }
+        }
+        catch (IOException e) {
+            log.error("Unable to search label index of knowledge base [{}]", aKB.getName(), e);
+            return null;
+        }
+        finally {
+            aIndex.release();
+        }
+
+        return result;
+    }
+
+    @EventListener
+    public void onKnowledgeBaseDataChanged(KnowledgeBaseDataChangedEvent aEvent)
+    {
+        KnowledgeBase kb = aEvent.getKnowledgeBase();
+        if (!isIndexable(kb)) {
+            return;
+        }
+
+        if (aEvent.getIdentifier() == null) {
+            scheduleRebuild(kb);
+        }
+        else {
+            String identifier = aEvent.getIdentifier();
+            executor.submit(() -> update(kb, identifier));
+        }
+    }
+
+    @EventListener
+    public void onKnowledgeBaseConfigurationChanged(KnowledgeBaseConfigurationChangedEvent aEvent)
+    {
+        // Indexes built with a different label, description, type or class IRI are rebuilt
+        for (KnowledgeBase kb : kbService.getKnowledgeBases(aEvent.getProject())) {
+            getUpToDateIndex(kb);
+        }
+    }
+
+    @EventListener
+    public void onKnowledgeBaseRemoved(KnowledgeBaseRemovedEvent aEvent)
+    {
+        String repositoryId = aEvent.getKnowledgeBase().getRepositoryId();
+        if (repositoryId == null) {
+            return;
+        }
+
+        executor.submit(() -> {
+            Index index = indexes.remove(repositoryId);
+            if (index != null) {
+                index.release();
+            }
+            FileSystemUtils.deleteRecursively(new File(indexDir, repositoryId));
+        });
+    }
+
+    /**
+     * Returns the index of the given knowledge base if it is complete and has been built with the
+     * current configuration of the knowledge base. Otherwise, a rebuild is scheduled unless one
+     * is already running.
+     */
+    private Index getUpToDateIndex(KnowledgeBase aKB)
+    {
+        if (!isIndexable(aKB)) {
+            return null;
+        }
+
+        Index index = getIndex(aKB);
+        if (index == null) {
+            return null;
+        }
+
+        if (!index.isUpToDate(aKB)) {
+            if (!runningRebuilds.contains(aKB.getRepositoryId())) {
+                scheduleRebuild(aKB);
+            }
+            return null;
+        }
+
+        return index;
+    }
+
+    private Index getIndex(KnowledgeBase aKB)
+    {
+        try {
+            return indexes.computeIfAbsent(aKB.getRepositoryId(), id -> {
+                try {
+                    return new Index(new File(indexDir, id), analyzer);
+                }
+                catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        }
+        catch (IllegalStateException e) {
+            log.error("Unable to open label index of knowledge base [{}]", aKB.getName(), e);
+            return null;
+        }
+    }
+
+    private void scheduleRebuild(KnowledgeBase aKB)
+    {
+        String repositoryId = aKB.getRepositoryId();
+        // Changes arriving while a rebuild is queued are covered by that rebuild. Data which is
+        // imported while a rebuild is running may not have been read anymore, so it queues
+        // another rebuild.
+        if (pendingRebuilds.add(repositoryId)) {
+            executor.submit(() -> {
+                runningRebuilds.add(repositoryId);
+                pendingRebuilds.remove(repositoryId);
+                try {
+                    rebuild(aKB);
+                }
+                finally {
+                    runningRebuilds.remove(repositoryId);
+                }
+            });
+        }
+    }
+
+    private void rebuild(KnowledgeBase aKB)
+    {
+        Index index = getIndex(aKB);
+        if (index == null) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        try {
+            Map<String, Entity> entities = new HashMap<>();
+            try (RepositoryConnection conn = kbService.getConnection(aKB)) {
+                collect(conn, null, aKB, entities);
+            }
+
+            // Searchers only see committed changes, so searches continue to use the previous
+            // state of the index until the rebuild is committed
+            index.writer.deleteAll();
+            for (Entity entity : entities.values()) {
+                if (!entity.names.isEmpty()) {
+                    index.writer.addDocument(entity.toDocument());
+                }
+            }
+            index.commit(aKB, true);
+
+            log.info("Built label index of knowledge base [{}] with {} entities in {}ms",
+                    aKB.getName(), entities.size(), System.currentTimeMillis() - start);
+        }
+        catch (Exception e) {
+            log.error("Unable to build label index of knowledge base [{}]", aKB.getName(), e);
+            rollback(aKB, index);
+        }
+    }
+
+    private void update(KnowledgeBase aKB, String aIdentifier)
+    {
+        Index index = indexes.get(aKB.getRepositoryId());
+        // If there is no complete index yet, the entity is picked up when it is built
+        if (index == null || !index.built) {
+            return;
+        }
+
+        try {
+            Map<String, Entity> entities = new HashMap<>();
+            try (RepositoryConnection conn = kbService.getConnection(aKB)) {
+                collect(conn, conn.getValueFactory().createIRI(aIdentifier), aKB, entities);
+            }
+
+            Entity entity = entities.get(aIdentifier);
+            if (entity == null || entity.names.isEmpty()) {
+                index.writer.deleteDocuments(new Term(FIELD_IRI, aIdentifier));
+            }
+            else {
+                index.writer.updateDocument(new Term(FIELD_IRI, aIdentifier),
+                        entity.toDocument());
+            }
+            index.commit(aKB, true);
+        }
+        catch (Exception e) {
+            log.error("Unable to update label index of knowledge base [{}] for [{}]",
+                    aKB.getName(), aIdentifier, e);
+            rollback(aKB, index);
+        }
+    }
+
+    /**
+     * Discards all uncommitted changes to the index, e.g. the deletion of all documents by a
+     * failed rebuild. Rolling back closes the index writer, so the index is reopened from its last
+     * commit and replaces the rolled back one. Searches still using the rolled back index finish
+     * on it, it is closed once they have released it.
+     */
+    private void rollback(KnowledgeBase aKB, Index aIndex)
+    {
+        indexes.remove(aKB.getRepositoryId(), aIndex);
+        aIndex.rollback();
+        aIndex.release();
+        getIndex(aKB);
+    }
+
+    /**
+     * Collects labels, aliases, descriptions and types of the given subject or, if the subject is
+     * {@code null}, of all subjects in the knowledge base.
+     */
+    private void collect(RepositoryConnection aConn, IRI aSubject, KnowledgeBase aKB,
+            Map<String, Entity> aEntities)
+    {
+        ValueFactory vf = aConn.getValueFactory();
+        IRI labelIri = aKB.getLabelIri() != null ? aKB.getLabelIri()
+                : vf.createIRI("http://www.w3.org/2000/01/rdf-schema#label");
+
+        collect(aConn, aSubject, labelIri, aEntities, (entity, literal) -> {
+            entity.names.add(literal.getLabel());
+            if (entity.label == null || isPreferredLanguage(literal)) {
+                entity.label = literal.getLabel();
+            }
+        });
+        collect(aConn, aSubject, SKOS.ALT_LABEL, aEntities,
+            (entity, literal) -> entity.names.add(literal.getLabel()));
+        if (aKB.getDescriptionIri() != null) {
+            collect(aConn, aSubject, aKB.getDescriptionIri(), aEntities, (entity, literal) -> {
+                if (entity.description == null || isPreferredLanguage(literal)) {
+                    entity.description = literal.getLabel();
+                }
+            });
+        }
+
+        IRI typeIri = aKB.getTypeIri() != null ? aKB.getTypeIri() : RDF.TYPE;
+        try (RepositoryResult<Statement> stmts = aConn.getStatements(aSubject, typeIri, null,
+                false)) {
+            while (stmts.hasNext()) {
+                Statement stmt = stmts.next();
+                if (stmt.getSubject() instanceof IRI && stmt.getObject() instanceof IRI) {
+                    Entity entity = aEntities.computeIfAbsent(stmt.getSubject().stringValue(),
+                            Entity::new);
+                    entity.types.add(stmt.getObject().stringValue());
+                    // Classes are typed as well, but they are not instances
+                    entity.instance |= !stmt.getObject().equals(aKB.getClassIri());
+                }
+            }
+        }
+    }
+
+    private void collect(RepositoryConnection aConn, IRI aSubject, IRI aPredicate,
+            Map<String, Entity> aEntities, LiteralConsumer aConsumer)
+    {
+        try (RepositoryResult<Statement> stmts = aConn.getStatements(aSubject, aPredicate, null,
+                false)) {
+            while (stmts.hasNext()) {
+                Statement stmt = stmts.next();
+                if (stmt.getSubject() instanceof IRI && stmt.getObject() instanceof Literal) {
+                    String iri = stmt.getSubject().stringValue();
+                    aConsumer.accept(aEntities.computeIfAbsent(iri, Entity::new),
+                            (Literal) stmt.getObject());
+                }
+            }
+        }
+    }
+
+    private static boolean isPreferredLanguage(Literal aLiteral)
+    {
+        return !aLiteral.getLanguage().isPresent()
+                || aLiteral.getLanguage().get().toLowerCase(Locale.ROOT).startsWith("en");
+    }
+
+    private static boolean isIndexable(KnowledgeBase aKB)
+    {
+        return aKB.getType() == RepositoryType.LOCAL && aKB.getRepositoryId() != null;
+    }
+
+    private List<String> analyze(String aText)
+    {
+        List<String> tokens = new ArrayList<>();
+        try (TokenStream stream = analyzer.tokenStream(FIELD_TEXT, aText)) {
+            CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (stream.incrementToken()) {
+                tokens.add(term.toString());
+            }
+            stream.end();
+        }
+        catch (IOException e) {
+            log.error("Unable to analyze [{}]", aText, e);
+        }
+        return tokens;
+    }
+
+    private CandidateEntity toCandidate(Document aDoc, String aExact)
+    {
+        String label = aDoc.get(FIELD_LABEL);
+        String[] names = aDoc.getValues(FIELD_ALIAS);
+
+        // Report the name which matched best as the alternative label, like the SPARQL query
+        String bestName = names.length > 0 ? names[0] : label;
+        for (String name : names) {
+            String normalized = String.join(" ", analyze(name));
+            if (normalized.equals(aExact)) {
+                bestName = name;
+                break;
+            }
+            if (normalized.startsWith(aExact)) {
+                bestName = name;
+            }
+        }
+
+        String description = aDoc.get(FIELD_DESCRIPTION);
+        return new CandidateEntity(aDoc.get(FIELD_IRI), label != null ? label : "",
+                bestName != null ? bestName : "", description != null ? description : "");
+    }
+
+    private interface LiteralConsumer
+    {
+        void accept(Entity aEntity, Literal aLiteral);
+    }
+
+    private class Entity
+    {
+        private final String iri;
+        private final List<String> names = new ArrayList<>();
+        private final Set<String> types = new HashSet<>();
+        private boolean instance;
+        private String label;
+        private String description;
+
+        public Entity(String aIri)
+        {
+            iri = aIri;
+        }
+
+        public Document toDocument()
+        {
+            Document doc = new Document();
+            doc.add(new StringField(FIELD_IRI, iri, Store.YES));
+            doc.add(new StoredField(FIELD_LABEL, label != null ? label : names.get(0)));
+            if (description != null) {
+                doc.add(new StoredField(FIELD_DESCRIPTION, description));
+            }
+            for (String type : types) {
+                doc.add(new StringField(FIELD_TYPE, type, Store.NO));
+            }
+            if (instance) {
+                doc.add(new StringField(FIELD_INSTANCE, Boolean.TRUE.toString(), Store.NO));
+            }
+
+            Set<String> exactNames = new HashSet<>();
+            for (String name : names) {
+                doc.add(new StoredField(FIELD_ALIAS, name));
+                doc.add(new TextField(FIELD_TEXT, name, Store.NO));
+                String exact = String.join(" ", analyze(name));
+                if (!exact.isEmpty() && exactNames.add(exact)) {
+                    doc.add(new StringField(FIELD_EXACT, exact, Store.NO));
+                }
+            }
+            return doc;
+        }
+    }
+
+    private static class Index
+    {
+        private final Directory directory;
+        private final IndexWriter writer;
+        private final SearcherManager searcherManager;
+        private volatile boolean built;
+        private volatile Map<String, String> commitData;
+        // One reference is held by the map of open indexes, one by each running search
+        private final AtomicInteger refCount = new AtomicInteger(1);
+
+        public Index(File aDir, Analyzer aAnalyzer) throws IOException
+        {
+            aDir.mkdirs();
+            directory = FSDirectory.open(aDir.toPath());
+
+            Map<String, String> lastCommit = new HashMap<>();
+            if (DirectoryReader.indexExists(directory)) {
+                lastCommit.putAll(SegmentInfos.readLatestCommit(directory).getUserData());
+            }
+            commitData = lastCommit;
+            built = Boolean.parseBoolean(lastCommit.get(COMMIT_COMPLETE));
+
+            // Changes are committed explicitly, an interrupted rebuild must not be committed
+            // when the index is closed
+            writer = new IndexWriter(directory,
+                    new IndexWriterConfig(aAnalyzer).setCommitOnClose(false));
+            searcherManager = new SearcherManager(writer, true, false, null);
+        }
+
+        public boolean isUpToDate(KnowledgeBase aKB)
+        {
+            return built
+                    && Objects.equals(commitData.get(COMMIT_LABEL_IRI),
+                            iriToString(aKB.getLabelIri()))
+                    && Objects.equals(commitData.get(COMMIT_DESCRIPTION_IRI),
+                            iriToString(aKB.getDescriptionIri()))
+                    && Objects.equals(commitData.get(COMMIT_TYPE_IRI),
+                            iriToString(aKB.getTypeIri()))
+                    && Objects.equals(commitData.get(COMMIT_CLASS_IRI),
+                            iriToString(aKB.getClassIri()));
+        }
+
+        public void commit(KnowledgeBase aKB, boolean aComplete) throws IOException
+        {
+            Map<String, String> data = new LinkedHashMap<>();
+            data.put(COMMIT_COMPLETE, Boolean.toString(aComplete));
+            data.put(COMMIT_LABEL_IRI, iriToString(aKB.getLabelIri()));
+            data.put(COMMIT_DESCRIPTION_IRI, iriToString(aKB.getDescriptionIri()));
+            data.put(COMMIT_TYPE_IRI, iriToString(aKB.getTypeIri()));
+            data.put(COMMIT_CLASS_IRI, iriToString(aKB.getClassIri()));
+
+            writer.setLiveCommitData(data.entrySet());
+            writer.commit();
+            searcherManager.maybeRefresh();
+
+            commitData = data;
+            built = aComplete;
+        }
+
+        /**
+         * Acquires a reference to the index which must be released after use.
+         * 
+         * @return {@code false} if the index has already been closed.
+         */
+        public boolean acquire()
+        {
+            while (true) {
+                int count = refCount.get();
+                if (count <= 0) {
+                    return false;
+                }
+                if (refCount.compareAndSet(count, count + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Releases a reference to the index. The index is closed when the last reference has
+         * been released.
+         */
+        public void release()
+        {
+            if (refCount.decrementAndGet() == 0) {
+                close();
+            }
+        }
+
+        /**
+         * Discards all uncommitted changes and closes the writer, which releases the lock on the
+         * index directory. Searches can continue until the index is closed.
+         */
+        public void rollback()
+        {
+            try {
+                writer.rollback();
+            }
+            catch (IOException e) {
+                LoggerFactory.getLogger(KnowledgeBaseLabelIndex.class)
+                        .error("Unable to roll back label index", e);
+            }
+        }
+
+        private void close()
+        {
+            try {
+                searcherManager.close();
+                // Already closed if the index has been rolled back
+                if (writer.isOpen()) {
+                    writer.close();
+                }
+                directory.close();
+            }
+            catch (IOException e) {
+                LoggerFactory.getLogger(KnowledgeBaseLabelIndex.class)
+                        .error("Unable to close label index", e);
+            }
+        }
+
+        private static String iriToString(IRI aIri)
+        {
+            return aIri != null ? aIri.stringValue() : "";
+        }
+    }
+}
@@ -0,0 +1,356 @@
+/*
+ * Copyright 2018
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.conceptlinking.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.vocabulary.RDF;
+import org.eclipse.rdf4j.model.vocabulary.RDFS;
+import org.eclipse.rdf4j.model.vocabulary.SKOS;
+import org.eclipse.rdf4j.repository.Repository;
+import org.eclipse.rdf4j.repository.RepositoryConnection;
+import org.eclipse.rdf4j.repository.sail.SailRepository;
+import org.eclipse.rdf4j.sail.memory.MemoryStore;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.tudarmstadt.ukp.inception.conceptlinking.model.CandidateEntity;
+import de.tudarmstadt.ukp.inception.kb.KnowledgeBaseService;
+import de.tudarmstadt.ukp.inception.kb.RepositoryType;
+import de.tudarmstadt.ukp.inception.kb.event.KnowledgeBaseDataChangedEvent;
+import de.tudarmstadt.ukp.inception.kb.model.KnowledgeBase;
+
+public class KnowledgeBaseLabelIndexTest
+{
+    private static final String NS = "http://example.org/";
+
+    public @Rule TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Repository repository;
+    private KnowledgeBase kb;
+    private KnowledgeBaseService kbService;
+    private KnowledgeBaseLabelIndex sut;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        repository = new SailRepository(new MemoryStore());
+        repository.initialize();
+
+        kb = new KnowledgeBase();
+        kb.setName("kb");
+        kb.setRepositoryId("kb");
+        kb.setType(RepositoryType.LOCAL);
+        kb.setDescriptionIri(RDFS.COMMENT);
+        kb.setTypeIri(RDF.TYPE);
+        kb.setClassIri(RDFS.CLASS);
+
+        kbService = mock(KnowledgeBaseService.class);
+        when(kbService.getConnection(kb)).thenAnswer(invocation -> repository.getConnection());
+
+        sut = new KnowledgeBaseLabelIndex(kbService, temporaryFolder.getRoot());
+        sut.init();
+    }
+
+    @After
+    public void tearDown()
+    {
+        sut.destroy();
+        repository.shutDown();
+    }
+
+    @Test
+    public void thatIndexIsBuiltOnFirstSearch() throws Exception
+    {
+        addLabel("berlin", RDFS.LABEL, "Berlin");
+        addLabel("berlin", RDFS.COMMENT, "Capital of Germany");
+
+        assertThat(sut.search(kb, "Berlin", 10)).isNull();
+        sut.awaitPendingWrites();
+
+        List<CandidateEntity> candidates = sut.search(kb, "Berlin", 10);
+        assertThat(candidates).extracting(CandidateEntity::getIRI)
+                .containsExactly(NS + "berlin");
+        assertThat(candidates.get(0).getLabel()).isEqualTo("Berlin");
+        assertThat(candidates.get(0).getDescription()).isEqualTo("Capital of Germany");
+    }
+
+    @Test
+    public void thatCompleteLabelMatchIsRankedFirst() throws Exception
+    {
+        addLabel("bank", RDFS.LABEL, "Bank of England");
+        addLabel("england", RDFS.LABEL, "England");
+        addLabel("newengland", RDFS.LABEL, "New England");
+        build();
+
+        assertThat(sut.search(kb, "england", 10)).extracting(CandidateEntity::getIRI)
+                .startsWith(NS + "england")
+                .contains(NS + "bank", NS + "newengland");
+    }
+
+    @Test
+    public void thatAliasesPrefixesAndTyposMatch() throws Exception
+    {
+        addLabel("nyc", RDFS.LABEL, "New York City");
+        addLabel("nyc", SKOS.ALT_LABEL, "Big Apple");
+        build();
+
+        assertThat(sut.search(kb, "big apple", 10)).extracting(CandidateEntity::getAltLabel)
+                .containsExactly("Big Apple");
+        assertThat(sut.search(kb, "new yo", 10)).extracting(CandidateEntity::getIRI)
+                .containsExactly(NS + "nyc");
+        assertThat(sut.search(kb, "new yrok", 10)).extracting(CandidateEntity::getIRI)
+                .containsExactly(NS + "nyc");
+        assertThat(sut.search(kb, "boston", 10)).isEmpty();
+    }
+
+    @Test
+    public void thatChangedEntityIsUpdated() throws Exception
+    {
+        addLabel("paris", RDFS.LABEL, "Paris");
+        build();
+
+        try (RepositoryConnection conn = repository.getConnection()) {
+            conn.remove(iri("paris"), RDFS.LABEL, null);
+        }
+        addLabel("paris", RDFS.LABEL, "Lutetia");
+        sut.onKnowledgeBaseDataChanged(new KnowledgeBaseDataChangedEvent(this, kb, NS + "paris"));
+        sut.awaitPendingWrites();
+
+        assertThat(sut.search(kb, "paris", 10)).isEmpty();
+        assertThat(sut.search(kb, "lutetia", 10)).extracting(CandidateEntity::getIRI)
+                .containsExactly(NS + "paris");
+    }
+
+    @Test
+    public void thatRebuildPicksUpImportedData() throws Exception
+    {
+        addLabel("rome", RDFS.LABEL, "Rome");
+        build();
+
+        addLabel("madrid", RDFS.LABEL, "Madrid");
+        sut.onKnowledgeBaseDataChanged(new KnowledgeBaseDataChangedEvent(this, kb, null));
+        sut.awaitPendingWrites();
+
+        assertThat(sut.search(kb, "madrid", 10)).extracting(CandidateEntity::getIRI)
+                .containsExactly(NS + "madrid");
+        assertThat(sut.search(kb, "rome", 10)).extracting(CandidateEntity::getIRI)
+                .containsExactly(NS + "rome");
+    }
+
+    @Test
+    public void thatFailedRebuildKeepsPreviousIndex() throws Exception
+    {
+        addLabel("oslo", RDFS.LABEL, "Oslo");
+        build();
+
+        // Lucene rejects the exact-match term of this label because it is too long, so the
+        // rebuild fails after the old documents have been deleted
+        StringBuilder huge = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            huge.append("word ");
+        }
+        addLabel("huge", RDFS.LABEL, huge.toString());
+        sut.onKnowledgeBaseDataChanged(new KnowledgeBaseDataChangedEvent(this, kb, null));
+        sut.awaitPendingWrites();
+
+        assertThat(sut.search(kb, "oslo", 10)).extracting(CandidateEntity::getIRI)
+                .containsExactly(NS + "oslo");
+    }
+
+    @Test
+    public void thatSearchDuringRebuildUsesPreviousIndex() throws Exception
+    {
+        addLabel("lisbon", RDFS.LABEL, "Lisbon");
+        build();
+
+        CountDownLatch rebuilding = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            rebuilding.countDown();
+            proceed.await();
+            return repository.getConnection();
+        }).when(kbService).getConnection(kb);
+        addLabel("porto", RDFS.LABEL, "Porto");
+        sut.onKnowledgeBaseDataChanged(new KnowledgeBaseDataChangedEvent(this, kb, null));
+        rebuilding.await();
+
+        assertThat(sut.search(kb, "lisbon", 10)).extracting(CandidateEntity::getIRI)
+                .containsExactly(NS + "lisbon");
+
+        proceed.countDown();
+        sut.awaitPendingWrites();
+
+        assertThat(sut.search(kb, "porto", 10)).extracting(CandidateEntity::getIRI)
+                .containsExactly(NS + "porto");
+    }
+
+    @Test
+    public void thatSearchDuringRebuildDoesNotScheduleAnotherRebuild() throws Exception
+    {
+        addLabel("prague", RDFS.LABEL, "Prague");
+        build();
+
+        CountDownLatch rebuilding = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            rebuilding.countDown();
+            proceed.await();
+            return repository.getConnection();
+        }).when(kbService).getConnection(kb);
+        
+        // Indexes built with another description IRI are out of date
+        kb.setDescriptionIri(SKOS.DEFINITION);
+        assertThat(sut.search(kb, "prague", 10)).isNull();
+        rebuilding.await();
+        assertThat(sut.search(kb, "prague", 10)).isNull();
+        assertThat(sut.searchInstances(kb, null, "prague", 10)).isNull();
+
+        proceed.countDown();
+        sut.awaitPendingWrites();
+
+        assertThat(sut.search(kb, "prague", 10)).extracting(CandidateEntity::getIRI)
+                .containsExactly(NS + "prague");
+        // One initial build and one rebuild for the changed configuration
+        verify(kbService, times(2)).getConnection(kb);
+    }
+
+    @Test
+    public void thatIndexSurvivesRestart() throws Exception
+    {
+        addLabel("vienna", RDFS.LABEL, "Vienna");
+        build();
+        sut.destroy();
+
+        sut = new KnowledgeBaseLabelIndex(mock(KnowledgeBaseService.class),
+                temporaryFolder.getRoot());
+        sut.init();
+
+        assertThat(sut.search(kb, "vienna", 10)).extracting(CandidateEntity::getIRI)
+                .containsExactly(NS + "vienna");
+    }
+
+    @Test
+    public void thatInstancesAreFoundByPrefix() throws Exception
+    {
+        addInstance("berlin", iri("city"), "Berlin");
+        addInstance("bern", iri("city"), "Bern");
+        addInstance("newberlin", iri("city"), "New Berlin");
+        addInstance("paris", iri("city"), "Paris");
+
+        assertThat(sut.searchInstances(kb, null, "ber", 10)).isNull();
+        sut.awaitPendingWrites();
+
+        List<CandidateEntity> candidates = sut.searchInstances(kb, null, "ber", 10);
+        assertThat(candidates).extracting(CandidateEntity::getIRI)
+                .containsExactlyInAnyOrder(NS + "berlin", NS + "bern", NS + "newberlin");
+        assertThat(candidates.get(2).getIRI()).isEqualTo(NS + "newberlin");
+        assertThat(sut.searchInstances(kb, null, "Berlin", 10))
+                .extracting(CandidateEntity::getIRI)
+                .containsExactly(NS + "berlin", NS + "newberlin");
+        assertThat(sut.searchInstances(kb, null, "new be", 10))
+                .extracting(CandidateEntity::getIRI)
+                .containsExactly(NS + "newberlin");
+        assertThat(sut.searchInstances(kb, null, "ber", 1)).hasSize(1);
+    }
+
+    @Test
+    public void thatClassesAreNotFoundAsInstances() throws Exception
+    {
+        addInstance("city", RDFS.CLASS, "City");
+        addInstance("cityhall", iri("building"), "City Hall");
+        build();
+
+        assertThat(sut.searchInstances(kb, null, "city", 10)).extracting(CandidateEntity::getIRI)
+                .containsExactly(NS + "cityhall");
+    }
+
+    @Test
+    public void thatSearchIsLimitedToConcept() throws Exception
+    {
+        addInstance("berlin", iri("city"), "Berlin");
+        addInstance("wall", iri("building"), "Berlin Wall");
+        build();
+
+        assertThat(sut.searchInstances(kb, NS + "city", "berlin", 10))
+                .extracting(CandidateEntity::getIRI)
+                .containsExactly(NS + "berlin");
+        assertThat(sut.searchInstances(kb, NS + "building", "", 10))
+                .extracting(CandidateEntity::getIRI)
+                .containsExactly(NS + "wall");
+    }
+
+    @Test
+    public void thatChangedTypeIsUpdated() throws Exception
+    {
+        addInstance("rome", iri("city"), "Rome");
+        build();
+
+        try (RepositoryConnection conn = repository.getConnection()) {
+            conn.remove(iri("rome"), RDF.TYPE, null);
+            conn.add(iri("rome"), RDF.TYPE, iri("capital"));
+        }
+        sut.onKnowledgeBaseDataChanged(new KnowledgeBaseDataChangedEvent(this, kb, NS + "rome"));
+        sut.awaitPendingWrites();
+
+        assertThat(sut.searchInstances(kb, NS + "city", "rome", 10)).isEmpty();
+        assertThat(sut.searchInstances(kb, NS + "capital", "rome", 10))
+                .extracting(CandidateEntity::getIRI)
+                .containsExactly(NS + "rome");
+    }
+
+    private void build() throws Exception
+    {
+        sut.search(kb, "", 1);
+        sut.awaitPendingWrites();
+    }
+
+    private void addLabel(String aLocalName, IRI aPredicate, String aLabel)
+    {
+        try (RepositoryConnection conn = repository.getConnection()) {
+            ValueFactory vf = conn.getValueFactory();
+            conn.add(iri(aLocalName), aPredicate, vf.createLiteral(aLabel));
+        }
+    }
+
+    private void addInstance(String aLocalName, IRI aType, String aLabel)
+    {
+        addLabel(aLocalName, RDFS.LABEL, aLabel);
+        try (RepositoryConnection conn = repository.getConnection()) {
+            conn.add(iri(aLocalName), RDF.TYPE, aType);
+        }
+    }
+
+    private IRI iri(String aLocalName)
+    {
+        return repository.getValueFactory().createIRI(NS + aLocalName);
+    }
+}
@@ -55,6 +55,7 @@ public class EvaluationConfiguration
     private String trainingIncrementStrategy;
     private int trainingIncrementSize;
     private int testIncrementSize;
+    private int folds = 1;
 
     public EvaluationConfiguration()
     {
@@ -195,4 +196,17 @@ public class EvaluationConfiguration
         this.testIncrementSize = testIncrementSize;
     }
 
+    /**
+     * @return the number of folds of a cross-validation. If it is less than two, a single
+     *         evaluation on a holdout split is performed.
+     */
+    public int getFolds()
+    {
+        return folds;
+    }
+
+    public void setFolds(int folds)
+    {
+        this.folds = folds;
+    }
 }
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2018
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.recommendation.imls.core.dataobjects;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * The result of a k-fold cross-validation. The overall result is calculated from the predictions
+ * of all folds together. The mean and the variance of the per-fold scores indicate how much the
+ * score depends on the particular split of the data. An undefined fold F-score (-1) counts as 0.
+ */
+public class CrossValidationResult
+    implements Serializable
+{
+    private static final long serialVersionUID = 3608207387372384123L;
+
+    private final ExtendedResult result;
+    private final List<ExtendedResult> foldResults;
+
+    public CrossValidationResult(ExtendedResult result, List<ExtendedResult> foldResults)
+    {
+        this.result = result;
+        this.foldResults = Collections.unmodifiableList(new ArrayList<>(foldResults));
+    }
+
+    /**
+     * @return The result over the predictions of all folds.
+     */
+    public ExtendedResult getResult()
+    {
+        return result;
+    }
+
+    public List<ExtendedResult> getFoldResults()
+    {
+        return foldResults;
+    }
+
+    public double getFscoreMean()
+    {
+        return mean(r -> Math.max(r.getFscore(), 0));
+    }
+
+    public double getFscoreVariance()
+    {
+        return variance(r -> Math.max(r.getFscore(), 0));
+    }
+
+    public double getPrecisionMean()
+    {
+        return mean(ExtendedResult::getPrecision);
+    }
+
+    public double getPrecisionVariance()
+    {
+        return variance(ExtendedResult::getPrecision);
+    }
+
+    public double getRecallMean()
+    {
+        return mean(ExtendedResult::getRecall);
+    }
+
+    public double getRecallVariance()
+    {
+        return variance(ExtendedResult::getRecall);
+    }
+
+    private double mean(ToDoubleFunction<ExtendedResult> metric)
+    {
+        return foldResults.stream().mapToDouble(metric).average().orElse(0);
+    }
+
+    /**
+     * Sample variance of the metric over the folds.
+     */
+    private double variance(ToDoubleFunction<ExtendedResult> metric)
+    {
+        if (foldResults.size() < 2) {
+            return 0;
+        }
+
+        double mean = mean(metric);
+        double sum = 0;
+        for (ExtendedResult foldResult : foldResults) {
+            double diff = metric.applyAsDouble(foldResult) - mean;
+            sum += diff * diff;
+        }
+        return sum / (foldResults.size() - 1);
+    }
+}
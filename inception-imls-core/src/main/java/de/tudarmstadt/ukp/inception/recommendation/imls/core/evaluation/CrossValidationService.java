@@ -0,0 +1,179 @@
+/*
+ * Copyright 2018
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.recommendation.imls.core.evaluation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.IntFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.tudarmstadt.ukp.inception.recommendation.api.ClassificationTool;
+import de.tudarmstadt.ukp.inception.recommendation.api.model.AnnotationObject;
+import de.tudarmstadt.ukp.inception.recommendation.imls.conf.EvaluationConfiguration;
+import de.tudarmstadt.ukp.inception.recommendation.imls.core.dataobjects.CrossValidationResult;
+import de.tudarmstadt.ukp.inception.recommendation.imls.core.dataobjects.ExtendedResult;
+
+/**
+ * The CrossValidationService performs a k-fold cross-validation. The data is split into as many
+ * consecutive folds as specified in the EvaluationConfiguration and each fold is predicted by a
+ * classifier trained on all other folds.
+ *
+ * The folds are evaluated concurrently on the given executor. Since trainers and classifiers are
+ * stateful, every fold uses its own classification tool. The folds are views of the same data,
+ * so the data is extracted only once.
+ */
+public class CrossValidationService
+{
+    private Logger log = LoggerFactory.getLogger(getClass());
+
+    private final IntFunction<ClassificationTool<?>> toolFactory;
+    private final EvaluationConfiguration conf;
+
+    /**
+     * @param toolFactory
+     *            Creates a new classification tool for the fold with the given index.
+     * @param conf
+     *            The evaluation configuration, including the number of folds.
+     */
+    public CrossValidationService(IntFunction<ClassificationTool<?>> toolFactory,
+            EvaluationConfiguration conf)
+    {
+        if (toolFactory == null) {
+            throw new IllegalArgumentException("ClassificationTool factory cannot be null.");
+        }
+        if (conf == null) {
+            throw new IllegalArgumentException(
+                    "Training suite configuration for evaluation service cannot be null.");
+        }
+        if (conf.getFolds() < 2) {
+            throw new IllegalArgumentException("Cross-validation requires at least two folds.");
+        }
+
+        this.toolFactory = toolFactory;
+        this.conf = conf;
+    }
+
+    /**
+     * Evaluates the folds of the given data concurrently.
+     *
+     * @param data
+     *            The complete annotation data. It is not modified.
+     * @param executor
+     *            The executor to evaluate the folds on. It determines how many folds are
+     *            evaluated at the same time.
+     * @return The result of the cross-validation or null if there is not enough data for at least
+     *         two folds.
+     */
+    public CrossValidationResult evaluate(List<List<AnnotationObject>> data, Executor executor)
+    {
+        if (data == null) {
+            return null;
+        }
+
+        List<List<AnnotationObject>> shuffled = new ArrayList<>(data);
+        if (conf.isShuffleTrainingSet()) {
+            Collections.shuffle(shuffled);
+        }
+
+        int folds = Math.min(conf.getFolds(), shuffled.size());
+        if (folds < 2) {
+            log.info("Skipping cross-validation - not enough data");
+            return null;
+        }
+
+        log.info("Starting {}-fold cross-validation.", folds);
+
+        List<CompletableFuture<FoldPrediction>> futures = new ArrayList<>();
+        for (int fold = 0; fold < folds; fold++) {
+            int begin = fold * shuffled.size() / folds;
+            int end = (fold + 1) * shuffled.size() / folds;
+
+            List<List<AnnotationObject>> testData = shuffled.subList(begin, end);
+            List<List<AnnotationObject>> trainingData = new ArrayList<>();
+            trainingData.addAll(shuffled.subList(0, begin));
+            trainingData.addAll(shuffled.subList(end, shuffled.size()));
+
+            int foldIndex = fold;
+            futures.add(CompletableFuture.supplyAsync(
+                () -> predictFold(foldIndex, trainingData, testData), executor));
+        }
+
+        List<ExtendedResult> foldResults = new ArrayList<>();
+        List<List<AnnotationObject>> expected = new ArrayList<>();
+        List<List<AnnotationObject>> predicted = new ArrayList<>();
+        try {
+            for (CompletableFuture<FoldPrediction> future : futures) {
+                FoldPrediction prediction = future.join();
+                if (prediction == null) {
+                    continue;
+                }
+                foldResults.add(new ExtendedResult(prediction.expected, prediction.predicted));
+                expected.addAll(prediction.expected);
+                predicted.addAll(prediction.predicted);
+            }
+        }
+        catch (CompletionException e) {
+            futures.forEach(f -> f.cancel(false));
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+
+        if (foldResults.isEmpty()) {
+            log.info("Cross-validation finished without results.");
+            return null;
+        }
+
+        ExtendedResult result = new ExtendedResult(expected, predicted);
+        result.setTrainingSetSize(shuffled.size());
+
+        log.info("Cross-validation finished.");
+
+        return new CrossValidationResult(result, foldResults);
+    }
+
+    private FoldPrediction predictFold(int fold, List<List<AnnotationObject>> trainingData,
+            List<List<AnnotationObject>> testData)
+    {
+        log.debug("Evaluating fold {}.", fold);
+
+        EvaluationService es = new EvaluationService(toolFactory.apply(fold), conf);
+        List<List<AnnotationObject>> predicted = es.trainAndPredict(trainingData, testData);
+        return predicted != null ? new FoldPrediction(testData, predicted) : null;
+    }
+
+    private static class FoldPrediction
+    {
+        private final List<List<AnnotationObject>> expected;
+        private final List<List<AnnotationObject>> predicted;
+
+        public FoldPrediction(List<List<AnnotationObject>> expected,
+                List<List<AnnotationObject>> predicted)
+        {
+            this.expected = expected;
+            this.predicted = predicted;
+        }
+    }
+}
@@ -20,6 +20,7 @@ package de.tudarmstadt.ukp.inception.recommendation.imls.core.evaluation;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.function.Function;
 
 import org.apache.uima.jcas.JCas;
 import org.slf4j.Logger;
@@ -157,36 +158,68 @@ public class EvaluationService
             Collections.shuffle(data);
         }
 
-        trainer.reconfigure();
-
-        IncrementalTrainingEvaluationSuite suite = new IncrementalTrainingEvaluationSuite(conf,
-                data, trainer, classifier, trainOnCompleteSentence);
-
         log.info("Starting evaluation.");
 
-        log.info("Adding training data.");
-        suite.addIncrement(conf, 
-            (conf, d) -> { return createTrainingData(d); }, 
-            (conf, d) -> { return suite.allDataSelector(d); },
-            (conf, d) -> { return suite.aggregatingDataSelector(d); });
-
-        log.info("Training classifier " + classifier.getClass().getSimpleName() + ".");
+        IncrementalTrainingEvaluationSuite suite = train(data, this::createTrainingData);
 
         ExtendedResult result = null;
 
-        if (suite.getTotalData().size() > 1) {
-            suite.train();
-
+        if (suite != null) {
             log.info("Predict against unknown data.");
             result = suite.evaluateUnknownData(createTestData(data));
 
             log.info("Evaluation finished.");
+        }
+
+        return result;
+    }
 
-        } else {
+    /**
+     * Trains the classifier on the given training data and predicts the labels of the given test
+     * data. In contrast to {@link #evaluate(List)}, the data is neither shuffled nor split, so this
+     * can be used to evaluate the folds of a cross-validation.
+     * 
+     * @param trainingData
+     *            The data to train the classifier on.
+     * @param testData
+     *            The data to predict.
+     * @return The predicted test data or null if there is not enough training data.
+     */
+    public List<List<AnnotationObject>> trainAndPredict(List<List<AnnotationObject>> trainingData,
+            List<List<AnnotationObject>> testData)
+    {
+        if (trainingData == null || testData == null) {
+            return null;
+        }
+
+        IncrementalTrainingEvaluationSuite suite = train(trainingData, d -> d);
+
+        return suite != null ? suite.predict(testData) : null;
+    }
+
+    private IncrementalTrainingEvaluationSuite train(List<List<AnnotationObject>> data,
+            Function<List<List<AnnotationObject>>, List<List<AnnotationObject>>> trainingSelector)
+    {
+        trainer.reconfigure();
+
+        IncrementalTrainingEvaluationSuite suite = new IncrementalTrainingEvaluationSuite(conf,
+                data, trainer, classifier, trainOnCompleteSentence);
+
+        log.info("Adding training data.");
+        suite.addIncrement(conf, 
+            (conf, d) -> { return trainingSelector.apply(d); }, 
+            (conf, d) -> { return suite.allDataSelector(d); },
+            (conf, d) -> { return suite.aggregatingDataSelector(d); });
+
+        if (suite.getTotalData().size() <= 1) {
             log.info("Skipping increment - not enough data");
+            return null;
         }
 
-        return result;
+        log.info("Training classifier " + classifier.getClass().getSimpleName() + ".");
+        suite.train();
+
+        return suite;
     }
 
     public String getId()
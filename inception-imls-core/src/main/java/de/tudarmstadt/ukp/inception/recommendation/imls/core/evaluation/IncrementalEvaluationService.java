@@ -17,9 +17,12 @@
  */
 package de.tudarmstadt.ukp.inception.recommendation.imls.core.evaluation;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 
 import org.apache.uima.jcas.JCas;
 import org.slf4j.Logger;
@@ -88,6 +91,26 @@ public class IncrementalEvaluationService
      *         evaluation results for the known and unknown data for every iteration.
      */
     public EvaluationResult evaluateIncremental(List<List<AnnotationObject>> data)
+    {
+        return evaluateIncremental(data, r -> { }, () -> false);
+    }
+
+    /**
+     * Runs an incremental evaluation like {@link #evaluateIncremental(List)}, but reports the
+     * results after every increment and stops early if the run is cancelled.
+     * 
+     * @param data
+     *            The gold-standard data used for training and validation of the classifier.
+     * @param listener
+     *            Receives the results of all increments finished so far after every increment.
+     *            The lists of the reported result are not modified afterwards.
+     * @param cancelled
+     *            Checked before every increment. If it returns true, the evaluation stops and the
+     *            results of the increments finished so far are returned.
+     * @return The result of the incremental evaluation run.
+     */
+    public EvaluationResult evaluateIncremental(List<List<AnnotationObject>> data,
+            Consumer<EvaluationResult> listener, BooleanSupplier cancelled)
     {
         EvaluationResult result = new EvaluationResult(classifier.getClass().getSimpleName());
 
@@ -121,6 +144,10 @@ public class IncrementalEvaluationService
         
         log.info("Starting evaluation.");
         while (suite.hasNextIteration()) {
+            if (cancelled.getAsBoolean()) {
+                log.info("Evaluation cancelled.");
+                break;
+            }
             
             log.info("Adding increment."); 
             suite.addIncrement(conf,
@@ -139,6 +166,10 @@ public class IncrementalEvaluationService
                 log.info("Predict against unknown data.");
                 unknownEvaluationResults.add(suite.evaluateUnknownData());
             }
+            
+            listener.accept(new EvaluationResult(result.getId(),
+                    new ArrayList<>(knownEvaluationResults),
+                    new ArrayList<>(unknownEvaluationResults)));
         }
         log.info("Evaluation finished.");
 
@@ -249,8 +249,7 @@ public class IncrementalTrainingEvaluationSuite
 
         long classifyingStartTime = System.currentTimeMillis();
         
-        List<List<AnnotationObject>> predictedData = 
-                flattenInner(classifier.predictSentences(toTokenObjects(expectedData)));
+        List<List<AnnotationObject>> predictedData = predict(expectedData);
             
         long classifyingEndTime = System.currentTimeMillis();
 
@@ -263,6 +262,19 @@ public class IncrementalTrainingEvaluationSuite
         return result;
     }
     
+    /**
+     * Predicts the labels of the given data using the trained classifier. For each token, the
+     * annotation with the highest confidence is chosen.
+     * 
+     * @param data
+     *            The data to predict, the labels of the data are ignored.
+     * @return The predicted data, sentence by sentence and token by token.
+     */
+    public List<List<AnnotationObject>> predict(List<List<AnnotationObject>> data)
+    {
+        return flattenInner(classifier.predictSentences(toTokenObjects(data)));
+    }
+    
     /**
      * Flattens data by getting rid of the innermost layer
      * In case of predicted data, the recommendation with the highest confidence will be chosen 
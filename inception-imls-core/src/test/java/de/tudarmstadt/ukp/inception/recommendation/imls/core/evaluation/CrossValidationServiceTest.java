@@ -0,0 +1,249 @@
+/*
+ * Copyright 2018
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.recommendation.imls.core.evaluation;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.tudarmstadt.ukp.inception.recommendation.api.ClassificationTool;
+import de.tudarmstadt.ukp.inception.recommendation.api.Classifier;
+import de.tudarmstadt.ukp.inception.recommendation.api.ClassifierConfiguration;
+import de.tudarmstadt.ukp.inception.recommendation.api.Trainer;
+import de.tudarmstadt.ukp.inception.recommendation.api.model.AnnotationObject;
+import de.tudarmstadt.ukp.inception.recommendation.api.model.Offset;
+import de.tudarmstadt.ukp.inception.recommendation.api.model.TokenObject;
+import de.tudarmstadt.ukp.inception.recommendation.imls.conf.EvaluationConfiguration;
+import de.tudarmstadt.ukp.inception.recommendation.imls.core.dataobjects.CrossValidationResult;
+import de.tudarmstadt.ukp.inception.recommendation.imls.core.dataobjects.ExtendedResult;
+
+public class CrossValidationServiceTest
+{
+    private static final double EPSILON = 0.0001;
+
+    private EvaluationConfiguration conf;
+    private Map<Integer, List<String>> trainingTokens;
+
+    @Before
+    public void setUp()
+    {
+        conf = new EvaluationConfiguration();
+        conf.setFolds(2);
+
+        trainingTokens = new ConcurrentHashMap<>();
+    }
+
+    @Test
+    public void thatDataIsSplitIntoConsecutiveFolds()
+    {
+        CrossValidationService sut = new CrossValidationService(this::createTool, conf);
+
+        CrossValidationResult result = sut.evaluate(data(), Runnable::run);
+
+        // Five sentences in two folds: the first fold tests on the first two sentences, the
+        // second fold on the remaining three
+        assertThat(trainingTokens.get(0)).containsExactly("a", "b", "c");
+        assertThat(trainingTokens.get(1)).containsExactly("a", "b");
+        assertThat(result.getFoldResults()).extracting(ExtendedResult::getExpectedAnnotationCount)
+                .containsExactly(2, 3);
+    }
+
+    @Test
+    public void thatMetricsAreAggregatedOverFolds()
+    {
+        CrossValidationService sut = new CrossValidationService(this::createTool, conf);
+
+        CrossValidationResult result = sut.evaluate(data(), Runnable::run);
+
+        // The first fold knows all tokens, the second fold does not know "c"
+        ExtendedResult first = result.getFoldResults().get(0);
+        assertThat(first.getPrecision()).isCloseTo(1.0, within(EPSILON));
+        assertThat(first.getRecall()).isCloseTo(1.0, within(EPSILON));
+        assertThat(first.getFscore()).isCloseTo(1.0, within(EPSILON));
+
+        ExtendedResult second = result.getFoldResults().get(1);
+        assertThat(second.getPrecision()).isCloseTo(1.0, within(EPSILON));
+        assertThat(second.getRecall()).isCloseTo(2.0 / 3.0, within(EPSILON));
+        assertThat(second.getFscore()).isCloseTo(0.8, within(EPSILON));
+
+        // The overall result is calculated over the predictions of both folds together
+        assertThat(result.getResult().getTp()).isEqualTo(4);
+        assertThat(result.getResult().getExpectedAnnotationCount()).isEqualTo(5);
+        assertThat(result.getResult().getActualAnnotationCount()).isEqualTo(4);
+        assertThat(result.getResult().getRecall()).isCloseTo(0.8, within(EPSILON));
+        assertThat(result.getResult().getTrainingSetSize()).isEqualTo(5);
+
+        assertThat(result.getFscoreMean()).isCloseTo(0.9, within(EPSILON));
+        assertThat(result.getFscoreVariance()).isCloseTo(0.02, within(EPSILON));
+        assertThat(result.getPrecisionMean()).isCloseTo(1.0, within(EPSILON));
+        assertThat(result.getPrecisionVariance()).isCloseTo(0.0, within(EPSILON));
+        assertThat(result.getRecallMean()).isCloseTo(5.0 / 6.0, within(EPSILON));
+        assertThat(result.getRecallVariance()).isCloseTo(1.0 / 18.0, within(EPSILON));
+    }
+
+    @Test
+    public void thatFoldsAreLimitedByDataSize()
+    {
+        conf.setFolds(10);
+        CrossValidationService sut = new CrossValidationService(this::createTool, conf);
+
+        CrossValidationResult result = sut.evaluate(data().subList(0, 3), Runnable::run);
+
+        assertThat(result.getFoldResults()).hasSize(3);
+    }
+
+    @Test
+    public void thatTooLittleDataIsSkipped()
+    {
+        CrossValidationService sut = new CrossValidationService(this::createTool, conf);
+
+        assertThat(sut.evaluate(data().subList(0, 1), Runnable::run)).isNull();
+        assertThat(sut.evaluate(null, Runnable::run)).isNull();
+    }
+
+    /**
+     * Five sentences with a single token each. Tokens with the same text have the same label.
+     */
+    private static List<List<AnnotationObject>> data()
+    {
+        List<List<AnnotationObject>> data = new ArrayList<>();
+        int id = 0;
+        for (String[] token : asList(new String[] { "a", "X" }, new String[] { "b", "Y" },
+                new String[] { "a", "X" }, new String[] { "b", "Y" },
+                new String[] { "c", "Z" })) {
+            TokenObject tokenObject = new TokenObject(new Offset(id, id + 1, id, id), token[0],
+                    "doc", "doc", id);
+            data.add(singletonList(new AnnotationObject(tokenObject, token[1], token[1], id,
+                    "value", "test", 0)));
+            id++;
+        }
+        return data;
+    }
+
+    private ClassificationTool<?> createTool(int aFold)
+    {
+        ClassifierConfiguration<Object> classifierConf = new ClassifierConfiguration<>();
+        return new ClassificationTool<Object>(0, "memorizing",
+                new MemorizingTrainer(aFold, classifierConf),
+                new MemorizingClassifier(classifierConf), null, false, true)
+        {
+        };
+    }
+
+    /**
+     * Remembers the label of each token seen during training.
+     */
+    private class MemorizingTrainer
+        extends Trainer<Object>
+    {
+        private final int fold;
+
+        public MemorizingTrainer(int aFold, ClassifierConfiguration<Object> aConf)
+        {
+            super(aConf);
+            fold = aFold;
+        }
+
+        @Override
+        public Object train(List<List<AnnotationObject>> aTrainingData)
+        {
+            Map<String, String> model = new HashMap<>();
+            List<String> tokens = new ArrayList<>();
+            for (List<AnnotationObject> sentence : aTrainingData) {
+                for (AnnotationObject ao : sentence) {
+                    model.put(ao.getCoveredText(), ao.getLabel());
+                    tokens.add(ao.getCoveredText());
+                }
+            }
+            trainingTokens.put(fold, tokens);
+            return model;
+        }
+
+        @Override
+        public boolean saveModel()
+        {
+            return false;
+        }
+
+        @Override
+        public Object loadModel()
+        {
+            return null;
+        }
+
+        @Override
+        public void reconfigure()
+        {
+            // Nothing to do
+        }
+    }
+
+    /**
+     * Predicts the remembered label of each token or no label for unknown tokens.
+     */
+    private static class MemorizingClassifier
+        extends Classifier<Object>
+    {
+        private Map<String, String> model;
+
+        public MemorizingClassifier(ClassifierConfiguration<Object> aConf)
+        {
+            super(aConf);
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public void setModel(Object aModel)
+        {
+            model = (Map<String, String>) aModel;
+        }
+
+        @Override
+        public <T extends TokenObject> List<List<List<AnnotationObject>>> predictSentences(
+                List<List<T>> aInputData)
+        {
+            List<List<List<AnnotationObject>>> result = new ArrayList<>();
+            for (List<T> sentence : aInputData) {
+                List<List<AnnotationObject>> predictedSentence = new ArrayList<>();
+                for (T token : sentence) {
+                    String label = model.get(token.getCoveredText());
+                    predictedSentence.add(singletonList(new AnnotationObject(token, label,
+                            label, token.getId(), "value", "test", 0)));
+                }
+                result.add(predictedSentence);
+            }
+            return result;
+        }
+
+        @Override
+        public void reconfigure()
+        {
+            // Nothing to do
+        }
+    }
+}
@@ -36,6 +36,7 @@ public class DL4JConfigurationParameters
     private int maxTagsetSize = 70;
     private int truncateLength = 150;
     private int nEpochs = 2;
+    private int batchSize = 32;
     private OptimizationAlgorithm optimizationAlgorithm = 
             OptimizationAlgorithm.STOCHASTIC_GRADIENT_DESCENT;
     private WeightInit weightInit = WeightInit.XAVIER;
@@ -104,6 +105,18 @@ public class DL4JConfigurationParameters
     {
         this.nEpochs = nEpochs;
     }
+    /**
+     * Number of sentences per mini-batch during training and prediction. Sentences are grouped
+     * by length so that little padding is needed within a batch.
+     */
+    public int getBatchSize()
+    {
+        return batchSize;
+    }
+    public void setBatchSize(int batchSize)
+    {
+        this.batchSize = batchSize;
+    }
     public OptimizationAlgorithm getOptimizationAlgorithm()
     {
         return optimizationAlgorithm;
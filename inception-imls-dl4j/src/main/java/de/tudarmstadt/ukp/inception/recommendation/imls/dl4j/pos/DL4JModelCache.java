@@ -0,0 +1,80 @@
+/*
+ * Copyright 2018
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.recommendation.imls.dl4j.pos;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.util.ModelSerializer;
+
+/**
+ * Keeps the most recently used deserialized networks in memory. Restoring a network from its
+ * model file is expensive and the same model is set on a new classifier for every prediction
+ * run. A cached network is identified by the path, size and modification time of its model file,
+ * so a retrained model written to the same file is loaded again.
+ * <p>
+ * The cached networks are shared between classifiers. Since a {@link MultiLayerNetwork} keeps
+ * state while computing its output, callers must synchronize on the network while using it.
+ */
+final class DL4JModelCache
+{
+    private static final int MAX_SIZE = 8;
+
+    private static final Map<String, MultiLayerNetwork> cache = new LinkedHashMap<String,
+            MultiLayerNetwork>(16, 0.75f, true)
+    {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, MultiLayerNetwork> aEldest)
+        {
+            return size() > MAX_SIZE;
+        }
+    };
+
+    private DL4JModelCache()
+    {
+        // No instances
+    }
+
+    static MultiLayerNetwork get(File aModelFile) throws IOException
+    {
+        String key = aModelFile.getAbsolutePath() + "|" + aModelFile.length() + "|"
+                + aModelFile.lastModified();
+
+        synchronized (cache) {
+            MultiLayerNetwork net = cache.get(key);
+            if (net != null) {
+                return net;
+            }
+        }
+
+        // Restore outside the lock - if two threads restore the same model concurrently, the
+        // network of the second one simply replaces that of the first one in the cache
+        MultiLayerNetwork net = ModelSerializer.restoreMultiLayerNetwork(aModelFile);
+        net.init();
+
+        synchronized (cache) {
+            cache.put(key, net);
+        }
+        return net;
+    }
+}
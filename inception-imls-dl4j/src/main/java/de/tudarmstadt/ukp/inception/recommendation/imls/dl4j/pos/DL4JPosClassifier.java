@@ -23,14 +23,12 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
 import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
-import org.deeplearning4j.util.ModelSerializer;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.dataset.DataSet;
 import org.nd4j.linalg.factory.Nd4j;
@@ -81,8 +79,7 @@ public class DL4JPosClassifier
         }
 
         try {
-            net = ModelSerializer.restoreMultiLayerNetwork(fIn);
-            net.init();
+            net = DL4JModelCache.get(fIn);
             tagset = loadTagset();
         }
         catch (IOException e) {
@@ -136,42 +133,72 @@ public class DL4JPosClassifier
         }
         
         DL4JConfigurationParameters params = getClassifierConfiguration().getParams();
-        DataSet evaluationData;
-
-        int id = 0;
-        for (int s = 0; s < inputData.size(); s++) {
+        List<List<AnnotationObject>> sentences = CasUtil.transformToAnnotationObjects(inputData,
+                "PosValue", "DL4JPosClassifier", conf.getRecommenderId());
+
+        // Predict sentences of similar length together in one masked mini-batch
+        int[][] predictedTags = new int[inputData.size()][];
+        for (List<Integer> batch : Vectorizer.batchByLength(sentences, params.getBatchSize())) {
+            List<List<AnnotationObject>> batchSentences = new ArrayList<>();
+            for (int s : batch) {
+                batchSentences.add(sentences.get(s));
+            }
+            
+            // Batches are sorted by length, so if the last sentence is empty, all are
+            if (batchSentences.get(batchSentences.size() - 1).isEmpty()) {
+                for (int s : batch) {
+                    predictedTags[s] = new int[0];
+                }
+                continue;
+            }
+            
             // Vectorize
+            DataSet evaluationData;
             try {
-                evaluationData = 
-                        vectorizer.vectorize(CasUtil.transformToAnnotationObjects
-                                (Arrays.asList(inputData.get(s)), "PosValue", "DL4JPosClassifier",
-                                    conf.getRecommenderId()),
-                                params.getWordVectors(),
+                evaluationData = vectorizer.vectorize(batchSentences, params.getWordVectors(),
                         params.getTruncateLength(), params.getMaxTagsetSize(), true);
             }
             catch (Exception e) {
-                log.error("Cannot vectorize input data [sentence #{}].", s, e);
+                log.error("Cannot vectorize input data [sentences {}].", batch, e);
                 return result;
             }
 
-            // Predict labels
-            INDArray predicted = net.output(evaluationData.getFeatureMatrix(), false,
-                    evaluationData.getFeaturesMaskArray(), evaluationData.getLabelsMaskArray());
+            // Predict labels - the network is shared via the model cache and keeps state while
+            // computing the output
+            INDArray predicted;
+            synchronized (net) {
+                predicted = net.output(evaluationData.getFeatureMatrix(), false,
+                        evaluationData.getFeaturesMaskArray(),
+                        evaluationData.getLabelsMaskArray());
+            }
+            INDArray argMax = Nd4j.argMax(predicted, 1);
 
-            // create predicted data
+            int length = predicted.size(2);
+            for (int b = 0; b < batch.size(); b++) {
+                int[] tags = new int[Math.min(batchSentences.get(b).size(), length)];
+                for (int t = 0; t < tags.length; t++) {
+                    tags[t] = argMax.getInt(b, t);
+                }
+                predictedTags[batch.get(b)] = tags;
+            }
+        }
+
+        // create predicted data
+        String feature = conf.getFeature();
+        if (feature == null) {
+            feature = "PosValue";
+        }
+        
+        int id = 0;
+        for (int s = 0; s < inputData.size(); s++) {
             List<T> sentence = inputData.get(s);
             List<List<AnnotationObject>> generatedSentence = new LinkedList<>();
-            INDArray argMax = Nd4j.argMax(predicted, 1);
 
-            String feature = conf.getFeature();
-            if (feature == null) {
-                feature = "PosValue";
-            }
-            
-            for (int i = 0; i < sentence.size(); i++) {
-                int tagIdx = argMax.getInt(i);
+            // Tokens beyond the truncation length have not been vectorized and get no label
+            int[] tags = predictedTags[s];
+            for (int i = 0; i < tags.length; i++) {
                 T t = sentence.get(i);
-                AnnotationObject ao = new AnnotationObject(tagset.get(tagIdx), t,
+                AnnotationObject ao = new AnnotationObject(tagset.get(tags[i]), t,
                         id, feature, "DL4JPosClassifier", conf.getRecommenderId());
                 List<AnnotationObject> word = new LinkedList<>();
                 word.add(ao);
@@ -21,14 +21,14 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 
 import org.apache.commons.compress.archivers.ArchiveOutputStream;
 import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
 import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
-import org.deeplearning4j.datasets.iterator.impl.ListDataSetIterator;
 import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
 import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
 import org.deeplearning4j.nn.conf.layers.GravesLSTM;
@@ -37,7 +37,6 @@ import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
 import org.deeplearning4j.optimize.listeners.ScoreIterationListener;
 import org.deeplearning4j.util.ModelSerializer;
 import org.nd4j.linalg.dataset.DataSet;
-import org.nd4j.linalg.dataset.api.iterator.DataSetIterator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -98,24 +97,39 @@ public class DL4JPosTrainer
         }
 
         DL4JConfigurationParameters params = getClassifierConfiguration().getParams();
-        List<DataSet> trainingData = new LinkedList<>();
-
-        for (List<AnnotationObject> sentence : trainingDataIncrement) {
+        List<DataSet> trainingData = new ArrayList<>();
+
+        // Sentences of similar length are vectorized together into one masked mini-batch
+        for (List<Integer> batch : Vectorizer.batchByLength(trainingDataIncrement,
+                params.getBatchSize())) {
+            List<List<AnnotationObject>> sentences = new ArrayList<>();
+            for (int idx : batch) {
+                sentences.add(trainingDataIncrement.get(idx));
+            }
+            
+            // Batches are sorted by length, so if the last sentence is empty, all are
+            if (sentences.get(sentences.size() - 1).isEmpty()) {
+                continue;
+            }
+            
             try {
-                trainingData
-                        .add(vectorizer.vectorize(Arrays.asList(sentence), params.getWordVectors(),
-                                params.getTruncateLength(), params.getMaxTagsetSize(), true));
+                trainingData.add(vectorizer.vectorize(sentences, params.getWordVectors(),
+                        params.getTruncateLength(), params.getMaxTagsetSize(), true));
             }
             catch (Exception e) {
-                log.error("Cannot vectorize sentence.", e);
+                log.error("Cannot vectorize sentences.", e);
                 return null;
             }
         }
 
-        DataSetIterator trainingIterator = new ListDataSetIterator(trainingData);
+        // Batches are sorted by length, so shuffle them to avoid training on short sentences
+        // first and long sentences last in every epoch
+        Random random = new Random(0);
         for (int i = 0; i < params.getnEpochs(); i++) {
-            net.fit(trainingIterator);
-            trainingIterator.reset();
+            Collections.shuffle(trainingData, random);
+            for (DataSet batch : trainingData) {
+                net.fit(batch);
+            }
             log.info("Completed epoch #{}.", i);
         }
 
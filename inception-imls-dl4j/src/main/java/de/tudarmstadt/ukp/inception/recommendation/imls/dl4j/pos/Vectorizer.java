@@ -17,12 +17,14 @@
  */
 package de.tudarmstadt.ukp.inception.recommendation.imls.dl4j.pos;
 
+import static java.util.Comparator.comparingInt;
 import static org.nd4j.linalg.indexing.NDArrayIndex.all;
 import static org.nd4j.linalg.indexing.NDArrayIndex.point;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -36,7 +38,8 @@ import de.tudarmstadt.ukp.inception.recommendation.api.model.AnnotationObject;
 
 public class Vectorizer
 {
-    private Map<String, Integer> tagset = new HashMap<String, Integer>();
+    // Insertion order is the tag index, so that getTagset() returns the tags in index order
+    private Map<String, Integer> tagset = new LinkedHashMap<String, Integer>();
 
     // Special use embeddings
     private INDArray randUnk;
@@ -59,7 +62,10 @@ public class Vectorizer
     {
         int embeddingSize = wordVectors.dimensions(); 
 
-        randUnk = Nd4j.rand(1, embeddingSize, Nd4j.getRandom()).subi(0.5).divi(embeddingSize);
+        if (randUnk == null || randUnk.length() != embeddingSize) {
+            randUnk = Nd4j.rand(1, embeddingSize, Nd4j.getRandom()).subi(0.5)
+                    .divi(embeddingSize);
+        }
 
         int maxSentLength = sentences.stream().mapToInt(tokens -> tokens.size()).max().getAsInt();
         // If longest sentence exceeds 'truncateLength': only take the first 'truncateLength' words
@@ -106,6 +112,30 @@ public class Vectorizer
         return new DataSet(features, labels, featuresMask, labelsMask);
     }
 
+    /**
+     * Groups the given sentences into batches of at most the given size. The sentences are
+     * sorted by length first, so that the sentences in a batch have similar lengths and little
+     * padding is needed when the batch is vectorized.
+     * 
+     * @return the batches as lists of indexes into the given list of sentences.
+     */
+    public static List<List<Integer>> batchByLength(List<? extends List<?>> sentences,
+            int batchSize)
+    {
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < sentences.size(); i++) {
+            order.add(i);
+        }
+        order.sort(comparingInt(i -> sentences.get(i).size()));
+
+        int size = Math.max(1, batchSize);
+        List<List<Integer>> batches = new ArrayList<>();
+        for (int i = 0; i < order.size(); i += size) {
+            batches.add(new ArrayList<>(order.subList(i, Math.min(i + size, order.size()))));
+        }
+        return batches;
+    }
+
     public Collection<String> getTagset()
     {
         return tagset.keySet();
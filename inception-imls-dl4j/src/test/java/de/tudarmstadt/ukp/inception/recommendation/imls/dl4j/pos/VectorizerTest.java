@@ -0,0 +1,43 @@
+/*
+ * Copyright 2018
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.recommendation.imls.dl4j.pos;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+
+import org.junit.Test;
+
+public class VectorizerTest
+{
+    @Test
+    public void thatSentencesAreBatchedByLength()
+    {
+        List<List<String>> sentences = asList(
+                asList("a", "b", "c", "d"),
+                asList("a"),
+                asList("a", "b", "c"),
+                asList("a", "b"),
+                asList("a", "b", "c", "d", "e"));
+
+        List<List<Integer>> batches = Vectorizer.batchByLength(sentences, 2);
+
+        assertEquals(asList(asList(1, 3), asList(2, 0), asList(4)), batches);
+    }
+}
@@ -24,12 +24,13 @@ public class ExternalClassificationTool
 
 {
     public ExternalClassificationTool(long recommenderId, String feature, String type,
-        ExternalClassifierTraits traits)
+        ExternalClassifierTraits traits, ExternalRecommenderClient client)
     {
         super(recommenderId, ExternalClassificationTool.class.getName(),
             new ExternalTrainer(new BaseConfiguration()),
             new ExternalClassifier(new BaseConfiguration(feature),
-                new CustomAnnotationObjectLoader(feature, type), traits, recommenderId),
+                new CustomAnnotationObjectLoader(feature, type), traits, recommenderId,
+                client),
             new CustomAnnotationObjectLoader(feature, type), true, false);
     }
 
@@ -50,6 +50,7 @@ public class ExternalClassificationToolFactory
             "de.tudarmstadt.ukp.inception.recommendation.imls.external.ExternalClassificationTool";
 
     private @Autowired RecommendationService recommendationService;
+    private @Autowired ExternalRecommenderClient client;
     
     @Override
     public String getId()
@@ -71,7 +72,7 @@ public class ExternalClassificationToolFactory
         ExternalClassifierTraits traits = readTraits(recommender);
         String type = aLayer.getName();
 
-        return new ExternalClassificationTool(aRecommenderId, aFeature, type, traits);
+        return new ExternalClassificationTool(aRecommenderId, aFeature, type, traits, client);
     }
 
     @Override
@@ -18,6 +18,7 @@
 package de.tudarmstadt.ukp.inception.recommendation.imls.external;
 
 import org.apache.wicket.markup.html.form.Form;
+import org.apache.wicket.markup.html.form.NumberTextField;
 import org.apache.wicket.markup.html.form.TextField;
 import org.apache.wicket.markup.html.panel.Panel;
 import org.apache.wicket.model.CompoundPropertyModel;
@@ -63,6 +64,12 @@ public class ExternalClassificationToolTraitsEditor
         remoteUrl.add(new UrlValidator());
         form.add(remoteUrl);
 
+        NumberTextField<Integer> batchSize = new NumberTextField<>("batchSize", Integer.class);
+        batchSize.setRequired(true);
+        batchSize.setMinimum(1);
+        batchSize.setMaximum(100);
+        form.add(batchSize);
+
         add(form);
     }
 }
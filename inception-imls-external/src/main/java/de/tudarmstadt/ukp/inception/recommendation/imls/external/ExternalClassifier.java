@@ -17,27 +17,25 @@
  */
 package de.tudarmstadt.ukp.inception.recommendation.imls.external;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
-import java.util.Base64;
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 
-import org.apache.http.HttpEntity;
-import org.apache.http.client.methods.CloseableHttpResponse;
-import org.apache.http.client.methods.HttpPost;
-import org.apache.http.entity.StringEntity;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
-import org.apache.http.util.EntityUtils;
+import org.apache.uima.cas.CASException;
 import org.apache.uima.cas.CASRuntimeException;
+import org.apache.uima.cas.TypeSystem;
 import org.apache.uima.cas.impl.XmiCasDeserializer;
 import org.apache.uima.cas.impl.XmiCasSerializer;
 import org.apache.uima.jcas.JCas;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.apache.uima.resource.metadata.TypeSystemDescription;
+import org.apache.uima.util.CasCreationUtils;
 import org.apache.uima.util.TypeSystemUtil;
-import org.apache.wicket.ajax.json.JSONException;
-import org.apache.wicket.ajax.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xml.sax.SAXException;
@@ -56,15 +54,23 @@ public class ExternalClassifier
     private CustomAnnotationObjectLoader loader;
     private ExternalClassifierTraits traits;
     private long recommenderId;
+    private ExternalRecommenderClient client;
+    
+    // The type system rarely changes between documents, so its serialized form is kept
+    private TypeSystem serializedTypeSystem;
+    private TypeSystemDescription typeSystemDescription;
+    private String typeSystemXml;
 
     public ExternalClassifier(ClassifierConfiguration<Object> aConfiguration,
                               CustomAnnotationObjectLoader aLoader,
-                              ExternalClassifierTraits aTraits, long aRecommenderId)
+                              ExternalClassifierTraits aTraits, long aRecommenderId,
+                              ExternalRecommenderClient aClient)
     {
         super(aConfiguration);
         loader = aLoader;
         traits = aTraits;
         recommenderId = aRecommenderId;
+        client = aClient;
     }
 
     @Override
@@ -91,12 +97,19 @@ public class ExternalClassifier
     public <T extends TokenObject> List<AnnotationObject> predict(JCas aJCas, AnnotationLayer layer)
     {
         //serialize Typesystem
-        ByteArrayOutputStream typeOS = new ByteArrayOutputStream();
-        try {
-            TypeSystemUtil.typeSystem2TypeSystemDescription(aJCas.getTypeSystem()).toXML(typeOS);
-        }
-        catch (CASRuntimeException | SAXException | IOException e) {
-            log.error("Error while serializing type system!", e);
+        if (serializedTypeSystem != aJCas.getTypeSystem()) {
+            ByteArrayOutputStream typeOS = new ByteArrayOutputStream();
+            try {
+                typeSystemDescription = TypeSystemUtil
+                        .typeSystem2TypeSystemDescription(aJCas.getTypeSystem());
+                typeSystemDescription.toXML(typeOS);
+            }
+            catch (CASRuntimeException | SAXException | IOException e) {
+                log.error("Error while serializing type system!", e);
+                return new ArrayList<>();
+            }
+            typeSystemXml = new String(typeOS.toByteArray(), UTF_8);
+            serializedTypeSystem = aJCas.getTypeSystem();
         }
 
         //Serialize the JCas to XMI and sent it to the Python webservice. 
@@ -107,49 +120,38 @@ public class ExternalClassifier
         }
         catch (SAXException | IOException e) {
             log.error("Error while serializing CAS!", e);
+            return new ArrayList<>();
         }
         
-        //Contruct Http Request
-        String remoteUrl = traits.getRemoteUrl();
-
-        CloseableHttpClient httpclient = HttpClients.createDefault();
-        HttpPost httpPost = new HttpPost(remoteUrl);
-        httpPost.addHeader("content-type", "application/json");
-        httpPost.addHeader("charset", "utf-8");
-        
-        //construct the request's content
-        //i.e. JSON with Base64 encoded bytestreams of Typesystem-XML and CAS-XMI
+        //Send Query via the shared client and wait for the results
+        ExternalRecommenderClient.Request request = new ExternalRecommenderClient.Request(
+                traits.getRemoteUrl(), layer.getName(), conf.getFeature(), typeSystemXml,
+                new String(casOS.toByteArray(), UTF_8), traits.getBatchSize());
+        String result;
         try {
-            String jsonString = new JSONObject()
-                    .put("CAS", new String(Base64.getEncoder().encode(casOS.toByteArray()),
-                        "utf-8"))
-                    .put("Typesystem",
-                    new String(Base64.getEncoder().encode(typeOS.toByteArray()), "utf-8"))
-                    .put("Layer", layer.getName())
-                    .put("Feature", conf.getFeature())
-                    .toString();
-            httpPost.setEntity(new StringEntity(jsonString, "utf-8"));
+            result = client.predict(request);
         }
-        catch (JSONException | UnsupportedEncodingException e) {
-            log.error("Error while creating request!", e);
+        catch (IOException e) {
+            log.error("Error while sending request!", e);
+            return new ArrayList<>();
         }
         
-        //Send Query and wait for the results
-        try (CloseableHttpResponse response = httpclient.execute(httpPost)) {
-            HttpEntity entity = response.getEntity();
-            
-            //extract the results 
-            XmiCasDeserializer.deserialize(entity.getContent(), aJCas.getCas());
-
-            // ensure request is fully consumed
-            EntityUtils.consume(entity);
+        // The given CAS is shared with other recommenders and must not be modified, so the
+        // response is deserialized into a CAS of its own
+        JCas responseJCas;
+        try {
+            responseJCas = CasCreationUtils.createCas(typeSystemDescription, null, null)
+                    .getJCas();
+            XmiCasDeserializer.deserialize(new ByteArrayInputStream(result.getBytes(UTF_8)),
+                    responseJCas.getCas());
         }
-        catch (UnsupportedOperationException | SAXException | IOException e) {
-            log.error("Error while sending request!", e);
+        catch (ResourceInitializationException | CASException | SAXException | IOException e) {
+            log.error("Error while reading response!", e);
+            return new ArrayList<>();
         }
 
-        List<List<AnnotationObject>> annotatedSentences = loader.loadAnnotationObjects(aJCas,
-            recommenderId);
+        List<List<AnnotationObject>> annotatedSentences = loader
+                .loadAnnotationObjects(responseJCas, recommenderId);
         List<List<List<AnnotationObject>>> wrappedSents = new LinkedList<>();
         for (List<AnnotationObject> sentence : annotatedSentences) {
             List<List<AnnotationObject>> sentenceList = new LinkedList<>();
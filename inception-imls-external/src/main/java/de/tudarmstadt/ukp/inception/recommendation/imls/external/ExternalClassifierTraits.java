@@ -26,6 +26,9 @@ public class ExternalClassifierTraits
     private static final long serialVersionUID = -3109239605741337123L;
 
     private String remoteUrl = "http://localhost:12889/tag";
+    
+    // Recommenders which do not support batch requests use the default
+    private int batchSize = 1;
 
     public String getRemoteUrl()
     {
@@ -36,4 +39,14 @@ public class ExternalClassifierTraits
     {
         remoteUrl = aRemoteUrl;
     }
+
+    public int getBatchSize()
+    {
+        return batchSize;
+    }
+
+    public void setBatchSize(int aBatchSize)
+    {
+        batchSize = aBatchSize;
+    }
 }
@@ -0,0 +1,406 @@
+/*
+ * Copyright 2018
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.recommendation.imls.external;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+import org.apache.wicket.ajax.json.JSONArray;
+import org.apache.wicket.ajax.json.JSONException;
+import org.apache.wicket.ajax.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sends documents to external recommenders. All external recommenders share one pool of
+ * keep-alive connections and every request is bounded by connect and read timeouts, so a slow
+ * or unreachable recommender cannot block the prediction indefinitely.
+ * <p>
+ * Requests are dispatched asynchronously. If the recommender accepts batches (i.e. its batch
+ * size is larger than 1), documents submitted concurrently for the same recommender, layer and
+ * feature are collected for a short time and sent in a single request. A batch request contains
+ * the type system only once and the documents as plain XMI strings:
+ *
+ * <pre>
+ * { "Typesystem": "...", "Layer": "...", "Feature": "...", "Documents": [ "...", ... ] }
+ * </pre>
+ *
+ * The response must contain the annotated documents in the same order as
+ * {@code { "Documents": [ "...", ... ] }}. Otherwise, each document is sent in a request of its
+ * own using the original format with the Base64-encoded type system and CAS.
+ */
+@Component
+public class ExternalRecommenderClient
+{
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    @Value("${recommender.external.connectTimeout:5000}")
+    private int connectTimeout = 5000;
+
+    @Value("${recommender.external.readTimeout:60000}")
+    private int readTimeout = 60000;
+
+    @Value("${recommender.external.maxConnections:20}")
+    private int maxConnections = 20;
+
+    @Value("${recommender.external.maxConnectionsPerRoute:5}")
+    private int maxConnectionsPerRoute = 5;
+
+    /**
+     * Time in milliseconds a batch waits for further documents before it is sent.
+     */
+    @Value("${recommender.external.batchLinger:50}")
+    private long batchLinger = 50;
+
+    private PoolingHttpClientConnectionManager connectionManager;
+    private CloseableHttpClient httpClient;
+    private ExecutorService dispatcher;
+    private ScheduledExecutorService scheduler;
+
+    private final Map<List<String>, Batch> openBatches = new HashMap<>();
+
+    public ExternalRecommenderClient()
+    {
+        // Settings are injected by Spring
+    }
+
+    ExternalRecommenderClient(int aConnectTimeout, int aReadTimeout, int aMaxConnections,
+            long aBatchLinger)
+    {
+        connectTimeout = aConnectTimeout;
+        readTimeout = aReadTimeout;
+        maxConnections = aMaxConnections;
+        maxConnectionsPerRoute = aMaxConnections;
+        batchLinger = aBatchLinger;
+    }
+
+    @PostConstruct
+    public void start()
+    {
+        connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+        // Detect connections closed by the server while they were idle in the pool
+        connectionManager.setValidateAfterInactivity(2000);
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(connectTimeout)
+                .setConnectionRequestTimeout(connectTimeout)
+                .setSocketTimeout(readTimeout)
+                .build();
+
+        httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy(DefaultConnectionKeepAliveStrategy.INSTANCE)
+                .evictExpiredConnections()
+                .evictIdleConnections(30, SECONDS)
+                .build();
+
+        dispatcher = Executors.newFixedThreadPool(maxConnections,
+                daemonThreadFactory("external-recommender-"));
+        scheduler = Executors.newSingleThreadScheduledExecutor(
+                daemonThreadFactory("external-recommender-timer-"));
+    }
+
+    @PreDestroy
+    public void stop()
+    {
+        scheduler.shutdownNow();
+        dispatcher.shutdownNow();
+        try {
+            httpClient.close();
+        }
+        catch (IOException e) {
+            log.error("Unable to close HTTP client", e);
+        }
+    }
+
+    /**
+     * Sends the given request and waits for the annotated document.
+     *
+     * @return the XMI of the annotated document.
+     * @throws IOException
+     *             if the request fails or the recommender does not respond in time.
+     */
+    public String predict(Request aRequest) throws IOException
+    {
+        CompletableFuture<String> future = submit(aRequest);
+        try {
+            return future.get(getRequestDeadline(), MILLISECONDS);
+        }
+        catch (TimeoutException e) {
+            future.cancel(true);
+            throw new IOException("Remote recommender at [" + aRequest.remoteUrl
+                    + "] did not respond within " + getRequestDeadline() + "ms");
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+    }
+
+    /**
+     * Queues the given request for sending.
+     *
+     * @return a future which is completed with the XMI of the annotated document.
+     */
+    public CompletableFuture<String> submit(Request aRequest)
+    {
+        if (aRequest.batchSize <= 1) {
+            Batch batch = new Batch(aRequest, false);
+            CompletableFuture<String> future = batch.add(aRequest);
+            dispatch(batch);
+            return future;
+        }
+
+        List<String> key = Arrays.asList(aRequest.remoteUrl, aRequest.layer, aRequest.feature,
+                aRequest.typeSystemXml);
+
+        Batch full = null;
+        CompletableFuture<String> future;
+        synchronized (openBatches) {
+            Batch batch = openBatches.get(key);
+            if (batch == null) {
+                Batch newBatch = new Batch(aRequest, true);
+                scheduler.schedule(() -> flush(key, newBatch), batchLinger, MILLISECONDS);
+                openBatches.put(key, newBatch);
+                batch = newBatch;
+            }
+
+            future = batch.add(aRequest);
+
+            if (batch.requests.size() >= aRequest.batchSize) {
+                openBatches.remove(key);
+                full = batch;
+            }
+        }
+
+        if (full != null) {
+            dispatch(full);
+        }
+        return future;
+    }
+
+    private void flush(List<String> aKey, Batch aBatch)
+    {
+        synchronized (openBatches) {
+            // The batch may already have been sent because it was full
+            if (openBatches.get(aKey) != aBatch) {
+                return;
+            }
+            openBatches.remove(aKey);
+        }
+
+        dispatch(aBatch);
+    }
+
+    private void dispatch(Batch aBatch)
+    {
+        try {
+            dispatcher.execute(() -> send(aBatch));
+        }
+        catch (RejectedExecutionException e) {
+            aBatch.fail(new IOException("External recommender client has been stopped", e));
+        }
+    }
+
+    private void send(Batch aBatch)
+    {
+        HttpPost post = new HttpPost(aBatch.remoteUrl);
+
+        // The socket timeout only bounds the time between two packets, so abort requests which
+        // take too long in total, e.g. because the server sends its response very slowly
+        ScheduledFuture<?> watchdog = scheduler.schedule(post::abort, getRequestDeadline(),
+                MILLISECONDS);
+
+        try {
+            post.setEntity(new StringEntity(aBatch.isBatch ? toBatchRequest(aBatch)
+                    : toSingleRequest(aBatch.requests.get(0)), ContentType.APPLICATION_JSON));
+
+            try (CloseableHttpResponse response = httpClient.execute(post)) {
+                HttpEntity entity = response.getEntity();
+                String body = entity != null ? EntityUtils.toString(entity, UTF_8) : null;
+
+                int status = response.getStatusLine().getStatusCode();
+                if (status < 200 || status >= 300 || body == null) {
+                    throw new IOException("Remote recommender at [" + aBatch.remoteUrl
+                            + "] responded with [" + response.getStatusLine() + "]");
+                }
+
+                if (aBatch.isBatch) {
+                    JSONArray documents = new JSONObject(body).getJSONArray("Documents");
+                    if (documents.length() != aBatch.futures.size()) {
+                        throw new IOException("Remote recommender at [" + aBatch.remoteUrl
+                                + "] returned " + documents.length() + " documents but "
+                                + aBatch.futures.size() + " were sent");
+                    }
+                    for (int i = 0; i < documents.length(); i++) {
+                        aBatch.futures.get(i).complete(documents.getString(i));
+                    }
+                }
+                else {
+                    aBatch.futures.get(0).complete(body);
+                }
+            }
+        }
+        catch (Exception e) {
+            aBatch.fail(e);
+        }
+        finally {
+            watchdog.cancel(false);
+        }
+    }
+
+    private static String toSingleRequest(Request aRequest) throws JSONException
+    {
+        Base64.Encoder encoder = Base64.getEncoder();
+        return new JSONObject()
+                .put("CAS", encoder.encodeToString(aRequest.casXmi.getBytes(UTF_8)))
+                .put("Typesystem", encoder.encodeToString(aRequest.typeSystemXml.getBytes(UTF_8)))
+                .put("Layer", aRequest.layer)
+                .put("Feature", aRequest.feature)
+                .toString();
+    }
+
+    private static String toBatchRequest(Batch aBatch) throws JSONException
+    {
+        JSONArray documents = new JSONArray();
+        for (Request request : aBatch.requests) {
+            documents.put(request.casXmi);
+        }
+
+        Request first = aBatch.requests.get(0);
+        return new JSONObject()
+                .put("Typesystem", first.typeSystemXml)
+                .put("Layer", first.layer)
+                .put("Feature", first.feature)
+                .put("Documents", documents)
+                .toString();
+    }
+
+    private long getRequestDeadline()
+    {
+        return batchLinger + 2L * connectTimeout + readTimeout;
+    }
+
+    private static ThreadFactory daemonThreadFactory(String aPrefix)
+    {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, aPrefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * A document to be annotated by an external recommender.
+     */
+    public static class Request
+    {
+        private final String remoteUrl;
+        private final String layer;
+        private final String feature;
+        private final String typeSystemXml;
+        private final String casXmi;
+        private final int batchSize;
+
+        public Request(String aRemoteUrl, String aLayer, String aFeature, String aTypeSystemXml,
+                String aCasXmi, int aBatchSize)
+        {
+            remoteUrl = aRemoteUrl;
+            layer = aLayer;
+            feature = aFeature;
+            typeSystemXml = aTypeSystemXml;
+            casXmi = aCasXmi;
+            batchSize = aBatchSize;
+        }
+    }
+
+    private static class Batch
+    {
+        private final String remoteUrl;
+        private final boolean isBatch;
+        private final List<Request> requests = new ArrayList<>();
+        private final List<CompletableFuture<String>> futures = new ArrayList<>();
+
+        public Batch(Request aFirst, boolean aIsBatch)
+        {
+            remoteUrl = aFirst.remoteUrl;
+            isBatch = aIsBatch;
+        }
+
+        public CompletableFuture<String> add(Request aRequest)
+        {
+            CompletableFuture<String> future = new CompletableFuture<>();
+            requests.add(aRequest);
+            futures.add(future);
+            return future;
+        }
+
+        public void fail(Throwable aCause)
+        {
+            for (CompletableFuture<String> future : futures) {
+                future.completeExceptionally(aCause);
+            }
+        }
+    }
+}
@@ -47,8 +47,9 @@ public class ExternalTrainer
     @Override
     public boolean saveModel()
     {
-        // TODO Auto-generated method stub
-        return true;
+        // The model is kept by the external recommender service, so there is nothing we could
+        // write to disk. Report this so that no empty model is recorded as stored.
+        return false;
     }
 
     @Override
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2018
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.recommendation.imls.external;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import org.apache.uima.UIMAFramework;
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.Feature;
+import org.apache.uima.cas.Type;
+import org.apache.uima.cas.impl.XmiCasDeserializer;
+import org.apache.uima.cas.impl.XmiCasSerializer;
+import org.apache.uima.cas.text.AnnotationFS;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.resource.metadata.TypeDescription;
+import org.apache.uima.resource.metadata.TypeSystemDescription;
+import org.apache.uima.util.CasCreationUtils;
+import org.apache.wicket.ajax.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationLayer;
+import de.tudarmstadt.ukp.inception.recommendation.api.model.AnnotationObject;
+
+public class ExternalClassifierTest
+{
+    private static final String SPAN_TYPE = "test.Span";
+
+    private TypeSystemDescription typeSystem;
+    private ExternalRecommenderClient client;
+    private ExternalRecommenderStubServer server;
+
+    @Before
+    public void setup() throws Exception
+    {
+        typeSystem = UIMAFramework.getResourceSpecifierFactory().createTypeSystemDescription();
+        TypeDescription span = typeSystem.addType(SPAN_TYPE, "", CAS.TYPE_NAME_ANNOTATION);
+        span.addFeature("value", "", CAS.TYPE_NAME_STRING);
+
+        // Answers with the posted CAS plus one predicted span
+        server = new ExternalRecommenderStubServer(body -> {
+            try {
+                String xmi = new String(Base64.getDecoder()
+                        .decode(new JSONObject(body).getString("CAS")), UTF_8);
+                CAS cas = CasCreationUtils.createCas(typeSystem, null, null);
+                XmiCasDeserializer.deserialize(new ByteArrayInputStream(xmi.getBytes(UTF_8)),
+                        cas);
+                Type type = cas.getTypeSystem().getType(SPAN_TYPE);
+                AnnotationFS prediction = cas.createAnnotation(type, 0, 4);
+                prediction.setStringValue(type.getFeatureByBaseName("value"), "PER");
+                cas.addFsToIndexes(prediction);
+
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                XmiCasSerializer.serialize(cas, out);
+                return new String(out.toByteArray(), UTF_8);
+            }
+            catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }, 0);
+
+        client = new ExternalRecommenderClient(1000, 5000, 4, 10);
+        client.start();
+    }
+
+    @After
+    public void teardown()
+    {
+        client.stop();
+        server.close();
+    }
+
+    @Test
+    public void thatPredictionDoesNotModifyTheGivenCas() throws Exception
+    {
+        JCas jCas = CasCreationUtils.createCas(typeSystem, null, null).getJCas();
+        jCas.setDocumentText("John is here.");
+
+        RecordingLoader loader = new RecordingLoader();
+        ExternalClassifierTraits traits = new ExternalClassifierTraits();
+        traits.setRemoteUrl(server.getUrl());
+        ExternalClassifier sut = new ExternalClassifier(new BaseConfiguration("value"), loader,
+                traits, 1, client);
+
+        AnnotationLayer layer = new AnnotationLayer();
+        layer.setName(SPAN_TYPE);
+        sut.predict(jCas, layer);
+
+        // The predictions are read from a separate CAS ...
+        assertNotNull(loader.jCas);
+        assertNotSame(jCas, loader.jCas);
+        assertEquals(1, countSpans(loader.jCas));
+
+        // ... and the given CAS, which may be shared with other recommenders, is unchanged
+        assertEquals(0, countSpans(jCas));
+        assertEquals("John is here.", jCas.getDocumentText());
+    }
+
+    private static int countSpans(JCas aJCas)
+    {
+        Type type = aJCas.getTypeSystem().getType(SPAN_TYPE);
+        return aJCas.getCas().getAnnotationIndex(type).size();
+    }
+
+    private static class RecordingLoader
+        extends CustomAnnotationObjectLoader
+    {
+        private JCas jCas;
+
+        public RecordingLoader()
+        {
+            super("value", SPAN_TYPE);
+        }
+
+        @Override
+        public List<List<AnnotationObject>> loadAnnotationObjects(JCas aJCas,
+                long aRecommenderId)
+        {
+            jCas = aJCas;
+            return new ArrayList<>();
+        }
+    }
+}
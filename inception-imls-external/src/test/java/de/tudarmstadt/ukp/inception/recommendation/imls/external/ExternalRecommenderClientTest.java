@@ -0,0 +1,150 @@
+/*
+ * Copyright 2018
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.recommendation.imls.external;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.wicket.ajax.json.JSONArray;
+import org.apache.wicket.ajax.json.JSONObject;
+import org.junit.After;
+import org.junit.Test;
+
+import de.tudarmstadt.ukp.inception.recommendation.imls.external.ExternalRecommenderClient.Request;
+
+public class ExternalRecommenderClientTest
+{
+    private ExternalRecommenderClient client;
+    private ExternalRecommenderStubServer server;
+
+    @After
+    public void teardown()
+    {
+        if (client != null) {
+            client.stop();
+        }
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    @Test
+    public void thatSingleDocumentIsSentInOriginalFormat() throws Exception
+    {
+        server = new ExternalRecommenderStubServer(body -> {
+            try {
+                String cas = new JSONObject(body).getString("CAS");
+                return new String(Base64.getDecoder().decode(cas), UTF_8) + "-annotated";
+            }
+            catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }, 0);
+        client = startClient(1000, 5000, 1000);
+
+        String result = client.predict(request("doc", 1));
+
+        assertEquals("doc-annotated", result);
+        assertEquals(1, server.getRequests().size());
+    }
+
+    @Test
+    public void thatConcurrentDocumentsAreSentInOneBatch() throws Exception
+    {
+        server = new ExternalRecommenderStubServer(body -> {
+            try {
+                JSONArray documents = new JSONObject(body).getJSONArray("Documents");
+                JSONArray annotated = new JSONArray();
+                for (int i = 0; i < documents.length(); i++) {
+                    annotated.put(documents.getString(i) + "-annotated");
+                }
+                return new JSONObject().put("Documents", annotated).toString();
+            }
+            catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }, 0);
+        // Long linger so that the batch is only sent once it is full
+        client = startClient(1000, 5000, 10000);
+
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            futures.add(client.submit(request("doc" + i, 3)));
+        }
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals("doc" + i + "-annotated", futures.get(i).get(5, SECONDS));
+        }
+        assertEquals(1, server.getRequests().size());
+        assertTrue(server.getRequests().get(0).contains("\"Typesystem\":\"typesystem\""));
+    }
+
+    @Test
+    public void thatSlowRecommenderTimesOut() throws Exception
+    {
+        server = new ExternalRecommenderStubServer(body -> "too late", 3000);
+        client = startClient(1000, 200, 10);
+
+        try {
+            client.predict(request("doc", 1));
+            fail("Expected the request to time out");
+        }
+        catch (SocketTimeoutException e) {
+            // Expected - the read timeout fires long before the server responds
+        }
+        assertEquals(1, server.getRequests().size());
+    }
+
+    @Test
+    public void thatSequentialRequestsReuseConnection() throws Exception
+    {
+        server = new ExternalRecommenderStubServer(body -> "annotated", 0);
+        client = startClient(1000, 5000, 10);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals("annotated", client.predict(request("doc" + i, 1)));
+        }
+
+        assertEquals(3, server.getRequests().size());
+        assertEquals(1, new HashSet<>(server.getClientPorts()).size());
+    }
+
+    private ExternalRecommenderClient startClient(int aConnectTimeout, int aReadTimeout,
+            long aBatchLinger)
+    {
+        ExternalRecommenderClient newClient = new ExternalRecommenderClient(aConnectTimeout,
+                aReadTimeout, 4, aBatchLinger);
+        newClient.start();
+        return newClient;
+    }
+
+    private Request request(String aXmi, int aBatchSize)
+    {
+        return new Request(server.getUrl(), "layer", "feature", "typesystem", aXmi, aBatchSize);
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2018
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.recommendation.imls.external;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * In-process HTTP server standing in for an external recommender in tests. Each request body is
+ * recorded together with the client port it arrived from and answered with the result of the
+ * given handler, optionally after a delay.
+ */
+public class ExternalRecommenderStubServer
+    implements AutoCloseable
+{
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+    private final List<Integer> clientPorts = new CopyOnWriteArrayList<>();
+
+    public ExternalRecommenderStubServer(Function<String, String> aHandler, long aDelay)
+        throws IOException
+    {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/tag", exchange -> {
+            String body = read(exchange.getRequestBody());
+            requests.add(body);
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+
+            try {
+                Thread.sleep(aDelay);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            byte[] response = aHandler.apply(body).getBytes(UTF_8);
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(response);
+            }
+        });
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public String getUrl()
+    {
+        return "http://localhost:" + server.getAddress().getPort() + "/tag";
+    }
+
+    public List<String> getRequests()
+    {
+        return requests;
+    }
+
+    /**
+     * @return the client port of each request. Requests sent over the same keep-alive connection
+     *         share the same port.
+     */
+    public List<Integer> getClientPorts()
+    {
+        return clientPorts;
+    }
+
+    private static String read(InputStream aIn) throws IOException
+    {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        byte[] chunk = new byte[8192];
+        for (int n = aIn.read(chunk); n != -1; n = aIn.read(chunk)) {
+            buffer.write(chunk, 0, n);
+        }
+        return new String(buffer.toByteArray(), UTF_8);
+    }
+
+    @Override
+    public void close()
+    {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
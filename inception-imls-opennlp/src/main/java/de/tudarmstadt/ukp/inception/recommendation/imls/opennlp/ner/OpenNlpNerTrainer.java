@@ -123,9 +123,10 @@ public class OpenNlpNerTrainer
 
             ClassifierConfiguration<TrainingParameters> conf = getClassifierConfiguration();
 
-            return NameFinderME.train(conf.getLanguage(), null, stream, conf.getParams(),
-                    new TokenNameFinderFactory(featureGenCfg,
+            trainedModel = NameFinderME.train(conf.getLanguage(), null, stream,
+                    conf.getParams(), new TokenNameFinderFactory(featureGenCfg,
                             Collections.<String, Object>emptyMap(), new BioCodec()));
+            return trainedModel;
         }
         catch (Exception e) {
             log.error("Exception during training the OpenNLP Named Entity Recognizer model.", e);
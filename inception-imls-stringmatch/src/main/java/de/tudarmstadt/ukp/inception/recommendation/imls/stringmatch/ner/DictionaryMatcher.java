@@ -0,0 +1,191 @@
+/*
+ * Copyright 2018
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.recommendation.imls.stringmatch.ner;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Aho-Corasick automaton over token sequences. The dictionary maps (multi-word) token sequences
+ * to labels. Finding all dictionary entries in a sentence takes time linear in the number of
+ * tokens plus the number of matches, independent of the size of the dictionary.
+ */
+public class DictionaryMatcher
+{
+    private final Node root = new Node(0);
+    private final boolean ignoreCase;
+
+    public DictionaryMatcher(Map<List<String>, String> aDictionary, boolean aIgnoreCase)
+    {
+        ignoreCase = aIgnoreCase;
+
+        for (Entry<List<String>, String> entry : aDictionary.entrySet()) {
+            if (entry.getKey().isEmpty()) {
+                continue;
+            }
+
+            Node node = root;
+            for (String token : entry.getKey()) {
+                String key = normalize(token);
+                Node child = node.children.get(key);
+                if (child == null) {
+                    child = new Node(node.depth + 1);
+                    node.children.put(key, child);
+                }
+                node = child;
+            }
+            node.label = entry.getValue();
+        }
+
+        buildFailureLinks();
+    }
+
+    /**
+     * Finds all occurrences of dictionary entries in the given tokens, ordered by their end.
+     */
+    public List<Match> findAll(List<String> aTokens)
+    {
+        List<Match> matches = new ArrayList<>();
+
+        Node state = root;
+        for (int i = 0; i < aTokens.size(); i++) {
+            String token = normalize(aTokens.get(i));
+
+            while (state != root && !state.children.containsKey(token)) {
+                state = state.fail;
+            }
+            state = state.children.getOrDefault(token, root);
+
+            for (Node n = state.label != null ? state : state.output; n != null; n = n.output) {
+                matches.add(new Match(i - n.depth + 1, i + 1, n.label));
+            }
+        }
+
+        return matches;
+    }
+
+    /**
+     * Finds non-overlapping occurrences of dictionary entries in the given tokens. If several
+     * entries start at the same token, the longest one is chosen, and matches are chosen from
+     * left to right.
+     */
+    public List<Match> findLongest(List<String> aTokens)
+    {
+        List<Match> all = findAll(aTokens);
+        all.sort(Comparator.comparingInt(Match::getBegin)
+                .thenComparing(Comparator.comparingInt(Match::getEnd).reversed()));
+
+        List<Match> result = new ArrayList<>();
+        int covered = 0;
+        for (Match m : all) {
+            if (m.getBegin() >= covered) {
+                result.add(m);
+                covered = m.getEnd();
+            }
+        }
+        return result;
+    }
+
+    private void buildFailureLinks()
+    {
+        Deque<Node> queue = new ArrayDeque<>();
+        for (Node child : root.children.values()) {
+            child.fail = root;
+            queue.add(child);
+        }
+
+        while (!queue.isEmpty()) {
+            Node node = queue.poll();
+            for (Entry<String, Node> e : node.children.entrySet()) {
+                Node child = e.getValue();
+
+                Node fail = node.fail;
+                while (fail != root && !fail.children.containsKey(e.getKey())) {
+                    fail = fail.fail;
+                }
+                child.fail = fail.children.getOrDefault(e.getKey(), root);
+
+                // Nearest proper suffix which is a dictionary entry
+                child.output = child.fail.label != null ? child.fail : child.fail.output;
+
+                queue.add(child);
+            }
+        }
+    }
+
+    private String normalize(String aToken)
+    {
+        if (aToken == null) {
+            return "";
+        }
+        return ignoreCase ? aToken.toLowerCase(Locale.ROOT) : aToken;
+    }
+
+    private static class Node
+    {
+        private final int depth;
+        private final Map<String, Node> children = new HashMap<>();
+        private Node fail;
+        private Node output;
+        private String label;
+
+        public Node(int aDepth)
+        {
+            depth = aDepth;
+        }
+    }
+
+    /**
+     * A dictionary entry found in a token sequence. Begin is inclusive, end is exclusive.
+     */
+    public static class Match
+    {
+        private final int begin;
+        private final int end;
+        private final String label;
+
+        public Match(int aBegin, int aEnd, String aLabel)
+        {
+            begin = aBegin;
+            end = aEnd;
+            label = aLabel;
+        }
+
+        public int getBegin()
+        {
+            return begin;
+        }
+
+        public int getEnd()
+        {
+            return end;
+        }
+
+        public String getLabel()
+        {
+            return label;
+        }
+    }
+}
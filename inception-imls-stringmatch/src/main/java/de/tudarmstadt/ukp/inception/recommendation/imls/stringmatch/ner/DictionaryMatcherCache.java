@@ -0,0 +1,69 @@
+/*
+ * Copyright 2018
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.recommendation.imls.stringmatch.ner;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shares the {@link DictionaryMatcher} built from a trained model between all classifiers which
+ * predict with that model, e.g. the classifiers used by parallel prediction threads. Models are
+ * compared by identity and only weakly referenced, so a matcher is dropped once its model is no
+ * longer used.
+ */
+public class DictionaryMatcherCache
+{
+    private final List<Entry> entries = new ArrayList<>();
+
+    public synchronized DictionaryMatcher get(Map<List<String>, String> aModel,
+            boolean aIgnoreCase)
+    {
+        Iterator<Entry> i = entries.iterator();
+        while (i.hasNext()) {
+            Entry entry = i.next();
+            Object model = entry.model.get();
+            if (model == null) {
+                i.remove();
+            }
+            else if (model == aModel && entry.ignoreCase == aIgnoreCase) {
+                return entry.matcher;
+            }
+        }
+
+        DictionaryMatcher matcher = new DictionaryMatcher(aModel, aIgnoreCase);
+        entries.add(new Entry(aModel, aIgnoreCase, matcher));
+        return matcher;
+    }
+
+    private static class Entry
+    {
+        private final WeakReference<Object> model;
+        private final boolean ignoreCase;
+        private final DictionaryMatcher matcher;
+
+        public Entry(Object aModel, boolean aIgnoreCase, DictionaryMatcher aMatcher)
+        {
+            model = new WeakReference<>(aModel);
+            ignoreCase = aIgnoreCase;
+            matcher = aMatcher;
+        }
+    }
+}
@@ -38,10 +38,19 @@ public class StringMatchingNerClassificationTool
 
     public StringMatchingNerClassificationTool(long recommenderId, String feature,
         AnnotationLayer aLayer)
+    {
+        this(recommenderId, feature, aLayer, new StringMatchingNerClassifierTraits(),
+                new DictionaryMatcherCache());
+    }
+
+    public StringMatchingNerClassificationTool(long recommenderId, String feature,
+        AnnotationLayer aLayer, StringMatchingNerClassifierTraits aTraits,
+        DictionaryMatcherCache aMatcherCache)
     {
         super(recommenderId, StringMatchingNerClassificationTool.class.getName(),
             new StringMatchingNerTrainer(new ClassifierConfiguration<>(feature, recommenderId)),
-            new StringMatchingNerClassifier(new ClassifierConfiguration<>(feature, recommenderId)),
+            new StringMatchingNerClassifier(new ClassifierConfiguration<>(feature, recommenderId),
+                    aTraits, aMatcherCache),
             new NerAnnotationObjectLoader(aLayer, feature), false, true);
     }
 
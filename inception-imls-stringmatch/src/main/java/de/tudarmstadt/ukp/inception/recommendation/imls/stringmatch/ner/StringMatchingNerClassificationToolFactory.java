@@ -16,19 +16,29 @@
  * limitations under the License.
  */package de.tudarmstadt.ukp.inception.recommendation.imls.stringmatch.ner;
 
+import static de.tudarmstadt.ukp.clarin.webanno.support.JSONUtil.fromJsonString;
+import static de.tudarmstadt.ukp.clarin.webanno.support.JSONUtil.toJsonString;
+
+import java.io.IOException;
+
 import org.apache.uima.cas.CAS;
+import org.apache.wicket.markup.html.panel.Panel;
+import org.apache.wicket.model.IModel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationFeature;
 import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationLayer;
 import de.tudarmstadt.ukp.inception.recommendation.api.ClassificationTool;
 import de.tudarmstadt.ukp.inception.recommendation.api.ClassificationToolFactory;
+import de.tudarmstadt.ukp.inception.recommendation.api.RecommendationService;
+import de.tudarmstadt.ukp.inception.recommendation.api.model.Recommender;
 
 @Component
 public class StringMatchingNerClassificationToolFactory
-    implements ClassificationToolFactory<Object, Void>
+    implements ClassificationToolFactory<Object, StringMatchingNerClassifierTraits>
 {
     private Logger log = LoggerFactory.getLogger(getClass());
 
@@ -37,6 +47,11 @@ public class StringMatchingNerClassificationToolFactory
     public static final String ID = 
             "de.tudarmstadt.ukp.inception.recommendation.imls.stringmatch.ner.StringMatchingNerClassificationTool";
 
+    private @Autowired RecommendationService recommendationService;
+    
+    // Shared by all tools so that classifiers predicting with the same model share its matcher
+    private final DictionaryMatcherCache matcherCache = new DictionaryMatcherCache();
+
     @Override
     public String getId()
     {
@@ -53,7 +68,12 @@ public class StringMatchingNerClassificationToolFactory
     public ClassificationTool<Object> createTool(long aRecommenderId, String aFeature,
         AnnotationLayer aLayer, int aMaxPredictions)
     {
-        return new StringMatchingNerClassificationTool(aRecommenderId, aFeature, aLayer);
+        Recommender recommender = recommendationService.getRecommender(aRecommenderId);
+        StringMatchingNerClassifierTraits traits = recommender != null ? readTraits(recommender)
+                : new StringMatchingNerClassifierTraits();
+        
+        return new StringMatchingNerClassificationTool(aRecommenderId, aFeature, aLayer, traits,
+                matcherCache);
     }
     
     @Override
@@ -67,4 +87,41 @@ public class StringMatchingNerClassificationToolFactory
                 && !aLayer.isCrossSentence() && "span".equals(aLayer.getType())
                 && (CAS.TYPE_NAME_STRING.equals(aFeature.getType()) || aFeature.isVirtualFeature());
     }
+
+    @Override
+    public Panel createTraitsEditor(String aId, IModel<Recommender> aRecommender)
+    {
+        return new StringMatchingNerClassificationToolTraitsEditor(aId, aRecommender);
+    }
+
+    @Override
+    public StringMatchingNerClassifierTraits readTraits(Recommender aRecommender)
+    {
+        StringMatchingNerClassifierTraits traits = null;
+        try {
+            traits = fromJsonString(StringMatchingNerClassifierTraits.class,
+                    aRecommender.getTraits());
+        }
+        catch (IOException e) {
+            log.error("Error while reading traits", e);
+        }
+
+        if (traits == null) {
+            traits = new StringMatchingNerClassifierTraits();
+        }
+
+        return traits;
+    }
+
+    @Override
+    public void writeTraits(Recommender aRecommender, StringMatchingNerClassifierTraits aTraits)
+    {
+        try {
+            String json = toJsonString(aTraits);
+            aRecommender.setTraits(json);
+        }
+        catch (IOException e) {
+            log.error("Error while writing traits", e);
+        }
+    }
 }
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2018
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.recommendation.imls.stringmatch.ner;
+
+import org.apache.wicket.markup.html.form.CheckBox;
+import org.apache.wicket.markup.html.form.Form;
+import org.apache.wicket.markup.html.panel.Panel;
+import org.apache.wicket.model.CompoundPropertyModel;
+import org.apache.wicket.model.IModel;
+import org.apache.wicket.model.Model;
+import org.apache.wicket.spring.injection.annot.SpringBean;
+
+import de.tudarmstadt.ukp.inception.recommendation.api.model.Recommender;
+
+public class StringMatchingNerClassificationToolTraitsEditor
+    extends Panel
+{
+    private static final long serialVersionUID = -2373916312407612743L;
+
+    private static final String MID_FORM = "form";
+
+    private @SpringBean StringMatchingNerClassificationToolFactory toolFactory;
+    private final Recommender recommender;
+    private final StringMatchingNerClassifierTraits traits;
+
+    public StringMatchingNerClassificationToolTraitsEditor(String aId,
+            IModel<Recommender> aRecommender)
+    {
+        super(aId, aRecommender);
+        recommender = aRecommender.getObject();
+        traits = toolFactory.readTraits(recommender);
+
+        Form<StringMatchingNerClassifierTraits> form = 
+                new Form<StringMatchingNerClassifierTraits>(MID_FORM,
+                CompoundPropertyModel.of(Model.of(traits)))
+        {
+            private static final long serialVersionUID = 4384727466716218447L;
+
+            @Override
+            protected void onSubmit()
+            {
+                super.onSubmit();
+                toolFactory.writeTraits(recommender, traits);
+            }
+        };
+
+        form.add(new CheckBox("longestMatch"));
+        form.add(new CheckBox("ignoreCase"));
+
+        add(form);
+    }
+}
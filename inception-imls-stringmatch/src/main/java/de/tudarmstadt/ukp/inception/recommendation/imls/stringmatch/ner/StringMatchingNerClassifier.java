@@ -21,7 +21,6 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -39,11 +38,25 @@ public class StringMatchingNerClassifier
 {
     private Logger log = LoggerFactory.getLogger(getClass());
 
+    private final StringMatchingNerClassifierTraits traits;
+    private final DictionaryMatcherCache matcherCache;
+    
     private Map<List<String>, String> trainedModel;
+    
+    // Obtained for the trained model when the model is set and reused for all sentences
+    private DictionaryMatcher matcher;
 
     public StringMatchingNerClassifier(ClassifierConfiguration<Object> conf)
+    {
+        this(conf, new StringMatchingNerClassifierTraits(), new DictionaryMatcherCache());
+    }
+
+    public StringMatchingNerClassifier(ClassifierConfiguration<Object> conf,
+            StringMatchingNerClassifierTraits aTraits, DictionaryMatcherCache aMatcherCache)
     {
         super(conf);
+        traits = aTraits;
+        matcherCache = aMatcherCache;
     }
 
     @SuppressWarnings("unchecked")
@@ -52,6 +65,7 @@ public class StringMatchingNerClassifier
     {
         if (aModel instanceof Map) {
             trainedModel = (HashMap<List<String>, String>) aModel;
+            matcher = matcherCache.get(trainedModel, traits.isIgnoreCase());
         }
         else {
             log.error("Expected model type: Map<String,String> - but was: [{}]",
@@ -102,25 +116,20 @@ public class StringMatchingNerClassifier
 
     public void predictSentence(List<List<AnnotationObject>> sentence)
     {
-        // Iterate over all the learned (multi-word)/label combinations
-        for (Entry<List<String>, String> entry : trainedModel.entrySet()) {
-            List<String> neTokens = entry.getKey();
-
-            for (int i = 0; i < (sentence.size() - neTokens.size()); i++) {
-                boolean hit = true;
-
-                for (int j = 0; j < neTokens.size(); j++) {
-                    if (!sentence.get(i + j).get(0).getCoveredText().equals(neTokens.get(j))) {
-                        hit = false;
-                        break;
-                    }
-                }
-
-                if (hit) {
-                    for (int j = 0; j < neTokens.size(); j++) {
-                        sentence.get(i + j).get(0).setLabel(entry.getValue());
-                    }
-                }
+        List<String> tokens = new ArrayList<>(sentence.size());
+        for (List<AnnotationObject> word : sentence) {
+            tokens.add(word.get(0).getCoveredText());
+        }
+
+        // Without longest-match, overlapping matches are all applied and later (i.e. further
+        // right) matches overwrite the labels of earlier ones
+        List<DictionaryMatcher.Match> matches = traits.isLongestMatch()
+                ? matcher.findLongest(tokens)
+                : matcher.findAll(tokens);
+
+        for (DictionaryMatcher.Match match : matches) {
+            for (int i = match.getBegin(); i < match.getEnd(); i++) {
+                sentence.get(i).get(0).setLabel(match.getLabel());
             }
         }
     }
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2018
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.recommendation.imls.stringmatch.ner;
+
+import java.io.Serializable;
+
+public class StringMatchingNerClassifierTraits
+    implements Serializable
+{
+    private static final long serialVersionUID = 6151271623506235713L;
+
+    /**
+     * If enabled, overlapping dictionary entries are resolved by choosing the leftmost and longest
+     * one. Otherwise, all entries found in a sentence are applied.
+     */
+    private boolean longestMatch = true;
+
+    /**
+     * If enabled, tokens are matched against the dictionary ignoring case.
+     */
+    private boolean ignoreCase = false;
+
+    public boolean isLongestMatch()
+    {
+        return longestMatch;
+    }
+
+    public void setLongestMatch(boolean aLongestMatch)
+    {
+        longestMatch = aLongestMatch;
+    }
+
+    public boolean isIgnoreCase()
+    {
+        return ignoreCase;
+    }
+
+    public void setIgnoreCase(boolean aIgnoreCase)
+    {
+        ignoreCase = aIgnoreCase;
+    }
+}
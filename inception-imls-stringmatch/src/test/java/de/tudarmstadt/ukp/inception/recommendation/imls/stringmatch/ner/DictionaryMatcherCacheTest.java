@@ -0,0 +1,68 @@
+/*
+ * Copyright 2018
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.recommendation.imls.stringmatch.ner;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class DictionaryMatcherCacheTest
+{
+    private DictionaryMatcherCache sut;
+    private Map<List<String>, String> model;
+
+    @Before
+    public void setup()
+    {
+        sut = new DictionaryMatcherCache();
+
+        model = new HashMap<>();
+        model.put(asList("New", "York"), "LOC");
+    }
+
+    @Test
+    public void thatMatcherIsSharedForSameModel()
+    {
+        assertSame(sut.get(model, false), sut.get(model, false));
+    }
+
+    @Test
+    public void thatMatcherIsNotSharedForOtherModel()
+    {
+        Map<List<String>, String> otherModel = new HashMap<>(model);
+
+        assertNotSame(sut.get(model, false), sut.get(otherModel, false));
+    }
+
+    @Test
+    public void thatCaseFoldingIsApplied()
+    {
+        List<String> tokens = asList("in", "new", "york");
+
+        assertEquals(0, sut.get(model, false).findLongest(tokens).size());
+        assertEquals(1, sut.get(model, true).findLongest(tokens).size());
+    }
+}
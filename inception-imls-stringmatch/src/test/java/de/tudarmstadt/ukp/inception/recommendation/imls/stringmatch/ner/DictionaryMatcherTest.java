@@ -0,0 +1,97 @@
+/*
+ * Copyright 2018
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.recommendation.imls.stringmatch.ner;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.tudarmstadt.ukp.inception.recommendation.imls.stringmatch.ner.DictionaryMatcher.Match;
+
+public class DictionaryMatcherTest
+{
+    private Map<List<String>, String> dictionary;
+
+    @Before
+    public void setup()
+    {
+        dictionary = new HashMap<>();
+        dictionary.put(asList("New", "York"), "LOC");
+        dictionary.put(asList("New", "York", "Times"), "ORG");
+        dictionary.put(asList("York"), "PER");
+        dictionary.put(asList("Darmstadt"), "LOC");
+    }
+
+    @Test
+    public void thatAllMatchesAreFound()
+    {
+        DictionaryMatcher sut = new DictionaryMatcher(dictionary, false);
+
+        List<Match> matches = sut.findAll(asList("The", "New", "York", "Times", "reports"));
+
+        assertEquals(asList("1-3 LOC", "2-3 PER", "1-4 ORG"), toStrings(matches));
+    }
+
+    @Test
+    public void thatLongestMatchIsChosen()
+    {
+        DictionaryMatcher sut = new DictionaryMatcher(dictionary, false);
+
+        List<Match> matches = sut.findLongest(
+                asList("The", "New", "York", "Times", "in", "New", "York"));
+
+        assertEquals(asList("1-4 ORG", "5-7 LOC"), toStrings(matches));
+    }
+
+    @Test
+    public void thatMatchAtEndOfSentenceIsFound()
+    {
+        DictionaryMatcher sut = new DictionaryMatcher(dictionary, false);
+
+        assertEquals(asList("2-3 LOC"), toStrings(sut.findAll(asList("Welcome", "to",
+                "Darmstadt"))));
+        assertEquals(asList("0-1 LOC"), toStrings(sut.findAll(asList("Darmstadt"))));
+    }
+
+    @Test
+    public void thatCaseIsIgnoredIfRequested()
+    {
+        List<String> tokens = asList("new", "YORK");
+
+        assertEquals(asList(), toStrings(new DictionaryMatcher(dictionary, false)
+                .findLongest(tokens)));
+        assertEquals(asList("0-2 LOC"), toStrings(new DictionaryMatcher(dictionary, true)
+                .findLongest(tokens)));
+    }
+
+    private static List<String> toStrings(List<Match> aMatches)
+    {
+        List<String> result = new ArrayList<>();
+        for (Match m : aMatches) {
+            result.add(m.getBegin() + "-" + m.getEnd() + " " + m.getLabel());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2018
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.kb;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import de.tudarmstadt.ukp.inception.kb.graph.KBHandle;
+import de.tudarmstadt.ukp.inception.kb.model.KnowledgeBase;
+
+/**
+ * Caches the concept hierarchy of knowledge bases as it is browsed in the concept tree, i.e. the
+ * root concepts, the children of expanded concepts or pages thereof and whether concepts have
+ * children at all.
+ * <p>
+ * Local knowledge bases can only be changed through the {@link KnowledgeBaseService}, which
+ * invalidates their entries on every write. Remote knowledge bases may also be changed by
+ * others, so their entries expire after a while.
+ */
+class ConceptTreeCache
+{
+    private static final int MAX_CHILD_LISTS = 1_000;
+    private static final int MAX_CHILD_FLAGS = 50_000;
+    private static final long REMOTE_TTL = 5 * 60 * 1000;
+
+    private final Map<Key, Entry<List<KBHandle>>> childLists = new LruMap<>(MAX_CHILD_LISTS);
+    private final Map<Key, Entry<Boolean>> childFlags = new LruMap<>(MAX_CHILD_FLAGS);
+
+    /**
+     * @param aParent
+     *            the parent concept or {@code null} for the root concepts.
+     * @return the cached child concepts or {@code null} if they are not cached.
+     */
+    public synchronized List<KBHandle> getChildren(KnowledgeBase aKB, String aParent,
+            boolean aAll)
+    {
+        return get(childLists, new Key(aKB, aParent, aAll));
+    }
+
+    public synchronized void putChildren(KnowledgeBase aKB, String aParent, boolean aAll,
+            List<KBHandle> aChildren)
+    {
+        childLists.put(new Key(aKB, aParent, aAll), new Entry<>(aKB, aChildren));
+        if (aParent != null) {
+            childFlags.put(new Key(aKB, aParent, aAll), new Entry<>(aKB, !aChildren.isEmpty()));
+        }
+    }
+
+    /**
+     * @return the cached page of child concepts or {@code null} if it is not cached.
+     */
+    public synchronized List<KBHandle> getChildren(KnowledgeBase aKB, String aParent,
+            boolean aAll, int aOffset, int aLimit)
+    {
+        return get(childLists, new Key(aKB, aParent, aAll, aOffset, aLimit));
+    }
+
+    public synchronized void putChildren(KnowledgeBase aKB, String aParent, boolean aAll,
+            int aOffset, int aLimit, List<KBHandle> aChildren)
+    {
+        childLists.put(new Key(aKB, aParent, aAll, aOffset, aLimit),
+                new Entry<>(aKB, aChildren));
+        if (aOffset == 0 && aLimit > 0) {
+            childFlags.put(new Key(aKB, aParent, aAll), new Entry<>(aKB, !aChildren.isEmpty()));
+        }
+    }
+
+    /**
+     * @return whether the concept has children or {@code null} if this is not known.
+     */
+    public synchronized Boolean hasChildren(KnowledgeBase aKB, String aParent, boolean aAll)
+    {
+        Boolean flag = get(childFlags, new Key(aKB, aParent, aAll));
+        if (flag == null) {
+            List<KBHandle> children = get(childLists, new Key(aKB, aParent, aAll));
+            flag = children != null ? !children.isEmpty() : null;
+        }
+        return flag;
+    }
+
+    public synchronized void putHasChildren(KnowledgeBase aKB, String aParent, boolean aAll,
+            boolean aHasChildren)
+    {
+        childFlags.put(new Key(aKB, aParent, aAll), new Entry<>(aKB, aHasChildren));
+    }
+
+    public synchronized void invalidate(KnowledgeBase aKB)
+    {
+        String repositoryId = aKB.getRepositoryId();
+        childLists.keySet().removeIf(key -> Objects.equals(key.repositoryId, repositoryId));
+        childFlags.keySet().removeIf(key -> Objects.equals(key.repositoryId, repositoryId));
+    }
+
+    private static <T> T get(Map<Key, Entry<T>> aMap, Key aKey)
+    {
+        Entry<T> entry = aMap.get(aKey);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expires < System.currentTimeMillis()) {
+            aMap.remove(aKey);
+            return null;
+        }
+        return entry.value;
+    }
+
+    private static class Entry<T>
+    {
+        private final T value;
+        private final long expires;
+
+        public Entry(KnowledgeBase aKB, T aValue)
+        {
+            value = aValue;
+            expires = aKB.getType() == RepositoryType.LOCAL ? Long.MAX_VALUE
+                    : System.currentTimeMillis() + REMOTE_TTL;
+        }
+    }
+
+    private static class Key
+    {
+        private final String repositoryId;
+        private final String parent;
+        private final boolean all;
+        // A limit of -1 stands for all children
+        private final int offset;
+        private final int limit;
+
+        public Key(KnowledgeBase aKB, String aParent, boolean aAll)
+        {
+            this(aKB, aParent, aAll, 0, -1);
+        }
+
+        public Key(KnowledgeBase aKB, String aParent, boolean aAll, int aOffset, int aLimit)
+        {
+            repositoryId = aKB.getRepositoryId();
+            parent = aParent;
+            all = aAll;
+            offset = aOffset;
+            limit = aLimit;
+        }
+
+        @Override
+        public boolean equals(Object aOther)
+        {
+            if (!(aOther instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) aOther;
+            return all == other.all && offset == other.offset && limit == other.limit
+                    && Objects.equals(repositoryId, other.repositoryId)
+                    && Objects.equals(parent, other.parent);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(repositoryId, parent, all, offset, limit);
+        }
+    }
+
+    private static class LruMap<K, V>
+        extends LinkedHashMap<K, V>
+    {
+        private static final long serialVersionUID = -3515213574318429340L;
+
+        private final int maxSize;
+
+        public LruMap(int aMaxSize)
+        {
+            super(16, 0.75f, true);
+            maxSize = aMaxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> aEldest)
+        {
+            return size() > maxSize;
+        }
+    }
+}
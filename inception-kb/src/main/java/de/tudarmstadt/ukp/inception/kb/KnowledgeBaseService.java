@@ -20,6 +20,7 @@ package de.tudarmstadt.ukp.inception.kb;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -236,6 +237,35 @@ public interface KnowledgeBaseService
     Optional<KBInstance> readInstance(Project aProject, String aIdentifier)
         throws QueryEvaluationException;
 
+    /**
+     * Reads the instances with the given identifiers in bulk, e.g. to render many feature values
+     * at once. The identifiers are resolved with one query per batch of identifiers instead of
+     * one query per identifier.
+     *
+     * @param kb
+     *            the knowledge base.
+     * @param aIdentifiers
+     *            the instance identifiers.
+     * @return the instances by their identifier. Identifiers which do not denote an instance in
+     *         the knowledge base are not contained.
+     */
+    Map<String, KBHandle> resolveInstances(KnowledgeBase kb, Collection<String> aIdentifiers)
+        throws QueryEvaluationException;
+
+    /**
+     * Reads the instances with the given identifiers in bulk from the knowledge bases of the
+     * project. Every identifier is resolved in the first knowledge base which provides it.
+     *
+     * @param aProject
+     *            a project.
+     * @param aIdentifiers
+     *            the instance identifiers.
+     * @return the instances by their identifier. Identifiers which do not denote an instance in
+     *         any knowledge base are not contained.
+     */
+    Map<String, KBHandle> resolveInstances(Project aProject, Collection<String> aIdentifiers)
+        throws QueryEvaluationException;
+
     /**
      * Updates an existing instance in the given knowledge base. Does nothing
      * if the knowledge base is read only.
@@ -262,6 +292,30 @@ public interface KnowledgeBaseService
     List<KBHandle> listInstances(KnowledgeBase kb, String aConceptIri, boolean aAll)
         throws QueryEvaluationException;
 
+    /**
+     * Finds instances whose label starts with the given prefix, e.g. to suggest instances while
+     * the user is typing. Shorter labels are ranked first, so labels equal to the prefix come
+     * before longer ones. The ranking is done by the repository before the limit is applied.
+     * For remote knowledge bases, only a bounded number of matching labels is ranked and an
+     * empty prefix yields no instances.
+     *
+     * @param kb
+     *            the knowledge base to search.
+     * @param aConceptIri
+     *            the concept whose instances are searched or {@code null} to search the
+     *            instances of all concepts.
+     * @param aPrefix
+     *            the prefix to search for. Case is ignored.
+     * @param aAll
+     *            true if entities with implicit namespaces (e.g. defined by RDF) are included.
+     * @param aLimit
+     *            the maximum number of instances to return.
+     * @return the best matching instances.
+     */
+    List<KBHandle> searchInstances(KnowledgeBase kb, String aConceptIri, String aPrefix,
+            boolean aAll, int aLimit)
+        throws QueryEvaluationException;
+
     // Statements
 
     /**
@@ -294,9 +348,47 @@ public interface KnowledgeBaseService
     List<KBStatement> listStatements(KnowledgeBase kb, KBInstance aInstance, boolean aAll)
         throws QueryEvaluationException;
 
+    /**
+     * Lists a page of the statements of the given instance including their qualifiers. The
+     * number of queries sent to the knowledge base does not depend on the number of statements.
+     * 
+     * @param kb
+     *            the knowledge base.
+     * @param aInstance
+     *            the instance whose statements are listed.
+     * @param aAll
+     *            whether to include statements about properties from implicit namespaces.
+     * @param aOffset
+     *            the number of statements to skip.
+     * @param aLimit
+     *            the maximum number of statements to return.
+     * @return the statements.
+     */
+    List<KBStatement> listStatements(KnowledgeBase kb, KBHandle aInstance, boolean aAll,
+            int aOffset, int aLimit)
+        throws QueryEvaluationException;
+
     List<KBHandle> listRootConcepts(KnowledgeBase kb, boolean aAll) throws QueryEvaluationException;
 
     boolean hasChildConcepts(KnowledgeBase aKB, String aParentIdentifier, boolean aAll);
+
+    /**
+     * Checks for each of the given concepts whether it has child concepts. The check is done for
+     * many concepts at once, e.g. for all children of a concept which has been expanded in the
+     * concept tree. Results are cached until the knowledge base is changed.
+     * 
+     * @param aKB
+     *            the knowledge base.
+     * @param aParentIdentifiers
+     *            the identifiers of the concepts to check.
+     * @param aAll
+     *            whether to consider concepts from implicit namespaces.
+     * @return for each concept whether it has child concepts, in the order of the given
+     *         identifiers.
+     */
+    Map<String, Boolean> hasChildConcepts(KnowledgeBase aKB,
+            Collection<String> aParentIdentifiers, boolean aAll)
+        throws QueryEvaluationException;
     
     List<KBHandle> listChildConcepts(KnowledgeBase kb, String parentIdentifier, boolean aAll)
         throws QueryEvaluationException;
@@ -304,6 +396,15 @@ public interface KnowledgeBaseService
     List<KBHandle> listChildConcepts(KnowledgeBase kb, String parentIdentifier, boolean aAll,
             int aLimit)
         throws QueryEvaluationException;
+
+    /**
+     * Lists a page of the child concepts of the given concept, sorted by their label or, if they
+     * have none, by the local name of their IRI. Only the requested page is retrieved from the
+     * knowledge base. Pages are cached until the knowledge base is changed.
+     */
+    List<KBHandle> listChildConcepts(KnowledgeBase kb, String parentIdentifier, boolean aAll,
+            int aOffset, int aLimit)
+        throws QueryEvaluationException;
     
     RepositoryConnection getConnection(KnowledgeBase kb);
 
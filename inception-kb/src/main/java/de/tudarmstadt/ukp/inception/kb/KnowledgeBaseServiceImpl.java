@@ -27,12 +27,18 @@ import java.io.Reader;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import javax.persistence.EntityManager;
 import javax.persistence.NoResultException;
@@ -67,11 +73,13 @@ import org.eclipse.rdf4j.rio.RDFFormat;
 import org.eclipse.rdf4j.rio.RDFParseException;
 import org.eclipse.rdf4j.rio.RDFWriter;
 import org.eclipse.rdf4j.rio.Rio;
+import org.eclipse.rdf4j.rio.ntriples.NTriplesUtil;
 import org.eclipse.rdf4j.sail.nativerdf.config.NativeStoreConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -80,6 +88,8 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 
 import de.tudarmstadt.ukp.clarin.webanno.model.Project;
+import de.tudarmstadt.ukp.inception.kb.event.KnowledgeBaseDataChangedEvent;
+import de.tudarmstadt.ukp.inception.kb.event.KnowledgeBaseRemovedEvent;
 import de.tudarmstadt.ukp.inception.kb.graph.KBConcept;
 import de.tudarmstadt.ukp.inception.kb.graph.KBHandle;
 import de.tudarmstadt.ukp.inception.kb.graph.KBInstance;
@@ -99,12 +109,18 @@ public class KnowledgeBaseServiceImpl
     implements KnowledgeBaseService, DisposableBean
 {
     private static final String KNOWLEDGEBASE_PROFILES_YAML = "knowledgebase-profiles.yaml";
+    private static final int CHILD_CHECK_BATCH_SIZE = 100;
+    // Number of candidates per requested result which are ranked when searching a remote KB
+    private static final int REMOTE_SEARCH_CANDIDATE_FACTOR = 10;
+    private static final int RESOLVE_BATCH_SIZE = 100;
 
     private final Logger log = LoggerFactory.getLogger(getClass());
 
     private @PersistenceContext EntityManager entityManager;
+    private @Autowired ApplicationEventPublisher applicationEventPublisher;
     private final RepositoryManager repoManager;
     private final Set<String> implicitNamespaces;
+    private final ConceptTreeCache conceptTreeCache = new ConceptTreeCache();
 
     @org.springframework.beans.factory.annotation.Value(value = "${data.path}/kb")
     private File dataDir;
@@ -184,6 +200,7 @@ public class KnowledgeBaseServiceImpl
         assertRegistration(kb);
         repoManager.addRepositoryConfig(new RepositoryConfig(kb.getRepositoryId(), cfg));
         entityManager.merge(kb);
+        conceptTreeCache.invalidate(kb);
     }
 
     @SuppressWarnings("unchecked")
@@ -215,6 +232,11 @@ public class KnowledgeBaseServiceImpl
         repoManager.removeRepository(kb.getRepositoryId());
 
         entityManager.remove(entityManager.contains(kb) ? kb : entityManager.merge(kb));
+        conceptTreeCache.invalidate(kb);
+
+        if (applicationEventPublisher != null) {
+            applicationEventPublisher.publishEvent(new KnowledgeBaseRemovedEvent(this, kb));
+        }
     }
 
     @Override
@@ -281,6 +303,8 @@ public class KnowledgeBaseServiceImpl
         try (RepositoryConnection conn = getConnection(kb)) {
             conn.add(is, "", format);
         }
+        
+        publishDataChanged(kb, null);
     }
 
     @Override
@@ -302,6 +326,8 @@ public class KnowledgeBaseServiceImpl
         try (RepositoryConnection conn = getConnection(kb)) {
             conn.clear();
         }
+        
+        publishDataChanged(kb, null);
     }
 
     @Override
@@ -319,12 +345,17 @@ public class KnowledgeBaseServiceImpl
             throw new IllegalArgumentException("Identifier must be empty on create");
         }
 
-        return update(kb, (conn) -> {
+        KBHandle handle = update(kb, (conn) -> {
             String identifier = generateIdentifier(conn, kb);
             aConcept.setIdentifier(identifier);
             aConcept.write(conn, kb);
             return new KBHandle(identifier, aConcept.getName());
         });
+        
+        if (handle != null) {
+            publishDataChanged(kb, handle.getIdentifier());
+        }
+        return handle;
     }
     
     @Override
@@ -369,6 +400,8 @@ public class KnowledgeBaseServiceImpl
             aConcept.write(conn, kb);
             return null;
         });
+        
+        publishDataChanged(kb, aConcept.getIdentifier());
     }
 
     @Override
@@ -390,12 +423,17 @@ public class KnowledgeBaseServiceImpl
             throw new IllegalArgumentException("Identifier must be empty on create");
         }
 
-        return update(kb, (conn) -> {
+        KBHandle handle = update(kb, (conn) -> {
             String identifier = generateIdentifier(conn, kb);
             aProperty.setIdentifier(identifier);
             aProperty.write(conn, kb);
             return new KBHandle(identifier, aProperty.getName());
         });
+        
+        if (handle != null) {
+            publishDataChanged(kb, handle.getIdentifier());
+        }
+        return handle;
     }
 
     @Override
@@ -429,6 +467,8 @@ public class KnowledgeBaseServiceImpl
             aProperty.write(conn, kb);
             return null;
         });
+        
+        publishDataChanged(kb, aProperty.getIdentifier());
     }
 
     @Override
@@ -474,13 +514,18 @@ public class KnowledgeBaseServiceImpl
             throw new IllegalArgumentException("Identifier must be empty on create");
         }
 
-        return update(kb, (conn) -> {
+        KBHandle handle = update(kb, (conn) -> {
             String identifier = generateIdentifier(conn, kb);
             aInstance.setIdentifier(identifier);
             aInstance.write(conn, kb);
 
             return new KBHandle(identifier, aInstance.getName());
         });
+        
+        if (handle != null) {
+            publishDataChanged(kb, handle.getIdentifier());
+        }
+        return handle;
     }
 
     @Override
@@ -537,6 +582,89 @@ public class KnowledgeBaseServiceImpl
         return Optional.empty();
     }
 
+    @Override
+    public Map<String, KBHandle> resolveInstances(KnowledgeBase kb,
+            Collection<String> aIdentifiers)
+    {
+        List<String> identifiers = aIdentifiers.stream()
+                .filter(id -> id != null && id.contains(":"))
+                .distinct()
+                .collect(Collectors.toList());
+        if (identifiers.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        return read(kb, (conn) -> {
+            Map<String, KBHandle> handles = new HashMap<>();
+            for (int i = 0; i < identifiers.size(); i += RESOLVE_BATCH_SIZE) {
+                List<String> batch = identifiers.subList(i,
+                        Math.min(i + RESOLVE_BATCH_SIZE, identifiers.size()));
+                resolveInstances(conn, kb, batch, handles);
+            }
+            return handles;
+        });
+    }
+
+    private void resolveInstances(RepositoryConnection aConn, KnowledgeBase kb,
+            List<String> aIdentifiers, Map<String, KBHandle> aHandles)
+    {
+        ValueFactory vf = aConn.getValueFactory();
+        StringBuilder values = new StringBuilder();
+        for (String identifier : aIdentifiers) {
+            values.append(' ').append(NTriplesUtil.toNTriplesString(vf.createIRI(identifier)));
+        }
+
+        // Like readInstance, only consider the explicitly asserted types
+        String QUERY = String.join("\n"
+                     , "SELECT DISTINCT ?s ?t ?l WHERE {"
+                     , "  VALUES ?s {" + values + " }"
+                     , "  ?s ?pTYPE ?t ."
+                     , "  OPTIONAL {"
+                     , "    ?s ?pLABEL ?l ."
+                     , "    FILTER(LANG(?l) = \"\" || LANGMATCHES(LANG(?l), \"en\"))"
+                     , "  }"
+                     , "}");
+        TupleQuery tupleQuery = aConn.prepareTupleQuery(QueryLanguage.SPARQL, QUERY);
+        tupleQuery.setBinding("pTYPE", kb.getTypeIri());
+        tupleQuery.setBinding("pLABEL", kb.getLabelIri());
+        tupleQuery.setIncludeInferred(false);
+
+        try (TupleQueryResult result = tupleQuery.evaluate()) {
+            while (result.hasNext()) {
+                BindingSet bindings = result.next();
+                String type = bindings.getBinding("t").getValue().stringValue();
+                if (hasImplicitNamespace(type) || !type.contains(":")) {
+                    continue;
+                }
+
+                String id = bindings.getBinding("s").getValue().stringValue();
+                KBHandle handle = aHandles.computeIfAbsent(id, KBHandle::new);
+                Binding label = bindings.getBinding("l");
+                if (handle.getName() == null && label != null) {
+                    handle.setName(label.getValue().stringValue());
+                }
+            }
+        }
+    }
+
+    @Override
+    public Map<String, KBHandle> resolveInstances(Project aProject,
+            Collection<String> aIdentifiers)
+    {
+        Map<String, KBHandle> handles = new HashMap<>();
+        Set<String> unresolved = new HashSet<>(aIdentifiers);
+        for (KnowledgeBase kb : getKnowledgeBases(aProject)) {
+            if (unresolved.isEmpty()) {
+                break;
+            }
+
+            Map<String, KBHandle> resolved = resolveInstances(kb, unresolved);
+            handles.putAll(resolved);
+            unresolved.removeAll(resolved.keySet());
+        }
+        return handles;
+    }
+
     @Override
     public void updateInstance(KnowledgeBase kb, KBInstance aInstance)
     {
@@ -549,6 +677,8 @@ public class KnowledgeBaseServiceImpl
             aInstance.write(conn ,kb);
             return null;
         });
+        
+        publishDataChanged(kb, aInstance.getIdentifier());
     }
 
     @Override
@@ -564,6 +694,73 @@ public class KnowledgeBaseServiceImpl
         return list(kb, conceptIri, false, aAll);
     }
 
+    @Override
+    public List<KBHandle> searchInstances(KnowledgeBase kb, String aConceptIri, String aPrefix,
+            boolean aAll, int aLimit)
+        throws QueryEvaluationException
+    {
+        String prefix = aPrefix != null ? aPrefix.trim().toLowerCase(Locale.ROOT) : "";
+        boolean remote = kb.getType() != RepositoryType.LOCAL;
+
+        // On a remote KB, every instance matches an empty prefix and ranking them all would take
+        // longer than the user is willing to wait for the first keystroke
+        if (remote && prefix.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<KBHandle> resultList = read(kb, (conn) -> {
+            // Knowledge bases can be huge, so only labels starting with the prefix are matched.
+            // The matches are ranked before the limit is applied, so the shortest labels, and in
+            // particular those equal to the prefix, come first.
+            String matches = String.join("\n"
+                         , aConceptIri != null
+                                 ? "  ?s ?pTYPE ?oCONCEPT ."
+                                 : "  ?s ?pTYPE ?t . { ?t ?pTYPE ?oCLASS . } UNION"
+                                         + " { ?t ?pSUBCLASS ?parent . }"
+                         , "  ?s ?pLABEL ?l ."
+                         , "  FILTER(LANG(?l) = \"\" || LANGMATCHES(LANG(?l), \"en\"))"
+                         , "  FILTER(STRSTARTS(LCASE(STR(?l)), ?prefix))");
+            // Ranking all matches requires the repository to collect them before returning the
+            // first result. Remote KBs such as Wikidata would time out, so there only a bounded
+            // number of candidates is ranked.
+            if (remote) {
+                matches = String.join("\n"
+                         , "  {"
+                         , "    SELECT DISTINCT ?s ?l WHERE {"
+                         , matches
+                         , "    }"
+                         , "    LIMIT " + ((long) aLimit * REMOTE_SEARCH_CANDIDATE_FACTOR)
+                         , "  }");
+            }
+            String QUERY = String.join("\n"
+                         , "SELECT DISTINCT ?s ?l WHERE {"
+                         , matches
+                         , "}"
+                         , "ORDER BY STRLEN(STR(?l)) LCASE(STR(?l))"
+                         , "LIMIT " + aLimit);
+            ValueFactory vf = conn.getValueFactory();
+            TupleQuery tupleQuery = conn.prepareTupleQuery(QueryLanguage.SPARQL, QUERY);
+            tupleQuery.setBinding("pTYPE", kb.getTypeIri());
+            if (aConceptIri != null) {
+                tupleQuery.setBinding("oCONCEPT", vf.createIRI(aConceptIri));
+            }
+            else {
+                tupleQuery.setBinding("oCLASS", kb.getClassIri());
+                tupleQuery.setBinding("pSUBCLASS", kb.getSubclassIri());
+            }
+            tupleQuery.setBinding("pLABEL", kb.getLabelIri());
+            tupleQuery.setBinding("prefix", vf.createLiteral(prefix));
+            tupleQuery.setIncludeInferred(false);
+
+            return evaluateListQuery(tupleQuery, aAll);
+        });
+
+        // Instances with several matching labels are suggested with their best label only
+        Set<String> identifiers = new HashSet<>();
+        resultList.removeIf(handle -> !identifiers.add(handle.getIdentifier()));
+        return resultList;
+    }
+
     // Statements
 
     @Override
@@ -577,12 +774,14 @@ public class KnowledgeBaseServiceImpl
     public void upsertStatement(KnowledgeBase kb, KBStatement aStatement) throws RepositoryException
     {
         getReificationStrategy(kb).upsertStatement(kb, aStatement);
+        publishDataChanged(kb, aStatement.getInstance().getIdentifier());
     }
 
     @Override
     public void deleteStatement(KnowledgeBase kb, KBStatement aStatement) throws RepositoryException
     {
         getReificationStrategy(kb).deleteStatement(kb, aStatement);
+        publishDataChanged(kb, aStatement.getInstance().getIdentifier());
     }
 
     @Override
@@ -598,6 +797,13 @@ public class KnowledgeBaseServiceImpl
         return listStatements(kb, handle, aAll);
     }
 
+    @Override
+    public List<KBStatement> listStatements(KnowledgeBase kb, KBHandle aInstance, boolean aAll,
+            int aOffset, int aLimit)
+    {
+        return getReificationStrategy(kb).listStatements(kb, aInstance, aAll, aOffset, aLimit);
+    }
+
     private void delete(KnowledgeBase kb, String aIdentifier)
     {
         update(kb, (conn) -> {
@@ -608,6 +814,19 @@ public class KnowledgeBaseServiceImpl
             }
             return null;
         });
+        
+        publishDataChanged(kb, aIdentifier);
+    }
+    
+    private void publishDataChanged(KnowledgeBase kb, String aIdentifier)
+    {
+        conceptTreeCache.invalidate(kb);
+
+        // Not set if the service is used outside of a Spring context, e.g. in tests
+        if (applicationEventPublisher != null) {
+            applicationEventPublisher
+                    .publishEvent(new KnowledgeBaseDataChangedEvent(this, kb, aIdentifier));
+        }
     }
 
     private String generateIdentifier(RepositoryConnection conn, KnowledgeBase kb)
@@ -639,6 +858,7 @@ public class KnowledgeBaseServiceImpl
                 if (error) {
                     conn.rollback();
                 }
+                conceptTreeCache.invalidate(kb);
             }
         }
         return result;
@@ -684,6 +904,11 @@ public class KnowledgeBaseServiceImpl
     public List<KBHandle> listRootConcepts(KnowledgeBase kb, boolean aAll)
         throws QueryEvaluationException
     {
+        List<KBHandle> cached = conceptTreeCache.getChildren(kb, null, aAll);
+        if (cached != null) {
+            return new ArrayList<>(cached);
+        }
+
         List<KBHandle> resultList = new ArrayList<>();
 
         if (!kb.getExplicitlyDefinedRootConcepts().isEmpty()) {
@@ -722,13 +947,94 @@ public class KnowledgeBaseServiceImpl
             });
         }
         resultList.sort(Comparator.comparing(KBObject::getUiLabel));
-        return resultList;
+        conceptTreeCache.putChildren(kb, null, aAll, resultList);
+        return new ArrayList<>(resultList);
     }
     
     @Override
     public boolean hasChildConcepts(KnowledgeBase aKB, String aParentIdentifier, boolean aAll)
     {
-        return !listChildConcepts(aKB, aParentIdentifier, aAll, 1).isEmpty();
+        return hasChildConcepts(aKB, Collections.singleton(aParentIdentifier), aAll)
+                .get(aParentIdentifier);
+    }
+
+    @Override
+    public Map<String, Boolean> hasChildConcepts(KnowledgeBase aKB,
+            Collection<String> aParentIdentifiers, boolean aAll)
+        throws QueryEvaluationException
+    {
+        Map<String, Boolean> result = new LinkedHashMap<>();
+        List<String> uncached = new ArrayList<>();
+        for (String parent : aParentIdentifiers) {
+            Boolean cached = conceptTreeCache.hasChildren(aKB, parent, aAll);
+            if (cached != null) {
+                result.put(parent, cached);
+            }
+            else {
+                uncached.add(parent);
+            }
+        }
+
+        // Check the remaining concepts in batches instead of sending one query per concept
+        for (int i = 0; i < uncached.size(); i += CHILD_CHECK_BATCH_SIZE) {
+            List<String> batch = uncached.subList(i,
+                    Math.min(i + CHILD_CHECK_BATCH_SIZE, uncached.size()));
+            Set<String> parentsWithChildren = queryParentsWithChildConcepts(aKB, batch, aAll);
+            for (String parent : batch) {
+                boolean hasChildren = parentsWithChildren.contains(parent);
+                conceptTreeCache.putHasChildren(aKB, parent, aAll, hasChildren);
+                result.put(parent, hasChildren);
+            }
+        }
+
+        return result;
+    }
+
+    private Set<String> queryParentsWithChildConcepts(KnowledgeBase aKB,
+            List<String> aParentIdentifiers, boolean aAll)
+    {
+        ValueFactory vf = SimpleValueFactory.getInstance();
+        StringBuilder values = new StringBuilder();
+        for (String parent : aParentIdentifiers) {
+            values.append(' ').append(NTriplesUtil.toNTriplesString(vf.createIRI(parent)));
+        }
+
+        // Same child relation as in listChildConcepts - children whose identifier is not an IRI
+        // or which are in an implicit namespace are not listed and therefore do not count
+        StringBuilder filter = new StringBuilder("FILTER(CONTAINS(STR(?s), \":\")");
+        if (!aAll) {
+            for (String ns : implicitNamespaces) {
+                filter.append(" && !STRSTARTS(STR(?s), ")
+                        .append(NTriplesUtil.toNTriplesString(vf.createLiteral(ns)))
+                        .append(")");
+            }
+        }
+        filter.append(")");
+
+        return read(aKB, (conn) -> {
+            String QUERY = String.join("\n"
+                , "SELECT DISTINCT ?oPARENT WHERE { "
+                , "     VALUES ?oPARENT {" + values + " }"
+                , "     {?s ?pSUBCLASS ?oPARENT . }" 
+                , "     UNION { ?s ?pTYPE ?oCLASS ."
+                , "         ?s owl:intersectionOf ?list . "
+                , "         FILTER EXISTS { ?list rdf:rest*/rdf:first ?oPARENT} }"
+                , "     " + filter
+                , "} ");
+            TupleQuery tupleQuery = conn.prepareTupleQuery(QueryLanguage.SPARQL, QUERY);
+            tupleQuery.setBinding("pTYPE", aKB.getTypeIri());
+            tupleQuery.setBinding("oCLASS", aKB.getClassIri());
+            tupleQuery.setBinding("pSUBCLASS", aKB.getSubclassIri());
+            tupleQuery.setIncludeInferred(false);
+
+            Set<String> parents = new HashSet<>();
+            try (TupleQueryResult result = tupleQuery.evaluate()) {
+                while (result.hasNext()) {
+                    parents.add(result.next().getValue("oPARENT").stringValue());
+                }
+            }
+            return parents;
+        });
     }
 
     @Override
@@ -736,7 +1042,83 @@ public class KnowledgeBaseServiceImpl
             boolean aAll)
         throws QueryEvaluationException
     {
-        return listChildConcepts(aKB, aParentIdentifier, aAll, 10000);
+        List<KBHandle> cached = conceptTreeCache.getChildren(aKB, aParentIdentifier, aAll);
+        if (cached != null) {
+            return new ArrayList<>(cached);
+        }
+
+        List<KBHandle> children = listChildConcepts(aKB, aParentIdentifier, aAll, 10000);
+        conceptTreeCache.putChildren(aKB, aParentIdentifier, aAll, children);
+        return new ArrayList<>(children);
+    }
+
+    @Override
+    public List<KBHandle> listChildConcepts(KnowledgeBase aKB, String aParentIdentifier,
+            boolean aAll, int aOffset, int aLimit)
+        throws QueryEvaluationException
+    {
+        int offset = Math.max(aOffset, 0);
+        int limit = Math.max(aLimit, 0);
+        
+        // If all children are known already, there is no need to query the knowledge base
+        List<KBHandle> children = conceptTreeCache.getChildren(aKB, aParentIdentifier, aAll);
+        if (children != null) {
+            int from = Math.min(offset, children.size());
+            int to = Math.min(from + limit, children.size());
+            return new ArrayList<>(children.subList(from, to));
+        }
+        
+        List<KBHandle> cached = conceptTreeCache.getChildren(aKB, aParentIdentifier, aAll,
+                offset, limit);
+        if (cached != null) {
+            return new ArrayList<>(cached);
+        }
+        
+        // Same query as for all children, but the knowledge base sorts and pages the children.
+        // They are sorted by their label or, if they have none, by the local name of their IRI.
+        // Children with several labels are only returned once.
+        List<KBHandle> page = read(aKB, (conn) -> {
+            String QUERY = String.join("\n"
+                , "SELECT ?s (MIN(?label) AS ?l) WHERE { "
+                , "     {?s ?pSUBCLASS ?oPARENT . }" 
+                , "     UNION { ?s ?pTYPE ?oCLASS ."
+                , "         ?s owl:intersectionOf ?list . "
+                , "         FILTER EXISTS { ?list rdf:rest*/rdf:first ?oPARENT} }"
+                , "     FILTER(isIRI(?s)) "
+                , aAll ? "" : implicitNamespaceFilter("?s")
+                , "     OPTIONAL { "
+                , "         ?s ?pLABEL ?label . "
+                , "         FILTER(LANG(?label) = \"\" || LANGMATCHES(LANG(?label), \"en\")) "
+                , "     } "
+                , "} "
+                , "GROUP BY ?s "
+                , "ORDER BY STR(COALESCE(?l, REPLACE(STR(?s), \"^.*[/#:]\", \"\"))) ?s "
+                , "OFFSET " + offset
+                , "LIMIT " + limit);
+            ValueFactory vf = SimpleValueFactory.getInstance();
+            TupleQuery tupleQuery = conn.prepareTupleQuery(QueryLanguage.SPARQL, QUERY);
+            tupleQuery.setBinding("oPARENT", vf.createIRI(aParentIdentifier));
+            tupleQuery.setBinding("pTYPE", aKB.getTypeIri());
+            tupleQuery.setBinding("oCLASS", aKB.getClassIri());
+            tupleQuery.setBinding("pSUBCLASS", aKB.getSubclassIri());
+            tupleQuery.setBinding("pLABEL", aKB.getLabelIri());
+            tupleQuery.setIncludeInferred(false);
+
+            return evaluateListQuery(tupleQuery, aAll);
+        });
+        
+        conceptTreeCache.putChildren(aKB, aParentIdentifier, aAll, offset, limit, page);
+        return new ArrayList<>(page);
+    }
+    
+    private String implicitNamespaceFilter(String aVariable)
+    {
+        StringBuilder filter = new StringBuilder();
+        for (String ns : implicitNamespaces) {
+            filter.append("     FILTER(!STRSTARTS(STR(").append(aVariable).append("), \"")
+                    .append(ns).append("\")) \n");
+        }
+        return filter.toString();
     }
 
     // Need to work on the query for variable inputs like owl:intersectionOf, rdf:rest*/rdf:first
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2018
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.kb.event;
+
+import org.springframework.context.ApplicationEvent;
+
+import de.tudarmstadt.ukp.inception.kb.model.KnowledgeBase;
+
+/**
+ * Published when the contents of a knowledge base have been changed through the
+ * {@link de.tudarmstadt.ukp.inception.kb.KnowledgeBaseService}.
+ */
+public class KnowledgeBaseDataChangedEvent
+    extends ApplicationEvent
+{
+    private static final long serialVersionUID = 4307461437437358264L;
+
+    private final KnowledgeBase knowledgeBase;
+    private final String identifier;
+
+    /**
+     * @param aIdentifier
+     *            the identifier of the changed concept, property or instance or {@code null} if
+     *            the change may affect the whole knowledge base, e.g. after an import.
+     */
+    public KnowledgeBaseDataChangedEvent(Object aSource, KnowledgeBase aKnowledgeBase,
+            String aIdentifier)
+    {
+        super(aSource);
+        knowledgeBase = aKnowledgeBase;
+        identifier = aIdentifier;
+    }
+
+    public KnowledgeBase getKnowledgeBase()
+    {
+        return knowledgeBase;
+    }
+
+    public String getIdentifier()
+    {
+        return identifier;
+    }
+}
@@ -129,6 +129,17 @@ public class NoReification implements ReificationStrategy {
         return result;
     }
 
+    @Override
+    public List<KBStatement> listStatements(KnowledgeBase kb, KBHandle aInstance, boolean aAll,
+        int aOffset, int aLimit)
+    {
+        // Statements are not reified, so there are no qualifiers to be loaded per statement
+        List<KBStatement> statements = listStatements(kb, aInstance, aAll);
+        int from = Math.min(aOffset, statements.size());
+        int to = (int) Math.min((long) from + aLimit, statements.size());
+        return new ArrayList<>(statements.subList(from, to));
+    }
+
     /**
      * Returns all statements for which the given instance identifier is the subject
      */
@@ -30,6 +30,8 @@ import de.tudarmstadt.ukp.inception.kb.model.KnowledgeBase;
 public interface ReificationStrategy {
     Set<Statement> reify(KnowledgeBase kb, KBStatement aStatement);
     List<KBStatement> listStatements(KnowledgeBase kb, KBHandle aInstance, boolean aAll);
+    List<KBStatement> listStatements(KnowledgeBase kb, KBHandle aInstance, boolean aAll,
+            int aOffset, int aLimit);
     void deleteStatement(KnowledgeBase kb, KBStatement aStatement);
     void upsertStatement(KnowledgeBase kb, KBStatement aStatement);
     void addQualifier(KnowledgeBase kb, KBQualifier newQualifier);
@@ -19,8 +19,11 @@ package de.tudarmstadt.ukp.inception.kb.reification;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.eclipse.rdf4j.model.IRI;
@@ -37,6 +40,7 @@ import org.eclipse.rdf4j.query.QueryLanguage;
 import org.eclipse.rdf4j.query.TupleQuery;
 import org.eclipse.rdf4j.query.TupleQueryResult;
 import org.eclipse.rdf4j.repository.RepositoryConnection;
+import org.eclipse.rdf4j.rio.ntriples.NTriplesUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -65,6 +69,7 @@ public class WikiDataReification
 {
     private static final String NAMPESPACE_ROOT = "https://github.com/inception-project";
     private static final String PREDICATE_NAMESPACE = NAMPESPACE_ROOT + "/predicate#";
+    private static final int STATEMENT_LIMIT = 10000;
 
     private final Logger log = LoggerFactory.getLogger(getClass());
     private final KnowledgeBaseService kbService;
@@ -130,14 +135,19 @@ public class WikiDataReification
     public List<KBStatement> listStatements(KnowledgeBase kb, KBHandle aInstance,
         boolean aAll)
     {
-        String QUERY = String.join("\n",
-            "SELECT DISTINCT ?p ?o ?id ?ps ?l WHERE {",
-            "  ?s  ?p  ?id .",
-            "  ?id ?ps ?o .",
-            "  ?p  ?pLABEL ?l.",
-            "  FILTER(STRSTARTS(STR(?ps), STR(?ps_ns)))",
-            "}",
-            "LIMIT 10000");
+        return listStatements(kb, aInstance, aAll, 0, STATEMENT_LIMIT);
+    }
+
+    /**
+     * Lists a page of the statements of the given instance. The qualifiers of the statements on
+     * the page are retrieved by a single additional query on the same connection, so the number
+     * of queries does not depend on the number of statements.
+     */
+    @Override
+    public List<KBStatement> listStatements(KnowledgeBase kb, KBHandle aInstance, boolean aAll,
+        int aOffset, int aLimit)
+    {
+        String QUERY = statementPageQuery(aOffset, aLimit);
 
         IRI instance = vf.createIRI(aInstance.getIdentifier());
         try (RepositoryConnection conn = kbService.getConnection(kb)) {
@@ -158,6 +168,8 @@ public class WikiDataReification
             }
 
             List<KBStatement> statements = new ArrayList<>();
+            Set<Value> statementIds = new LinkedHashSet<>();
+            Map<String, List<KBStatement>> statementsById = new HashMap<>();
 
             while (result.hasNext()) {
                 BindingSet bindings = result.next();
@@ -187,16 +199,95 @@ public class WikiDataReification
                 originalStatements.add(root);
                 originalStatements.add(valueStatement);
                 kbStatement.setOriginalStatements(originalStatements);
-
-                List<KBQualifier> qualifiers = listQualifiers(kb, kbStatement);
-                kbStatement.setQualifiers(qualifiers);
+                kbStatement.setQualifiers(new ArrayList<>());
 
                 statements.add(kbStatement);
+                statementIds.add(id.getValue());
+                statementsById.computeIfAbsent(kbStatement.getStatementId(),
+                    key -> new ArrayList<>()).add(kbStatement);
+            }
+
+            if (!statements.isEmpty()) {
+                loadQualifiers(conn, instance, statementIds, statementsById, aOffset, aLimit);
             }
+
             return statements;
         }
     }
 
+    /**
+     * Selects a page of the statements of the instance bound to {@code ?s}.
+     */
+    private String statementPageQuery(int aOffset, int aLimit)
+    {
+        return String.join("\n",
+            "SELECT DISTINCT ?p ?o ?id ?ps ?l WHERE {",
+            "  ?s  ?p  ?id .",
+            "  ?id ?ps ?o .",
+            "  ?p  ?pLABEL ?l.",
+            "  FILTER(STRSTARTS(STR(?ps), STR(?ps_ns)))",
+            "}",
+            "ORDER BY ?p ?id",
+            "OFFSET " + aOffset,
+            "LIMIT " + aLimit);
+    }
+
+    /**
+     * Adds the qualifiers of the given statements in a single query. The statements are listed
+     * in a {@code VALUES} block if they are IRIs, as in Wikidata. Blank nodes cannot be referred
+     * to from the query text, so if the page contains any, the page is selected again instead.
+     */
+    private void loadQualifiers(RepositoryConnection conn, IRI aInstance,
+        Set<Value> aStatementIds, Map<String, List<KBStatement>> aStatementsById, int aOffset,
+        int aLimit)
+    {
+        String statements;
+        if (aStatementIds.stream().allMatch(id -> id instanceof IRI)) {
+            StringBuilder values = new StringBuilder();
+            for (Value id : aStatementIds) {
+                values.append(' ').append(NTriplesUtil.toNTriplesString(id));
+            }
+            statements = "  VALUES ?id {" + values + " }";
+        }
+        else {
+            statements = String.join("\n",
+                "  { SELECT DISTINCT ?id WHERE { {",
+                statementPageQuery(aOffset, aLimit),
+                "  } } }");
+        }
+
+        String QUERY = String.join("\n",
+            "SELECT DISTINCT ?id ?p ?o ?l WHERE {",
+            statements,
+            "  ?id ?p ?o .",
+            "  FILTER(!STRSTARTS(STR(?p), STR(?ps_ns)))",
+            "  OPTIONAL {",
+            "    ?p ?pLABEL ?l .",
+            "    FILTER(LANG(?l) = \"\" || LANGMATCHES(LANG(?l), \"en\"))",
+            "  }",
+            "}");
+        TupleQuery tupleQuery = conn.prepareTupleQuery(QueryLanguage.SPARQL, QUERY);
+        tupleQuery.setBinding("s", aInstance);
+        tupleQuery.setBinding("ps_ns", vf.createIRI(PREDICATE_NAMESPACE));
+        tupleQuery.setBinding("pLABEL", RDFS.LABEL);
+        tupleQuery.setIncludeInferred(false);
+
+        try (TupleQueryResult result = tupleQuery.evaluate()) {
+            while (result.hasNext()) {
+                BindingSet bindings = result.next();
+                String statementId = bindings.getBinding("id").getValue().stringValue();
+                Resource id = vf.createBNode(statementId);
+                for (KBStatement statement : aStatementsById.getOrDefault(statementId,
+                        Collections.emptyList())) {
+                    statement.getQualifiers().add(toQualifier(statement, id, bindings));
+                }
+            }
+        }
+        catch (QueryEvaluationException e) {
+            log.warn("Listing qualifiers failed.", e);
+        }
+    }
+
     private List<Statement> getStatementsById(KnowledgeBase kb, String aStatementId)
     {
         String QUERY = String
@@ -430,31 +521,36 @@ public class WikiDataReification
             while (result.hasNext()) {
                 BindingSet bindings = result.next();
                 Binding p = bindings.getBinding("p");
-                Binding o = bindings.getBinding("o");
-                Binding l = bindings.getBinding("l");
 
                 if (!p.getValue().stringValue().contains(PREDICATE_NAMESPACE)) {
-                    KBHandle property = new KBHandle();
-                    property.setIdentifier(p.getValue().stringValue());
-                    property.setName(l.getValue().stringValue());
-                    Value value = o.getValue();
-                    KBQualifier qualifier = new KBQualifier(aStatement, property, value);
-
-                    IRI predicate = vf.createIRI(p.getValue().stringValue());
-                    Value object = o.getValue();
-                    Statement qualifierStatement = vf.createStatement(id, predicate, object);
-
-                    Set<Statement> statements = new HashSet<>();
-                    statements.add(qualifierStatement);
-                    qualifier.setOriginalStatements(statements);
-
-                    qualifiers.add(qualifier);
+                    qualifiers.add(toQualifier(aStatement, id, bindings));
                 }
             }
             return qualifiers;
         }
     }
 
+    private KBQualifier toQualifier(KBStatement aStatement, Resource aId, BindingSet aBindings)
+    {
+        Binding p = aBindings.getBinding("p");
+        Binding o = aBindings.getBinding("o");
+        Binding l = aBindings.getBinding("l");
+
+        KBHandle property = new KBHandle();
+        property.setIdentifier(p.getValue().stringValue());
+        property.setName(l != null ? l.getValue().stringValue() : null);
+        Value value = o.getValue();
+        KBQualifier qualifier = new KBQualifier(aStatement, property, value);
+
+        IRI predicate = vf.createIRI(p.getValue().stringValue());
+        Statement qualifierStatement = vf.createStatement(aId, predicate, value);
+
+        Set<Statement> statements = new HashSet<>();
+        statements.add(qualifierStatement);
+        qualifier.setOriginalStatements(statements);
+        return qualifier;
+    }
+
     @Override
     public boolean statementsMatchSPO(KnowledgeBase akb, KBStatement mockStatement)
     {
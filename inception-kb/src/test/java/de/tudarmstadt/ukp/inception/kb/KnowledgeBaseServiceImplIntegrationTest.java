@@ -67,6 +67,7 @@ import de.tudarmstadt.ukp.inception.kb.graph.KBConcept;
 import de.tudarmstadt.ukp.inception.kb.graph.KBHandle;
 import de.tudarmstadt.ukp.inception.kb.graph.KBInstance;
 import de.tudarmstadt.ukp.inception.kb.graph.KBProperty;
+import de.tudarmstadt.ukp.inception.kb.graph.KBQualifier;
 import de.tudarmstadt.ukp.inception.kb.graph.KBStatement;
 import de.tudarmstadt.ukp.inception.kb.model.KnowledgeBase;
 import de.tudarmstadt.ukp.inception.kb.reification.Reification;
@@ -1158,6 +1159,108 @@ public class KnowledgeBaseServiceImplIntegrationTest  {
             .allMatch(stmt -> hasImplicitNamespace(stmt.getProperty()));
     }
 
+    @Test
+    public void listStatements_WithOffsetAndLimit_ReturnsPageOfAllStatements() {
+        sut.registerKnowledgeBase(kb, sut.getNativeConfig());
+        KBConcept concept = buildConcept();
+        KBHandle conceptHandle = sut.createConcept(kb, concept);
+        for (int i = 0; i < 4; i++) {
+            KBHandle propertyHandle = sut.createProperty(kb, buildProperty());
+            sut.upsertStatement(kb,
+                    buildStatement(kb, conceptHandle, propertyHandle, "Test statement " + i));
+        }
+
+        List<String> allStatements = sut.listStatements(kb, conceptHandle, false, 0, 1000)
+            .stream()
+            .map(stmt -> stmt.getProperty().getIdentifier() + "=" + stmt.getValue())
+            .collect(Collectors.toList());
+        List<String> page = sut.listStatements(kb, conceptHandle, false, 1, 2).stream()
+            .map(stmt -> stmt.getProperty().getIdentifier() + "=" + stmt.getValue())
+            .collect(Collectors.toList());
+
+        assertThat(page)
+            .as("Check that the page is a slice of all statements")
+            .containsExactlyElementsOf(allStatements.subList(1, 3));
+    }
+
+    @Test
+    public void listStatements_WithWikiDataQualifiers_ReturnsQualifiersOfPage() {
+        if (!reification.equals(Reification.WIKIDATA)) {
+            return;
+        }
+
+        sut.registerKnowledgeBase(kb, sut.getNativeConfig());
+        KBConcept concept = buildConcept();
+        KBHandle conceptHandle = sut.createConcept(kb, concept);
+        KBHandle qualifierPropertyHandle = sut.createProperty(kb, buildProperty());
+        for (int i = 0; i < 3; i++) {
+            KBHandle propertyHandle = sut.createProperty(kb, buildProperty());
+            KBStatement statement = buildStatement(kb, conceptHandle, propertyHandle,
+                    "Test statement " + i);
+            sut.upsertStatement(kb, statement);
+            sut.addQualifier(kb, testFixtures.buildQualifier(statement, qualifierPropertyHandle,
+                    "Test qualifier " + i));
+        }
+
+        List<KBStatement> allStatements = sut.listStatements(kb, conceptHandle, false, 0, 1000);
+        List<KBStatement> page = sut.listStatements(kb, conceptHandle, false, 1, 1);
+
+        assertThat(page)
+            .as("Check that only the statement on the page is returned")
+            .hasSize(1)
+            .element(0)
+            .hasFieldOrPropertyWithValue("statementId", allStatements.get(1).getStatementId());
+        assertThat(page.get(0).getQualifiers())
+            .as("Check that only the qualifier of the statement on the page is loaded")
+            .extracting(KBQualifier::getValue)
+            .containsExactlyElementsOf(allStatements.get(1).getQualifiers().stream()
+                .map(KBQualifier::getValue)
+                .collect(Collectors.toList()))
+            .hasSize(1);
+    }
+
+    @Test
+    public void listStatements_WithWikiDataStatementIris_ReturnsQualifiersOfPage() {
+        if (!reification.equals(Reification.WIKIDATA)) {
+            return;
+        }
+
+        sut.registerKnowledgeBase(kb, sut.getNativeConfig());
+        KBConcept concept = buildConcept();
+        KBHandle conceptHandle = sut.createConcept(kb, concept);
+        KBHandle propertyHandle = sut.createProperty(kb, buildProperty());
+        KBHandle qualifierPropertyHandle = sut.createProperty(kb, buildProperty());
+
+        // Statements in Wikidata are identified by IRIs instead of blank nodes
+        ValueFactory vf = SimpleValueFactory.getInstance();
+        IRI subject = vf.createIRI(conceptHandle.getIdentifier());
+        IRI predicate = vf.createIRI(propertyHandle.getIdentifier());
+        IRI valuePredicate = vf.createIRI("https://github.com/inception-project/predicate#",
+                predicate.getLocalName());
+        IRI qualifierPredicate = vf.createIRI(qualifierPropertyHandle.getIdentifier());
+        sut.update(kb, conn -> {
+            for (int i = 0; i < 3; i++) {
+                IRI id = vf.createIRI("http://www.wikidata.org/entity/statement/S" + i);
+                conn.add(subject, predicate, id);
+                conn.add(id, valuePredicate, vf.createLiteral("Test statement " + i));
+                conn.add(id, qualifierPredicate, vf.createLiteral("Test qualifier " + i));
+            }
+            return null;
+        });
+
+        List<KBStatement> page = sut.listStatements(kb, conceptHandle, false, 1, 1);
+
+        assertThat(page)
+            .as("Check that only the statement on the page is returned")
+            .hasSize(1)
+            .element(0)
+            .hasFieldOrPropertyWithValue("value", "Test statement 1");
+        assertThat(page.get(0).getQualifiers())
+            .as("Check that only the qualifier of the statement on the page is loaded")
+            .extracting(KBQualifier::getValue)
+            .containsExactly("Test qualifier 1");
+    }
+
     @Test
     public void getConceptRoots_WithWildlifeOntology_ShouldReturnRootConcepts() throws Exception {
         sut.registerKnowledgeBase(kb, sut.getNativeConfig());
@@ -1256,6 +1359,66 @@ public class KnowledgeBaseServiceImplIntegrationTest  {
             .containsExactlyInAnyOrder(expectedLabels);
     }
     
+    @Test
+    public void hasChildConcepts_WithSparqlPlayground_ChecksAllConceptsAtOnce() throws Exception {
+        sut.registerKnowledgeBase(kb, sut.getNativeConfig());
+        importKnowledgeBase("data/sparql_playground.ttl");
+        setSchema(kb, RDFS.CLASS, RDFS.SUBCLASSOF, RDF.TYPE, RDFS.COMMENT, RDFS.LABEL, RDF.PROPERTY);
+        String creature = "http://example.org/tuto/ontology#Creature";
+        String animal = "http://example.org/tuto/ontology#Animal";
+        String cat = "http://example.org/tuto/ontology#Cat";
+
+        Map<String, Boolean> result = sut.hasChildConcepts(kb,
+                Arrays.asList(creature, animal, cat), false);
+
+        assertThat(result)
+            .as("Check that child concepts have been detected for each concept")
+            .containsEntry(creature, true)
+            .containsEntry(animal, true)
+            .containsEntry(cat, false)
+            .hasSize(3);
+    }
+
+    @Test
+    public void listChildConcepts_WithOffsetAndLimit_ReturnsPageOfSortedChildren()
+        throws Exception {
+        sut.registerKnowledgeBase(kb, sut.getNativeConfig());
+        importKnowledgeBase("data/sparql_playground.ttl");
+        setSchema(kb, RDFS.CLASS, RDFS.SUBCLASSOF, RDF.TYPE, RDFS.COMMENT, RDFS.LABEL, RDF.PROPERTY);
+
+        List<String> page = sut
+                .listChildConcepts(kb, "http://example.org/tuto/ontology#Animal", false, 1, 5)
+                .stream()
+                .map(KBHandle::getName)
+                .collect(Collectors.toList());
+
+        assertThat(page)
+            .as("Check that the page starts after the first child")
+            .containsExactly("dog", "monkey");
+    }
+
+    @Test
+    public void listChildConcepts_WithOffsetAndLimit_ReturnsSameOrderAsAllChildren()
+        throws Exception {
+        sut.registerKnowledgeBase(kb, sut.getNativeConfig());
+        importKnowledgeBase("data/sparql_playground.ttl");
+        setSchema(kb, RDFS.CLASS, RDFS.SUBCLASSOF, RDF.TYPE, RDFS.COMMENT, RDFS.LABEL, RDF.PROPERTY);
+        String animal = "http://example.org/tuto/ontology#Animal";
+
+        List<KBHandle> firstPage = sut.listChildConcepts(kb, animal, false, 0, 2);
+        List<KBHandle> secondPage = sut.listChildConcepts(kb, animal, false, 2, 2);
+        List<KBHandle> all = sut.listChildConcepts(kb, animal, false);
+
+        assertThat(firstPage)
+            .as("Check that the page is limited")
+            .hasSize(2);
+        assertThat(secondPage)
+            .as("Check that the pages together contain all children in the same order")
+            .containsExactlyElementsOf(all.subList(2, all.size()));
+        assertThat(firstPage)
+            .containsExactlyElementsOf(all.subList(0, 2));
+    }
+
     @Test
     public void getEnabledKnowledgeBases_WithOneEnabledOneDisabled_ReturnsOnlyEnabledKB()
     {
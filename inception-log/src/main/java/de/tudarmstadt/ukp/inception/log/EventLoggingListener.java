@@ -49,13 +49,13 @@ public class EventLoggingListener
 
     private final Map<Class<?>, EventLoggingAdapter<?>> adapterCache;
 
-    private final EventRepository repo;
+    private final EventLoggingWriter writer;
 
     public EventLoggingListener(
-            @Autowired EventRepository aRepo,
+            @Autowired EventLoggingWriter aWriter,
             @Lazy @Autowired(required = false) List<EventLoggingAdapter<?>> aAdapters)
     {
-        repo = aRepo;
+        writer = aWriter;
         adapterProxy = aAdapters;
         adapterCache = new HashedMap<>();
     }
@@ -124,7 +124,8 @@ public class EventLoggingListener
             e.setDocument(a.getDocument(aEvent));
             e.setAnnotator(a.getAnnotator(aEvent));
             e.setDetails(a.getDetails(aEvent));
-            repo.create(e);
+            // Persisted in the background so that logging does not delay the request
+            writer.enqueue(e);
         }
     }
 }
@@ -0,0 +1,236 @@
+/*
+ * Copyright 2018
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.log;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import de.tudarmstadt.ukp.inception.log.model.LoggedEvent;
+
+/**
+ * Writes logged events to the {@link EventRepository} in the background. Events are collected in
+ * a bounded buffer and written in batches, each batch in a single transaction. A batch is written
+ * when it is full or when the flush interval has passed since its first event arrived. If the
+ * buffer is full, new events are dropped and counted. On shutdown, the writer thread writes all
+ * buffered events before it ends. Events which arrive after that are written synchronously.
+ */
+@Component
+public class EventLoggingWriter
+{
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final EventRepository repo;
+
+    @Value("${event-logging.buffer-size:10000}")
+    private int bufferSize = 10000;
+
+    @Value("${event-logging.batch-size:500}")
+    private int batchSize = 500;
+
+    /**
+     * Maximum time in milliseconds an event waits in the buffer before it is written.
+     */
+    @Value("${event-logging.flush-interval:1000}")
+    private long flushInterval = 1000;
+
+    /**
+     * Maximum time in milliseconds to wait on shutdown for the buffered events to be written.
+     */
+    @Value("${event-logging.shutdown-timeout:60000}")
+    private long shutdownTimeout = 60000;
+
+    private BlockingQueue<LoggedEvent> buffer;
+    private Thread writerThread;
+    private volatile boolean running;
+
+    private final AtomicLong enqueuedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong writtenCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+
+    public EventLoggingWriter(@Autowired EventRepository aRepo)
+    {
+        repo = aRepo;
+    }
+
+    @PostConstruct
+    public void start()
+    {
+        buffer = new ArrayBlockingQueue<>(bufferSize);
+        running = true;
+
+        writerThread = new Thread(this::run, "event-logging-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException
+    {
+        // The writer thread drains the buffer before it ends. Events which arrive from now on
+        // are written by the enqueuing thread.
+        running = false;
+        writerThread.join(shutdownTimeout);
+
+        if (writerThread.isAlive()) {
+            log.warn("Event logging writer did not finish within {}ms - {} buffered events may "
+                    + "be lost", shutdownTimeout, buffer.size());
+        }
+
+        log.info("Event logging stopped - written: {}, dropped: {}, failed: {}",
+                writtenCount.get(), droppedCount.get(), failedCount.get());
+    }
+
+    /**
+     * Adds the event to the buffer. Never blocks - if the buffer is full, the event is dropped.
+     * Once the writer has been stopped, events are no longer buffered but written right away,
+     * e.g. those triggered by other components while the application shuts down.
+     *
+     * @return whether the event was added to the buffer or written.
+     */
+    public boolean enqueue(LoggedEvent aEvent)
+    {
+        if (!running) {
+            writeDirectly(aEvent);
+            return true;
+        }
+        
+        if (buffer.offer(aEvent)) {
+            enqueuedCount.incrementAndGet();
+            // The writer may have been stopped after the check above. If the event is still in
+            // the buffer, the writer thread might not pick it up anymore.
+            if (!running && buffer.remove(aEvent)) {
+                writeDirectly(aEvent);
+            }
+            return true;
+        }
+
+        long dropped = droppedCount.incrementAndGet();
+        // Avoid flooding the log when the database cannot keep up
+        if (dropped == 1 || dropped % 1000 == 0) {
+            log.warn("Event logging buffer is full - {} events dropped so far", dropped);
+        }
+        return false;
+    }
+
+    private void run()
+    {
+        List<LoggedEvent> batch = new ArrayList<>();
+
+        while (running || !buffer.isEmpty()) {
+            try {
+                LoggedEvent first = buffer.poll(flushInterval, MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // Collect more events until the batch is full or the flush interval has passed
+                long deadline = System.currentTimeMillis() + flushInterval;
+                while (batch.size() < batchSize) {
+                    buffer.drainTo(batch, batchSize - batch.size());
+                    long wait = deadline - System.currentTimeMillis();
+                    // Do not wait for more events when shutting down
+                    if (batch.size() >= batchSize || wait <= 0 || !running) {
+                        break;
+                    }
+                    LoggedEvent next = buffer.poll(wait, MILLISECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                write(batch);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        // Write what has been collected or is still buffered, e.g. after an interrupt
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+        while (buffer.drainTo(batch, batchSize) > 0) {
+            write(batch);
+        }
+    }
+
+    private void writeDirectly(LoggedEvent aEvent)
+    {
+        List<LoggedEvent> batch = new ArrayList<>();
+        batch.add(aEvent);
+        write(batch);
+    }
+
+    private void write(List<LoggedEvent> aBatch)
+    {
+        try {
+            repo.create(aBatch);
+            writtenCount.addAndGet(aBatch.size());
+        }
+        catch (Exception e) {
+            failedCount.addAndGet(aBatch.size());
+            log.error("Unable to write {} logged events", aBatch.size(), e);
+        }
+        finally {
+            aBatch.clear();
+        }
+    }
+
+    public int getBufferedCount()
+    {
+        return buffer.size();
+    }
+
+    public long getEnqueuedCount()
+    {
+        return enqueuedCount.get();
+    }
+
+    public long getDroppedCount()
+    {
+        return droppedCount.get();
+    }
+
+    public long getWrittenCount()
+    {
+        return writtenCount.get();
+    }
+
+    public long getFailedCount()
+    {
+        return failedCount.get();
+    }
+}
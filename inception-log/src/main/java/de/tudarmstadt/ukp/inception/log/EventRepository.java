@@ -17,6 +17,8 @@
  */
 package de.tudarmstadt.ukp.inception.log;
 
+import java.util.List;
+
 import de.tudarmstadt.ukp.inception.log.model.LoggedEvent;
 
 public interface EventRepository
@@ -24,4 +26,9 @@ public interface EventRepository
     static final String SERVICE_NAME = "eventRepository";
 
     void create(LoggedEvent aE);
+
+    /**
+     * Persists all given events in a single transaction.
+     */
+    void create(List<LoggedEvent> aEvents);
 }
@@ -17,11 +17,21 @@
  */
 package de.tudarmstadt.ukp.inception.log;
 
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+
+import javax.annotation.PostConstruct;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import javax.sql.DataSource;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -31,16 +41,76 @@ import de.tudarmstadt.ukp.inception.log.model.LoggedEvent;
 public class EventRepositoryImpl
     implements EventRepository
 {
+    private static final String INSERT_EVENT = "INSERT INTO logged_event "
+            + "(event, created, user, project, document, annotator, details) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
     private final Logger log = LoggerFactory.getLogger(getClass());
 
     @PersistenceContext
     private EntityManager entityManager;
 
+    private @Autowired DataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void init()
+    {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
     @Override
     @Transactional
     public void create(LoggedEvent aEvent)
     {
-        log.info("{}", aEvent);
+        log.debug("{}", aEvent);
         entityManager.persist(aEvent);
     }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The events are inserted as a single JDBC batch. Hibernate does not batch inserts of entities
+     * with IDENTITY ids, so persisting them through the entity manager would send one statement per
+     * event. The ids of the given events are not set.
+     */
+    @Override
+    @Transactional
+    public void create(List<LoggedEvent> aEvents)
+    {
+        if (aEvents.isEmpty()) {
+            return;
+        }
+
+        if (log.isDebugEnabled()) {
+            aEvents.forEach(event -> log.debug("{}", event));
+        }
+
+        // Make sure that events persisted through the entity manager in this transaction are
+        // inserted before the batch
+        entityManager.flush();
+
+        jdbcTemplate.batchUpdate(INSERT_EVENT, new BatchPreparedStatementSetter()
+        {
+            @Override
+            public void setValues(PreparedStatement aStatement, int aIndex) throws SQLException
+            {
+                LoggedEvent event = aEvents.get(aIndex);
+                aStatement.setString(1, event.getEvent());
+                aStatement.setTimestamp(2, new Timestamp(event.getCreated().getTime()));
+                aStatement.setString(3, event.getUser());
+                aStatement.setLong(4, event.getProject());
+                aStatement.setLong(5, event.getDocument());
+                aStatement.setString(6, event.getAnnotator());
+                aStatement.setString(7, event.getDetails());
+            }
+
+            @Override
+            public int getBatchSize()
+            {
+                return aEvents.size();
+            }
+        });
+    }
 }
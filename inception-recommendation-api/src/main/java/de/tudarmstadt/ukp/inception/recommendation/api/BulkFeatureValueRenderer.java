@@ -0,0 +1,45 @@
+/*
+ * Copyright 2018
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.recommendation.api;
+
+import java.util.Collection;
+import java.util.Map;
+
+import de.tudarmstadt.ukp.clarin.webanno.api.annotation.feature.FeatureSupport;
+import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationFeature;
+
+/**
+ * Implemented by {@link FeatureSupport feature supports} which can render many feature values at
+ * once more cheaply than one at a time, e.g. because every value has to be looked up in a
+ * knowledge base. Renderers which show many predictions at once should prefer this over
+ * {@link FeatureSupport#renderFeatureValue}.
+ */
+public interface BulkFeatureValueRenderer
+{
+    /**
+     * Renders many values of the given feature at once.
+     *
+     * @param aFeature
+     *            the feature.
+     * @param aLabels
+     *            the feature values.
+     * @return the rendered values by their feature value.
+     */
+    Map<String, String> renderFeatureValues(AnnotationFeature aFeature,
+            Collection<String> aLabels);
+}
@@ -25,6 +25,7 @@ import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationLayer;
 import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocument;
 import de.tudarmstadt.ukp.clarin.webanno.security.model.User;
 import de.tudarmstadt.ukp.inception.recommendation.api.model.LearningRecord;
+import de.tudarmstadt.ukp.inception.recommendation.api.model.RejectedRecommendations;
 
 
 public interface LearningRecordService {
@@ -37,6 +38,13 @@ public interface LearningRecordService {
     public List<LearningRecord> getAllRecordsByDocumentAndUserAndLayer(
         SourceDocument sourceDocument, String user, AnnotationLayer layer);
 
+    /**
+     * Get the recommendations the user has rejected in the given document and layer. The result
+     * is cached until the learning records of the user in the document change.
+     */
+    RejectedRecommendations getRejectedRecommendations(SourceDocument sourceDocument,
+            String user, AnnotationLayer layer);
+
     public void deleteRecordByDocumentAndUser(SourceDocument document, String user);
 
     LearningRecord getRecordById(long recordId);
@@ -26,6 +26,7 @@ import de.tudarmstadt.ukp.clarin.webanno.api.annotation.model.AnnotatorState;
 import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationFeature;
 import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationLayer;
 import de.tudarmstadt.ukp.clarin.webanno.model.Project;
+import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocument;
 import de.tudarmstadt.ukp.clarin.webanno.security.model.User;
 import de.tudarmstadt.ukp.inception.recommendation.api.model.Predictions;
 import de.tudarmstadt.ukp.inception.recommendation.api.model.Recommender;
@@ -68,8 +69,34 @@ public interface RecommendationService
     
     void storeTrainedModel(User aUser, Recommender aRecommender, Object aTrain);
     
+    /**
+     * Stores the trained model together with a fingerprint of the data it was trained on. The
+     * fingerprint allows the training to detect that the model is still up-to-date.
+     */
+    void storeTrainedModel(User aUser, Recommender aRecommender, Object aTrain,
+            String aFingerprint);
+    
+    /**
+     * Returns the fingerprint the current model of the given user and recommender has been stored
+     * with or {@code null} if there is no model or it has been stored without a fingerprint.
+     */
+    String getTrainedModelFingerprint(User aUser, Recommender aRecommender);
+    
     Object getTrainedModel(User aUser, Recommender aRecommender);
     
+    /**
+     * Returns a version number for the currently trained model of the given user and recommender.
+     * The version changes every time a new model is stored. If there is no trained model, 0 is
+     * returned.
+     */
+    long getTrainedModelVersion(User aUser, Recommender aRecommender);
+    
+    /**
+     * Returns the document the given user has last opened in the given project or {@code null}
+     * if the user has not opened any document yet.
+     */
+    SourceDocument getLastOpenedDocument(User aUser, Project aProject);
+    
     void setMaxSuggestions(User aUser, int aMax);
     
     int getMaxSuggestions(User aUser);
@@ -0,0 +1,298 @@
+/*
+ * Copyright 2018
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.recommendation.api.model;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Secondary indexes over the predictions of a {@link Predictions} object. Predictions are
+ * organized by document and layer in a map sorted by (begin, end) offsets so that window and
+ * overlap lookups run in O(log n + k). Additional indexes allow looking up predictions by VID
+ * (document, recommender, id), by offsets and by recommender.
+ * <p>
+ * All lookup methods return copies which can be used safely after the lock has been released.
+ * This class is not thread-safe. Access must be synchronized by the caller.
+ */
+public class PredictionIndex
+    implements Serializable
+{
+    private static final long serialVersionUID = 2718407004271537395L;
+
+    // document -> layer -> offsets
+    private final Map<String, Map<Long, IntervalIndex>> byDocument = new HashMap<>();
+    // document -> recommender -> annotation id
+    private final Map<String, Map<Long, Map<Integer, List<ExtendedId>>>> byVid = new HashMap<>();
+    // offsets -> predictions in any document
+    private final Map<Long, List<ExtendedId>> byOffset = new HashMap<>();
+    // recommender -> predictions
+    private final Map<Long, Set<ExtendedId>> byRecommender = new HashMap<>();
+
+    public void add(ExtendedId aId)
+    {
+        Offset offset = aId.getOffset();
+
+        byDocument.computeIfAbsent(aId.getDocumentName(), k -> new HashMap<>())
+                .computeIfAbsent(aId.getLayerId(), k -> new IntervalIndex())
+                .add(aId);
+
+        byVid.computeIfAbsent(aId.getDocumentName(), k -> new HashMap<>())
+                .computeIfAbsent(aId.getRecommenderId(), k -> new HashMap<>())
+                .computeIfAbsent(aId.getAnnotationId(), k -> new ArrayList<>())
+                .add(aId);
+
+        byOffset.computeIfAbsent(
+                key(offset.getBeginCharacter(), offset.getEndCharacter()),
+                k -> new ArrayList<>()).add(aId);
+
+        byRecommender.computeIfAbsent(aId.getRecommenderId(), k -> new LinkedHashSet<>())
+                .add(aId);
+    }
+
+    public void remove(ExtendedId aId)
+    {
+        Offset offset = aId.getOffset();
+
+        Map<Long, IntervalIndex> layers = byDocument.get(aId.getDocumentName());
+        if (layers != null) {
+            IntervalIndex intervals = layers.get(aId.getLayerId());
+            if (intervals != null) {
+                intervals.remove(aId);
+                if (intervals.isEmpty()) {
+                    layers.remove(aId.getLayerId());
+                }
+            }
+            if (layers.isEmpty()) {
+                byDocument.remove(aId.getDocumentName());
+            }
+        }
+
+        Map<Long, Map<Integer, List<ExtendedId>>> recommenders = byVid
+                .get(aId.getDocumentName());
+        if (recommenders != null) {
+            Map<Integer, List<ExtendedId>> ids = recommenders.get(aId.getRecommenderId());
+            if (ids != null) {
+                removeFromList(ids, aId.getAnnotationId(), aId);
+                if (ids.isEmpty()) {
+                    recommenders.remove(aId.getRecommenderId());
+                }
+            }
+            if (recommenders.isEmpty()) {
+                byVid.remove(aId.getDocumentName());
+            }
+        }
+
+        removeFromList(byOffset, key(offset.getBeginCharacter(), offset.getEndCharacter()), aId);
+
+        Set<ExtendedId> recommenderIds = byRecommender.get(aId.getRecommenderId());
+        if (recommenderIds != null) {
+            recommenderIds.remove(aId);
+            if (recommenderIds.isEmpty()) {
+                byRecommender.remove(aId.getRecommenderId());
+            }
+        }
+    }
+
+    public void clear()
+    {
+        byDocument.clear();
+        byVid.clear();
+        byOffset.clear();
+        byRecommender.clear();
+    }
+
+    /**
+     * @return the IDs of all predictions in the given document and layer which lie completely
+     *         within the given window, sorted by begin and end offset.
+     */
+    public List<ExtendedId> getContained(String aDocumentName, long aLayerId, int aBegin,
+            int aEnd)
+    {
+        IntervalIndex intervals = getIntervals(aDocumentName, aLayerId);
+        if (intervals == null) {
+            return Collections.emptyList();
+        }
+        return intervals.getContained(aBegin, aEnd);
+    }
+
+    /**
+     * @return the IDs of all predictions in the given document and layer which overlap with the
+     *         given window, sorted by begin and end offset.
+     */
+    public List<ExtendedId> getOverlapping(String aDocumentName, long aLayerId, int aBegin,
+            int aEnd)
+    {
+        IntervalIndex intervals = getIntervals(aDocumentName, aLayerId);
+        if (intervals == null) {
+            return Collections.emptyList();
+        }
+        return intervals.getOverlapping(aBegin, aEnd);
+    }
+
+    /**
+     * @return the IDs of all predictions in the given document and layer which exactly span the
+     *         given offsets.
+     */
+    public List<ExtendedId> getAt(String aDocumentName, long aLayerId, int aBegin, int aEnd)
+    {
+        IntervalIndex intervals = getIntervals(aDocumentName, aLayerId);
+        if (intervals == null) {
+            return Collections.emptyList();
+        }
+        return intervals.getAt(aBegin, aEnd);
+    }
+
+    public List<ExtendedId> getByVid(String aDocumentName, long aRecommenderId, int aId)
+    {
+        Map<Long, Map<Integer, List<ExtendedId>>> recommenders = byVid.get(aDocumentName);
+        if (recommenders == null) {
+            return Collections.emptyList();
+        }
+        Map<Integer, List<ExtendedId>> ids = recommenders.get(aRecommenderId);
+        if (ids == null) {
+            return Collections.emptyList();
+        }
+        List<ExtendedId> result = ids.get(aId);
+        return result != null ? new ArrayList<>(result) : Collections.emptyList();
+    }
+
+    public List<ExtendedId> getByOffset(int aBegin, int aEnd)
+    {
+        List<ExtendedId> result = byOffset.get(key(aBegin, aEnd));
+        return result != null ? new ArrayList<>(result) : Collections.emptyList();
+    }
+
+    public Set<ExtendedId> getByRecommender(long aRecommenderId)
+    {
+        Set<ExtendedId> result = byRecommender.get(aRecommenderId);
+        return result != null ? new LinkedHashSet<>(result) : Collections.emptySet();
+    }
+
+    private IntervalIndex getIntervals(String aDocumentName, long aLayerId)
+    {
+        Map<Long, IntervalIndex> layers = byDocument.get(aDocumentName);
+        if (layers == null) {
+            return null;
+        }
+        return layers.get(aLayerId);
+    }
+
+    private static <K> void removeFromList(Map<K, List<ExtendedId>> aMap, K aKey,
+            ExtendedId aId)
+    {
+        List<ExtendedId> list = aMap.get(aKey);
+        if (list != null) {
+            list.remove(aId);
+            if (list.isEmpty()) {
+                aMap.remove(aKey);
+            }
+        }
+    }
+
+    /**
+     * Encodes begin and end offsets into a single key which sorts by begin first and by end
+     * second.
+     */
+    private static long key(int aBegin, int aEnd)
+    {
+        return ((long) aBegin << 32) | (aEnd & 0xFFFFFFFFL);
+    }
+
+    private static int end(long aKey)
+    {
+        return (int) aKey;
+    }
+
+    /**
+     * Offset-sorted index of the predictions in a single document and layer. In addition to the
+     * sorted map, the length of the longest interval is tracked so that overlap queries can
+     * start scanning at the earliest begin offset that could still reach into the window.
+     */
+    private static class IntervalIndex
+        implements Serializable
+    {
+        private static final long serialVersionUID = -6441617385283532478L;
+
+        private final NavigableMap<Long, List<ExtendedId>> intervals = new TreeMap<>();
+        private int maxLength = 0;
+
+        public void add(ExtendedId aId)
+        {
+            Offset offset = aId.getOffset();
+            intervals.computeIfAbsent(
+                    key(offset.getBeginCharacter(), offset.getEndCharacter()),
+                    k -> new ArrayList<>()).add(aId);
+            maxLength = Math.max(maxLength,
+                    offset.getEndCharacter() - offset.getBeginCharacter());
+        }
+
+        public void remove(ExtendedId aId)
+        {
+            // maxLength is an upper bound and is not shrunk on removal - this only makes overlap
+            // queries scan a bit further than necessary.
+            Offset offset = aId.getOffset();
+            removeFromList(intervals, key(offset.getBeginCharacter(), offset.getEndCharacter()),
+                    aId);
+        }
+
+        public boolean isEmpty()
+        {
+            return intervals.isEmpty();
+        }
+
+        public List<ExtendedId> getContained(int aBegin, int aEnd)
+        {
+            List<ExtendedId> result = new ArrayList<>();
+            for (Map.Entry<Long, List<ExtendedId>> e : intervals
+                    .subMap(key(aBegin, 0), true, key(aEnd, aEnd), true)
+                    .entrySet()) {
+                if (end(e.getKey()) <= aEnd) {
+                    result.addAll(e.getValue());
+                }
+            }
+            return result;
+        }
+
+        public List<ExtendedId> getOverlapping(int aBegin, int aEnd)
+        {
+            List<ExtendedId> result = new ArrayList<>();
+            long from = key(aBegin - maxLength, 0);
+            for (Map.Entry<Long, List<ExtendedId>> e : intervals
+                    .subMap(from, true, key(aEnd, 0), false).entrySet()) {
+                if (end(e.getKey()) > aBegin) {
+                    result.addAll(e.getValue());
+                }
+            }
+            return result;
+        }
+
+        public List<ExtendedId> getAt(int aBegin, int aEnd)
+        {
+            List<ExtendedId> result = intervals.get(key(aBegin, aEnd));
+            return result != null ? new ArrayList<>(result) : Collections.emptyList();
+        }
+    }
+}
@@ -20,14 +20,18 @@ package de.tudarmstadt.ukp.inception.recommendation.api.model;
 import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.apache.uima.cas.Type;
 import org.apache.uima.cas.text.AnnotationFS;
@@ -57,6 +61,9 @@ public class Predictions
     private static final long serialVersionUID = -1598768729246662885L;
     
     private Map<ExtendedId, AnnotationObject> predictions = new ConcurrentHashMap<>();
+    private final PredictionIndex index = new PredictionIndex();
+    // recommender -> document -> versions the predictions were generated from
+    private final Map<Long, Map<String, PredictionStamp>> stamps = new ConcurrentHashMap<>();
     
     private final Project project;
     private final User user;
@@ -74,6 +81,7 @@ public class Predictions
         
         if (aPredictions != null) {
             predictions = new ConcurrentHashMap<ExtendedId, AnnotationObject> (aPredictions);
+            predictions.keySet().forEach(index::add);
         }
     }
     
@@ -114,6 +122,30 @@ public class Predictions
         return predictions;
     }
 
+    /**
+     * Copies all predictions including their prediction stamps from another predictions object
+     * into this one.
+     */
+    public void copyPredictions(Predictions aSource)
+    {
+        Map<ExtendedId, AnnotationObject> sourcePredictions;
+        synchronized (aSource.index) {
+            sourcePredictions = new HashMap<>(aSource.predictions);
+        }
+
+        synchronized (index) {
+            sourcePredictions.forEach((id, prediction) -> {
+                if (predictions.put(id, prediction) == null) {
+                    index.add(id);
+                }
+            });
+        }
+
+        aSource.stamps.forEach((recommenderId, documentStamps) -> stamps
+                .computeIfAbsent(recommenderId, k -> new ConcurrentHashMap<>())
+                .putAll(documentStamps));
+    }
+
     /**
      * TODO #176 use the document Id once it it available in the CAS
      *         
@@ -167,32 +199,24 @@ public class Predictions
         AnnotationLayer aLayer, int aWindowBegin, int aWindowEnd, JCas aJcas,
         boolean aFilterExisting)
     {
-        List<Map.Entry<ExtendedId, AnnotationObject>> p = predictions.entrySet().stream()
-            .filter(f -> f.getKey().getDocumentName().equals(aDocumentName))
-            .filter(f -> f.getKey().getLayerId() == aLayer.getId())
-            .filter(f -> f.getKey().getOffset().getBeginCharacter() >= aWindowBegin)
-            .filter(f -> f.getKey().getOffset().getEndCharacter() <= aWindowEnd)
-            .sorted(Comparator.comparingInt(e2 -> e2.getValue().getOffset().getBeginCharacter()))
-            .collect(Collectors.toList());
+        List<ExtendedId> p;
+        synchronized (index) {
+            p = index.getContained(aDocumentName, aLayer.getId(), aWindowBegin, aWindowEnd);
+        }
 
         if (aFilterExisting) {
             Type type = CasUtil.getType(aJcas.getCas(), aLayer.getName());
             List<AnnotationFS> existingAnnotations = CasUtil.selectCovered(aJcas.getCas(),
                 type, aWindowBegin, aWindowEnd);
-            List<Integer> existingOffsets = existingAnnotations.stream()
+            Set<Integer> existingOffsets = existingAnnotations.stream()
                 .map(AnnotationFS::getBegin)
-                .collect(Collectors.toList());
-
-            return p.stream()
-                .filter(f -> !existingOffsets.contains(f.getKey().getOffset().getBeginCharacter()))
-                .map(Map.Entry::getValue)
-                .collect(Collectors.toList());
+                .collect(Collectors.toSet());
 
+            return resolve(p.stream()
+                .filter(f -> !existingOffsets.contains(f.getOffset().getBeginCharacter())));
         }
         else {
-            return p.stream()
-                .map(Map.Entry::getValue)
-                .collect(Collectors.toList());
+            return resolve(p.stream());
         }
     }
 
@@ -202,11 +226,11 @@ public class Predictions
      */
     public Optional<AnnotationObject> getPredictionByVID(SourceDocument document, VID aVID)
     {
-        return predictions.values().stream()
-                .filter(f -> f.getDocumentName().equals(document.getName()))
-                .filter(f -> f.getId() == aVID.getSubId())
-                .filter(f -> f.getRecommenderId() == aVID.getId())
-                .findFirst();
+        List<ExtendedId> candidates;
+        synchronized (index) {
+            candidates = index.getByVid(document.getName(), aVID.getId(), aVID.getSubId());
+        }
+        return resolve(candidates.stream()).stream().findFirst();
     }
 
     /**
@@ -214,9 +238,11 @@ public class Predictions
      */
     public Optional<AnnotationObject> getPrediction(int aBegin, int aEnd, String aLabel)
     {
-        return predictions.values().stream()
-                .filter(f -> f.getOffset().getBeginCharacter() == aBegin
-                        && f.getOffset().getEndCharacter() == aEnd)
+        List<ExtendedId> candidates;
+        synchronized (index) {
+            candidates = index.getByOffset(aBegin, aEnd);
+        }
+        return resolve(candidates.stream()).stream()
                 .filter(f -> f.getLabel().equals(aLabel))
                 .max(Comparator.comparingInt(AnnotationObject::getId));
     }
@@ -228,13 +254,18 @@ public class Predictions
      */
     public void putPredictions(long aLayerId, List<AnnotationObject> aPredictions)
     {
-        aPredictions.forEach(prediction -> {
-            if (prediction.getLabel() != null) {
-                predictions.put(new ExtendedId(user.getUsername(), project.getId(),
-                        prediction.getDocumentName(), aLayerId, prediction.getOffset(),
-                        prediction.getRecommenderId(), prediction.getId(), -1), prediction);
-            }
-        });
+        synchronized (index) {
+            aPredictions.forEach(prediction -> {
+                if (prediction.getLabel() != null) {
+                    ExtendedId id = new ExtendedId(user.getUsername(), project.getId(),
+                            prediction.getDocumentName(), aLayerId, prediction.getOffset(),
+                            prediction.getRecommenderId(), prediction.getId(), -1);
+                    if (predictions.put(id, prediction) == null) {
+                        index.add(id);
+                    }
+                }
+            });
+        }
     }
 
     public Project getProject() {
@@ -248,18 +279,84 @@ public class Predictions
 
     public Map<ExtendedId, AnnotationObject> getPredictions()
     {
-        return predictions;
+        return Collections.unmodifiableMap(predictions);
     }
     
     public void clearPredictions()
     {
-        predictions.clear();
+        synchronized (index) {
+            predictions.clear();
+            index.clear();
+            stamps.clear();
+        }
     }
 
     public void removePredictions(Long recommenderId)
     {
-        predictions.entrySet()
-            .removeIf((p) -> p.getKey().getRecommenderId() == recommenderId);
+        synchronized (index) {
+            for (ExtendedId id : index.getByRecommender(recommenderId)) {
+                predictions.remove(id);
+                index.remove(id);
+            }
+            stamps.remove(recommenderId);
+        }
+    }
+
+    /**
+     * Records the model version and document version from which the predictions of the given
+     * recommender for the given document have been generated.
+     */
+    public void setPredictionStamp(long aRecommenderId, String aDocumentName, long aModelVersion,
+            long aDocumentVersion)
+    {
+        stamps.computeIfAbsent(aRecommenderId, k -> new ConcurrentHashMap<>()).put(aDocumentName,
+                new PredictionStamp(aModelVersion, aDocumentVersion));
+    }
+
+    /**
+     * Checks whether the predictions of the given recommender for the given document have been
+     * generated from the given model version and document version.
+     */
+    public boolean isUpToDate(long aRecommenderId, String aDocumentName, long aModelVersion,
+            long aDocumentVersion)
+    {
+        Map<String, PredictionStamp> documentStamps = stamps.get(aRecommenderId);
+        if (documentStamps == null) {
+            return false;
+        }
+        PredictionStamp stamp = documentStamps.get(aDocumentName);
+        return stamp != null && stamp.modelVersion == aModelVersion
+                && stamp.documentVersion == aDocumentVersion;
+    }
+
+    /**
+     * Copies the predictions of the given recommender for the given document including their
+     * prediction stamp from another predictions object into this one.
+     */
+    public void copyPredictions(Predictions aSource, long aRecommenderId, String aDocumentName)
+    {
+        List<ExtendedId> ids;
+        synchronized (aSource.index) {
+            ids = aSource.index.getByRecommender(aRecommenderId).stream()
+                    .filter(id -> id.getDocumentName().equals(aDocumentName))
+                    .collect(Collectors.toList());
+        }
+
+        synchronized (index) {
+            for (ExtendedId id : ids) {
+                AnnotationObject prediction = aSource.predictions.get(id);
+                if (prediction != null && predictions.put(id, prediction) == null) {
+                    index.add(id);
+                }
+            }
+        }
+
+        Map<String, PredictionStamp> documentStamps = aSource.stamps.get(aRecommenderId);
+        PredictionStamp stamp = documentStamps != null ? documentStamps.get(aDocumentName) : null;
+        if (stamp != null) {
+            stamps.computeIfAbsent(aRecommenderId, k -> new ConcurrentHashMap<>())
+                    .put(aDocumentName, stamp);
+        }
     }
 
     /**
@@ -277,14 +374,38 @@ public class Predictions
     public List<AnnotationObject> getPredictionsByTokenAndFeature(String aDocumentName,
         AnnotationLayer aLayer, int aBegin, int aEnd, String aFeature)
     {
-        return predictions.entrySet().stream()
-            .filter(f -> f.getKey().getDocumentName().equals(aDocumentName))
-            .filter(f -> f.getKey().getLayerId() == aLayer.getId())
-            .filter(f -> f.getKey().getOffset().getBeginCharacter() == aBegin)
-            .filter(f -> f.getKey().getOffset().getEndCharacter() == aEnd)
-            .filter(f -> f.getValue().getFeature().equals(aFeature))
-            .map(Map.Entry::getValue)
+        List<ExtendedId> candidates;
+        synchronized (index) {
+            candidates = index.getAt(aDocumentName, aLayer.getId(), aBegin, aEnd);
+        }
+        return resolve(candidates.stream()).stream()
+            .filter(f -> f.getFeature().equals(aFeature))
             .collect(Collectors.toList());
+    }
+    
+    /**
+     * Look up the predictions for the given IDs in the prediction map.
+     */
+    private List<AnnotationObject> resolve(Stream<ExtendedId> aIds)
+    {
+        return aIds
+            .map(predictions::get)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toList());
+    }
+    
+    private static class PredictionStamp
+        implements Serializable
+    {
+        private static final long serialVersionUID = 4281935364283785043L;
+        
+        private final long modelVersion;
+        private final long documentVersion;
 
+        public PredictionStamp(long aModelVersion, long aDocumentVersion)
+        {
+            modelVersion = aModelVersion;
+            documentVersion = aDocumentVersion;
+        }
     }
 }
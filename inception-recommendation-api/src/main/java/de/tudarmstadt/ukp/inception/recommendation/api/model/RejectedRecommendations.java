@@ -0,0 +1,70 @@
+/*
+ * Copyright 2018
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.recommendation.api.model;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The recommendations a user has rejected, hashed by their character offsets, label and feature.
+ * Records which do not know their feature reject the label for all features.
+ */
+public class RejectedRecommendations
+{
+    private final Set<List<Object>> rejected = new HashSet<>();
+
+    public RejectedRecommendations(Collection<LearningRecord> aRecords)
+    {
+        for (LearningRecord record : aRecords) {
+            if (!LearningRecordUserAction.REJECTED.equals(record.getUserAction())) {
+                continue;
+            }
+
+            String feature = record.getAnnotationFeature() != null
+                    ? record.getAnnotationFeature().getName() : null;
+            rejected.add(key(record.getOffsetCharacterBegin(), record.getOffsetCharacterEnd(),
+                    record.getAnnotation(), feature));
+        }
+    }
+
+    public boolean isRejected(AnnotationObject aRecommendation)
+    {
+        if (rejected.isEmpty()) {
+            return false;
+        }
+
+        int begin = aRecommendation.getOffset().getBeginCharacter();
+        int end = aRecommendation.getOffset().getEndCharacter();
+        return rejected.contains(
+                key(begin, end, aRecommendation.getLabel(), aRecommendation.getFeature()))
+                || rejected.contains(key(begin, end, aRecommendation.getLabel(), null));
+    }
+
+    public boolean isEmpty()
+    {
+        return rejected.isEmpty();
+    }
+
+    private static List<Object> key(int aBegin, int aEnd, String aLabel, String aFeature)
+    {
+        return Arrays.asList(aBegin, aEnd, aLabel, aFeature);
+    }
+}
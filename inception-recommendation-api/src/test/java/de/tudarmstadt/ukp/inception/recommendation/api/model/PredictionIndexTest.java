@@ -0,0 +1,128 @@
+/*
+ * Copyright 2018
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.recommendation.api.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class PredictionIndexTest
+{
+    private static final long LAYER = 1;
+    private static final long OTHER_LAYER = 2;
+    private static final long RECOMMENDER = 10;
+    private static final long OTHER_RECOMMENDER = 11;
+
+    private PredictionIndex sut;
+
+    @Before
+    public void setup()
+    {
+        sut = new PredictionIndex();
+    }
+
+    @Test
+    public void thatPredictionsAreFoundByDocumentAndLayer()
+    {
+        ExtendedId a = id("doc1", LAYER, 0, 5, RECOMMENDER, 1);
+        ExtendedId b = id("doc1", OTHER_LAYER, 0, 5, RECOMMENDER, 2);
+        ExtendedId c = id("doc2", LAYER, 0, 5, RECOMMENDER, 3);
+        sut.add(a);
+        sut.add(b);
+        sut.add(c);
+
+        assertThat(sut.getContained("doc1", LAYER, 0, 100)).containsExactly(a);
+        assertThat(sut.getContained("doc2", LAYER, 0, 100)).containsExactly(c);
+        assertThat(sut.getContained("doc3", LAYER, 0, 100)).isEmpty();
+    }
+
+    @Test
+    public void thatWindowLookupsRespectOffsets()
+    {
+        ExtendedId early = id("doc", LAYER, 0, 5, RECOMMENDER, 1);
+        ExtendedId middle = id("doc", LAYER, 10, 15, RECOMMENDER, 2);
+        ExtendedId spanning = id("doc", LAYER, 2, 30, RECOMMENDER, 3);
+        ExtendedId late = id("doc", LAYER, 40, 45, RECOMMENDER, 4);
+        sut.add(late);
+        sut.add(middle);
+        sut.add(spanning);
+        sut.add(early);
+
+        // Results are sorted by begin and end offset
+        assertThat(sut.getContained("doc", LAYER, 0, 20)).containsExactly(early, middle);
+        assertThat(sut.getOverlapping("doc", LAYER, 12, 20)).containsExactly(spanning, middle);
+        assertThat(sut.getOverlapping("doc", LAYER, 30, 40)).isEmpty();
+        assertThat(sut.getAt("doc", LAYER, 10, 15)).containsExactly(middle);
+        assertThat(sut.getAt("doc", LAYER, 10, 16)).isEmpty();
+    }
+
+    @Test
+    public void thatPredictionsAreFoundByOffsetVidAndRecommender()
+    {
+        ExtendedId a = id("doc1", LAYER, 3, 7, RECOMMENDER, 1);
+        ExtendedId b = id("doc2", LAYER, 3, 7, OTHER_RECOMMENDER, 1);
+        sut.add(a);
+        sut.add(b);
+
+        assertThat(sut.getByOffset(3, 7)).containsExactlyInAnyOrder(a, b);
+        assertThat(sut.getByVid("doc1", RECOMMENDER, 1)).containsExactly(a);
+        assertThat(sut.getByVid("doc1", OTHER_RECOMMENDER, 1)).isEmpty();
+        assertThat(sut.getByRecommender(OTHER_RECOMMENDER)).containsExactly(b);
+    }
+
+    @Test
+    public void thatReplacedPredictionsAreNoLongerFound()
+    {
+        ExtendedId old = id("doc", LAYER, 0, 5, RECOMMENDER, 1);
+        ExtendedId other = id("doc", LAYER, 20, 25, OTHER_RECOMMENDER, 1);
+        sut.add(old);
+        sut.add(other);
+
+        // Replace the predictions of one recommender as it happens after re-training
+        for (ExtendedId id : sut.getByRecommender(RECOMMENDER)) {
+            sut.remove(id);
+        }
+        ExtendedId replacement = id("doc", LAYER, 6, 9, RECOMMENDER, 1);
+        sut.add(replacement);
+
+        assertThat(sut.getContained("doc", LAYER, 0, 100)).containsExactly(replacement, other);
+        assertThat(sut.getByOffset(0, 5)).isEmpty();
+        assertThat(sut.getByVid("doc", RECOMMENDER, 1)).containsExactly(replacement);
+        assertThat(sut.getByRecommender(RECOMMENDER)).containsExactly(replacement);
+        assertThat(sut.getByRecommender(OTHER_RECOMMENDER)).containsExactly(other);
+    }
+
+    @Test
+    public void thatClearRemovesEverything()
+    {
+        sut.add(id("doc", LAYER, 0, 5, RECOMMENDER, 1));
+        sut.clear();
+
+        assertThat(sut.getContained("doc", LAYER, 0, 100)).isEmpty();
+        assertThat(sut.getByOffset(0, 5)).isEmpty();
+        assertThat(sut.getByRecommender(RECOMMENDER)).isEmpty();
+    }
+
+    private static ExtendedId id(String aDocument, long aLayer, int aBegin, int aEnd,
+            long aRecommender, int aId)
+    {
+        return new ExtendedId("user", 1, aDocument, aLayer, new Offset(aBegin, aEnd, -1, -1),
+                aRecommender, aId, -1);
+    }
+}
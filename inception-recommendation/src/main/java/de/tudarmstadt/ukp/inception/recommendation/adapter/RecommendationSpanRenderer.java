@@ -22,9 +22,11 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.apache.uima.jcas.JCas;
@@ -32,6 +34,7 @@ import org.apache.uima.jcas.JCas;
 import de.tudarmstadt.ukp.clarin.webanno.api.AnnotationSchemaService;
 import de.tudarmstadt.ukp.clarin.webanno.api.annotation.adapter.SpanAdapter;
 import de.tudarmstadt.ukp.clarin.webanno.api.annotation.coloring.ColoringStrategy;
+import de.tudarmstadt.ukp.clarin.webanno.api.annotation.feature.FeatureSupport;
 import de.tudarmstadt.ukp.clarin.webanno.api.annotation.feature.FeatureSupportRegistry;
 import de.tudarmstadt.ukp.clarin.webanno.api.annotation.model.AnnotatorState;
 import de.tudarmstadt.ukp.clarin.webanno.api.annotation.model.VID;
@@ -45,13 +48,12 @@ import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationFeature;
 import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationLayer;
 import de.tudarmstadt.ukp.dkpro.core.api.metadata.type.DocumentMetaData;
 import de.tudarmstadt.ukp.inception.recommendation.RecommendationEditorExtension;
+import de.tudarmstadt.ukp.inception.recommendation.api.BulkFeatureValueRenderer;
 import de.tudarmstadt.ukp.inception.recommendation.api.LearningRecordService;
 import de.tudarmstadt.ukp.inception.recommendation.api.RecommendationService;
 import de.tudarmstadt.ukp.inception.recommendation.api.model.AnnotationObject;
-import de.tudarmstadt.ukp.inception.recommendation.api.model.LearningRecord;
-import de.tudarmstadt.ukp.inception.recommendation.api.model.LearningRecordUserAction;
-import de.tudarmstadt.ukp.inception.recommendation.api.model.Offset;
 import de.tudarmstadt.ukp.inception.recommendation.api.model.Predictions;
+import de.tudarmstadt.ukp.inception.recommendation.api.model.RejectedRecommendations;
 
 /**
  * Render spans.
@@ -105,11 +107,17 @@ public class RecommendationSpanRenderer
         String color = aColoringStrategy.getColor(null, null);
         String bratTypeName = TypeUtil.getUiTypeName(typeAdapter);
 
-        List<VSpan> vspansWithoutRecommendations = new ArrayList<>(vdoc.spans(layer.getId()));
+        // Existing spans are indexed by the features they have a value for. The index is built
+        // before the recommendations are added to the document.
+        Collection<VSpan> vspansWithoutRecommendations = new ArrayList<>(
+                vdoc.spans(layer.getId()));
+        Map<String, SpanOverlapIndex> spanIndexPerFeature = new HashMap<>();
+
+        RejectedRecommendations rejected = learningRecordService.getRejectedRecommendations(
+                aState.getDocument(), aState.getUser().getUsername(), layer);
         
-        List<LearningRecord> recordedAnnotations = learningRecordService
-                .getAllRecordsByDocumentAndUserAndLayer(aState.getDocument(),
-                        aState.getUser().getUsername(), layer);
+        Map<String, Map<String, String>> renderedLabels = renderLabels(recommendations, layer,
+                aAnnotationService, aFsRegistry);
         
         for (List<AnnotationObject> token: recommendations) {
             Map<String, Map<Long, AnnotationObject>> labelMap = new HashMap<>();
@@ -118,11 +126,17 @@ public class RecommendationSpanRenderer
             // show only the confidence of the highest one
             for (AnnotationObject ao: token) {
                 boolean hasNoAnnotation = ao.getLabel() == null;
-                boolean isOverlappingForFeature = isOverlappingForFeature(
-                    vspansWithoutRecommendations, ao.getOffset(), windowBegin, ao.getFeature());
-                boolean isRejected = isRejected(recordedAnnotations, ao);
+                if (hasNoAnnotation) {
+                    continue;
+                }
 
-                if (hasNoAnnotation || isOverlappingForFeature || isRejected) {
+                SpanOverlapIndex spanIndex = spanIndexPerFeature.computeIfAbsent(
+                    ao.getFeature(), f -> indexSpans(vspansWithoutRecommendations, f));
+                boolean isOverlappingForFeature = spanIndex.isOverlapping(
+                    ao.getOffset().getBeginCharacter() - windowBegin,
+                    ao.getOffset().getEndCharacter() - windowBegin);
+
+                if (isOverlappingForFeature || rejected.isRejected(ao)) {
                     continue;
                 }
 
@@ -191,8 +205,13 @@ public class RecommendationSpanRenderer
                         AnnotationFeature feature = aAnnotationService
                             .getFeature(ao.getFeature(), layer);
                         // Retrieve the UI display label for the given feature value
-                        String annotation = aFsRegistry.getFeatureSupport(feature)
-                            .renderFeatureValue(feature, ao.getLabel());
+                        String annotation = renderedLabels
+                            .getOrDefault(ao.getFeature(), Collections.emptyMap())
+                            .get(ao.getLabel());
+                        if (annotation == null) {
+                            annotation = aFsRegistry.getFeatureSupport(feature)
+                                .renderFeatureValue(feature, ao.getLabel());
+                        }
 
                         Map<String, String> featureAnnotation = new HashMap<>();
                         featureAnnotation.put(ao.getFeature(), annotation);
@@ -219,50 +238,54 @@ public class RecommendationSpanRenderer
     }
     
     /**
-     * Check if there is already an existing annotation overlapping the prediction
+     * Renders the labels of all predictions at once if the feature support allows it, so that
+     * e.g. the labels of concepts are resolved with one knowledge base query instead of one query
+     * per prediction.
      * 
+     * @return the rendered labels by feature and label.
      */
-    private boolean isOverlappingForFeature(Collection<VSpan> vspans, Offset recOffset,
-        int windowBegin, String feature)
+    private Map<String, Map<String, String>> renderLabels(
+            List<List<AnnotationObject>> aRecommendations, AnnotationLayer aLayer,
+            AnnotationSchemaService aAnnotationService, FeatureSupportRegistry aFsRegistry)
     {
-
-        for (VSpan v : vspans) {
-            for (VRange o : v.getOffsets()) {
-                if ((o.getBegin() <= recOffset.getBeginCharacter() - windowBegin)
-                        && (o.getEnd() >= recOffset.getEndCharacter() - windowBegin)
-                        
-                    || (o.getBegin() >= recOffset.getBeginCharacter() - windowBegin)
-                        && (o.getEnd() <= recOffset.getEndCharacter() - windowBegin)
-                        
-                    || (o.getBegin() >= recOffset.getBeginCharacter() - windowBegin)
-                        && (o.getEnd() >= recOffset.getEndCharacter() - windowBegin)
-                        && (o.getBegin() < recOffset.getEndCharacter() - windowBegin)
-                        
-                    || (o.getBegin() <= recOffset.getBeginCharacter() - windowBegin)
-                        && (o.getEnd() <= recOffset.getEndCharacter() - windowBegin)
-                        && (o.getEnd() > recOffset.getBeginCharacter() - windowBegin)) {
-                    if (v.getFeatures().get(feature) == null || v.getFeatures().get(feature)
-                        .isEmpty()) {
-                        continue;
-                    }
-                    return true;
+        Map<String, Set<String>> labelsPerFeature = new HashMap<>();
+        for (List<AnnotationObject> token : aRecommendations) {
+            for (AnnotationObject ao : token) {
+                if (ao.getLabel() != null) {
+                    labelsPerFeature.computeIfAbsent(ao.getFeature(), f -> new HashSet<>())
+                        .add(ao.getLabel());
                 }
             }
         }
-        return false;
+
+        Map<String, Map<String, String>> renderedLabels = new HashMap<>();
+        for (Entry<String, Set<String>> labels : labelsPerFeature.entrySet()) {
+            AnnotationFeature feature = aAnnotationService.getFeature(labels.getKey(), aLayer);
+            FeatureSupport<?> featureSupport = aFsRegistry.getFeatureSupport(feature);
+            if (featureSupport instanceof BulkFeatureValueRenderer) {
+                renderedLabels.put(labels.getKey(), ((BulkFeatureValueRenderer) featureSupport)
+                    .renderFeatureValues(feature, labels.getValue()));
+            }
+        }
+        return renderedLabels;
     }
-    
-    private boolean isRejected(List<LearningRecord> recordedRecommendations, AnnotationObject ao)
+
+    /**
+     * Index the offsets of all existing annotations which have a value for the given feature, so
+     * it can be checked whether a prediction overlaps one of them.
+     */
+    private SpanOverlapIndex indexSpans(Collection<VSpan> vspans, String feature)
     {
-        for (LearningRecord record : recordedRecommendations) {
-            if (record.getOffsetCharacterBegin() == ao.getOffset().getBeginCharacter()
-                    && record.getOffsetCharacterEnd() == ao.getOffset().getEndCharacter()
-                    && record.getAnnotation().equals(ao.getLabel())
-                    && record.getUserAction().equals(LearningRecordUserAction.REJECTED)) {
-                return true;
+        SpanOverlapIndex index = new SpanOverlapIndex();
+        for (VSpan v : vspans) {
+            String value = v.getFeatures().get(feature);
+            if (value == null || value.isEmpty()) {
+                continue;
+            }
+            for (VRange o : v.getOffsets()) {
+                index.add(o.getBegin(), o.getEnd());
             }
         }
-        return false;
+        return index;
     }
-    
 }
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2018
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.recommendation.adapter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Answers whether a range overlaps any of a fixed set of ranges in logarithmic time. The ranges
+ * are sorted by their begin and the maximum end of every prefix is kept, so a range overlaps if
+ * the maximum end of all ranges beginning before its end lies behind its begin.
+ * <p>
+ * A range also counts as overlapping if it contains an empty range or if it is empty and
+ * contained in a range, including the boundaries.
+ */
+class SpanOverlapIndex
+{
+    private final List<int[]> ranges = new ArrayList<>();
+
+    private int[] begins;
+    private int[] maxEnds;
+    private int[] emptyPositions;
+
+    public void add(int aBegin, int aEnd)
+    {
+        ranges.add(new int[] { aBegin, aEnd });
+        begins = null;
+    }
+
+    public boolean isOverlapping(int aBegin, int aEnd)
+    {
+        if (ranges.isEmpty()) {
+            return false;
+        }
+
+        if (begins == null) {
+            build();
+        }
+
+        // Ranges which overlap in at least one character
+        int count = countBeginsBelow(aEnd, false);
+        if (count > 0 && maxEnds[count - 1] > aBegin) {
+            return true;
+        }
+
+        // Empty ranges within the given range
+        int empty = Arrays.binarySearch(emptyPositions, aBegin);
+        int next = empty >= 0 ? empty : -empty - 1;
+        if (next < emptyPositions.length && emptyPositions[next] <= aEnd) {
+            return true;
+        }
+
+        // Ranges which contain the given empty range
+        if (aBegin == aEnd) {
+            count = countBeginsBelow(aBegin, true);
+            return count > 0 && maxEnds[count - 1] >= aBegin;
+        }
+
+        return false;
+    }
+
+    private void build()
+    {
+        ranges.sort(Comparator.comparingInt(r -> r[0]));
+
+        begins = new int[ranges.size()];
+        maxEnds = new int[ranges.size()];
+        int maxEnd = Integer.MIN_VALUE;
+        List<Integer> empty = new ArrayList<>();
+        for (int i = 0; i < ranges.size(); i++) {
+            int[] range = ranges.get(i);
+            begins[i] = range[0];
+            maxEnd = Math.max(maxEnd, range[1]);
+            maxEnds[i] = maxEnd;
+            if (range[0] == range[1]) {
+                empty.add(range[0]);
+            }
+        }
+
+        // Ranges are sorted by their begin, so the empty positions are sorted as well
+        emptyPositions = empty.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * @return the number of ranges which begin before (or at) the given position.
+     */
+    private int countBeginsBelow(int aPosition, boolean aInclusive)
+    {
+        int low = 0;
+        int high = begins.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (begins[mid] < aPosition || (aInclusive && begins[mid] == aPosition)) {
+                low = mid + 1;
+            }
+            else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright 2018
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.recommendation.page.evaluation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationFeature;
+import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationLayer;
+import de.tudarmstadt.ukp.clarin.webanno.model.Project;
+import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocument;
+import de.tudarmstadt.ukp.clarin.webanno.security.model.User;
+import de.tudarmstadt.ukp.inception.recommendation.imls.conf.EvaluationConfiguration;
+import de.tudarmstadt.ukp.inception.recommendation.imls.core.dataobjects.EvaluationResult;
+
+/**
+ * An incremental evaluation of several classifiers which runs in the background on the
+ * {@link EvaluationJobExecutor}. The job is updated by the executor thread and polled by the
+ * {@link EvaluationPage}, so the state is only exposed through thread-safe accessors. The results
+ * of a classifier are replaced by a new snapshot after every increment.
+ */
+public class EvaluationJob
+{
+    public enum State
+    {
+        QUEUED, RUNNING, FINISHED, CANCELLED, FAILED;
+
+        public boolean isDone()
+        {
+            return this == FINISHED || this == CANCELLED || this == FAILED;
+        }
+    }
+
+    private final String id = UUID.randomUUID().toString();
+    private final User user;
+    private final Project project;
+    private final AnnotationLayer layer;
+    private final AnnotationFeature feature;
+    private final List<String> classifierIds;
+    private final List<SourceDocument> documents;
+    private final EvaluationConfiguration configuration;
+
+    private final Map<String, EvaluationResult> results = new LinkedHashMap<>();
+    private final AtomicInteger version = new AtomicInteger();
+    private final AtomicInteger readDocuments = new AtomicInteger();
+
+    private volatile State state = State.QUEUED;
+    private volatile boolean cancelled;
+    private volatile String currentClassifier;
+    private volatile String error;
+    private volatile long finishTime;
+    private volatile Future<?> future;
+
+    public EvaluationJob(User aUser, Project aProject, AnnotationLayer aLayer,
+            AnnotationFeature aFeature, List<String> aClassifierIds,
+            List<SourceDocument> aDocuments, EvaluationConfiguration aConfiguration)
+    {
+        user = aUser;
+        project = aProject;
+        layer = aLayer;
+        feature = aFeature;
+        classifierIds = Collections.unmodifiableList(new ArrayList<>(aClassifierIds));
+        documents = Collections.unmodifiableList(new ArrayList<>(aDocuments));
+        configuration = aConfiguration;
+    }
+
+    public String getId()
+    {
+        return id;
+    }
+
+    public User getUser()
+    {
+        return user;
+    }
+
+    public Project getProject()
+    {
+        return project;
+    }
+
+    public AnnotationLayer getLayer()
+    {
+        return layer;
+    }
+
+    public AnnotationFeature getFeature()
+    {
+        return feature;
+    }
+
+    public List<String> getClassifierIds()
+    {
+        return classifierIds;
+    }
+
+    public List<SourceDocument> getDocuments()
+    {
+        return documents;
+    }
+
+    public EvaluationConfiguration getConfiguration()
+    {
+        return configuration;
+    }
+
+    public State getState()
+    {
+        return state;
+    }
+
+    public boolean isCancelled()
+    {
+        return cancelled;
+    }
+
+    /**
+     * Requests the job to stop. A queued job does not start at all, a running job stops after the
+     * current document or increment and keeps the results collected so far.
+     */
+    public void cancel()
+    {
+        cancelled = true;
+        Future<?> f = future;
+        if (f != null) {
+            f.cancel(false);
+        }
+        synchronized (this) {
+            if (state == State.QUEUED) {
+                finish(State.CANCELLED);
+            }
+        }
+    }
+
+    public String getCurrentClassifier()
+    {
+        return currentClassifier;
+    }
+
+    public int getReadDocuments()
+    {
+        return readDocuments.get();
+    }
+
+    public String getError()
+    {
+        return error;
+    }
+
+    public long getFinishTime()
+    {
+        return finishTime;
+    }
+
+    /**
+     * @return a number which changes whenever new results are available.
+     */
+    public int getVersion()
+    {
+        return version.get();
+    }
+
+    /**
+     * @return the latest results of all classifiers which finished at least one increment, in the
+     *         order in which they were evaluated.
+     */
+    public synchronized Map<String, EvaluationResult> getResults()
+    {
+        return new LinkedHashMap<>(results);
+    }
+
+    synchronized void setResult(String aClassifierId, EvaluationResult aResult)
+    {
+        results.put(aClassifierId, aResult);
+        version.incrementAndGet();
+    }
+
+    void setFuture(Future<?> aFuture)
+    {
+        future = aFuture;
+    }
+
+    /**
+     * @return whether the job should run, i.e. it has not been cancelled while it was queued.
+     */
+    synchronized boolean start()
+    {
+        if (state != State.QUEUED) {
+            return false;
+        }
+        state = State.RUNNING;
+        version.incrementAndGet();
+        return true;
+    }
+
+    void documentRead()
+    {
+        readDocuments.incrementAndGet();
+    }
+
+    void startClassifier(String aClassifierId)
+    {
+        currentClassifier = aClassifierId;
+    }
+
+    void fail(String aError)
+    {
+        error = aError;
+        finish(State.FAILED);
+    }
+
+    synchronized void finish(State aState)
+    {
+        if (state.isDone()) {
+            return;
+        }
+        currentClassifier = null;
+        finishTime = System.currentTimeMillis();
+        state = aState;
+        version.incrementAndGet();
+    }
+}
@@ -0,0 +1,284 @@
+/*
+ * Copyright 2018
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.recommendation.page.evaluation;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.uima.jcas.JCas;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import de.tudarmstadt.ukp.clarin.webanno.api.DocumentService;
+import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationDocument;
+import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocument;
+import de.tudarmstadt.ukp.inception.recommendation.api.ClassificationTool;
+import de.tudarmstadt.ukp.inception.recommendation.api.RecommendationService;
+import de.tudarmstadt.ukp.inception.recommendation.api.model.AnnotationObject;
+import de.tudarmstadt.ukp.inception.recommendation.api.model.Recommender;
+import de.tudarmstadt.ukp.inception.recommendation.imls.core.evaluation.IncrementalEvaluationService;
+import de.tudarmstadt.ukp.inception.recommendation.page.evaluation.EvaluationJob.State;
+import de.tudarmstadt.ukp.inception.recommendation.scheduling.DocumentTaskExecutor;
+import de.tudarmstadt.ukp.inception.recommendation.util.EvaluationHelper;
+import de.tudarmstadt.ukp.inception.recommendation.util.RepositoryUtil;
+
+/**
+ * Runs the jobs of the {@link EvaluationPage} in the background. Only a few jobs run at the same
+ * time and only a few more may wait, so that evaluations cannot occupy all resources of the
+ * server. Each job reads every document once for all of its classifiers and trains its models in
+ * a directory of its own, which is removed when the job ends.
+ * <p>
+ * Jobs are kept for a while after they ended, so the page can still fetch their results.
+ */
+@Component
+public class EvaluationJobExecutor
+{
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private static final long RETENTION_TIME = TimeUnit.MINUTES.toMillis(30);
+
+    private @Autowired DocumentService documentService;
+    private @Autowired RecommendationService recommendationService;
+    private @Autowired DocumentTaskExecutor documentTaskExecutor;
+
+    /**
+     * Number of evaluation jobs which run at the same time.
+     */
+    @Value("${recommender.evaluation.threads:2}")
+    private int threads;
+
+    /**
+     * Number of evaluation jobs which may wait for a thread. Further jobs are rejected.
+     */
+    @Value("${recommender.evaluation.queueSize:8}")
+    private int queueSize;
+
+    private final Map<String, EvaluationJob> jobs = new ConcurrentHashMap<>();
+
+    private ThreadPoolExecutor executor;
+
+    public EvaluationJobExecutor()
+    {
+        // Dependencies are injected by Spring
+    }
+
+    EvaluationJobExecutor(DocumentService aDocumentService,
+            RecommendationService aRecommendationService,
+            DocumentTaskExecutor aDocumentTaskExecutor, int aThreads, int aQueueSize)
+    {
+        documentService = aDocumentService;
+        recommendationService = aRecommendationService;
+        documentTaskExecutor = aDocumentTaskExecutor;
+        threads = aThreads;
+        queueSize = aQueueSize;
+        startExecutor();
+    }
+
+    @PostConstruct
+    private void startExecutor()
+    {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), runnable -> {
+                    Thread thread = new Thread(runnable,
+                            "evaluation-job-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        log.info("Started evaluation executor with {} threads and queue size {}", threads,
+                queueSize);
+    }
+
+    @PreDestroy
+    public void destroy()
+    {
+        jobs.values().forEach(EvaluationJob::cancel);
+        executor.shutdownNow();
+    }
+
+    /**
+     * Queues the given job.
+     * 
+     * @throws RejectedExecutionException
+     *             if too many jobs are already queued.
+     */
+    public void submit(EvaluationJob aJob)
+    {
+        long now = System.currentTimeMillis();
+        jobs.values().removeIf(job -> job.getState().isDone()
+                && now - job.getFinishTime() > RETENTION_TIME);
+
+        jobs.put(aJob.getId(), aJob);
+        try {
+            aJob.setFuture(executor.submit(() -> run(aJob)));
+        }
+        catch (RejectedExecutionException e) {
+            jobs.remove(aJob.getId());
+            throw e;
+        }
+    }
+
+    /**
+     * Cancels the job with the given ID, if it exists, and queues the given job instead, e.g.
+     * because only the latest job started by a user is of interest. The previous job is cancelled
+     * even if the new job is rejected.
+     * 
+     * @throws RejectedExecutionException
+     *             if too many jobs are already queued.
+     */
+    public void replace(String aPreviousJobId, EvaluationJob aJob)
+    {
+        cancel(aPreviousJobId);
+        submit(aJob);
+    }
+
+    /**
+     * @return the job with the given ID or {@code null} if it does not exist (anymore).
+     */
+    public EvaluationJob getJob(String aJobId)
+    {
+        return aJobId != null ? jobs.get(aJobId) : null;
+    }
+
+    public void cancel(String aJobId)
+    {
+        EvaluationJob job = getJob(aJobId);
+        if (job != null) {
+            job.cancel();
+        }
+    }
+
+    private void run(EvaluationJob aJob)
+    {
+        if (!aJob.start()) {
+            return;
+        }
+
+        File modelDir = new File(RepositoryUtil.getModelDir(documentService, aJob.getProject()),
+                "evaluation-" + aJob.getId());
+        try {
+            Map<String, ClassificationTool<?>> tools = createTools(aJob, modelDir);
+
+            List<AnnotationDocument> annoDocs = new ArrayList<>();
+            for (SourceDocument doc : aJob.getDocuments()) {
+                annoDocs.add(documentService.createOrGetAnnotationDocument(doc, aJob.getUser()));
+            }
+
+            // Read every document only once and convert it for all classifiers
+            List<Map<String, List<List<AnnotationObject>>>> extracted = documentTaskExecutor
+                    .map(annoDocs, annoDoc -> extract(aJob, annoDoc, tools));
+
+            for (Entry<String, ClassificationTool<?>> entry : tools.entrySet()) {
+                if (aJob.isCancelled()) {
+                    break;
+                }
+
+                String classifierId = entry.getKey();
+                List<List<AnnotationObject>> data = new ArrayList<>();
+                for (Map<String, List<List<AnnotationObject>>> documentData : extracted) {
+                    if (documentData != null) {
+                        data.addAll(documentData.get(classifierId));
+                    }
+                }
+
+                aJob.startClassifier(classifierId);
+                IncrementalEvaluationService evalService = new IncrementalEvaluationService(
+                        entry.getValue(), aJob.getConfiguration());
+                evalService.evaluateIncremental(data,
+                    result -> aJob.setResult(classifierId, result), aJob::isCancelled);
+            }
+
+            aJob.finish(aJob.isCancelled() ? State.CANCELLED : State.FINISHED);
+        }
+        catch (Throwable e) {
+            log.error("[{}][{}]: Evaluation failed", aJob.getUser().getUsername(),
+                    aJob.getProject().getName(), e);
+            aJob.fail(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        }
+        finally {
+            FileUtils.deleteQuietly(modelDir);
+        }
+    }
+
+    private Map<String, ClassificationTool<?>> createTools(EvaluationJob aJob, File aModelDir)
+    {
+        aModelDir.mkdirs();
+
+        Map<String, ClassificationTool<?>> tools = new LinkedHashMap<>();
+        for (String classifierId : aJob.getClassifierIds()) {
+            Recommender recommender = new Recommender("Evaluation", aJob.getLayer());
+            recommender.setTool(classifierId);
+            recommender.setFeature(aJob.getFeature().getName());
+
+            ClassificationTool<?> ct = recommendationService.getTool(recommender, 1);
+            if (ct == null || ct.getLoader() == null) {
+                continue;
+            }
+
+            // Several classifiers may use the same tool class, so the file names are numbered
+            EvaluationHelper.customizeConfiguration(ct, new File(aModelDir,
+                    tools.size() + "_" + ct.getClass().getSimpleName() + ".bin"));
+            tools.put(classifierId, ct);
+        }
+        return tools;
+    }
+
+    private Map<String, List<List<AnnotationObject>>> extract(EvaluationJob aJob,
+            AnnotationDocument aAnnoDoc, Map<String, ClassificationTool<?>> aTools)
+    {
+        if (aJob.isCancelled()) {
+            return null;
+        }
+
+        try {
+            JCas jCas = documentService.readAnnotationCas(aAnnoDoc);
+
+            Map<String, List<List<AnnotationObject>>> data = new LinkedHashMap<>();
+            for (Entry<String, ClassificationTool<?>> entry : aTools.entrySet()) {
+                data.put(entry.getKey(),
+                        entry.getValue().getLoader().loadAnnotationObjectsForEvaluation(jCas));
+            }
+            return data;
+        }
+        catch (IOException e) {
+            log.error("Cannot read AnnotationCas.", e);
+            return null;
+        }
+        finally {
+            aJob.documentRead();
+        }
+    }
+}
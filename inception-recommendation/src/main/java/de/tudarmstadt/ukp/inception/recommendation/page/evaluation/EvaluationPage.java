@@ -17,19 +17,22 @@
  */
 package de.tudarmstadt.ukp.inception.recommendation.page.evaluation;
 
-import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 
-import org.apache.uima.jcas.JCas;
 import org.apache.wicket.Session;
+import org.apache.wicket.ajax.AbstractAjaxTimerBehavior;
 import org.apache.wicket.ajax.AjaxRequestTarget;
 import org.apache.wicket.extensions.markup.html.tabs.AbstractTab;
 import org.apache.wicket.extensions.markup.html.tabs.ITab;
+import org.apache.wicket.feedback.IFeedback;
+import org.apache.wicket.markup.html.WebMarkupContainer;
+import org.apache.wicket.markup.html.basic.Label;
 import org.apache.wicket.markup.html.form.CheckBox;
 import org.apache.wicket.markup.html.form.ChoiceRenderer;
 import org.apache.wicket.markup.html.form.DropDownChoice;
@@ -42,8 +45,10 @@ import org.apache.wicket.model.CompoundPropertyModel;
 import org.apache.wicket.model.IModel;
 import org.apache.wicket.model.Model;
 import org.apache.wicket.model.PropertyModel;
+import org.apache.wicket.model.StringResourceModel;
 import org.apache.wicket.model.util.CollectionModel;
 import org.apache.wicket.spring.injection.annot.SpringBean;
+import org.apache.wicket.util.time.Duration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wicketstuff.annotation.mount.MountPath;
@@ -51,29 +56,22 @@ import org.wicketstuff.annotation.mount.MountPath;
 import de.tudarmstadt.ukp.clarin.webanno.api.AnnotationSchemaService;
 import de.tudarmstadt.ukp.clarin.webanno.api.DocumentService;
 import de.tudarmstadt.ukp.clarin.webanno.api.ProjectService;
-import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationDocument;
 import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationFeature;
 import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationLayer;
 import de.tudarmstadt.ukp.clarin.webanno.model.Project;
 import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocument;
 import de.tudarmstadt.ukp.clarin.webanno.security.UserDao;
-import de.tudarmstadt.ukp.clarin.webanno.security.model.User;
 import de.tudarmstadt.ukp.clarin.webanno.support.bootstrap.BootstrapAjaxTabbedPanel;
 import de.tudarmstadt.ukp.clarin.webanno.support.lambda.LambdaAjaxButton;
 import de.tudarmstadt.ukp.clarin.webanno.support.lambda.LambdaAjaxFormComponentUpdatingBehavior;
+import de.tudarmstadt.ukp.clarin.webanno.support.lambda.LambdaAjaxLink;
 import de.tudarmstadt.ukp.clarin.webanno.support.lambda.LambdaModel;
 import de.tudarmstadt.ukp.clarin.webanno.ui.core.page.ApplicationPageBase;
 import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Token;
 import de.tudarmstadt.ukp.inception.app.session.SessionMetaData;
-import de.tudarmstadt.ukp.inception.recommendation.api.AnnotationObjectLoader;
-import de.tudarmstadt.ukp.inception.recommendation.api.ClassificationTool;
 import de.tudarmstadt.ukp.inception.recommendation.api.ClassificationToolRegistry;
-import de.tudarmstadt.ukp.inception.recommendation.api.RecommendationService;
-import de.tudarmstadt.ukp.inception.recommendation.api.model.AnnotationObject;
-import de.tudarmstadt.ukp.inception.recommendation.api.model.Recommender;
 import de.tudarmstadt.ukp.inception.recommendation.imls.conf.EvaluationConfiguration;
 import de.tudarmstadt.ukp.inception.recommendation.imls.core.dataobjects.EvaluationResult;
-import de.tudarmstadt.ukp.inception.recommendation.imls.core.evaluation.IncrementalEvaluationService;
 import de.tudarmstadt.ukp.inception.recommendation.util.EvaluationHelper;
 
 @MountPath("/RecommendationEvaluationPage.html")
@@ -88,8 +86,8 @@ public class EvaluationPage
     private @SpringBean DocumentService documentService;
     private @SpringBean UserDao userRepository;
     private @SpringBean AnnotationSchemaService annotationService;
-    private @SpringBean RecommendationService recommendationService;
     private @SpringBean ClassificationToolRegistry classificationToolRegistry;
+    private @SpringBean EvaluationJobExecutor evaluationJobExecutor;
 
     private List<String> trainingIncrementChoices = Arrays.asList(new String[] {
             "fibonacciIncrementStrategy", "equidistantIncrementStrategy"});
@@ -104,6 +102,11 @@ public class EvaluationPage
     private CollectionModel<String> selectedClassifiers;
     private BootstrapAjaxTabbedPanel<ITab> tabbedPane;
     
+    private WebMarkupContainer jobStatus;
+    private AbstractAjaxTimerBehavior jobTimer;
+    private String jobId;
+    private int shownJobVersion = -1;
+    
     public EvaluationPage()
     {
         selectedLayer = Model.of();
@@ -235,6 +238,35 @@ public class EvaluationPage
         
         form.add(new LambdaAjaxButton<>("startEvaluation", this::evaluate));
 
+        jobStatus = new WebMarkupContainer("jobStatus")
+        {
+            private static final long serialVersionUID = -2962484591584463914L;
+
+            @Override
+            protected void onConfigure()
+            {
+                super.onConfigure();
+                
+                setVisible(getJob() != null);
+            }
+        };
+        jobStatus.setOutputMarkupPlaceholderTag(true);
+        jobStatus.add(new Label("jobProgress", LambdaModel.of(this::getJobProgress)));
+        jobStatus.add(new LambdaAjaxLink("cancelEvaluation", this::actionCancel)
+        {
+            private static final long serialVersionUID = 4946279468398462335L;
+
+            @Override
+            protected void onConfigure()
+            {
+                super.onConfigure();
+                
+                EvaluationJob job = getJob();
+                setVisible(job != null && !job.getState().isDone());
+            }
+        });
+        add(jobStatus);
+        
         tabbedPane = new BootstrapAjaxTabbedPanel<>("tabs", Collections.emptyList());
         add(tabbedPane);        
     }
@@ -310,63 +342,124 @@ public class EvaluationPage
     
     private void evaluate(AjaxRequestTarget aTarget, Form<Preferences> aForm)
     {
-        User user = userRepository.getCurrentUser();
-
         Preferences pref = aForm.getModelObject();
         
-        logger.info(pref.trainingIncrementStrategy);
+        if (pref.feature == null) {
+            error("No feature selected");
+            aTarget.addChildren(getPage(), IFeedback.class);
+            return;
+        }
         
         EvaluationConfiguration suiteConf = EvaluationHelper.getTrainingSuiteConfiguration(
                 "classificationToolSelection", documentService, selectedProject.getObject(),
                 pref.shuffleTrainingSet, pref.trainingSetSizeLimit, pref.splitTestDataPercentage,
                 pref.useHoldout, pref.trainingIncrementStrategy, pref.trainingIncrementSize, 
                 pref.testIncrementSize);
-                
-        List<ITab> tabs = new ArrayList<>();
         
-        for (String classifierId : selectedClassifiers.getObject()) {
-            if (pref.feature == null) {
-                logger.error("No feature selected");
-                return;
-            }
-            
-            Recommender recommender = new Recommender("Evaluation", selectedLayer.getObject());
-            recommender.setTool(classifierId);
-            recommender.setFeature(pref.feature.getName());
-            
-            ClassificationTool<?> ct = recommendationService.getTool(recommender, 1);
-            
-            if (ct == null || ct.getLoader() == null) {
-                continue;
-            }
-            
-            EvaluationHelper.customizeConfiguration(ct, "_evaluationModel.bin", documentService,
-                    selectedProject.getObject());
-            IncrementalEvaluationService evalService = new IncrementalEvaluationService(ct,
-                    suiteConf);
-            
-            AnnotationObjectLoader loader = ct.getLoader();          
-            List<List<AnnotationObject>> annotatedData = new LinkedList<>();
-            for (SourceDocument doc : selectedDocuments.getObject()) {
-                AnnotationDocument annoDoc = documentService.createOrGetAnnotationDocument(doc,
-                        user);
-                JCas jCas = null;
-                try {
-                    jCas = documentService.readAnnotationCas(annoDoc);
-                }
-                catch (IOException e) {
-                    logger.error("Cannot read AnnotationCas.", e);
-                }
+        EvaluationJob job = new EvaluationJob(userRepository.getCurrentUser(),
+                selectedProject.getObject(), selectedLayer.getObject(), pref.feature,
+                new ArrayList<>(selectedClassifiers.getObject()),
+                new ArrayList<>(selectedDocuments.getObject()), suiteConf);
+        
+        // Only the latest evaluation started from this page is shown, so stop the previous one
+        try {
+            evaluationJobExecutor.replace(jobId, job);
+        }
+        catch (RejectedExecutionException e) {
+            logger.warn("Evaluation rejected - too many evaluations are running");
+            error(getString("evaluationJob.rejected"));
+            aTarget.addChildren(getPage(), IFeedback.class);
+            return;
+        }
+        
+        jobId = job.getId();
+        shownJobVersion = -1;
+        showResults(aTarget, job);
+        
+        // Poll the job until it ends - the results are shown as soon as they become available
+        if (jobTimer != null) {
+            jobStatus.remove(jobTimer);
+        }
+        jobTimer = new AbstractAjaxTimerBehavior(Duration.seconds(1))
+        {
+            private static final long serialVersionUID = -1580286548346549384L;
 
-                if (jCas == null) {
-                    continue;
+            @Override
+            protected void onTimer(AjaxRequestTarget aTimerTarget)
+            {
+                EvaluationJob currentJob = getJob();
+                if (currentJob == null || currentJob.getState().isDone()) {
+                    stop(aTimerTarget);
                 }
-                annotatedData.addAll(loader.loadAnnotationObjectsForEvaluation(jCas));
-            }            
-            
-            EvaluationResult result = 
-                    evalService.evaluateIncremental(annotatedData);
-
+                if (currentJob != null) {
+                    showResults(aTimerTarget, currentJob);
+                }
+                aTimerTarget.add(jobStatus);
+            }
+        };
+        jobStatus.add(jobTimer);
+        aTarget.add(jobStatus);
+    }
+    
+    private void actionCancel(AjaxRequestTarget aTarget)
+    {
+        evaluationJobExecutor.cancel(jobId);
+        aTarget.add(jobStatus);
+    }
+    
+    private EvaluationJob getJob()
+    {
+        return evaluationJobExecutor.getJob(jobId);
+    }
+    
+    private String getJobProgress()
+    {
+        EvaluationJob job = getJob();
+        if (job == null) {
+            return null;
+        }
+        
+        switch (job.getState()) {
+        case QUEUED:
+            return getString("evaluationJob.queued");
+        case RUNNING:
+            if (job.getCurrentClassifier() == null) {
+                return new StringResourceModel("evaluationJob.reading", this)
+                        .setParameters(job.getReadDocuments(), job.getDocuments().size())
+                        .getString();
+            }
+            EvaluationResult result = job.getResults().get(job.getCurrentClassifier());
+            return new StringResourceModel("evaluationJob.evaluating", this)
+                    .setParameters(job.getCurrentClassifier(),
+                            job.getClassifierIds().indexOf(job.getCurrentClassifier()) + 1,
+                            job.getClassifierIds().size(),
+                            result != null ? result.getKnownDataResults().size() : 0)
+                    .getString();
+        case FINISHED:
+            return getString("evaluationJob.finished");
+        case CANCELLED:
+            return getString("evaluationJob.cancelled");
+        case FAILED:
+            return new StringResourceModel("evaluationJob.failed", this)
+                    .setParameters(job.getError()).getString();
+        default:
+            return null;
+        }
+    }
+    
+    /**
+     * Replaces the result tabs if the job has new results. The selected tab is retained.
+     */
+    private void showResults(AjaxRequestTarget aTarget, EvaluationJob aJob)
+    {
+        int version = aJob.getVersion();
+        if (version == shownJobVersion) {
+            return;
+        }
+        shownJobVersion = version;
+        
+        List<ITab> tabs = new ArrayList<>();
+        aJob.getResults().forEach((classifierId, result) -> {
             tabs.add(new AbstractTab(Model.of(classifierId))
             {
                 private static final long serialVersionUID = 6703144434578403272L;
@@ -383,10 +476,15 @@ public class EvaluationPage
                     return true;
                 }
             });  
-        }
+        });
         
-        tabbedPane = (BootstrapAjaxTabbedPanel<ITab>) tabbedPane
-                .replaceWith(new BootstrapAjaxTabbedPanel<>("tabs", tabs));
+        int selectedTab = tabbedPane.getSelectedTab();
+        BootstrapAjaxTabbedPanel<ITab> newTabbedPane = new BootstrapAjaxTabbedPanel<>("tabs",
+                tabs);
+        if (selectedTab >= 0 && selectedTab < tabs.size()) {
+            newTabbedPane.setSelectedTab(selectedTab);
+        }
+        tabbedPane = (BootstrapAjaxTabbedPanel<ITab>) tabbedPane.replaceWith(newTabbedPane);
         aTarget.add(tabbedPane);
     }
     
@@ -84,10 +84,17 @@ public class EvaluationResultPanel
                 .setEscapeModelStrings(false));
         // add(new Image("graphImage", new GraphResource(model.getObject())));
 
+        // While an evaluation is running, there may not be any results for the panel yet
         int size = model.getObject().size();
-        final LabelResult labelResult = model.getObject().get(size - 1).getLabelResult();
-        add(new ConfusionMatrix("confusionMatrix", Model.of(labelResult))).setVisible(size != 0);
-        add(new LabelTable("labelTable", labelResult, model)).setVisible(size != 0);
+        if (size != 0) {
+            final LabelResult labelResult = model.getObject().get(size - 1).getLabelResult();
+            add(new ConfusionMatrix("confusionMatrix", Model.of(labelResult)));
+            add(new LabelTable("labelTable", labelResult, model));
+        }
+        else {
+            add(new WebMarkupContainer("confusionMatrix").setVisible(false));
+            add(new WebMarkupContainer("labelTable").setVisible(false));
+        }
     }
 
     public class LabelTable
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2018
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.recommendation.scheduling;
+
+import static java.util.stream.Collectors.toList;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fork-join pool shared by the recommendation tasks to process the documents of a project in
+ * parallel, e.g. to read CASes and run classifiers on them. It also runs the folds of
+ * cross-validations.
+ */
+@Component
+public class DocumentTaskExecutor
+    implements Executor
+{
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    /**
+     * Parallelism of the pool. If not positive, the number of available processors is used.
+     */
+    @Value("${recommender.documentThreads:0}")
+    private int threads;
+
+    private ForkJoinPool pool;
+
+    @PostConstruct
+    private void startPool()
+    {
+        int parallelism = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        pool = new ForkJoinPool(parallelism);
+        log.info("Started document processing pool with parallelism {}", parallelism);
+    }
+
+    @PreDestroy
+    public void destroy()
+    {
+        pool.shutdownNow();
+    }
+
+    @Override
+    public void execute(Runnable aTask)
+    {
+        pool.execute(aTask);
+    }
+
+    /**
+     * Applies the given function to all items in parallel. The results are returned in the order
+     * of the items. The function should handle expected errors itself - if it throws an exception,
+     * the remaining items are not processed and the exception is re-thrown.
+     */
+    public <T, R> List<R> map(List<T> aItems, Function<T, R> aFunction)
+    {
+        if (aItems.size() < 2) {
+            return aItems.stream().map(aFunction).collect(toList());
+        }
+
+        try {
+            return pool.submit(() -> aItems.parallelStream().map(aFunction).collect(toList()))
+                    .get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while processing documents", e);
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2018
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.recommendation.scheduling;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import de.tudarmstadt.ukp.inception.recommendation.scheduling.tasks.Task;
+
+/**
+ * Task queue which hands out tasks round-robin over (user, project) pairs. Tasks of the same
+ * pair are executed in order and never concurrently, while tasks of different pairs can run in
+ * parallel. Enqueuing a task equal to one which is still waiting is a no-op (coalescing).
+ */
+public class FairTaskQueue
+{
+    public enum OfferResult
+    {
+        ENQUEUED, COALESCED, REJECTED
+    }
+
+    private final int capacity;
+
+    private final Map<String, Deque<Task>> pending = new HashMap<>();
+    private final Set<String> ready = new LinkedHashSet<>();
+    private final Set<String> running = new HashSet<>();
+    private int size = 0;
+
+    public FairTaskQueue(int aCapacity)
+    {
+        capacity = aCapacity;
+    }
+
+    public synchronized OfferResult offer(Task aTask)
+    {
+        String key = keyOf(aTask);
+        Deque<Task> tasks = pending.get(key);
+
+        if (tasks != null && tasks.contains(aTask)) {
+            return OfferResult.COALESCED;
+        }
+
+        if (size >= capacity) {
+            return OfferResult.REJECTED;
+        }
+
+        if (tasks == null) {
+            tasks = new ArrayDeque<>();
+            pending.put(key, tasks);
+        }
+        tasks.addLast(aTask);
+        size++;
+
+        if (!running.contains(key)) {
+            ready.add(key);
+        }
+
+        notifyAll();
+        return OfferResult.ENQUEUED;
+    }
+
+    /**
+     * Waits for the next task of a (user, project) pair which has currently no task running.
+     * The caller must invoke {@link #complete(Task)} once the task has finished.
+     */
+    public synchronized Task take() throws InterruptedException
+    {
+        while (ready.isEmpty()) {
+            wait();
+        }
+
+        Iterator<String> it = ready.iterator();
+        String key = it.next();
+        it.remove();
+
+        Deque<Task> tasks = pending.get(key);
+        Task task = tasks.pollFirst();
+        if (tasks.isEmpty()) {
+            pending.remove(key);
+        }
+        size--;
+        running.add(key);
+
+        return task;
+    }
+
+    public synchronized void complete(Task aTask)
+    {
+        String key = keyOf(aTask);
+        running.remove(key);
+
+        // Put the pair at the end of the rotation so other users get their turn first
+        if (pending.containsKey(key)) {
+            ready.add(key);
+            notifyAll();
+        }
+    }
+
+    public synchronized void removeIf(Predicate<Task> aFilter)
+    {
+        Iterator<Map.Entry<String, Deque<Task>>> it = pending.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Deque<Task>> e = it.next();
+            Deque<Task> tasks = e.getValue();
+            int before = tasks.size();
+            tasks.removeIf(aFilter);
+            size -= before - tasks.size();
+            if (tasks.isEmpty()) {
+                ready.remove(e.getKey());
+                it.remove();
+            }
+        }
+    }
+
+    public synchronized boolean contains(Predicate<Task> aFilter)
+    {
+        for (Deque<Task> tasks : pending.values()) {
+            for (Task t : tasks) {
+                if (aFilter.test(t)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public synchronized int size()
+    {
+        return size;
+    }
+
+    public synchronized int getRunningCount()
+    {
+        return running.size();
+    }
+
+    private static String keyOf(Task aTask)
+    {
+        return aTask.getUser().getUsername() + "@" + aTask.getProject().getId();
+    }
+}
@@ -17,9 +17,9 @@
  */
 package de.tudarmstadt.ukp.inception.recommendation.scheduling;
 
-import java.util.Iterator;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
@@ -27,17 +27,21 @@ import javax.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationContext;
 import org.springframework.stereotype.Component;
 
 import de.tudarmstadt.ukp.clarin.webanno.model.Project;
 import de.tudarmstadt.ukp.clarin.webanno.security.model.User;
+import de.tudarmstadt.ukp.inception.recommendation.scheduling.FairTaskQueue.OfferResult;
 import de.tudarmstadt.ukp.inception.recommendation.scheduling.tasks.SelectionTask;
 import de.tudarmstadt.ukp.inception.recommendation.scheduling.tasks.Task;
 import de.tudarmstadt.ukp.inception.recommendation.scheduling.tasks.TrainingTask;
 
 /**
- * Used to run the selection, training and prediction task concurrently.
+ * Used to run the selection, training and prediction task concurrently. Tasks are executed by a
+ * pool of worker threads. The queue is fair across users and projects: tasks belonging to the
+ * same user and project run one after the other, tasks of different users run in parallel.
  */
 @Component
 public class RecommendationScheduler
@@ -46,57 +50,88 @@ public class RecommendationScheduler
     
     private @Autowired ApplicationContext applicationContext;
     
-    private Thread consumer;
-    private BlockingQueue<Task> queue = new ArrayBlockingQueue<Task>(100);
-    private int counter = 0;
+    /**
+     * Number of worker threads. If not positive, half the number of available processors is used.
+     */
+    @Value("${recommender.scheduler.threads:0}")
+    private int threads;
+    
+    @Value("${recommender.scheduler.queueCapacity:1000}")
+    private int queueCapacity;
+    
+    private List<Thread> consumers = new ArrayList<>();
+    private FairTaskQueue queue;
+    private final AtomicLong counter = new AtomicLong();
+
+    private final AtomicLong enqueuedCount = new AtomicLong();
+    private final AtomicLong coalescedCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong completedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong totalRunTime = new AtomicLong();
 
     @PostConstruct
-    private void startSchedulerThread()
+    private void startSchedulerThreads()
     {
-        consumer = new Thread(new TaskConsumer(applicationContext, queue),
-                "Recommendation task consumer");
-        consumer.setPriority(Thread.MIN_PRIORITY);
-        consumer.start();
-        log.info("Started Recommendation Thread");
+        int poolSize = threads > 0 ? threads
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        
+        queue = new FairTaskQueue(queueCapacity);
+        
+        for (int i = 0; i < poolSize; i++) {
+            Thread consumer = new Thread(new TaskConsumer(applicationContext, queue, this),
+                    "Recommendation task consumer " + i);
+            consumer.setPriority(Thread.MIN_PRIORITY);
+            consumer.setDaemon(true);
+            consumer.start();
+            consumers.add(consumer);
+        }
+        log.info("Started {} Recommendation Threads", poolSize);
     }
     
     @PreDestroy
     public void destroy()
     {
-        consumer.interrupt();
+        for (Thread consumer : consumers) {
+            consumer.interrupt();
+        }
     }
     
     public void enqueueTask(User user, Project project)
     {   
         // Add Selection Task
-        if (counter % 2 == 0) {
+        if (counter.getAndIncrement() % 2 == 0) {
             enqueue(new SelectionTask(user, project));
         }
         
         // Add Training (which in turn will later enqueue the prediction Task)
         enqueue(new TrainingTask(user, project));
-        
-        counter++;
     }
     
-    public synchronized void enqueue(Task aRunnable)
+    public void enqueue(Task aRunnable)
     {
-        // If the no equivalent task is scheduled, then we schedule the new one.
-        if (!queue.contains(aRunnable)) {
-            queue.offer(aRunnable);
+        // If no equivalent task is scheduled, then we schedule the new one.
+        OfferResult result = queue.offer(aRunnable);
+        switch (result) {
+        case ENQUEUED:
+            enqueuedCount.incrementAndGet();
             log.info("Enqueued new task: {}", aRunnable);
+            break;
+        case COALESCED:
+            coalescedCount.incrementAndGet();
+            log.debug("Equivalent task already scheduled: {}", aRunnable);
+            break;
+        case REJECTED:
+            rejectedCount.incrementAndGet();
+            log.warn("Task queue is full ({} tasks) - rejected task: {}", queueCapacity,
+                    aRunnable);
+            break;
         }
     }
     
     public void stopAllTasksForUser(String username)
     {
-        Iterator<Task> it = queue.iterator();
-        while (it.hasNext()) {
-            Task t = it.next();
-            if (t.getUser().getUsername().equals(username)) {
-                queue.remove(t);
-            }
-        }
+        queue.removeIf(t -> t.getUser().getUsername().equals(username));
     }
 
     /*
@@ -105,13 +140,63 @@ public class RecommendationScheduler
      */
     public boolean isTraining(Project p, String user)
     {
-        Iterator<Task> it = queue.iterator();
-        while (it.hasNext()) {
-            Task t = it.next();
-            if (t.getUser().getUsername().equals(user) && t.getProject().equals(p)) {
-                return true;
-            }
+        return queue.contains(
+            t -> t.getUser().getUsername().equals(user) && t.getProject().equals(p));
+    }
+    
+    void taskFinished(Task aTask, boolean aSuccess, long aDuration)
+    {
+        if (aSuccess) {
+            completedCount.incrementAndGet();
+        }
+        else {
+            failedCount.incrementAndGet();
         }
-        return false;
+        totalRunTime.addAndGet(aDuration);
+    }
+    
+    public int getQueueSize()
+    {
+        return queue.size();
+    }
+    
+    public int getRunningTaskCount()
+    {
+        return queue.getRunningCount();
+    }
+    
+    public int getWorkerCount()
+    {
+        return consumers.size();
+    }
+    
+    public long getEnqueuedTaskCount()
+    {
+        return enqueuedCount.get();
+    }
+    
+    public long getCoalescedTaskCount()
+    {
+        return coalescedCount.get();
+    }
+    
+    public long getRejectedTaskCount()
+    {
+        return rejectedCount.get();
+    }
+    
+    public long getCompletedTaskCount()
+    {
+        return completedCount.get();
+    }
+    
+    public long getFailedTaskCount()
+    {
+        return failedCount.get();
+    }
+    
+    public long getTotalRunTime()
+    {
+        return totalRunTime.get();
     }
 }
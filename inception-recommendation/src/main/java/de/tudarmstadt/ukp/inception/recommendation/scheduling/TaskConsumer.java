@@ -19,8 +19,6 @@ package de.tudarmstadt.ukp.inception.recommendation.scheduling;
 
 import static org.apache.commons.lang3.Validate.notNull;
 
-import java.util.concurrent.BlockingQueue;
-
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
@@ -34,15 +32,19 @@ public class TaskConsumer
     private static Logger log = LoggerFactory.getLogger(TaskConsumer.class);
     
     private final ApplicationContext applicationContext;
-    private BlockingQueue<Task> queue;
+    private final FairTaskQueue queue;
+    private final RecommendationScheduler scheduler;
  
-    public TaskConsumer(ApplicationContext aApplicationContext, BlockingQueue<Task> aQueue)
+    public TaskConsumer(ApplicationContext aApplicationContext, FairTaskQueue aQueue,
+            RecommendationScheduler aScheduler)
     {
         notNull(aQueue);
         notNull(aApplicationContext);
+        notNull(aScheduler);
         
         queue = aQueue;
         applicationContext = aApplicationContext;
+        scheduler = aScheduler;
     }
 
     @Override
@@ -50,9 +52,11 @@ public class TaskConsumer
     {
         try {
             while (!Thread.interrupted()) {
-                log.info("Waiting for new task...");
+                log.debug("Waiting for new task...");
                 
-                Runnable task = queue.take();
+                Task task = queue.take();
+                long startTime = System.currentTimeMillis();
+                boolean success = false;
                 
                 try {
                     AutowireCapableBeanFactory factory = applicationContext
@@ -61,12 +65,20 @@ public class TaskConsumer
                     factory.initializeBean(task, "transientTask");
                     
                     task.run();
+                    success = true;
                 }
                 catch (Throwable e) {
                     log.error("{} failed.", task, e);
                 }
+                finally {
+                    queue.complete(task);
+                    scheduler.taskFinished(task, success,
+                            System.currentTimeMillis() - startTime);
+                }
 
-                log.info("{} completed successfully.", task);
+                if (success) {
+                    log.info("{} completed successfully.", task);
+                }
             }
         }
         catch (InterruptedException ie) {
@@ -19,7 +19,15 @@ package de.tudarmstadt.ukp.inception.recommendation.scheduling.tasks;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import org.apache.uima.jcas.JCas;
 import org.slf4j.Logger;
@@ -31,6 +39,7 @@ import de.tudarmstadt.ukp.clarin.webanno.api.DocumentService;
 import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationDocument;
 import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationLayer;
 import de.tudarmstadt.ukp.clarin.webanno.model.Project;
+import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocument;
 import de.tudarmstadt.ukp.clarin.webanno.security.model.User;
 import de.tudarmstadt.ukp.inception.recommendation.api.ClassificationTool;
 import de.tudarmstadt.ukp.inception.recommendation.api.Classifier;
@@ -38,6 +47,9 @@ import de.tudarmstadt.ukp.inception.recommendation.api.RecommendationService;
 import de.tudarmstadt.ukp.inception.recommendation.api.model.AnnotationObject;
 import de.tudarmstadt.ukp.inception.recommendation.api.model.Predictions;
 import de.tudarmstadt.ukp.inception.recommendation.api.model.Recommender;
+import de.tudarmstadt.ukp.inception.recommendation.scheduling.DocumentTaskExecutor;
+import de.tudarmstadt.ukp.inception.recommendation.service.CasCache;
+import de.tudarmstadt.ukp.inception.recommendation.service.TrainedModelStore;
 
 /**
  * This consumer predicts new annotations for a given annotation layer, if a classification tool for
@@ -51,6 +63,11 @@ public class PredictionTask
     private @Autowired AnnotationSchemaService annoService;
     private @Autowired RecommendationService recommendationService;
     private @Autowired DocumentService documentService;
+    private @Autowired DocumentTaskExecutor documentTaskExecutor;
+    private @Autowired CasCache casCache;
+    private @Autowired TrainedModelStore trainedModelStore;
+    
+    private final Map<Long, Queue<Classifier<?>>> classifierPool = new ConcurrentHashMap<>();
     
     public PredictionTask(User aUser, Project aProject)
     {
@@ -61,9 +78,52 @@ public class PredictionTask
     public void run()
     {
         User user = getUser();
+        Project project = getProject();
 
-        Predictions model = new Predictions(getProject(), getUser()); 
-
+        // Predictions which are still up-to-date are carried over from the previous run
+        Predictions previous = recommendationService.getIncomingPredictions(user, project);
+        if (previous == null) {
+            previous = recommendationService.getPredictions(user, project);
+        }
+        
+        // The document the user is looking at is predicted first and its predictions are made
+        // available right away - the remaining documents follow afterwards. Published
+        // predictions are not modified anymore, so readers never see a partially built model.
+        SourceDocument openDocument = recommendationService.getLastOpenedDocument(user, project);
+        List<AnnotationDocument> openDocs = new ArrayList<>();
+        List<AnnotationDocument> otherDocs = new ArrayList<>();
+        for (AnnotationDocument doc : documentService.listAnnotationDocuments(project, user)) {
+            if (doc.getDocument().equals(openDocument)) {
+                openDocs.add(doc);
+            }
+            else {
+                otherDocs.add(doc);
+            }
+        }
+        
+        List<ActiveRecommender> recommenders = listActiveRecommenders();
+        
+        Predictions model = new Predictions(project, user); 
+        
+        if (!openDocs.isEmpty()) {
+            // The other documents keep their still valid predictions until they are predicted
+            // as well, otherwise they would have no predictions until the second publish
+            Predictions openModel = new Predictions(project, user);
+            copyUpToDatePredictions(previous, openModel, recommenders, otherDocs);
+            predict(previous, openModel, recommenders, openDocs);
+            recommendationService.putIncomingPredictions(user, project, openModel);
+            model.copyPredictions(openModel);
+        }
+        
+        predict(previous, model, recommenders, otherDocs);
+        recommendationService.putIncomingPredictions(user, project, model);
+    }
+    
+    private List<ActiveRecommender> listActiveRecommenders()
+    {
+        User user = getUser();
+        List<ActiveRecommender> result = new ArrayList<>();
+        
         for (AnnotationLayer layer : annoService.listAnnotationLayer(getProject())) {
             if (!layer.isEnabled()) {
                 continue;
@@ -79,49 +139,217 @@ public class PredictionTask
             }
             
             for (Recommender recommender : recommenders) {
-                long startTime = System.currentTimeMillis();
-                
-                ClassificationTool<?> ct = recommendationService.getTool(recommender,
-                        recommendationService.getMaxSuggestions(user));
-                Classifier<?> classifier = ct.getClassifier();
-
-                classifier.setUser(getUser());
-                classifier.setProject(getProject());
-                classifier.setModel(recommendationService.getTrainedModel(user, recommender));
+                result.add(new ActiveRecommender(layer, recommender,
+                        recommendationService.getTrainedModelVersion(user, recommender)));
+            }
+        }
+        
+        return result;
+    }
     
-                List<AnnotationObject> predictions = new ArrayList<>();
-                
-                log.info("[{}][{}]: Predicting labels...", user.getUsername(),
-                        recommender.getName());
-                
-                List<AnnotationDocument> docs = documentService
-                        .listAnnotationDocuments(layer.getProject(), user);
-
-                docs.forEach(doc -> {
-                    try {
-                        JCas jcas = documentService.readAnnotationCas(doc);
-                        predictions.addAll(classifier.predict(jcas, layer));
-                    } catch (IOException e) {
-                        log.error("Cannot read annotation CAS.", e);
-                    }
-                });
-      
-                // Tell the predictions who created them
-                predictions.forEach(token -> token.setRecommenderId(recommender.getId()));
-
-                if (predictions.isEmpty()) {
-                    log.info("[{}][{}]: No prediction data.", user.getUsername(),
-                            recommender.getName());
-                    return;
+    private void copyUpToDatePredictions(Predictions aPrevious, Predictions aModel,
+            List<ActiveRecommender> aRecommenders, List<AnnotationDocument> aDocs)
+    {
+        if (aPrevious == null) {
+            return;
+        }
+        
+        for (AnnotationDocument doc : aDocs) {
+            long documentVersion = getDocumentVersion(doc);
+            if (documentVersion == -1) {
+                continue;
+            }
+            
+            for (ActiveRecommender r : aRecommenders) {
+                if (aPrevious.isUpToDate(r.recommender.getId(), doc.getName(), r.modelVersion,
+                        documentVersion)) {
+                    aModel.copyPredictions(aPrevious, r.recommender.getId(), doc.getName());
+                }
+            }
+        }
+    }
+    
+    private void predict(Predictions aPrevious, Predictions aModel,
+            List<ActiveRecommender> aRecommenders, List<AnnotationDocument> aDocs)
+    {
+        if (aRecommenders.isEmpty() || aDocs.isEmpty()) {
+            return;
+        }
+        
+        User user = getUser();
+        long startTime = System.currentTimeMillis();
+        
+        log.info("[{}]: Predicting labels for {} documents using {} recommenders...",
+                user.getUsername(), aDocs.size(), aRecommenders.size());
+        
+        // Documents are processed in parallel, each reading its CAS once and running all
+        // recommenders on it
+        List<DocumentPredictions> results = documentTaskExecutor.map(aDocs,
+            doc -> predictDocument(aPrevious, aRecommenders, doc));
+        
+        Map<ActiveRecommender, List<AnnotationObject>> predictions = new LinkedHashMap<>();
+        Map<ActiveRecommender, Integer> predictedDocs = new HashMap<>();
+        Map<ActiveRecommender, Integer> reusedDocs = new HashMap<>();
+        
+        for (DocumentPredictions result : results) {
+            for (ActiveRecommender r : result.reused) {
+                aModel.copyPredictions(aPrevious, r.recommender.getId(), result.documentName);
+                reusedDocs.merge(r, 1, Integer::sum);
+            }
+            
+            for (Entry<ActiveRecommender, List<AnnotationObject>> e : result.predicted
+                    .entrySet()) {
+                ActiveRecommender r = e.getKey();
+                predictions.computeIfAbsent(r, k -> new ArrayList<>()).addAll(e.getValue());
+                aModel.setPredictionStamp(r.recommender.getId(), result.documentName,
+                        r.modelVersion, result.documentVersion);
+                predictedDocs.merge(r, 1, Integer::sum);
+            }
+        }
+        
+        for (ActiveRecommender r : aRecommenders) {
+            List<AnnotationObject> recommenderPredictions = predictions.get(r);
+            if (recommenderPredictions == null || recommenderPredictions.isEmpty()) {
+                log.info("[{}][{}]: No new prediction data ({} documents reused).",
+                        user.getUsername(), r.recommender.getName(),
+                        reusedDocs.getOrDefault(r, 0));
+                continue;
+            }
+            
+            aModel.putPredictions(r.layer.getId(), recommenderPredictions);
+            
+            log.info("[{}][{}]: Prediction complete ({} documents predicted, {} reused)",
+                    user.getUsername(), r.recommender.getName(),
+                    predictedDocs.getOrDefault(r, 0), reusedDocs.getOrDefault(r, 0));
+        }
+        
+        log.info("[{}]: Prediction of {} documents complete ({} ms)", user.getUsername(),
+                aDocs.size(), (System.currentTimeMillis() - startTime));
+    }
+    
+    private DocumentPredictions predictDocument(Predictions aPrevious,
+            List<ActiveRecommender> aRecommenders, AnnotationDocument aDocument)
+    {
+        DocumentPredictions result = new DocumentPredictions(aDocument.getName(),
+                getDocumentVersion(aDocument));
+        
+        JCas jcas = null;
+        for (ActiveRecommender r : aRecommenders) {
+            // Neither model nor document have changed since the last prediction
+            if (aPrevious != null && result.documentVersion != -1 && aPrevious.isUpToDate(
+                    r.recommender.getId(), result.documentName, r.modelVersion,
+                    result.documentVersion)) {
+                result.reused.add(r);
+                continue;
+            }
+            
+            try {
+                if (jcas == null) {
+                    jcas = casCache.read(aDocument);
                 }
-                
-                model.putPredictions(layer.getId(), predictions);
-                
-                log.info("[{}][{}]: Prediction complete ({} ms)", user.getUsername(),
-                        recommender.getName(), (System.currentTimeMillis() - startTime));
             }
+            catch (IOException e) {
+                log.error("Cannot read annotation CAS.", e);
+                return result;
+            }
+            
+            Classifier<?> classifier = borrowClassifier(r.recommender);
+            try {
+                List<AnnotationObject> predictions = classifier.predict(jcas, r.layer);
+                // Tell the predictions who created them
+                predictions.forEach(token -> token.setRecommenderId(r.recommender.getId()));
+                result.predicted.put(r, predictions);
+            }
+            catch (Exception e) {
+                log.error("[{}][{}]: Prediction failed on [{}]", getUser().getUsername(),
+                        r.recommender.getName(), result.documentName, e);
+            }
+            finally {
+                releaseClassifier(r.recommender, classifier);
+            }
+        }
+        
+        return result;
+    }
+    
+    /**
+     * Classifiers may keep state while predicting, so each thread gets its own instance. Instances
+     * are pooled per recommender to avoid loading the model once per document.
+     */
+    private Classifier<?> borrowClassifier(Recommender aRecommender)
+    {
+        Classifier<?> classifier = classifierPool
+                .computeIfAbsent(aRecommender.getId(), k -> new ConcurrentLinkedQueue<>())
+                .poll();
+        return classifier != null ? classifier : createClassifier(aRecommender);
+    }
+    
+    private void releaseClassifier(Recommender aRecommender, Classifier<?> aClassifier)
+    {
+        classifierPool.get(aRecommender.getId()).offer(aClassifier);
+    }
+    
+    private Classifier<?> createClassifier(Recommender aRecommender)
+    {
+        User user = getUser();
+        
+        ClassificationTool<?> ct = recommendationService.getTool(aRecommender,
+                recommendationService.getMaxSuggestions(user));
+        Classifier<?> classifier = ct.getClassifier();
+
+        // Point the classifier at the stored model so that files written next to the model
+        // file by the trainer can be found
+        String fingerprint = recommendationService.getTrainedModelFingerprint(user,
+                aRecommender);
+        if (fingerprint != null) {
+            classifier.getClassifierConfiguration().setModelFile(
+                    trainedModelStore.getModelFile(user, aRecommender, fingerprint));
+        }
+
+        classifier.setUser(user);
+        classifier.setProject(getProject());
+        classifier.setModel(recommendationService.getTrainedModel(user, aRecommender));
+        
+        return classifier;
+    }
+    
+    /**
+     * Uses the last-modified timestamp of the annotation document as its version. If there is no
+     * timestamp, -1 is returned and the document is always considered as changed.
+     */
+    private static long getDocumentVersion(AnnotationDocument aDocument)
+    {
+        Date timestamp = aDocument.getTimestamp();
+        return timestamp != null ? timestamp.getTime() : -1;
+    }
+    
+    private static class ActiveRecommender
+    {
+        private final AnnotationLayer layer;
+        private final Recommender recommender;
+        private final long modelVersion;
+        
+        public ActiveRecommender(AnnotationLayer aLayer, Recommender aRecommender,
+                long aModelVersion)
+        {
+            layer = aLayer;
+            recommender = aRecommender;
+            modelVersion = aModelVersion;
         }
+    }
+    
+    private static class DocumentPredictions
+    {
+        private final String documentName;
+        private final long documentVersion;
+        private final List<ActiveRecommender> reused = new ArrayList<>();
+        private final Map<ActiveRecommender, List<AnnotationObject>> predicted = 
+                new LinkedHashMap<>();
         
-        recommendationService.putIncomingPredictions(getUser(), getProject(), model);
+        public DocumentPredictions(String aDocumentName, long aDocumentVersion)
+        {
+            documentName = aDocumentName;
+            documentVersion = aDocumentVersion;
+        }
     }
 }
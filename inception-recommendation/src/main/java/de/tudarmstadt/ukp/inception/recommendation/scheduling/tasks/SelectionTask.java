@@ -17,14 +17,13 @@
  */
 package de.tudarmstadt.ukp.inception.recommendation.scheduling.tasks;
 
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
-import org.apache.uima.jcas.JCas;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationEventPublisher;
 
 import de.tudarmstadt.ukp.clarin.webanno.api.AnnotationSchemaService;
@@ -40,14 +39,21 @@ import de.tudarmstadt.ukp.inception.recommendation.api.model.AnnotationObject;
 import de.tudarmstadt.ukp.inception.recommendation.api.model.Recommender;
 import de.tudarmstadt.ukp.inception.recommendation.event.RecommenderEvaluationResultEvent;
 import de.tudarmstadt.ukp.inception.recommendation.imls.conf.EvaluationConfiguration;
+import de.tudarmstadt.ukp.inception.recommendation.imls.core.dataobjects.CrossValidationResult;
 import de.tudarmstadt.ukp.inception.recommendation.imls.core.dataobjects.ExtendedResult;
+import de.tudarmstadt.ukp.inception.recommendation.imls.core.evaluation.CrossValidationService;
 import de.tudarmstadt.ukp.inception.recommendation.imls.core.evaluation.EvaluationService;
+import de.tudarmstadt.ukp.inception.recommendation.scheduling.DocumentTaskExecutor;
+import de.tudarmstadt.ukp.inception.recommendation.service.TrainingDataCache;
+import de.tudarmstadt.ukp.inception.recommendation.service.TrainingDataCache.Purpose;
 import de.tudarmstadt.ukp.inception.recommendation.util.EvaluationHelper;
 
 /**
  * This task is run every 60 seconds, if the document has changed. It evaluates all available
  * classification tools for all annotation layers of the current project. If a classifier exceeds
  * its specific activation f-score limit during the evaluation it is selected for active prediction.
+ * Unless disabled, recommenders are evaluated by a k-fold cross-validation whose folds run in
+ * parallel.
  */
 public class SelectionTask
     extends Task
@@ -58,6 +64,14 @@ public class SelectionTask
     private @Autowired DocumentService documentService;
     private @Autowired RecommendationService recommendationService;
     private @Autowired ApplicationEventPublisher appEventPublisher;
+    private @Autowired TrainingDataCache trainingDataCache;
+    private @Autowired DocumentTaskExecutor documentTaskExecutor;
+    
+    /**
+     * Number of cross-validation folds. If less than two, a single holdout split is evaluated.
+     */
+    @Value("${recommender.selection.folds:5}")
+    private int folds;
     
     public SelectionTask(User aUser, Project aProject)
     {
@@ -108,10 +122,14 @@ public class SelectionTask
                             .getTrainingSuiteConfiguration("classificationToolSelection",
                                     documentService, getProject());
                     suiteConf.setFeature(ct.getFeature());
-                    EvaluationHelper.customizeConfiguration(ct, "_selectionModel.bin",
-                            documentService, layer.getProject());
+                    suiteConf.setFolds(folds);
+                    // Selection tasks of different users may run concurrently, so each user
+                    // needs its own model file
+                    EvaluationHelper.customizeConfiguration(ct,
+                            "_" + user.getUsername() + "_selectionModel.bin", documentService,
+                            layer.getProject());
     
-                    ExtendedResult result = evaluate(suiteConf, ct,
+                    ExtendedResult result = evaluate(suiteConf, ct, recommender,
                             documentService.listSourceDocuments(layer.getProject()));
                     
                     if (result == null || result.getFscore() < 0) {
@@ -147,27 +165,49 @@ public class SelectionTask
     }
 
     private ExtendedResult evaluate(EvaluationConfiguration suiteConf, ClassificationTool<?> ct,
-            List<SourceDocument> docs)
+            Recommender recommender, List<SourceDocument> docs)
     {
-        EvaluationService es = new EvaluationService(ct, suiteConf);
+        List<AnnotationDocument> annoDocs = new ArrayList<>();
+        for (SourceDocument doc : docs) {
+            annoDocs.add(documentService.createOrGetAnnotationDocument(doc, getUser()));
+        }
+        
+        // Read and convert the documents in parallel - the order of the documents is retained
+        List<List<List<AnnotationObject>>> extracted = documentTaskExecutor.map(annoDocs,
+            annoDoc -> trainingDataCache.get(annoDoc, ct.getId(), Purpose.EVALUATION,
+                    ct.getLoader()::loadAnnotationObjectsForEvaluation));
         
         List<List<AnnotationObject>> data = new ArrayList<>();
-        for (SourceDocument doc : docs) {
-            AnnotationDocument annoDoc = documentService.createOrGetAnnotationDocument(doc,
-                    getUser());
-            JCas jCas;
-
-            try {
-                jCas = documentService.readAnnotationCas(annoDoc);
-            }
-            catch (IOException e) {
-                log.error("Cannot read annotation CAS.", e);
-                continue;
+        for (List<List<AnnotationObject>> sentences : extracted) {
+            if (sentences != null) {
+                data.addAll(sentences);
             }
-            
-            data.addAll(ct.getLoader().loadAnnotationObjectsForEvaluation(jCas));
         }
 
-        return es.evaluate(data);
+        if (suiteConf.getFolds() < 2) {
+            return new EvaluationService(ct, suiteConf).evaluate(data);
+        }
+
+        // The folds are trained concurrently, so each fold needs its own tool and model file
+        CrossValidationService cv = new CrossValidationService(fold -> {
+            ClassificationTool<?> foldTool = recommendationService.getTool(recommender,
+                    recommendationService.getMaxSuggestions(getUser()));
+            EvaluationHelper.customizeConfiguration(foldTool,
+                    "_" + getUser().getUsername() + "_selectionModel_" + fold + ".bin",
+                    documentService, getProject());
+            return foldTool;
+        }, suiteConf);
+        
+        CrossValidationResult cvResult = cv.evaluate(data, documentTaskExecutor);
+        if (cvResult == null) {
+            return null;
+        }
+        
+        log.info("[{}][{}]: F-score over {} folds: mean {}, variance {}",
+                getUser().getUsername(), recommender.getName(),
+                cvResult.getFoldResults().size(), cvResult.getFscoreMean(),
+                cvResult.getFscoreVariance());
+        
+        return cvResult.getResult();
     }
 }
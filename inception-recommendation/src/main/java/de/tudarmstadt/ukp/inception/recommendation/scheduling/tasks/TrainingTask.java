@@ -17,11 +17,11 @@
  */
 package de.tudarmstadt.ukp.inception.recommendation.scheduling.tasks;
 
-import java.io.IOException;
+import java.io.File;
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 
-import org.apache.uima.jcas.JCas;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -39,10 +39,16 @@ import de.tudarmstadt.ukp.inception.recommendation.api.RecommendationService;
 import de.tudarmstadt.ukp.inception.recommendation.api.Trainer;
 import de.tudarmstadt.ukp.inception.recommendation.api.model.AnnotationObject;
 import de.tudarmstadt.ukp.inception.recommendation.api.model.Recommender;
+import de.tudarmstadt.ukp.inception.recommendation.scheduling.DocumentTaskExecutor;
 import de.tudarmstadt.ukp.inception.recommendation.scheduling.RecommendationScheduler;
+import de.tudarmstadt.ukp.inception.recommendation.service.TrainedModelStore;
+import de.tudarmstadt.ukp.inception.recommendation.service.TrainingDataCache;
+import de.tudarmstadt.ukp.inception.recommendation.service.TrainingDataCache.Purpose;
 
 /**
  * This consumer trains a new classifier model, if a classification tool was selected before.
+ * Models are kept in the {@link TrainedModelStore} so that a model trained on the same data
+ * before, e.g. in a previous session, is loaded instead of being trained again.
  */
 public class TrainingTask
     extends Task
@@ -53,6 +59,9 @@ public class TrainingTask
     private @Autowired DocumentService documentService;
     private @Autowired RecommendationService recommendationService;
     private @Autowired RecommendationScheduler recommendationScheduler;
+    private @Autowired TrainingDataCache trainingDataCache;
+    private @Autowired DocumentTaskExecutor documentTaskExecutor;
+    private @Autowired TrainedModelStore trainedModelStore;
 
     public TrainingTask(User aUser, Project aProject)
     {
@@ -97,11 +106,52 @@ public class TrainingTask
                         continue;
                     }
     
-                    log.info("[{}][{}]: Training model...", user.getUsername(),
-                            recommender.getName());
-                    Object model = trainer.train(trainingData);
+                    String fingerprint = trainedModelStore.fingerprint(recommender, trainingData);
+                    if (fingerprint.equals(recommendationService
+                            .getTrainedModelFingerprint(user, recommender))) {
+                        log.info("[{}][{}]: Training data unchanged, keeping current model",
+                                user.getUsername(), recommender.getName());
+                        continue;
+                    }
+                    
+                    // Trainers which persist their model write it directly into the store
+                    File modelFile = trainedModelStore.getModelFile(user, recommender,
+                            fingerprint);
+                    trainer.getClassifierConfiguration().setModelFile(modelFile);
+                    
+                    Object model = null;
+                    if (trainedModelStore.contains(user, recommender, fingerprint)) {
+                        log.info("[{}][{}]: Loading model from store...", user.getUsername(),
+                                recommender.getName());
+                        model = trainer.loadModel();
+                        if (model == null) {
+                            log.warn("[{}][{}]: Stored model could not be loaded, retraining",
+                                    user.getUsername(), recommender.getName());
+                            trainedModelStore.remove(user, recommender, fingerprint);
+                            modelFile.getParentFile().mkdirs();
+                        }
+                    }
+                    
+                    if (model == null) {
+                        log.info("[{}][{}]: Training model...", user.getUsername(),
+                                recommender.getName());
+                        model = trainer.train(trainingData);
+                        if (model != null) {
+                            // Some trainers already save the model while training
+                            if (!trainedModelStore.contains(user, recommender, fingerprint)
+                                    && !trainer.saveModel()) {
+                                log.debug("[{}][{}]: Model was not stored", user.getUsername(),
+                                        recommender.getName());
+                                trainedModelStore.remove(user, recommender, fingerprint);
+                            }
+                            trainedModelStore.evict(user, recommender);
+                        }
+                    }
+                    
                     if (model != null) {
-                        recommendationService.storeTrainedModel(user, recommender, model);
+                        trainedModelStore.touch(user, recommender, fingerprint);
+                        recommendationService.storeTrainedModel(user, recommender, model,
+                                fingerprint);
                     }
                     else {
                         log.info("[{}][{}]: Training produced no model", user.getUsername(),
@@ -133,21 +183,22 @@ public class TrainingTask
         Project p = getProject();
         List<SourceDocument> docs = documentService.listSourceDocuments(p);
 
+        List<AnnotationDocument> annoDocs = new ArrayList<>();
         for (SourceDocument doc : docs) {
-            AnnotationDocument annoDoc = documentService.createOrGetAnnotationDocument(doc,
-                    getUser());
-            JCas jCas;
-            try {
-                jCas = documentService.readAnnotationCas(annoDoc);
-            }
-            catch (IOException e) {
-                log.error("Cannot read annotation CAS.", e);
+            annoDocs.add(documentService.createOrGetAnnotationDocument(doc, getUser()));
+        }
+
+        // Only documents which changed since the last training are actually read here - these
+        // are read and converted in parallel
+        List<List<List<AnnotationObject>>> extracted = documentTaskExecutor.map(annoDocs,
+            annoDoc -> trainingDataCache.get(annoDoc, tool.getId(), Purpose.TRAINING,
+                jCas -> loader.loadAnnotationObjects(jCas, tool.getId())));
+
+        for (List<List<AnnotationObject>> annotatedSentences : extracted) {
+            if (annotatedSentences == null) {
                 continue;
             }
 
-            List<List<AnnotationObject>> annotatedSentences = loader.loadAnnotationObjects(jCas,
-                tool.getId());
-
             if (tool.isTrainOnCompleteSentences()) {
                 for (List<AnnotationObject> sentence : annotatedSentences) {
                     if (isCompletelyAnnotated(sentence)) {
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2018
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.recommendation.service;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.uima.jcas.JCas;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import de.tudarmstadt.ukp.clarin.webanno.api.DocumentService;
+import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationDocument;
+
+/**
+ * Small read-through cache for annotation CASes used by the recommendation tasks. Training,
+ * evaluation and prediction run directly after each other on the same documents, so keeping the
+ * most recently read CASes avoids deserializing the same CAS several times per cycle.
+ * <p>
+ * The returned CASes are shared and must be treated as read-only. A document is evicted when it is
+ * reported as changed via {@link #invalidate(AnnotationDocument)} or when the timestamp of the
+ * annotation document no longer matches the one recorded when the CAS was read.
+ */
+@Component
+public class CasCache
+{
+    private @Autowired DocumentService documentService;
+
+    @Value("${recommender.casCache.size:20}")
+    private int cacheSize = 20;
+
+    private final Map<Long, Entry> cache = new LinkedHashMap<Long, Entry>(16, 0.75f, true)
+    {
+        private static final long serialVersionUID = 6049958520463713870L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Entry> aEldest)
+        {
+            return size() > cacheSize;
+        }
+    };
+
+    public JCas read(AnnotationDocument aDocument) throws IOException
+    {
+        long stamp = stampOf(aDocument);
+
+        synchronized (cache) {
+            Entry entry = cache.get(aDocument.getId());
+            if (entry != null && entry.stamp == stamp) {
+                return entry.jcas;
+            }
+        }
+
+        // Read outside the lock so that different documents can be read concurrently
+        JCas jcas = documentService.readAnnotationCas(aDocument);
+
+        synchronized (cache) {
+            cache.put(aDocument.getId(), new Entry(stamp, jcas));
+        }
+
+        return jcas;
+    }
+
+    public void invalidate(AnnotationDocument aDocument)
+    {
+        synchronized (cache) {
+            cache.remove(aDocument.getId());
+        }
+    }
+
+    private static long stampOf(AnnotationDocument aDocument)
+    {
+        Date timestamp = aDocument.getTimestamp();
+        return timestamp != null ? timestamp.getTime() : -1;
+    }
+
+    private static class Entry
+    {
+        private final long stamp;
+        private final JCas jcas;
+
+        public Entry(long aStamp, JCas aJCas)
+        {
+            stamp = aStamp;
+            jcas = aJCas;
+        }
+    }
+}
@@ -17,7 +17,12 @@
  */
 package de.tudarmstadt.ukp.inception.recommendation.service;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
@@ -34,15 +39,36 @@ import de.tudarmstadt.ukp.clarin.webanno.security.model.User;
 import de.tudarmstadt.ukp.inception.recommendation.api.LearningRecordService;
 import de.tudarmstadt.ukp.inception.recommendation.api.model.LearningRecord;
 import de.tudarmstadt.ukp.inception.recommendation.api.model.LearningRecordUserAction;
+import de.tudarmstadt.ukp.inception.recommendation.api.model.RejectedRecommendations;
 
 @Component(LearningRecordService.SERVICE_NAME)
 public class LearningRecordServiceImpl implements LearningRecordService, InitializingBean {
 
+    private static final int MAX_CACHED_REJECTIONS = 1_000;
+
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
     @PersistenceContext
     private EntityManager entityManager;
 
+    /**
+     * Rejected recommendations by document id, user and layer id. Entries are dropped whenever a
+     * learning record of the user in the document is written.
+     */
+    private final Map<List<Object>, RejectedRecommendations> rejectionCache = Collections
+            .synchronizedMap(new LinkedHashMap<List<Object>, RejectedRecommendations>(16, 0.75f,
+                    true)
+            {
+                private static final long serialVersionUID = 2815380237950618472L;
+
+                @Override
+                protected boolean removeEldestEntry(
+                        Map.Entry<List<Object>, RejectedRecommendations> aEldest)
+                {
+                    return size() > MAX_CACHED_REJECTIONS;
+                }
+            });
+
     @Override
     public List<LearningRecord> getRecordByDocument(SourceDocument sourceDocument) {
         String sql = "FROM LearningRecord l where l.sourceDocument = :sourceDocument";
@@ -75,6 +101,38 @@ public class LearningRecordServiceImpl implements LearningRecordService, Initial
         return learningRecords;
     }
 
+    @Override
+    public RejectedRecommendations getRejectedRecommendations(SourceDocument sourceDocument,
+            String user, AnnotationLayer layer)
+    {
+        List<Object> key = Arrays.asList(sourceDocument.getId(), user, layer.getId());
+        RejectedRecommendations rejected = rejectionCache.get(key);
+        if (rejected == null) {
+            String sql = "FROM LearningRecord l where l.user = :user and l.sourceDocument = " +
+                ":sourceDocument and l.layer = :layer and l.userAction = :action";
+            List<LearningRecord> learningRecords = entityManager
+                .createQuery(sql, LearningRecord.class).setParameter("user", user)
+                .setParameter("sourceDocument", sourceDocument).setParameter("layer", layer)
+                .setParameter("action", LearningRecordUserAction.REJECTED).getResultList();
+            rejected = new RejectedRecommendations(learningRecords);
+            rejectionCache.put(key, rejected);
+        }
+        return rejected;
+    }
+
+    private void invalidateRejections(SourceDocument aDocument, String aUser)
+    {
+        if (aDocument == null) {
+            rejectionCache.clear();
+            return;
+        }
+
+        synchronized (rejectionCache) {
+            rejectionCache.keySet().removeIf(key -> Objects.equals(key.get(0), aDocument.getId())
+                    && Objects.equals(key.get(1), aUser));
+        }
+    }
+
     @Override
     public LearningRecord getRecordById(long recordId) {
         String sql = "FROM LearningRecord l where l.id = :id";
@@ -90,6 +148,7 @@ public class LearningRecordServiceImpl implements LearningRecordService, Initial
             "= :user";
         entityManager.createQuery(sql).setParameter("document", document).setParameter("user",
             user).executeUpdate();
+        invalidateRejections(document, user);
     }
 
     @Override
@@ -97,6 +156,7 @@ public class LearningRecordServiceImpl implements LearningRecordService, Initial
     public void create(LearningRecord learningRecord) {
         entityManager.persist(learningRecord);
         entityManager.flush();
+        invalidateRejections(learningRecord.getSourceDocument(), learningRecord.getUser());
     }
 
     @Override
@@ -104,6 +164,7 @@ public class LearningRecordServiceImpl implements LearningRecordService, Initial
     public void update(LearningRecord learningRecord) {
         entityManager.merge(learningRecord);
         entityManager.flush();
+        invalidateRejections(learningRecord.getSourceDocument(), learningRecord.getUser());
     }
 
     @Override
@@ -111,6 +172,7 @@ public class LearningRecordServiceImpl implements LearningRecordService, Initial
     public void delete(LearningRecord learningRecord) {
         entityManager.remove(entityManager.contains(learningRecord) ? learningRecord :
             entityManager.merge(learningRecord));
+        invalidateRejections(learningRecord.getSourceDocument(), learningRecord.getUser());
     }
 
     @Override
@@ -21,6 +21,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.persistence.EntityManager;
 import javax.persistence.NoResultException;
@@ -50,6 +51,7 @@ import de.tudarmstadt.ukp.clarin.webanno.api.event.AfterDocumentResetEvent;
 import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationFeature;
 import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationLayer;
 import de.tudarmstadt.ukp.clarin.webanno.model.Project;
+import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocument;
 import de.tudarmstadt.ukp.clarin.webanno.security.UserDao;
 import de.tudarmstadt.ukp.clarin.webanno.security.model.User;
 import de.tudarmstadt.ukp.inception.recommendation.api.ClassificationTool;
@@ -75,8 +77,13 @@ public class RecommendationServiceImpl
     private @Autowired UserDao userRepository;
     private @Autowired ClassificationToolRegistry classificationToolRegistry;
     private @Autowired RecommendationScheduler scheduler;
+    private @Autowired TrainingDataCache trainingDataCache;
+    private @Autowired CasCache casCache;
+    private @Autowired TrainedModelStore trainedModelStore;
     
     private Map<String, RecommendationUserState> states = new ConcurrentHashMap<>();
+    
+    private final AtomicLong modelVersionCounter = new AtomicLong();
 
     @Override
     public Predictions getPredictions(User aUser, Project aProject)
@@ -139,6 +146,8 @@ public class RecommendationServiceImpl
         }
         else {
             entityManager.merge(aRecommender);
+            // The configuration of the recommender may have changed
+            trainingDataCache.invalidateRecommender(aRecommender.getId());
         }
     }
 
@@ -153,6 +162,9 @@ public class RecommendationServiceImpl
         }
 
         entityManager.remove(settings);
+        
+        trainingDataCache.invalidateRecommender(aRecommender.getId());
+        trainedModelStore.removeModels(aRecommender);
     }
 
     @Override
@@ -206,6 +218,9 @@ public class RecommendationServiceImpl
     @EventListener
     public void afterAnnotationUpdate(AfterAnnotationUpdateEvent aEvent)
     {
+        // Invalidate before triggering so the training task sees the changed document
+        trainingDataCache.invalidate(aEvent.getDocument());
+        casCache.invalidate(aEvent.getDocument());
         triggerTrainingAndClassification(aEvent.getDocument().getUser(),
                 aEvent.getDocument().getProject());
     }
@@ -213,6 +228,8 @@ public class RecommendationServiceImpl
     @EventListener
     public void onDocumentOpen(DocumentOpenedEvent aEvent)
     {
+        RecommendationUserState state = getState(aEvent.getUser());
+        state.putLastOpenedDocument(aEvent.getDocument());
         triggerTrainingAndClassification(aEvent.getUser(), aEvent.getDocument().getProject());
     }
 
@@ -238,7 +255,10 @@ public class RecommendationServiceImpl
         // Could be an anonymous session without information.
         if (info != null) {
             String username = (String) info.getPrincipal();
+            // Only the in-memory state and the extracted training data are dropped - the trained
+            // models remain in the model store and are loaded again when the user returns
             clearState(username);
+            trainingDataCache.invalidateUser(username);
             scheduler.stopAllTasksForUser(username);
         }
     }
@@ -248,6 +268,8 @@ public class RecommendationServiceImpl
     {
         String userName = aEvent.getDocument().getUser();
         Project project = aEvent.getDocument().getProject();
+        trainingDataCache.invalidate(aEvent.getDocument());
+        casCache.invalidate(aEvent.getDocument());
         clearState(userName);
         triggerTrainingAndClassification(userName, project);
     }
@@ -274,9 +296,17 @@ public class RecommendationServiceImpl
     
     @Override
     public void storeTrainedModel(User aUser, Recommender aRecommender, Object aModel)
+    {
+        storeTrainedModel(aUser, aRecommender, aModel, null);
+    }
+
+    @Override
+    public void storeTrainedModel(User aUser, Recommender aRecommender, Object aModel,
+            String aFingerprint)
     {
         RecommendationUserState state = getState(aUser.getUsername());
-        state.putTrainedModel(aRecommender, aModel);
+        state.putTrainedModel(aRecommender, aModel, modelVersionCounter.incrementAndGet(),
+                aFingerprint);
     }
 
     @Override
@@ -286,6 +316,27 @@ public class RecommendationServiceImpl
         return state.getTrainedModel(aRecommender);
     }
     
+    @Override
+    public long getTrainedModelVersion(User aUser, Recommender aRecommender)
+    {
+        RecommendationUserState state = getState(aUser.getUsername());
+        return state.getTrainedModelVersion(aRecommender);
+    }
+    
+    @Override
+    public String getTrainedModelFingerprint(User aUser, Recommender aRecommender)
+    {
+        RecommendationUserState state = getState(aUser.getUsername());
+        return state.getTrainedModelFingerprint(aRecommender);
+    }
+    
+    @Override
+    public SourceDocument getLastOpenedDocument(User aUser, Project aProject)
+    {
+        RecommendationUserState state = getState(aUser.getUsername());
+        return state.getLastOpenedDocument(aProject);
+    }
+    
     private RecommendationUserState getState(String aUsername)
     {
         synchronized (states) {
@@ -336,6 +387,9 @@ public class RecommendationServiceImpl
         private MultiValuedMap<AnnotationLayer, Recommender> activeRecommenders = 
                 new HashSetValuedHashMap<>();
         private Map<Long, Object> trainedModels = new ConcurrentHashMap<>();
+        private Map<Long, Long> trainedModelVersions = new ConcurrentHashMap<>();
+        private Map<Long, String> trainedModelFingerprints = new ConcurrentHashMap<>();
+        private Map<Long, SourceDocument> lastOpenedDocuments = new ConcurrentHashMap<>();
         private Map<Long, Predictions> activePredictions = new ConcurrentHashMap<>();
         private Map<Long, Predictions> incomingPredictions = new ConcurrentHashMap<>();
         
@@ -390,9 +444,37 @@ public class RecommendationServiceImpl
             return trainedModels.get(aRecommender.getId());
         }
         
-        public void putTrainedModel(Recommender aRecommender, Object aModel)
+        public void putTrainedModel(Recommender aRecommender, Object aModel, long aVersion,
+                String aFingerprint)
         {
             trainedModels.put(aRecommender.getId(), aModel);
+            trainedModelVersions.put(aRecommender.getId(), aVersion);
+            if (aFingerprint != null) {
+                trainedModelFingerprints.put(aRecommender.getId(), aFingerprint);
+            }
+            else {
+                trainedModelFingerprints.remove(aRecommender.getId());
+            }
+        }
+        
+        public String getTrainedModelFingerprint(Recommender aRecommender)
+        {
+            return trainedModelFingerprints.get(aRecommender.getId());
+        }
+        
+        public long getTrainedModelVersion(Recommender aRecommender)
+        {
+            return trainedModelVersions.getOrDefault(aRecommender.getId(), 0L);
+        }
+        
+        public void putLastOpenedDocument(SourceDocument aDocument)
+        {
+            lastOpenedDocuments.put(aDocument.getProject().getId(), aDocument);
+        }
+        
+        public SourceDocument getLastOpenedDocument(Project aProject)
+        {
+            return lastOpenedDocuments.get(aProject.getId());
         }
 
         public void removePredictions(Recommender aRecommender)
@@ -413,6 +495,8 @@ public class RecommendationServiceImpl
 
             // Remove trainedModel
             trainedModels.remove(aRecommender.getId());
+            trainedModelVersions.remove(aRecommender.getId());
+            trainedModelFingerprints.remove(aRecommender.getId());
 
             // Remove from activeRecommenders map.
             // We have to do this, otherwise training and prediction continues for the
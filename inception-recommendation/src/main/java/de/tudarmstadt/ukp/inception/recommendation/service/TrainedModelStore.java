@@ -0,0 +1,265 @@
+/*
+ * Copyright 2018
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.recommendation.service;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Comparator.comparingLong;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.math.BigInteger;
+import java.net.URLEncoder;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import de.tudarmstadt.ukp.clarin.webanno.api.DocumentService;
+import de.tudarmstadt.ukp.clarin.webanno.model.Project;
+import de.tudarmstadt.ukp.clarin.webanno.security.model.User;
+import de.tudarmstadt.ukp.inception.recommendation.api.model.AnnotationObject;
+import de.tudarmstadt.ukp.inception.recommendation.api.model.Recommender;
+import de.tudarmstadt.ukp.inception.recommendation.util.RepositoryUtil;
+
+/**
+ * Disk-backed store for trained recommender models. Models are kept per project, user and
+ * recommender and are identified by a fingerprint of the recommender configuration and the
+ * training data they were trained on. If a user returns with the same annotations (e.g. after a
+ * new login or a restart), the model can be loaded from the store instead of being retrained.
+ * <p>
+ * Each model lives in its own directory below
+ * {@code <project>/recommendation/trained-models/<user>/<recommender>/<fingerprint>/} because
+ * some trainers write additional files next to the model file. The modification time of the
+ * directory records when the model was last stored or loaded. Old models are evicted by count
+ * per user and recommender and by total size per project, but the most recently used model of a
+ * user and recommender is never evicted since it may still be in use.
+ */
+@Component
+public class TrainedModelStore
+{
+    private static final String MODEL_FILE_NAME = "model.bin";
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private @Autowired DocumentService documentService;
+
+    @Value("${recommender.modelStore.modelsPerRecommender:3}")
+    private int modelsPerRecommender = 3;
+
+    /**
+     * Maximum size of all stored models of a project in megabytes. If not positive, the size is
+     * not limited.
+     */
+    @Value("${recommender.modelStore.maxProjectSize:512}")
+    private long maxProjectSize = 512;
+
+    /**
+     * Computes a fingerprint over everything that determines the trained model: the tool and
+     * its configuration as well as the offsets, texts and labels of the training data.
+     */
+    public String fingerprint(Recommender aRecommender,
+            List<List<AnnotationObject>> aTrainingData)
+    {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        update(digest, aRecommender.getTool());
+        update(digest, aRecommender.getFeature());
+        update(digest, aRecommender.getTraits());
+        for (List<AnnotationObject> sentence : aTrainingData) {
+            update(digest, "<s>");
+            for (AnnotationObject ao : sentence) {
+                update(digest, ao.getDocumentName());
+                update(digest, Integer.toString(ao.getOffset().getBeginCharacter()));
+                update(digest, Integer.toString(ao.getOffset().getEndCharacter()));
+                update(digest, ao.getCoveredText());
+                update(digest, ao.getLabel());
+            }
+        }
+
+        return String.format("%040x", new BigInteger(1, digest.digest()));
+    }
+
+    /**
+     * Returns the file the model with the given fingerprint is stored in. The parent directory
+     * is created if necessary, the file itself may not exist yet.
+     */
+    public File getModelFile(User aUser, Recommender aRecommender, String aFingerprint)
+    {
+        File dir = new File(getRecommenderDir(aUser, aRecommender), aFingerprint);
+        dir.mkdirs();
+        return new File(dir, MODEL_FILE_NAME);
+    }
+
+    public synchronized boolean contains(User aUser, Recommender aRecommender,
+            String aFingerprint)
+    {
+        File modelFile = new File(new File(getRecommenderDir(aUser, aRecommender), aFingerprint),
+                MODEL_FILE_NAME);
+        return modelFile.isFile() && modelFile.length() > 0;
+    }
+
+    /**
+     * Marks the given model as most recently used so that it is evicted last.
+     */
+    public synchronized void touch(User aUser, Recommender aRecommender, String aFingerprint)
+    {
+        File dir = new File(getRecommenderDir(aUser, aRecommender), aFingerprint);
+        if (dir.exists()) {
+            dir.setLastModified(System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Removes the given model, e.g. because it could not be loaded or was not saved completely.
+     */
+    public synchronized void remove(User aUser, Recommender aRecommender, String aFingerprint)
+    {
+        delete(new File(getRecommenderDir(aUser, aRecommender), aFingerprint));
+    }
+
+    /**
+     * Removes old models of the given user and recommender and, if the project exceeds the
+     * configured size, the least recently used models of the project.
+     */
+    public synchronized void evict(User aUser, Recommender aRecommender)
+    {
+        List<File> entries = listEntries(getRecommenderDir(aUser, aRecommender));
+        for (int i = Math.max(1, modelsPerRecommender); i < entries.size(); i++) {
+            delete(entries.get(i));
+        }
+
+        if (maxProjectSize > 0) {
+            evictProject(aRecommender.getProject(), maxProjectSize * 1024 * 1024);
+        }
+    }
+
+    /**
+     * Removes all stored models of the given recommender, e.g. because it has been deleted.
+     */
+    public synchronized void removeModels(Recommender aRecommender)
+    {
+        File storeDir = RepositoryUtil.getTrainedModelDir(documentService,
+                aRecommender.getProject());
+        for (File userDir : listDirs(storeDir)) {
+            delete(new File(userDir, Long.toString(aRecommender.getId())));
+        }
+    }
+
+    private void evictProject(Project aProject, long aLimit)
+    {
+        File storeDir = RepositoryUtil.getTrainedModelDir(documentService, aProject);
+
+        long total = 0;
+        List<File> candidates = new ArrayList<>();
+        for (File userDir : listDirs(storeDir)) {
+            for (File recommenderDir : listDirs(userDir)) {
+                List<File> entries = listEntries(recommenderDir);
+                for (int i = 0; i < entries.size(); i++) {
+                    total += FileUtils.sizeOfDirectory(entries.get(i));
+                    // The most recently used model of each user and recommender is kept
+                    if (i > 0) {
+                        candidates.add(entries.get(i));
+                    }
+                }
+            }
+        }
+
+        candidates.sort(comparingLong(File::lastModified));
+        for (File entry : candidates) {
+            if (total <= aLimit) {
+                break;
+            }
+            total -= FileUtils.sizeOfDirectory(entry);
+            delete(entry);
+        }
+    }
+
+    private File getRecommenderDir(User aUser, Recommender aRecommender)
+    {
+        File storeDir = RepositoryUtil.getTrainedModelDir(documentService,
+                aRecommender.getProject());
+        return new File(new File(storeDir, encode(aUser.getUsername())),
+                Long.toString(aRecommender.getId()));
+    }
+
+    /**
+     * @return the model directories in the given directory, most recently used first.
+     */
+    private static List<File> listEntries(File aDir)
+    {
+        List<File> entries = listDirs(aDir);
+        entries.sort(comparingLong(File::lastModified).reversed());
+        return entries;
+    }
+
+    private static List<File> listDirs(File aDir)
+    {
+        File[] files = aDir.listFiles(File::isDirectory);
+        if (files == null) {
+            return Collections.emptyList();
+        }
+        List<File> result = new ArrayList<>();
+        Collections.addAll(result, files);
+        return result;
+    }
+
+    private void delete(File aDir)
+    {
+        try {
+            FileUtils.deleteDirectory(aDir);
+            log.debug("Evicted trained model [{}]", aDir);
+        }
+        catch (IOException e) {
+            log.error("Unable to delete trained model [{}]", aDir, e);
+        }
+    }
+
+    private static void update(MessageDigest aDigest, String aValue)
+    {
+        if (aValue != null) {
+            aDigest.update(aValue.getBytes(UTF_8));
+        }
+        // Separator so that adjacent values cannot be confused
+        aDigest.update((byte) 0);
+    }
+
+    private static String encode(String aUsername)
+    {
+        try {
+            return URLEncoder.encode(aUsername, "UTF-8");
+        }
+        catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
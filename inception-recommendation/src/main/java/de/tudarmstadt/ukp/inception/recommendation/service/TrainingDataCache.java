@@ -0,0 +1,199 @@
+/*
+ * Copyright 2018
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.recommendation.service;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+import org.apache.uima.jcas.JCas;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationDocument;
+import de.tudarmstadt.ukp.inception.recommendation.api.model.AnnotationObject;
+
+/**
+ * Caches the annotation objects extracted from the annotation documents of a user so that training
+ * and evaluation only need to read and convert the CASes of documents which have changed since the
+ * last run. Entries are keyed by user, document, recommender and purpose (training or evaluation).
+ * An entry is discarded when the document is reported as changed via
+ * {@link #invalidate(AnnotationDocument)} or when the timestamp of the annotation document no
+ * longer matches the one recorded during extraction.
+ */
+@Component
+public class TrainingDataCache
+{
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    public enum Purpose
+    {
+        TRAINING, EVALUATION
+    }
+
+    private @Autowired CasCache casCache;
+
+    @Value("${recommender.trainingDataCache.size:5000}")
+    private int cacheSize = 5000;
+
+    private final Map<Key, Entry> cache = new LinkedHashMap<Key, Entry>(16, 0.75f, true)
+    {
+        private static final long serialVersionUID = -8403596473567484574L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Entry> aEldest)
+        {
+            return size() > cacheSize;
+        }
+    };
+
+    /**
+     * Get the annotation objects for the given document, either from the cache or by reading the
+     * CAS and applying the given extractor.
+     *
+     * @return the extracted sentences or {@code null} if the CAS could not be read.
+     */
+    public List<List<AnnotationObject>> get(AnnotationDocument aDocument, long aRecommenderId,
+            Purpose aPurpose, Function<JCas, List<List<AnnotationObject>>> aExtractor)
+    {
+        Key key = new Key(aDocument.getUser(), aDocument.getDocument().getId(), aRecommenderId,
+                aPurpose);
+        long stamp = stampOf(aDocument);
+
+        synchronized (cache) {
+            Entry entry = cache.get(key);
+            if (entry != null && entry.stamp == stamp) {
+                return entry.data;
+            }
+        }
+
+        // Extract outside the lock - worst case, two threads extract the same document
+        JCas jCas;
+        try {
+            jCas = casCache.read(aDocument);
+        }
+        catch (IOException e) {
+            log.error("Cannot read annotation CAS.", e);
+            return null;
+        }
+
+        List<List<AnnotationObject>> data = Collections
+                .unmodifiableList(aExtractor.apply(jCas));
+
+        synchronized (cache) {
+            cache.put(key, new Entry(stamp, data));
+        }
+
+        return data;
+    }
+
+    /**
+     * Drop all cached data extracted from the given annotation document.
+     */
+    public void invalidate(AnnotationDocument aDocument)
+    {
+        String user = aDocument.getUser();
+        long documentId = aDocument.getDocument().getId();
+        synchronized (cache) {
+            cache.keySet().removeIf(k -> k.documentId == documentId && k.user.equals(user));
+        }
+    }
+
+    /**
+     * Drop all cached data of the given user.
+     */
+    public void invalidateUser(String aUser)
+    {
+        synchronized (cache) {
+            cache.keySet().removeIf(k -> k.user.equals(aUser));
+        }
+    }
+
+    /**
+     * Drop all cached data extracted for the given recommender, e.g. because its configuration
+     * has changed.
+     */
+    public void invalidateRecommender(long aRecommenderId)
+    {
+        synchronized (cache) {
+            cache.keySet().removeIf(k -> k.recommenderId == aRecommenderId);
+        }
+    }
+
+    private static long stampOf(AnnotationDocument aDocument)
+    {
+        Date timestamp = aDocument.getTimestamp();
+        return timestamp != null ? timestamp.getTime() : -1;
+    }
+
+    private static class Entry
+    {
+        private final long stamp;
+        private final List<List<AnnotationObject>> data;
+
+        public Entry(long aStamp, List<List<AnnotationObject>> aData)
+        {
+            stamp = aStamp;
+            data = aData;
+        }
+    }
+
+    private static class Key
+    {
+        private final String user;
+        private final long documentId;
+        private final long recommenderId;
+        private final Purpose purpose;
+
+        public Key(String aUser, long aDocumentId, long aRecommenderId, Purpose aPurpose)
+        {
+            user = aUser;
+            documentId = aDocumentId;
+            recommenderId = aRecommenderId;
+            purpose = aPurpose;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key other = (Key) o;
+            return documentId == other.documentId && recommenderId == other.recommenderId
+                    && purpose == other.purpose && user.equals(other.user);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(user, documentId, recommenderId, purpose);
+        }
+    }
+}
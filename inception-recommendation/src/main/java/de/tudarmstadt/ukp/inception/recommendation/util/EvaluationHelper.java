@@ -43,6 +43,14 @@ public class EvaluationHelper
         final String modelFileName = ct.getClass().getSimpleName() + modelNameSuffix;
         final File modelFile = new File(RepositoryUtil.getModelDir(docService, project),
                 modelFileName);
+        customizeConfiguration(ct, modelFile);
+    }
+
+    /**
+     * Makes the trainer and the classifier of the given tool use the given model file.
+     */
+    public static void customizeConfiguration(ClassificationTool<?> ct, File modelFile)
+    {
         ClassifierConfiguration<?> conf;
         Trainer<?> trainer = ct.getTrainer();
         Classifier<?> classifier = ct.getClassifier();
@@ -40,6 +40,7 @@ public class RepositoryUtil
 
     private static final String MODEL_DIR_NAME = "/model/";
     private static final String RESULT_DIR_NAME = "/results/";
+    private static final String TRAINED_MODEL_DIR_NAME = "/trained-models/";
 
     public static File getRecommendationDir(DocumentService dc, Project p)
     {
@@ -89,4 +90,10 @@ public class RepositoryUtil
         File result = getRecommendationDir(dc, p);
         return new File(result, RESULT_DIR_NAME);
     }
+
+    public static File getTrainedModelDir(DocumentService dc, Project p)
+    {
+        File result = getRecommendationDir(dc, p);
+        return new File(result, TRAINED_MODEL_DIR_NAME);
+    }
 }
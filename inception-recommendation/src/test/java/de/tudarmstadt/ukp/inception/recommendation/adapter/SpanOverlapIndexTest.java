@@ -0,0 +1,84 @@
+/*
+ * Copyright 2018
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.recommendation.adapter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class SpanOverlapIndexTest
+{
+    @Test
+    public void thatOverlappingRangesAreFound()
+    {
+        SpanOverlapIndex sut = new SpanOverlapIndex();
+        sut.add(10, 20);
+        sut.add(30, 30);
+
+        assertThat(sut.isOverlapping(15, 25)).isTrue();
+        assertThat(sut.isOverlapping(5, 10)).isFalse();
+        assertThat(sut.isOverlapping(20, 25)).isFalse();
+        assertThat(sut.isOverlapping(12, 14)).isTrue();
+        assertThat(sut.isOverlapping(25, 30)).isTrue();
+        assertThat(sut.isOverlapping(20, 20)).isTrue();
+    }
+
+    @Test
+    public void thatIndexAgreesWithPairwiseComparison()
+    {
+        Random random = new Random(42);
+        for (int run = 0; run < 100; run++) {
+            SpanOverlapIndex sut = new SpanOverlapIndex();
+            List<int[]> ranges = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                int begin = random.nextInt(100);
+                int[] range = { begin, begin + random.nextInt(10) };
+                ranges.add(range);
+                sut.add(range[0], range[1]);
+            }
+
+            for (int i = 0; i < 100; i++) {
+                int begin = random.nextInt(110);
+                int end = begin + random.nextInt(5);
+                assertThat(sut.isOverlapping(begin, end))
+                        .as("[%d-%d]", begin, end)
+                        .isEqualTo(isOverlappingPairwise(ranges, begin, end));
+            }
+        }
+    }
+
+    /**
+     * The check the index replaces.
+     */
+    private static boolean isOverlappingPairwise(List<int[]> aRanges, int aBegin, int aEnd)
+    {
+        for (int[] o : aRanges) {
+            if (o[0] <= aBegin && o[1] >= aEnd
+                    || o[0] >= aBegin && o[1] <= aEnd
+                    || o[0] >= aBegin && o[1] >= aEnd && o[0] < aEnd
+                    || o[0] <= aBegin && o[1] <= aEnd && o[1] > aBegin) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
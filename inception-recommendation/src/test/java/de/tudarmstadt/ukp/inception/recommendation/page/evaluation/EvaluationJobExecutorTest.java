@@ -0,0 +1,207 @@
+/*
+ * Copyright 2018
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.recommendation.page.evaluation;
+
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mock;
+
+import de.tudarmstadt.ukp.clarin.webanno.api.DocumentService;
+import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationDocument;
+import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationFeature;
+import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationLayer;
+import de.tudarmstadt.ukp.clarin.webanno.model.Project;
+import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocument;
+import de.tudarmstadt.ukp.clarin.webanno.security.model.User;
+import de.tudarmstadt.ukp.inception.recommendation.api.RecommendationService;
+import de.tudarmstadt.ukp.inception.recommendation.page.evaluation.EvaluationJob.State;
+import de.tudarmstadt.ukp.inception.recommendation.scheduling.DocumentTaskExecutor;
+
+public class EvaluationJobExecutorTest
+{
+    private static final long TIMEOUT = 10;
+
+    public @Rule TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private @Mock DocumentService documentService;
+    private @Mock RecommendationService recommendationService;
+
+    private EvaluationJobExecutor sut;
+
+    private Project project;
+    private CountDownLatch reading;
+    private CountDownLatch proceed;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        initMocks(this);
+
+        project = new Project();
+        project.setId(1L);
+        project.setName("project");
+
+        // Reading a document blocks until the test lets the job proceed
+        reading = new CountDownLatch(1);
+        proceed = new CountDownLatch(1);
+        when(documentService.getDir()).thenReturn(temporaryFolder.getRoot());
+        when(documentService.createOrGetAnnotationDocument(any(), any()))
+                .thenAnswer(invocation -> {
+                    AnnotationDocument annDoc = new AnnotationDocument();
+                    annDoc.setDocument(invocation.getArgument(0));
+                    return annDoc;
+                });
+        when(documentService.readAnnotationCas(any(AnnotationDocument.class)))
+                .thenAnswer(invocation -> {
+                    reading.countDown();
+                    proceed.await(TIMEOUT, TimeUnit.SECONDS);
+                    return null;
+                });
+
+        sut = new EvaluationJobExecutor(documentService, recommendationService,
+                new DocumentTaskExecutor(), 1, 1);
+    }
+
+    @After
+    public void tearDown()
+    {
+        proceed.countDown();
+        sut.destroy();
+    }
+
+    @Test
+    public void thatSubmittedJobRunsAndReportsProgress() throws Exception
+    {
+        EvaluationJob job = job();
+
+        sut.submit(job);
+        assertThat(sut.getJob(job.getId())).isSameAs(job);
+
+        assertThat(reading.await(TIMEOUT, TimeUnit.SECONDS)).isTrue();
+        assertThat(job.getState()).isEqualTo(State.RUNNING);
+        assertThat(job.getReadDocuments()).isEqualTo(0);
+
+        proceed.countDown();
+        awaitDone(job);
+
+        assertThat(job.getState()).isEqualTo(State.FINISHED);
+        assertThat(job.getReadDocuments()).isEqualTo(1);
+    }
+
+    @Test
+    public void thatRunningJobCanBeCancelled() throws Exception
+    {
+        EvaluationJob job = job();
+        sut.submit(job);
+        assertThat(reading.await(TIMEOUT, TimeUnit.SECONDS)).isTrue();
+
+        sut.cancel(job.getId());
+        proceed.countDown();
+        awaitDone(job);
+
+        assertThat(job.getState()).isEqualTo(State.CANCELLED);
+    }
+
+    @Test
+    public void thatQueuedJobCanBeCancelled() throws Exception
+    {
+        EvaluationJob running = job();
+        EvaluationJob queued = job();
+        sut.submit(running);
+        sut.submit(queued);
+        assertThat(reading.await(TIMEOUT, TimeUnit.SECONDS)).isTrue();
+
+        sut.cancel(queued.getId());
+        assertThat(queued.getState()).isEqualTo(State.CANCELLED);
+
+        proceed.countDown();
+        awaitDone(running);
+
+        // Only the document of the running job has been read
+        verify(documentService, times(1)).readAnnotationCas(any(AnnotationDocument.class));
+    }
+
+    @Test
+    public void thatReplacingJobCancelsPreviousJob() throws Exception
+    {
+        EvaluationJob previous = job();
+        sut.submit(previous);
+        assertThat(reading.await(TIMEOUT, TimeUnit.SECONDS)).isTrue();
+
+        EvaluationJob next = job();
+        sut.replace(previous.getId(), next);
+        assertThat(previous.isCancelled()).isTrue();
+
+        proceed.countDown();
+        awaitDone(next);
+
+        assertThat(previous.getState()).isEqualTo(State.CANCELLED);
+        assertThat(next.getState()).isEqualTo(State.FINISHED);
+    }
+
+    @Test
+    public void thatJobIsRejectedWhenQueueIsFull() throws Exception
+    {
+        sut.submit(job());
+        assertThat(reading.await(TIMEOUT, TimeUnit.SECONDS)).isTrue();
+        sut.submit(job());
+
+        EvaluationJob rejected = job();
+        assertThatThrownBy(() -> sut.submit(rejected))
+                .isInstanceOf(RejectedExecutionException.class);
+        assertThat(sut.getJob(rejected.getId())).isNull();
+    }
+
+    private EvaluationJob job()
+    {
+        SourceDocument doc = new SourceDocument();
+        doc.setName("doc");
+        doc.setProject(project);
+
+        User user = new User();
+        user.setUsername("user");
+
+        return new EvaluationJob(user, project, new AnnotationLayer(),
+                new AnnotationFeature("value", "uima.cas.String"), singletonList("classifier"),
+                singletonList(doc), null);
+    }
+
+    private void awaitDone(EvaluationJob aJob) throws InterruptedException
+    {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(TIMEOUT);
+        while (!aJob.getState().isDone() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
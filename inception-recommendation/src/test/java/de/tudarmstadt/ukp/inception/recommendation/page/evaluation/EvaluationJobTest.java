@@ -0,0 +1,105 @@
+/*
+ * Copyright 2018
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.recommendation.page.evaluation;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationFeature;
+import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationLayer;
+import de.tudarmstadt.ukp.clarin.webanno.model.Project;
+import de.tudarmstadt.ukp.clarin.webanno.security.model.User;
+import de.tudarmstadt.ukp.inception.recommendation.imls.core.dataobjects.EvaluationResult;
+import de.tudarmstadt.ukp.inception.recommendation.page.evaluation.EvaluationJob.State;
+
+public class EvaluationJobTest
+{
+    private EvaluationJob sut;
+
+    @Before
+    public void setUp()
+    {
+        sut = new EvaluationJob(new User(), new Project(), new AnnotationLayer(),
+                new AnnotationFeature("value", "uima.cas.String"), singletonList("classifier"),
+                emptyList(), null);
+    }
+
+    @Test
+    public void thatQueuedJobIsCancelledImmediately()
+    {
+        sut.cancel();
+
+        assertThat(sut.isCancelled()).isTrue();
+        assertThat(sut.getState()).isEqualTo(State.CANCELLED);
+        assertThat(sut.start()).isFalse();
+    }
+
+    @Test
+    public void thatRunningJobIsCancelledCooperatively()
+    {
+        assertThat(sut.start()).isTrue();
+
+        sut.cancel();
+
+        // The job ends when the executor notices the cancellation
+        assertThat(sut.isCancelled()).isTrue();
+        assertThat(sut.getState()).isEqualTo(State.RUNNING);
+
+        sut.finish(State.CANCELLED);
+        assertThat(sut.getState()).isEqualTo(State.CANCELLED);
+        assertThat(sut.getFinishTime()).isPositive();
+    }
+
+    @Test
+    public void thatFinishedJobStaysFinished()
+    {
+        sut.start();
+        sut.finish(State.FINISHED);
+        int version = sut.getVersion();
+
+        sut.finish(State.CANCELLED);
+        sut.cancel();
+
+        assertThat(sut.getState()).isEqualTo(State.FINISHED);
+        assertThat(sut.getVersion()).isEqualTo(version);
+    }
+
+    @Test
+    public void thatProgressIsReported()
+    {
+        sut.start();
+        sut.documentRead();
+        sut.startClassifier("classifier");
+        int version = sut.getVersion();
+
+        EvaluationResult result = new EvaluationResult("classifier");
+        sut.setResult("classifier", result);
+
+        assertThat(sut.getReadDocuments()).isEqualTo(1);
+        assertThat(sut.getCurrentClassifier()).isEqualTo("classifier");
+        assertThat(sut.getVersion()).isGreaterThan(version);
+        assertThat(sut.getResults()).containsEntry("classifier", result);
+
+        sut.finish(State.FINISHED);
+        assertThat(sut.getCurrentClassifier()).isNull();
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2018
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.recommendation.scheduling;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.tudarmstadt.ukp.clarin.webanno.model.Project;
+import de.tudarmstadt.ukp.clarin.webanno.security.model.User;
+import de.tudarmstadt.ukp.inception.recommendation.scheduling.FairTaskQueue.OfferResult;
+import de.tudarmstadt.ukp.inception.recommendation.scheduling.tasks.Task;
+
+public class FairTaskQueueTest
+{
+    private Project project;
+    private User alice;
+    private User bob;
+
+    @Before
+    public void setup()
+    {
+        project = new Project();
+        project.setId(1L);
+        project.setName("project");
+
+        alice = new User();
+        alice.setUsername("alice");
+
+        bob = new User();
+        bob.setUsername("bob");
+    }
+
+    @Test
+    public void thatTasksOfOnePairAreHandedOutInOrder() throws Exception
+    {
+        FairTaskQueue sut = new FairTaskQueue(10);
+        Task first = new FirstTask(alice, project);
+        Task second = new SecondTask(alice, project);
+
+        sut.offer(first);
+        sut.offer(second);
+
+        assertThat(sut.take()).isSameAs(first);
+        sut.complete(first);
+        assertThat(sut.take()).isSameAs(second);
+        sut.complete(second);
+        assertThat(sut.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void thatTasksOfOnePairDoNotRunConcurrently() throws Exception
+    {
+        FairTaskQueue sut = new FairTaskQueue(10);
+        Task first = new FirstTask(alice, project);
+        Task other = new FirstTask(bob, project);
+
+        sut.offer(first);
+        sut.offer(new SecondTask(alice, project));
+        sut.offer(other);
+
+        assertThat(sut.take()).isSameAs(first);
+        // The second task of alice has to wait until the first one is complete
+        assertThat(sut.take()).isSameAs(other);
+        assertThat(sut.getRunningCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void thatUsersTakeTurns() throws Exception
+    {
+        FairTaskQueue sut = new FairTaskQueue(10);
+        Task alice1 = new FirstTask(alice, project);
+        Task alice2 = new SecondTask(alice, project);
+        Task bob1 = new FirstTask(bob, project);
+
+        sut.offer(alice1);
+        sut.offer(alice2);
+        sut.offer(bob1);
+
+        assertThat(sut.take()).isSameAs(alice1);
+        sut.complete(alice1);
+
+        // Alice has another task waiting, but bob is next in the rotation
+        assertThat(sut.take()).isSameAs(bob1);
+        sut.complete(bob1);
+        assertThat(sut.take()).isSameAs(alice2);
+    }
+
+    @Test
+    public void thatEqualTasksAreCoalesced()
+    {
+        FairTaskQueue sut = new FairTaskQueue(10);
+
+        assertThat(sut.offer(new FirstTask(alice, project))).isEqualTo(OfferResult.ENQUEUED);
+        assertThat(sut.offer(new FirstTask(alice, project))).isEqualTo(OfferResult.COALESCED);
+        assertThat(sut.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void thatTasksAreRejectedWhenFull()
+    {
+        FairTaskQueue sut = new FairTaskQueue(1);
+
+        assertThat(sut.offer(new FirstTask(alice, project))).isEqualTo(OfferResult.ENQUEUED);
+        assertThat(sut.offer(new FirstTask(bob, project))).isEqualTo(OfferResult.REJECTED);
+    }
+
+    @Test
+    public void thatTasksCanBeRemoved() throws Exception
+    {
+        FairTaskQueue sut = new FairTaskQueue(10);
+        Task bob1 = new FirstTask(bob, project);
+
+        sut.offer(new FirstTask(alice, project));
+        sut.offer(new SecondTask(alice, project));
+        sut.offer(bob1);
+        sut.removeIf(t -> t.getUser().getUsername().equals("alice"));
+
+        assertThat(sut.size()).isEqualTo(1);
+        assertThat(sut.contains(t -> t.getUser().getUsername().equals("alice"))).isFalse();
+        assertThat(sut.take()).isSameAs(bob1);
+    }
+
+    private static class FirstTask
+        extends Task
+    {
+        public FirstTask(User aUser, Project aProject)
+        {
+            super(aProject, aUser);
+        }
+
+        @Override
+        public void run()
+        {
+            // Nothing to do
+        }
+    }
+
+    private static class SecondTask
+        extends Task
+    {
+        public SecondTask(User aUser, Project aProject)
+        {
+            super(aProject, aUser);
+        }
+
+        @Override
+        public void run()
+        {
+            // Nothing to do
+        }
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright 2018
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.recommendation.service;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+
+import de.tudarmstadt.ukp.clarin.webanno.api.DocumentService;
+import de.tudarmstadt.ukp.clarin.webanno.model.Project;
+import de.tudarmstadt.ukp.clarin.webanno.security.model.User;
+import de.tudarmstadt.ukp.inception.recommendation.api.ClassifierConfiguration;
+import de.tudarmstadt.ukp.inception.recommendation.api.Trainer;
+import de.tudarmstadt.ukp.inception.recommendation.api.model.AnnotationObject;
+import de.tudarmstadt.ukp.inception.recommendation.api.model.Recommender;
+
+public class TrainedModelStoreTest
+{
+    public @Rule TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private @Mock DocumentService documentService;
+    private @InjectMocks TrainedModelStore sut;
+
+    private User user;
+    private Recommender recommender;
+    private List<List<AnnotationObject>> trainingData;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        initMocks(this);
+
+        when(documentService.getDir()).thenReturn(temporaryFolder.getRoot());
+
+        Project project = new Project();
+        project.setId(1L);
+        project.setName("project");
+
+        user = new User();
+        user.setUsername("user");
+
+        recommender = new Recommender();
+        recommender.setId(2L);
+        recommender.setProject(project);
+        recommender.setTool("tool");
+
+        trainingData = singletonList(emptyList());
+    }
+
+    @Test
+    public void thatSavedModelCanBeLoaded()
+    {
+        String fingerprint = sut.fingerprint(recommender, trainingData);
+
+        SerializingTrainer trainer = new SerializingTrainer();
+        trainer.getClassifierConfiguration()
+                .setModelFile(sut.getModelFile(user, recommender, fingerprint));
+        trainer.train(trainingData);
+        assertThat(trainer.saveModel()).isTrue();
+
+        assertThat(sut.contains(user, recommender, fingerprint)).isTrue();
+
+        SerializingTrainer loader = new SerializingTrainer();
+        loader.getClassifierConfiguration()
+                .setModelFile(sut.getModelFile(user, recommender, fingerprint));
+        Object model = loader.loadModel();
+        assertThat(model).isNotNull();
+        assertThat(model).isEqualTo("model");
+    }
+
+    @Test
+    public void thatNothingIsContainedBeforeSaving()
+    {
+        String fingerprint = sut.fingerprint(recommender, trainingData);
+
+        File modelFile = sut.getModelFile(user, recommender, fingerprint);
+
+        assertThat(modelFile.getParentFile()).isDirectory();
+        assertThat(sut.contains(user, recommender, fingerprint)).isFalse();
+    }
+
+    @Test
+    public void thatFingerprintDependsOnRecommender()
+    {
+        String fingerprint = sut.fingerprint(recommender, trainingData);
+
+        recommender.setTool("other");
+
+        assertThat(sut.fingerprint(recommender, trainingData)).isNotEqualTo(fingerprint);
+    }
+
+    @Test
+    public void thatRemovedModelIsNotContained() throws Exception
+    {
+        String fingerprint = sut.fingerprint(recommender, trainingData);
+        save(fingerprint);
+
+        sut.remove(user, recommender, fingerprint);
+
+        assertThat(sut.contains(user, recommender, fingerprint)).isFalse();
+    }
+
+    @Test
+    public void thatEvictionKeepsMostRecentlyUsedModels() throws Exception
+    {
+        for (int i = 0; i < 5; i++) {
+            String fingerprint = Integer.toString(i);
+            save(fingerprint);
+            sut.getModelFile(user, recommender, fingerprint).getParentFile()
+                    .setLastModified(1000L * (i + 1));
+        }
+
+        sut.evict(user, recommender);
+
+        assertThat(sut.contains(user, recommender, "0")).isFalse();
+        assertThat(sut.contains(user, recommender, "1")).isFalse();
+        assertThat(sut.contains(user, recommender, "2")).isTrue();
+        assertThat(sut.contains(user, recommender, "3")).isTrue();
+        assertThat(sut.contains(user, recommender, "4")).isTrue();
+    }
+
+    @Test
+    public void thatRemoveModelsDropsAllModelsOfRecommender() throws Exception
+    {
+        String fingerprint = sut.fingerprint(recommender, trainingData);
+        save(fingerprint);
+
+        sut.removeModels(recommender);
+
+        assertThat(sut.contains(user, recommender, fingerprint)).isFalse();
+    }
+
+    private void save(String aFingerprint) throws IOException
+    {
+        SerializingTrainer trainer = new SerializingTrainer();
+        trainer.getClassifierConfiguration()
+                .setModelFile(sut.getModelFile(user, recommender, aFingerprint));
+        trainer.train(trainingData);
+        if (!trainer.saveModel()) {
+            throw new IOException("Unable to save model");
+        }
+    }
+
+    /**
+     * Trainer which persists its model the same way the OpenNLP trainers do.
+     */
+    private static class SerializingTrainer
+        extends Trainer<Object>
+    {
+        private Object trainedModel;
+
+        public SerializingTrainer()
+        {
+            super(new ClassifierConfiguration<>());
+        }
+
+        @Override
+        public Object train(List<List<AnnotationObject>> aTrainingData)
+        {
+            trainedModel = "model";
+            return trainedModel;
+        }
+
+        @Override
+        public boolean saveModel()
+        {
+            File modelFile = getClassifierConfiguration().getModelFile();
+            try (ObjectOutputStream oos = new ObjectOutputStream(
+                    new FileOutputStream(modelFile))) {
+                oos.writeObject(trainedModel);
+                return true;
+            }
+            catch (IOException e) {
+                return false;
+            }
+        }
+
+        @Override
+        public Object loadModel()
+        {
+            File modelFile = getClassifierConfiguration().getModelFile();
+            try (ObjectInputStream ois = new ObjectInputStream(
+                    new FileInputStream(modelFile))) {
+                trainedModel = ois.readObject();
+                return trainedModel;
+            }
+            catch (IOException | ClassNotFoundException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public void reconfigure()
+        {
+            trainedModel = null;
+        }
+    }
+}
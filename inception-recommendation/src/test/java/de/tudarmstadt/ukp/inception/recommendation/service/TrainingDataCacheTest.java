@@ -0,0 +1,164 @@
+/*
+ * Copyright 2018
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.recommendation.service;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.apache.uima.jcas.JCas;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+
+import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationDocument;
+import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocument;
+import de.tudarmstadt.ukp.inception.recommendation.api.model.AnnotationObject;
+import de.tudarmstadt.ukp.inception.recommendation.service.TrainingDataCache.Purpose;
+
+public class TrainingDataCacheTest
+{
+    private static final long RECOMMENDER = 1;
+
+    private @Mock CasCache casCache;
+    private @InjectMocks TrainingDataCache sut;
+
+    private AtomicInteger extractions;
+    private Function<JCas, List<List<AnnotationObject>>> extractor;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        initMocks(this);
+
+        when(casCache.read(any())).thenReturn(mock(JCas.class));
+
+        extractions = new AtomicInteger();
+        extractor = jCas -> {
+            extractions.incrementAndGet();
+            return singletonList(emptyList());
+        };
+    }
+
+    @Test
+    public void thatUnchangedDocumentsAreExtractedOnce() throws Exception
+    {
+        AnnotationDocument doc = document("user", 1, 1000);
+
+        List<List<AnnotationObject>> first = sut.get(doc, RECOMMENDER, Purpose.TRAINING,
+                extractor);
+        List<List<AnnotationObject>> second = sut.get(doc, RECOMMENDER, Purpose.TRAINING,
+                extractor);
+
+        assertThat(second).isSameAs(first);
+        assertThat(extractions.get()).isEqualTo(1);
+        verify(casCache, times(1)).read(doc);
+    }
+
+    @Test
+    public void thatPurposesAndRecommendersAreCachedSeparately()
+    {
+        AnnotationDocument doc = document("user", 1, 1000);
+
+        sut.get(doc, RECOMMENDER, Purpose.TRAINING, extractor);
+        sut.get(doc, RECOMMENDER, Purpose.EVALUATION, extractor);
+        sut.get(doc, RECOMMENDER + 1, Purpose.TRAINING, extractor);
+
+        assertThat(extractions.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void thatChangedTimestampIsExtractedAgain()
+    {
+        AnnotationDocument doc = document("user", 1, 1000);
+        sut.get(doc, RECOMMENDER, Purpose.TRAINING, extractor);
+
+        doc.setTimestamp(new Date(2000));
+        sut.get(doc, RECOMMENDER, Purpose.TRAINING, extractor);
+
+        assertThat(extractions.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void thatInvalidateDropsOnlyTheDocument()
+    {
+        AnnotationDocument doc1 = document("user", 1, 1000);
+        AnnotationDocument doc2 = document("user", 2, 1000);
+        sut.get(doc1, RECOMMENDER, Purpose.TRAINING, extractor);
+        sut.get(doc2, RECOMMENDER, Purpose.TRAINING, extractor);
+
+        sut.invalidate(doc1);
+        sut.get(doc1, RECOMMENDER, Purpose.TRAINING, extractor);
+        sut.get(doc2, RECOMMENDER, Purpose.TRAINING, extractor);
+
+        assertThat(extractions.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void thatInvalidateUserDropsOnlyTheUser()
+    {
+        AnnotationDocument alice = document("alice", 1, 1000);
+        AnnotationDocument bob = document("bob", 1, 1000);
+        sut.get(alice, RECOMMENDER, Purpose.TRAINING, extractor);
+        sut.get(bob, RECOMMENDER, Purpose.TRAINING, extractor);
+
+        sut.invalidateUser("alice");
+        sut.get(alice, RECOMMENDER, Purpose.TRAINING, extractor);
+        sut.get(bob, RECOMMENDER, Purpose.TRAINING, extractor);
+
+        assertThat(extractions.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void thatInvalidateRecommenderDropsOnlyTheRecommender()
+    {
+        AnnotationDocument doc = document("user", 1, 1000);
+        sut.get(doc, RECOMMENDER, Purpose.TRAINING, extractor);
+        sut.get(doc, RECOMMENDER + 1, Purpose.TRAINING, extractor);
+
+        sut.invalidateRecommender(RECOMMENDER);
+        sut.get(doc, RECOMMENDER, Purpose.TRAINING, extractor);
+        sut.get(doc, RECOMMENDER + 1, Purpose.TRAINING, extractor);
+
+        assertThat(extractions.get()).isEqualTo(3);
+    }
+
+    private static AnnotationDocument document(String aUser, long aDocumentId, long aTimestamp)
+    {
+        SourceDocument source = new SourceDocument();
+        source.setId(aDocumentId);
+
+        AnnotationDocument doc = new AnnotationDocument();
+        doc.setUser(aUser);
+        doc.setDocument(source);
+        doc.setTimestamp(new Date(aTimestamp));
+        return doc;
+    }
+}
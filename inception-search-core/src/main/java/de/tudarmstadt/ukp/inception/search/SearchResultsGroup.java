@@ -0,0 +1,50 @@
+/*
+ * Copyright 2018
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.search;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The search results within one document.
+ */
+public class SearchResultsGroup
+    implements Serializable
+{
+    private static final long serialVersionUID = -1837498062457164208L;
+
+    private final String documentTitle;
+    private final List<SearchResult> results;
+
+    public SearchResultsGroup(String aDocumentTitle, List<SearchResult> aResults)
+    {
+        documentTitle = aDocumentTitle;
+        results = Collections.unmodifiableList(aResults);
+    }
+
+    public String getDocumentTitle()
+    {
+        return documentTitle;
+    }
+
+    public List<SearchResult> getResults()
+    {
+        return results;
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2018
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.search;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One page of the results of a query, grouped by document in the order in which the documents
+ * occur in the results. The results of a document may continue on the next page.
+ */
+public class SearchResultsPage
+    implements Serializable
+{
+    private static final long serialVersionUID = 6207427155316937046L;
+
+    private final List<SearchResultsGroup> groups;
+    private final int page;
+    private final int pageCount;
+    private final int totalResults;
+
+    /**
+     * @param aResults
+     *            all results of the query.
+     * @param aPage
+     *            the page to show, starting at 0. Pages beyond the last page show the last page.
+     * @param aPageSize
+     *            the maximum number of results per page.
+     */
+    public SearchResultsPage(List<SearchResult> aResults, int aPage, int aPageSize)
+    {
+        if (aPageSize < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1");
+        }
+
+        totalResults = aResults.size();
+        pageCount = Math.max(1, (totalResults + aPageSize - 1) / aPageSize);
+        page = Math.min(Math.max(aPage, 0), pageCount - 1);
+
+        int begin = page * aPageSize;
+        int end = Math.min(begin + aPageSize, totalResults);
+        Map<String, List<SearchResult>> resultsByDocument = new LinkedHashMap<>();
+        for (SearchResult result : aResults.subList(begin, end)) {
+            resultsByDocument
+                    .computeIfAbsent(result.getDocumentTitle(), title -> new ArrayList<>())
+                    .add(result);
+        }
+
+        groups = new ArrayList<>();
+        resultsByDocument.forEach((title, results) ->
+                groups.add(new SearchResultsGroup(title, results)));
+    }
+
+    public List<SearchResultsGroup> getGroups()
+    {
+        return groups;
+    }
+
+    public int getPage()
+    {
+        return page;
+    }
+
+    public int getPageCount()
+    {
+        return pageCount;
+    }
+
+    public int getTotalResults()
+    {
+        return totalResults;
+    }
+}
@@ -20,6 +20,7 @@ package de.tudarmstadt.ukp.inception.search;
 import java.io.IOException;
 import java.util.List;
 
+import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationDocument;
 import de.tudarmstadt.ukp.clarin.webanno.model.Project;
 import de.tudarmstadt.ukp.clarin.webanno.security.model.User;
 import de.tudarmstadt.ukp.inception.search.model.Index;
@@ -31,8 +32,34 @@ public interface SearchService
     List<SearchResult> query(User aUser, Project aProject, String aQuery)
         throws IOException, ExecutionException;
 
+    /**
+     * Runs the query and returns one page of its results, grouped by document. The complete
+     * results are kept until the index of the project changes, so further pages of the same query
+     * are served without running it again.
+     *
+     * @param aPage
+     *            the page to return, starting at 0.
+     * @param aPageSize
+     *            the maximum number of results per page.
+     */
+    SearchResultsPage query(User aUser, Project aProject, String aQuery, int aPage,
+            int aPageSize)
+        throws IOException, ExecutionException;
+
     void reindex(Project aproject) throws IOException;
 
+    /**
+     * Re-indexes the latest saved state of the given annotation document. If the project has no
+     * physical index yet, a reindexing of the whole project is scheduled instead.
+     */
+    void indexDocument(AnnotationDocument aDocument) throws IOException;
+
+    /**
+     * @return whether changes to the project are waiting to be indexed. Until they are, queries
+     *         return results from the previously indexed state.
+     */
+    boolean isIndexUpdatePending(Project aProject);
+
     public Index getIndex(Project aProject);
 
     public void updateIndex(Index aIndexObject);
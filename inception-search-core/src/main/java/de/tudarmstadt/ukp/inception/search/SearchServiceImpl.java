@@ -18,10 +18,15 @@
 package de.tudarmstadt.ukp.inception.search;
 
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
+import javax.annotation.PreDestroy;
 import javax.persistence.EntityManager;
 import javax.persistence.NoResultException;
 import javax.persistence.PersistenceContext;
@@ -58,6 +63,9 @@ import de.tudarmstadt.ukp.inception.search.scheduling.IndexScheduler;
 public class SearchServiceImpl
     implements SearchService
 {
+    private static final int QUERY_RESULTS_CACHE_SIZE = 20;
+    private static final int REMOVED_DOCUMENTS_SIZE = 1000;
+
     private final Logger log = LoggerFactory.getLogger(getClass());
 
     @PersistenceContext
@@ -76,12 +84,44 @@ public class SearchServiceImpl
     // The indexes for each project
     private static Map<Long, Index> indexes;
 
+    // The complete results of recent queries, kept until the index of their project changes
+    private final Map<String, List<SearchResult>> queryResultsCache =
+            new LinkedHashMap<String, List<SearchResult>>(16, 0.75f, true)
+    {
+        private static final long serialVersionUID = 8036335813212307387L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, List<SearchResult>> aEldest)
+        {
+            return size() > QUERY_RESULTS_CACHE_SIZE;
+        }
+    };
+    private final AtomicLong queryResultsGeneration = new AtomicLong();
+
+    // Indexing a document and removing a document from the index of the same project never run
+    // at the same time. Other projects are not blocked.
+    private final Map<Long, Object> indexingLocks = new ConcurrentHashMap<>();
+
+    // Recently removed source documents. Their deletion may not have been committed yet when an
+    // indexing task which was already running before the removal checks for them.
+    private final Set<Long> removedDocuments = Collections.synchronizedSet(
+            Collections.newSetFromMap(new LinkedHashMap<Long, Boolean>()
+    {
+        private static final long serialVersionUID = -1893450612948617411L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Boolean> aEldest)
+        {
+            return size() > REMOVED_DOCUMENTS_SIZE;
+        }
+    }));
+
     @Value(value = "${repository.path}")
     private String dir;
 
     public SearchServiceImpl()
     {
-        indexes = new HashMap<>();
+        indexes = new ConcurrentHashMap<>();
     }
 
     /** 
@@ -89,7 +129,7 @@ public class SearchServiceImpl
      * @param aProject The project
      * @return The index
      */
-    private Index getIndexFromMemory(Project aProject)
+    private synchronized Index getIndexFromMemory(Project aProject)
     {
         // Search index entry in the memory map
         if (!indexes.containsKey(aProject.getId())) {
@@ -123,6 +163,19 @@ public class SearchServiceImpl
         return indexes.get(aProject.getId());
     }
 
+    /**
+     * Close all open physical indexes on shutdown so that pending changes are committed.
+     */
+    @PreDestroy
+    public void shutdown()
+    {
+        for (Index index : indexes.values()) {
+            if (index.getPhysicalIndex() != null && index.getPhysicalIndex().isOpen()) {
+                index.getPhysicalIndex().closePhysicalIndex();
+            }
+        }
+    }
+
     /** 
      * beforeProjectRemove event. Triggered before a project is removed
      * @param aEvent The BeforeProjectRemovedEvent event
@@ -143,9 +196,12 @@ public class SearchServiceImpl
 
         // Remove the index entry from the memory map
         indexes.remove(project.getId());
+        indexingLocks.remove(project.getId());
         
         // Delete the index entry from the DB
         deleteIndexByProject(project);
+
+        invalidateQueryResults(project);
     }
 
     @EventListener
@@ -155,64 +211,104 @@ public class SearchServiceImpl
 
         Project project = document.getProject();
         
-        // Retrieve index entry for the project
-        Index index = getIndexFromMemory(project);
+        synchronized (getIndexingLock(project)) {
+            // Pending updates of the document must not add it to the index again
+            removedDocuments.add(document.getId());
+            indexScheduler.dropIndexDocumentTasks(document);
 
-        if (index.getPhysicalIndex().isCreated()) {
-            // Physical index exists.
+            // Retrieve index entry for the project
+            Index index = getIndexFromMemory(project);
 
-            if (!index.getPhysicalIndex().isOpen()) {
-                // Physical index is not open. Open it.
-                index.getPhysicalIndex().openPhysicalIndex();
-            }
+            if (index.getPhysicalIndex().isCreated()) {
+                // Physical index exists.
+
+                if (!index.getPhysicalIndex().isOpen()) {
+                    // Physical index is not open. Open it.
+                    index.getPhysicalIndex().openPhysicalIndex();
+                }
 
-            // Remove source document from the index
-            index.getPhysicalIndex().deindexDocument(document);
+                // Remove source document from the index
+                index.getPhysicalIndex().deindexDocument(document);
 
-            // Remove related annotation documents from the index
-            for (AnnotationDocument annotationDocument : documentService
-                    .listAnnotationDocuments(document)) {
-                index.getPhysicalIndex().deindexDocument(annotationDocument);
+                // Remove related annotation documents from the index
+                for (AnnotationDocument annotationDocument : documentService
+                        .listAnnotationDocuments(document)) {
+                    index.getPhysicalIndex().deindexDocument(annotationDocument);
+                }
             }
+
+            invalidateQueryResults(project);
         }
     }
 
     @EventListener
     public void afterAnnotationUpdate(AfterAnnotationUpdateEvent aEvent) throws Exception
     {
-        AnnotationDocument document = aEvent.getDocument();
+        // Re-indexing the document is expensive, so it is done in the background once the
+        // document has not been changed for a moment
+        indexScheduler.enqueueIndexDocumentTask(aEvent.getDocument());
+    }
 
-        Project project = document.getProject();
+    @Override
+    public void indexDocument(AnnotationDocument aDocument) throws IOException
+    {
+        Project project = aDocument.getProject();
         
-        // Retrieve index entry for the project
-        Index index = getIndexFromMemory(project);
+        synchronized (getIndexingLock(project)) {
+            // The task may have been taken from the queue before the document was removed
+            if (isRemoved(aDocument)) {
+                log.debug("Not indexing removed annotation document [{}] of user [{}]",
+                        aDocument.getName(), aDocument.getUser());
+                return;
+            }
 
-        if (!index.getPhysicalIndex().isCreated()) {
-            // Physical index does not exist. 
-            
-            // Set the invalid flag
-            index.setInvalid(true);
-            updateIndex(index);
+            // Retrieve index entry for the project
+            Index index = getIndexFromMemory(project);
 
-            // Schedule new reindex process
-            indexScheduler.enqueueReindexTask(project);
-        }
-        else {
-            // Physical index already exists
+            if (!index.getPhysicalIndex().isCreated()) {
+                // Physical index does not exist. 
+            
+                // Set the invalid flag
+                index.setInvalid(true);
+                updateIndex(index);
 
-            if (!index.getPhysicalIndex().isOpen()) {
-                // Physical index is not open. Open it.
-                index.getPhysicalIndex().openPhysicalIndex();
+                // Schedule new reindex process
+                indexScheduler.enqueueReindexTask(project);
             }
+            else {
+                // Physical index already exists
 
-            // Remove annotation document from index.
-            index.getPhysicalIndex().deindexDocument(document);
+                if (!index.getPhysicalIndex().isOpen()) {
+                    // Physical index is not open. Open it.
+                    index.getPhysicalIndex().openPhysicalIndex();
+                }
+
+                // Add annotation document to the index again, replacing the previous version
+                index.getPhysicalIndex().indexDocument(aDocument,
+                        documentService.readAnnotationCas(aDocument));
+            }
 
-            // Add annotation document to the index again
-            index.getPhysicalIndex().indexDocument(document, aEvent.getJCas());
+            invalidateQueryResults(project);
         }
     }
 
+    private Object getIndexingLock(Project aProject)
+    {
+        return indexingLocks.computeIfAbsent(aProject.getId(), id -> new Object());
+    }
+
+    private boolean isRemoved(AnnotationDocument aDocument)
+    {
+        return removedDocuments.contains(aDocument.getDocument().getId())
+                || entityManager.find(AnnotationDocument.class, aDocument.getId()) == null;
+    }
+
+    @Override
+    public boolean isIndexUpdatePending(Project aProject)
+    {
+        return indexScheduler.isIndexUpdatePending(aProject);
+    }
+
     @Override
     public List<SearchResult> query(User aUser, Project aProject, String aQuery)
         throws IOException, ExecutionException
@@ -261,6 +357,42 @@ public class SearchServiceImpl
         return results;
     }
 
+    @Override
+    public SearchResultsPage query(User aUser, Project aProject, String aQuery, int aPage,
+            int aPageSize)
+        throws IOException, ExecutionException
+    {
+        String key = aProject.getId() + "|" + (aUser != null ? aUser.getUsername() : null) + "|"
+                + aQuery;
+
+        List<SearchResult> results;
+        synchronized (queryResultsCache) {
+            results = queryResultsCache.get(key);
+        }
+
+        if (results == null) {
+            long generation = queryResultsGeneration.get();
+            results = Collections.unmodifiableList(query(aUser, aProject, aQuery));
+            synchronized (queryResultsCache) {
+                // Do not keep the results if the index has changed while the query was running
+                if (generation == queryResultsGeneration.get()) {
+                    queryResultsCache.put(key, results);
+                }
+            }
+        }
+
+        return new SearchResultsPage(results, aPage, aPageSize);
+    }
+
+    private void invalidateQueryResults(Project aProject)
+    {
+        String prefix = aProject.getId() + "|";
+        synchronized (queryResultsCache) {
+            queryResultsGeneration.incrementAndGet();
+            queryResultsCache.keySet().removeIf(key -> key.startsWith(prefix));
+        }
+    }
+
     @EventListener
     public void afterDocumentCreate(AfterDocumentCreatedEvent aEvent) throws Exception
     {
@@ -288,6 +420,8 @@ public class SearchServiceImpl
             // Index the new document
             index.getPhysicalIndex().indexDocument(document, aEvent.getJcas());
         }
+
+        invalidateQueryResults(project);
     }
 
     @EventListener
@@ -304,6 +438,8 @@ public class SearchServiceImpl
 
         // Schedule reindexing of the physical index
         indexScheduler.enqueueReindexTask(aEvent.getProject());
+
+        invalidateQueryResults(project);
     }
 
     /** 
@@ -327,6 +463,8 @@ public class SearchServiceImpl
         // After reindexing, reset the invalid flag
         index.setInvalid(false);
         updateIndex(index);
+
+        invalidateQueryResults(aProject);
     }
     
     @Override
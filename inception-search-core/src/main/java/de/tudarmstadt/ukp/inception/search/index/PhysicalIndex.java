@@ -48,8 +48,16 @@ public interface PhysicalIndex
             String... sResultField)
         throws IOException, ExecutionException;
 
+    /**
+     * Adds the given document to the index. If the document is already in the index, it is
+     * replaced.
+     */
     public void indexDocument(SourceDocument aDocument, JCas aJCas) throws IOException;
 
+    /**
+     * Adds the given document to the index. If the document is already in the index, it is
+     * replaced.
+     */
     public void indexDocument(AnnotationDocument aDocument, JCas aJCas) throws IOException;
 
     public void deindexDocument(SourceDocument aDocument) throws IOException;
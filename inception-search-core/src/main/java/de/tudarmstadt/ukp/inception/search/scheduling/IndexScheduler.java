@@ -17,9 +17,15 @@
  */
 package de.tudarmstadt.ukp.inception.search.scheduling;
 
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
@@ -27,15 +33,23 @@ import javax.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationContext;
 import org.springframework.stereotype.Component;
 
+import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationDocument;
 import de.tudarmstadt.ukp.clarin.webanno.model.Project;
+import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocument;
+import de.tudarmstadt.ukp.inception.search.scheduling.tasks.IndexAnnotationDocumentTask;
 import de.tudarmstadt.ukp.inception.search.scheduling.tasks.ReindexTask;
 import de.tudarmstadt.ukp.inception.search.scheduling.tasks.Task;
 
 /**
  * Indexer scheduler. Does the project reindexing in an asynchronous way.
+ * <p>
+ * Annotation documents are re-indexed when no further changes have been made to them for a quiet
+ * period, so a series of edits only triggers one indexing task. Until then, searches see the
+ * previously indexed state of the document.
  */
 @Component
 public class IndexScheduler
@@ -44,21 +58,38 @@ public class IndexScheduler
 
     private @Autowired ApplicationContext applicationContext;
 
+    /**
+     * Time in milliseconds without changes to an annotation document before it is re-indexed.
+     */
+    @Value("${search.scheduler.quietPeriod:2000}")
+    private long quietPeriod;
+
     private Thread consumer;
     private BlockingQueue<Task> queue = new ArrayBlockingQueue<Task>(100);
 
+    private ScheduledExecutorService debouncer;
+    // Annotation documents waiting for their quiet period to pass, by annotation document ID
+    private final Map<Long, DebouncedDocument> debouncedDocuments = new HashMap<>();
+    private long debounceSequence = 0;
+
     @PostConstruct
     private void startSchedulerThread()
     {
         consumer = new Thread(new TaskConsumer(applicationContext, queue), "Index task consumer");
         consumer.setPriority(Thread.MIN_PRIORITY);
         consumer.start();
+        debouncer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Index task debouncer");
+            thread.setDaemon(true);
+            return thread;
+        });
         log.info("Started Search Indexing Thread");
     }
 
     @PreDestroy
     public void destroy()
     {
+        debouncer.shutdownNow();
         consumer.interrupt();
     }
 
@@ -68,12 +99,75 @@ public class IndexScheduler
         enqueue(new ReindexTask(aProject));
     }
 
+    /**
+     * Schedules re-indexing the given annotation document once the quiet period has passed
+     * without further calls for the same document.
+     */
+    public synchronized void enqueueIndexDocumentTask(AnnotationDocument aDocument)
+    {
+        DebouncedDocument pending = debouncedDocuments.remove(aDocument.getId());
+        if (pending != null) {
+            pending.future.cancel(false);
+        }
+
+        long sequence = debounceSequence++;
+        ScheduledFuture<?> future = debouncer.schedule(
+            () -> releaseIndexDocumentTask(aDocument, sequence), quietPeriod,
+            TimeUnit.MILLISECONDS);
+        debouncedDocuments.put(aDocument.getId(),
+                new DebouncedDocument(aDocument, future, sequence));
+    }
+
+    private synchronized void releaseIndexDocumentTask(AnnotationDocument aDocument,
+            long aSequence)
+    {
+        // If the document has been changed again while this call was waiting for the lock, the
+        // newer call releases the document
+        DebouncedDocument pending = debouncedDocuments.get(aDocument.getId());
+        if (pending == null || pending.sequence != aSequence) {
+            return;
+        }
+
+        debouncedDocuments.remove(aDocument.getId());
+        enqueue(new IndexAnnotationDocumentTask(pending.document));
+    }
+
+    /**
+     * Drops pending indexing tasks for the annotation documents of the given source document,
+     * e.g. because it is being removed.
+     */
+    public synchronized void dropIndexDocumentTasks(SourceDocument aDocument)
+    {
+        debouncedDocuments.values().removeIf(pending -> {
+            if (pending.document.getDocument().equals(aDocument)) {
+                pending.future.cancel(false);
+                return true;
+            }
+            return false;
+        });
+
+        queue.removeIf(t -> t instanceof IndexAnnotationDocumentTask
+                && ((IndexAnnotationDocumentTask) t).getAnnotationDocument().getDocument()
+                        .equals(aDocument));
+    }
+
     public synchronized void enqueue(Task aRunnable)
     {
-        // If there is no indexing in the queue on for this project, enqueue it
-        if (!isIndexing(aRunnable.getProject())) {
-            queue.offer(aRunnable);
-            log.info("Enqueued new indexing task: {}", aRunnable);
+        // If the same task or a reindexing of the whole project is already in the queue, the
+        // task is redundant
+        for (Task t : queue) {
+            if (t.equals(aRunnable) || (t instanceof ReindexTask
+                    && t.getProject().equals(aRunnable.getProject()))) {
+                log.debug("Indexing task already covered by queued task: {}", aRunnable);
+                return;
+            }
+        }
+
+        if (queue.offer(aRunnable)) {
+            log.debug("Enqueued new indexing task: {}", aRunnable);
+        }
+        else {
+            log.warn("Indexing queue is full, dropped task: {}", aRunnable);
         }
     }
 
@@ -82,12 +176,48 @@ public class IndexScheduler
         Iterator<Task> it = queue.iterator();
         while (it.hasNext()) {
             Task t = it.next();
-            if (t.getUser().getUsername().equals(username)) {
+            if (t.getUser() != null && t.getUser().getUsername().equals(username)) {
                 queue.remove(t);
             }
         }
     }
 
+    /**
+     * @return the number of indexing tasks which are waiting to be run.
+     */
+    public int getQueueSize()
+    {
+        return queue.size();
+    }
+
+    /**
+     * @return the number of annotation documents which are waiting for their quiet period to
+     *         pass before being re-indexed.
+     */
+    public synchronized int getDebouncedDocumentCount()
+    {
+        return debouncedDocuments.size();
+    }
+
+    /**
+     * @return whether there are changes to the given project which have not been indexed yet,
+     *         either because indexing tasks are queued or because documents are waiting for their
+     *         quiet period to pass.
+     */
+    public synchronized boolean isIndexUpdatePending(Project aProject)
+    {
+        if (isIndexing(aProject)) {
+            return true;
+        }
+
+        for (DebouncedDocument pending : debouncedDocuments.values()) {
+            if (pending.document.getProject().equals(aProject)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public boolean isIndexing(Project p)
     {
         Iterator<Task> it = queue.iterator();
@@ -99,4 +229,19 @@ public class IndexScheduler
         }
         return false;
     }
+
+    private static class DebouncedDocument
+    {
+        private final AnnotationDocument document;
+        private final ScheduledFuture<?> future;
+        private final long sequence;
+
+        public DebouncedDocument(AnnotationDocument aDocument, ScheduledFuture<?> aFuture,
+                long aSequence)
+        {
+            document = aDocument;
+            future = aFuture;
+            sequence = aSequence;
+        }
+    }
 }
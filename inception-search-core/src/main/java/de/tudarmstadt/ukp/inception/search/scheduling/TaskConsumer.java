@@ -50,7 +50,7 @@ public class TaskConsumer
     {
         try {
             while (!Thread.interrupted()) {
-                log.info("Waiting for new indexing task...");
+                log.debug("Waiting for new indexing task...");
 
                 Runnable task = queue.take();
 
@@ -66,7 +66,7 @@ public class TaskConsumer
                     log.error("{} failed.", task, e);
                 }
 
-                log.info("{} completed successfully.", task);
+                log.debug("{} completed successfully.", task);
             }
         }
         catch (InterruptedException ie) {
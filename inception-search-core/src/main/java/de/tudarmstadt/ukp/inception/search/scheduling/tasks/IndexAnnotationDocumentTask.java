@@ -0,0 +1,95 @@
+/*
+ * Copyright 2018
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.search.scheduling.tasks;
+
+import java.io.IOException;
+import java.util.Objects;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationDocument;
+import de.tudarmstadt.ukp.inception.search.SearchService;
+
+/**
+ * Search indexer task. Re-indexes a single annotation document using its latest saved state.
+ */
+public class IndexAnnotationDocumentTask
+    extends Task
+{
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private @Autowired SearchService searchService;
+
+    private final AnnotationDocument annotationDocument;
+
+    public IndexAnnotationDocumentTask(AnnotationDocument aAnnotationDocument)
+    {
+        super(aAnnotationDocument.getProject(), null);
+        annotationDocument = aAnnotationDocument;
+    }
+
+    public AnnotationDocument getAnnotationDocument()
+    {
+        return annotationDocument;
+    }
+
+    @Override
+    public void run()
+    {
+        try {
+            searchService.indexDocument(annotationDocument);
+        }
+        catch (IOException e) {
+            log.error("Unable to index annotation document [{}] of user [{}]",
+                    annotationDocument.getName(), annotationDocument.getUser(), e);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder builder = new StringBuilder();
+        builder.append(getClass().getSimpleName());
+        builder.append(" [project=");
+        builder.append(getProject().getName());
+        builder.append(", document=");
+        builder.append(annotationDocument.getName());
+        builder.append(", user=");
+        builder.append(annotationDocument.getUser());
+        builder.append("]");
+        return builder.toString();
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(super.hashCode(), annotationDocument.getId());
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (!super.equals(obj)) {
+            return false;
+        }
+        IndexAnnotationDocumentTask other = (IndexAnnotationDocumentTask) obj;
+        return Objects.equals(annotationDocument.getId(), other.annotationDocument.getId());
+    }
+}
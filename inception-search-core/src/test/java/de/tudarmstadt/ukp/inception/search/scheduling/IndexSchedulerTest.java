@@ -0,0 +1,161 @@
+/*
+ * Copyright 2018
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.search.scheduling;
+
+import static java.util.Collections.singletonMap;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+
+import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationDocument;
+import de.tudarmstadt.ukp.clarin.webanno.model.Project;
+import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocument;
+import de.tudarmstadt.ukp.inception.search.SearchService;
+
+public class IndexSchedulerTest
+{
+    private static final long QUIET_PERIOD = 200;
+
+    private AnnotationConfigApplicationContext context;
+    private SearchService searchService;
+    private IndexScheduler sut;
+
+    private Project project;
+
+    @Before
+    public void setUp()
+    {
+        searchService = mock(SearchService.class);
+
+        context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("test",
+                singletonMap("search.scheduler.quietPeriod", QUIET_PERIOD)));
+        context.getBeanFactory().registerSingleton("searchService", searchService);
+        context.register(IndexScheduler.class);
+        context.refresh();
+
+        sut = context.getBean(IndexScheduler.class);
+
+        project = new Project();
+        project.setId(1L);
+        project.setName("project");
+    }
+
+    @After
+    public void tearDown()
+    {
+        context.close();
+    }
+
+    @Test
+    public void thatRepeatedChangesAreIndexedOnce() throws Exception
+    {
+        AnnotationDocument doc = document(1, "user");
+
+        for (int i = 0; i < 5; i++) {
+            sut.enqueueIndexDocumentTask(doc);
+            Thread.sleep(QUIET_PERIOD / 4);
+        }
+
+        verify(searchService, timeout(QUIET_PERIOD * 10)).indexDocument(doc);
+        verify(searchService, after(QUIET_PERIOD * 2).times(1)).indexDocument(any());
+    }
+
+    @Test
+    public void thatDocumentIsNotIndexedBeforeQuietPeriod() throws Exception
+    {
+        sut.enqueueIndexDocumentTask(document(1, "user"));
+
+        verify(searchService, after(QUIET_PERIOD / 2).never()).indexDocument(any());
+    }
+
+    @Test
+    public void thatDifferentDocumentsAreIndexedSeparately() throws Exception
+    {
+        AnnotationDocument doc1 = document(1, "user1");
+        AnnotationDocument doc2 = document(2, "user2");
+
+        sut.enqueueIndexDocumentTask(doc1);
+        sut.enqueueIndexDocumentTask(doc2);
+
+        verify(searchService, timeout(QUIET_PERIOD * 10)).indexDocument(doc1);
+        verify(searchService, timeout(QUIET_PERIOD * 10)).indexDocument(doc2);
+    }
+
+    @Test
+    public void thatDroppedDocumentIsNotIndexed() throws Exception
+    {
+        AnnotationDocument doc = document(1, "user");
+
+        sut.enqueueIndexDocumentTask(doc);
+        sut.dropIndexDocumentTasks(doc.getDocument());
+
+        verify(searchService, after(QUIET_PERIOD * 3).never()).indexDocument(any());
+    }
+
+    @Test
+    public void thatDebouncedDocumentIsReportedAsPending() throws Exception
+    {
+        Project otherProject = new Project();
+        otherProject.setId(2L);
+        otherProject.setName("other");
+
+        AnnotationDocument doc = document(1, "user");
+
+        sut.enqueueIndexDocumentTask(doc);
+
+        assertEquals(1, sut.getDebouncedDocumentCount());
+        assertTrue(sut.isIndexUpdatePending(project));
+        assertFalse(sut.isIndexUpdatePending(otherProject));
+
+        verify(searchService, timeout(QUIET_PERIOD * 10)).indexDocument(doc);
+
+        assertEquals(0, sut.getDebouncedDocumentCount());
+        assertEquals(0, sut.getQueueSize());
+        assertFalse(sut.isIndexUpdatePending(project));
+    }
+
+    private AnnotationDocument document(long aId, String aUser)
+    {
+        SourceDocument source = new SourceDocument();
+        source.setId(aId);
+        source.setName("doc" + aId);
+        source.setProject(project);
+
+        AnnotationDocument doc = new AnnotationDocument();
+        doc.setId(aId);
+        doc.setName(source.getName());
+        doc.setUser(aUser);
+        doc.setProject(project);
+        doc.setDocument(source);
+        return doc;
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2018
+ * Ubiquitous Knowledge Processing (UKP) Lab and FG Language Technology
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.search.index.mtas;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.uima.jcas.JCas;
+
+/**
+ * Hands an in-memory JCas from {@link MtasDocumentIndex} to the {@link MtasUimaParser}. Lucene
+ * only passes the content of a field to the tokenizer as a reader, so instead of serializing the
+ * CAS into the field, the index registers the JCas here and only puts a short ticket into the
+ * field. Lucene analyzes a document synchronously while it is added, so the JCas can be
+ * unregistered as soon as the document has been added to the index.
+ */
+final class JCasHandover
+{
+    private static final String TICKET_PREFIX = "jcas-handover:";
+
+    private static final AtomicLong nextId = new AtomicLong();
+    private static final Map<String, JCas> pending = new ConcurrentHashMap<>();
+
+    private JCasHandover()
+    {
+        // No instances
+    }
+
+    /**
+     * @return the ticket under which the JCas can be looked up.
+     */
+    static String register(JCas aJCas)
+    {
+        String ticket = TICKET_PREFIX + nextId.incrementAndGet();
+        pending.put(ticket, aJCas);
+        return ticket;
+    }
+
+    static void unregister(String aTicket)
+    {
+        pending.remove(aTicket);
+    }
+
+    static boolean isTicket(String aContent)
+    {
+        return aContent.startsWith(TICKET_PREFIX);
+    }
+
+    /**
+     * @return the JCas registered under the given ticket or {@code null} if there is none.
+     */
+    static JCas lookup(String aTicket)
+    {
+        return pending.get(aTicket);
+    }
+}
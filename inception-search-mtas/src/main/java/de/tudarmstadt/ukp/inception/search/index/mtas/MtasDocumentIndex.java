@@ -20,7 +20,6 @@ package de.tudarmstadt.ukp.inception.search.index.mtas;
 import static de.tudarmstadt.ukp.clarin.webanno.api.ProjectService.PROJECT_FOLDER;
 
 import java.io.BufferedReader;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.Reader;
@@ -33,6 +32,9 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.lucene.analysis.Analyzer;
@@ -44,7 +46,6 @@ import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.document.TextField;
-import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
@@ -53,17 +54,16 @@ import org.apache.lucene.index.SegmentReader;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.index.Terms;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.SearcherManager;
 import org.apache.lucene.search.spans.SpanWeight;
 import org.apache.lucene.search.spans.Spans;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
 import org.apache.uima.cas.TypeSystem;
-import org.apache.uima.cas.impl.XmiCasSerializer;
 import org.apache.uima.jcas.JCas;
 import org.apache.wicket.ajax.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.xml.sax.SAXException;
 
 import de.tudarmstadt.ukp.clarin.webanno.api.AnnotationSchemaService;
 import de.tudarmstadt.ukp.clarin.webanno.api.DocumentService;
@@ -114,6 +114,9 @@ public class MtasDocumentIndex
 
     private static final int RESULT_WINDOW_SIZE = 2;
 
+    // Larger RAM buffer used while (re-)indexing all documents of a project
+    private static final double BULK_RAM_BUFFER_SIZE_MB = 256;
+
     private final Logger log = LoggerFactory.getLogger(getClass());
 
     static AnnotationSchemaService annotationSchemaService;
@@ -124,13 +127,29 @@ public class MtasDocumentIndex
     // The index writers for this index
     private IndexWriter indexWriter;
 
+    // Commit policy - changes are committed in batches instead of after every document
+    private final ScheduledExecutorService commitScheduler;
+    private final int commitBatchSize;
+    private final long commitInterval;
+    private ScheduledFuture<?> commitTask;
+
+    // Shared near-real-time searchers on the index writer, refreshed after changes
+    private SearcherManager searcherManager;
+    private volatile boolean searcherStale = false;
+    private int uncommittedChanges = 0;
+
+    // While in bulk mode, changes are only committed at the end
+    private volatile boolean bulkMode = false;
+
     // The annotations to be indexed
     ArrayList<String> annotationShortNames;
 
     private File resourceDir;
 
     public MtasDocumentIndex(Project aProject, AnnotationSchemaService aAnnotationSchemaService,
-            DocumentService aDocumentService, ProjectService aProjectService, String aDir)
+            DocumentService aDocumentService, ProjectService aProjectService, String aDir,
+            ScheduledExecutorService aCommitScheduler, int aCommitBatchSize,
+            long aCommitInterval)
         throws IOException
     {
         annotationSchemaService = aAnnotationSchemaService;
@@ -151,6 +170,10 @@ public class MtasDocumentIndex
 
         resourceDir = new File(aDir);
 
+        commitScheduler = aCommitScheduler;
+        commitBatchSize = aCommitBatchSize;
+        commitInterval = aCommitInterval;
+
         log.info("New Mtas/Lucene index instance created...");
     }
 
@@ -165,15 +188,25 @@ public class MtasDocumentIndex
             String... aResultField)
         throws ExecutionException
     {
+        SearcherManager manager = getSearcherManager();
+        if (manager == null) {
+            throw new ExecutionException("Index for project " + project.getName()
+                    + " could not be opened");
+        }
+
+        IndexSearcher searcher = null;
         try {
-            Directory directory = FSDirectory.open(getIndexDir().toPath());
-            IndexReader indexReader = DirectoryReader.open(directory);
+            // Make changes since the last query visible. If another thread is already
+            // refreshing, do not wait for it but search the last visible state instead.
+            refreshSearcher(manager);
+
+            searcher = manager.acquire();
 
             // Build the query prefixes list from the annotation types
             List<String> prefixes = new ArrayList<String>(annotationShortNames);
             String modifiedQuery = parseQuery(aQuery);
             MtasSpanQuery mtasSpanQuery = createQuery(FIELD_CONTENT, modifiedQuery);
-            return doQuery(indexReader, aUser, FIELD_CONTENT, mtasSpanQuery, prefixes);
+            return doQuery(searcher, aUser, FIELD_CONTENT, mtasSpanQuery, prefixes);
         }
         catch (mtas.parser.cql.ParseException e) {
             log.error("Mtas query syntax error", e);
@@ -183,6 +216,29 @@ public class MtasDocumentIndex
             log.error("Query execution error", e);
             throw (new ExecutionException("Query execution error", e));
         }
+        finally {
+            if (searcher != null) {
+                try {
+                    manager.release(searcher);
+                }
+                catch (IOException e) {
+                    log.error("Unable to release index searcher", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the searcher manager of the index, opening the index if necessary. The searchers
+     * are near-real-time searchers obtained from the index writer, so changes which have not
+     * been committed yet are visible.
+     */
+    private synchronized SearcherManager getSearcherManager()
+    {
+        if (!isOpen()) {
+            openPhysicalIndex();
+        }
+        return searcherManager;
     }
 
     private String parseQuery(String aQuery)
@@ -227,19 +283,18 @@ public class MtasDocumentIndex
         return q;
     }
 
-    private List<SearchResult> doQuery(IndexReader aIndexReader, User aUser, String field,
+    private List<SearchResult> doQuery(IndexSearcher searcher, User aUser, String field,
             MtasSpanQuery q, List<String> prefixes)
         throws IOException
     {
         List<SearchResult> results = new ArrayList<>();
 
-        ListIterator<LeafReaderContext> leafReaderContextIterator = aIndexReader.leaves()
+        IndexReader indexReader = searcher.getIndexReader();
+        ListIterator<LeafReaderContext> leafReaderContextIterator = indexReader.leaves()
                 .listIterator();
 
-        IndexSearcher searcher = new IndexSearcher(aIndexReader);
-
         final float boost = 0;
-        SpanWeight spanweight = q.rewrite(aIndexReader).createWeight(searcher, false, boost);
+        SpanWeight spanweight = q.rewrite(indexReader).createWeight(searcher, false, boost);
 
         while (leafReaderContextIterator.hasNext()) {
             LeafReaderContext leafReaderContext = leafReaderContextIterator.next();
@@ -424,30 +479,28 @@ public class MtasDocumentIndex
             long aAnnotationDocumentId, String aUser, JCas aJCas)
         throws IOException
     {
+        // The parser takes the token collection directly from the JCas. The content field only
+        // contains a ticket to look up the JCas and is not stored.
+        String ticket = JCasHandover.register(aJCas);
         try {
-            ByteArrayOutputStream bos = new ByteArrayOutputStream();
-            XmiCasSerializer.serialize(aJCas.getCas(), null, bos, true, null);
-            bos.close();
             Document doc = new Document();
             doc.add(new StringField(FIELD_ID,
                     String.valueOf(aSourceDocumentId) + "/" + String.valueOf(aAnnotationDocumentId),
                     Field.Store.YES));
             doc.add(new StringField(FIELD_TITLE, aDocumentTitle, Field.Store.YES));
             doc.add(new StringField(FIELD_USER, aUser, Field.Store.YES));
-            doc.add(new TextField(FIELD_CONTENT, new String(bos.toByteArray(), "UTF-8"),
-                    Field.Store.YES));
+            doc.add(new TextField(FIELD_CONTENT, ticket, Field.Store.NO));
 
-            // Add document to the Lucene index
-            indexWriter.addDocument(doc);
+            // Add document to the Lucene index, replacing a previous version of the document
+            indexWriter.updateDocument(new Term(FIELD_ID, doc.get(FIELD_ID)), doc);
 
-            // commit
-            indexWriter.commit();
+            changed();
 
             log.info("Document indexed in project {}. sourceId: {}, annotationId: {}, user: {}",
                     project.getName(), aSourceDocumentId, aAnnotationDocumentId, aUser);
         }
-        catch (SAXException e) {
-            log.error("Unable to index document", e);
+        finally {
+            JCasHandover.unregister(ticket);
         }
     };
 
@@ -480,9 +533,63 @@ public class MtasDocumentIndex
         indexWriter.deleteDocuments(new Term(FIELD_ID,
                 String.valueOf(aSourceDocumentId) + "/" + String.valueOf(aAnnotationDocumentId)));
 
-        indexWriter.commit();
+        changed();
+    }
+
+    /**
+     * Records a change to the index and commits if enough changes have been collected. Outside
+     * of bulk mode, remaining changes are committed by the periodic commit task.
+     */
+    private synchronized void changed() throws IOException
+    {
+        uncommittedChanges++;
+        searcherStale = true;
+
+        if (!bulkMode && uncommittedChanges >= commitBatchSize) {
+            commit();
+        }
+    }
+
+    /**
+     * Refreshes the searcher if there have been changes since the last refresh. The flag is
+     * cleared before refreshing, so a change recorded while the refresh is running marks the
+     * searcher as stale again. If the refresh is skipped because another thread is refreshing,
+     * the flag is set again so the next query retries.
+     */
+    private void refreshSearcher(SearcherManager aManager) throws IOException
+    {
+        if (searcherStale) {
+            searcherStale = false;
+            if (!aManager.maybeRefresh()) {
+                searcherStale = true;
+            }
+        }
+    }
 
-        return;
+    private synchronized void commit() throws IOException
+    {
+        if (uncommittedChanges > 0 && isOpen()) {
+            indexWriter.commit();
+            // Refresh after the commit so that the next query finds a warm searcher
+            refreshSearcher(searcherManager);
+            log.debug("Committed {} changes to index of project {}", uncommittedChanges,
+                    project.getName());
+            uncommittedChanges = 0;
+        }
+    }
+
+    private void periodicCommit()
+    {
+        if (bulkMode) {
+            return;
+        }
+
+        try {
+            commit();
+        }
+        catch (Exception e) {
+            log.error("Unable to commit index for project {}", project.getName(), e);
+        }
     }
 
     /**
@@ -540,10 +647,23 @@ public class MtasDocumentIndex
     {
         if (indexWriter != null) {
             try {
-                if (indexWriter.isOpen()) {
-                    // Commit and close the index
-                    indexWriter.commit();
-                    indexWriter.close();
+                if (commitTask != null) {
+                    commitTask.cancel(false);
+                    commitTask = null;
+                }
+
+                synchronized (this) {
+                    if (searcherManager != null) {
+                        searcherManager.close();
+                        searcherManager = null;
+                    }
+
+                    if (indexWriter.isOpen()) {
+                        // Commit and close the index
+                        indexWriter.commit();
+                        indexWriter.close();
+                    }
+                    uncommittedChanges = 0;
                 }
 
                 log.info("Index for project {} has been closed", project.getName());
@@ -586,7 +706,7 @@ public class MtasDocumentIndex
      * Open a Mtas physical index, setting indexWriter
      */
     @Override
-    public void openPhysicalIndex()
+    public synchronized void openPhysicalIndex()
     {
         boolean isOpen;
         
@@ -599,6 +719,13 @@ public class MtasDocumentIndex
 
                 indexWriter = openLuceneIndex(getIndexDir());
                 indexWriter.commit();
+
+                searcherManager = new SearcherManager(indexWriter, true, false, null);
+                searcherStale = false;
+
+                commitTask = commitScheduler.scheduleWithFixedDelay(this::periodicCommit,
+                        commitInterval, commitInterval, TimeUnit.MILLISECONDS);
+
                 log.info("Index has been opened for project " + project.getName());
             }
             catch (Exception e) {
@@ -623,9 +750,20 @@ public class MtasDocumentIndex
             // Open the index
             openPhysicalIndex();
 
-            // Index all documents of the project
+            // Index all documents of the project in bulk mode, i.e. with a large RAM buffer
+            // and a single commit at the end
             log.info("Indexing all documents in the project " + project.getName());
-            indexAllDocuments();
+            bulkMode = true;
+            indexWriter.getConfig().setRAMBufferSizeMB(BULK_RAM_BUFFER_SIZE_MB);
+            try {
+                indexAllDocuments();
+            }
+            finally {
+                bulkMode = false;
+                indexWriter.getConfig()
+                        .setRAMBufferSizeMB(IndexWriterConfig.DEFAULT_RAM_BUFFER_SIZE_MB);
+                commit();
+            }
             log.info("All documents have been indexed in the project " + project.getName());
         }
         catch (Exception e) {
@@ -17,8 +17,15 @@
  */
 package de.tudarmstadt.ukp.inception.search.index.mtas;
 
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import de.tudarmstadt.ukp.clarin.webanno.api.AnnotationSchemaService;
@@ -34,6 +41,37 @@ public class MtasDocumentIndexFactory
 {
     private final Logger log = LoggerFactory.getLogger(getClass());
     
+    /**
+     * Number of uncommitted changes after which an index is committed.
+     */
+    @Value("${search.mtas.commitBatchSize:100}")
+    private int commitBatchSize;
+    
+    /**
+     * Maximum time in milliseconds changes to an index remain uncommitted.
+     */
+    @Value("${search.mtas.commitInterval:5000}")
+    private long commitInterval;
+    
+    // Shared by all indexes to commit pending changes periodically
+    private ScheduledExecutorService commitScheduler;
+    
+    @PostConstruct
+    private void startCommitScheduler()
+    {
+        commitScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mtas-index-commit");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    @PreDestroy
+    public void destroy()
+    {
+        commitScheduler.shutdown();
+    }
+    
     @Override
     public String getDisplayName()
     {
@@ -48,7 +86,7 @@ public class MtasDocumentIndexFactory
         PhysicalIndex indexBase = null;
         try {
             indexBase = new MtasDocumentIndex(aProject, aAnnotationSchemaService, aDocumentService,
-                    aProjectService, aDir);
+                    aProjectService, aDir, commitScheduler, commitBatchSize, commitInterval);
         }
         catch (Exception e) {
             log.error("Unable to get index", e);
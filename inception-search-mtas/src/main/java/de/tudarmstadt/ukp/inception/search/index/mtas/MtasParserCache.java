@@ -0,0 +1,110 @@
+/*
+ * Copyright 2018
+ * Ubiquitous Knowledge Processing (UKP) Lab and FG Language Technology
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.search.index.mtas;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import de.tudarmstadt.ukp.clarin.webanno.api.AnnotationSchemaService;
+import de.tudarmstadt.ukp.clarin.webanno.api.event.LayerConfigurationChangedEvent;
+import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationFeature;
+import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationLayer;
+import de.tudarmstadt.ukp.clarin.webanno.model.Project;
+
+/**
+ * Caches the enabled layers of a project with their features for the {@link MtasUimaParser}. A
+ * parser is created for every document which is indexed, so without the cache each document would
+ * pay for loading the layers and features from the database. The entries of a project are
+ * discarded when its layer configuration changes.
+ */
+@Component
+public class MtasParserCache
+{
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private @Autowired AnnotationSchemaService annotationSchemaService;
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * @return the enabled layers of the project by type name.
+     */
+    public Map<String, AnnotationLayer> getLayers(Project aProject)
+    {
+        return getEntry(aProject).layers;
+    }
+
+    /**
+     * @return the features of the enabled layers of the project by type name.
+     */
+    public Map<String, List<AnnotationFeature>> getLayerFeatures(Project aProject)
+    {
+        return getEntry(aProject).layerFeatures;
+    }
+
+    public void invalidate(Project aProject)
+    {
+        entries.remove(aProject.getId());
+    }
+
+    @EventListener
+    public void onLayerConfigurationChanged(LayerConfigurationChangedEvent aEvent)
+    {
+        log.debug("Layer configuration of project {} changed, clearing parser cache",
+                aEvent.getProject().getName());
+        invalidate(aEvent.getProject());
+    }
+
+    private Entry getEntry(Project aProject)
+    {
+        return entries.computeIfAbsent(aProject.getId(),
+            id -> new Entry(annotationSchemaService, aProject));
+    }
+
+    private static class Entry
+    {
+        private final Map<String, AnnotationLayer> layers;
+        private final Map<String, List<AnnotationFeature>> layerFeatures;
+
+        public Entry(AnnotationSchemaService aSchemaService, Project aProject)
+        {
+            Map<String, AnnotationLayer> layerMap = new HashMap<>();
+            Map<String, List<AnnotationFeature>> featureMap = new HashMap<>();
+            for (AnnotationLayer layer : aSchemaService.listAnnotationLayer(aProject)) {
+                if (layer.isEnabled()) {
+                    layerMap.put(layer.getName(), layer);
+                    featureMap.put(layer.getName(),
+                            Collections.unmodifiableList(
+                                    new ArrayList<>(aSchemaService.listAnnotationFeature(layer))));
+                }
+            }
+            layers = Collections.unmodifiableMap(layerMap);
+            layerFeatures = Collections.unmodifiableMap(featureMap);
+        }
+    }
+}
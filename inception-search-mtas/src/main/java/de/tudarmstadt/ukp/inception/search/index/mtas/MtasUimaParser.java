@@ -17,6 +17,7 @@
  */
 package de.tudarmstadt.ukp.inception.search.index.mtas;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Arrays.asList;
 
 import java.io.ByteArrayInputStream;
@@ -80,6 +81,7 @@ public class MtasUimaParser
     private @Autowired AnnotationSchemaService annotationSchemaService;
     private @Autowired ProjectService projectService;
     private @Autowired FeatureIndexingSupportRegistry featureIndexingSupportRegistry;
+    private @Autowired MtasParserCache parserCache;
     
     // Project id
     private final Project project;
@@ -104,8 +106,9 @@ public class MtasUimaParser
                 config.attributes.get(MtasTokenizerFactory.ARGUMENT_PARSER_ARGS));
         project = projectService.getProject(jsonParserConfiguration.getInt("projectId"));
         
-        // Initialize and populate the hash maps for the layers and features
-        initLayerAndFeatureCache();
+        // The layers and features are shared by all parsers of the project
+        layers = parserCache.getLayers(project);
+        layerFeatures = parserCache.getLayerFeatures(project);
     }
     
     // This constructor is used for testing
@@ -115,6 +118,7 @@ public class MtasUimaParser
         super(null);
         
         projectService = null;
+        parserCache = null;
         project = aProject;
         annotationSchemaService = aAnnotationSchemaService;
         featureIndexingSupportRegistry = aFeatureIndexingSupportRegistry;
@@ -149,7 +153,18 @@ public class MtasUimaParser
 
         JCas jcas;
         try {
-            jcas = readCas(aReader);
+            String content = IOUtils.toString(aReader);
+            if (JCasHandover.isTicket(content)) {
+                // Fast path: use the in-memory JCas handed over by the index
+                jcas = JCasHandover.lookup(content);
+                if (jcas == null) {
+                    log.error("No CAS registered for [{}]", content);
+                    return new MtasTokenCollection();
+                }
+            }
+            else {
+                jcas = readCas(content);
+            }
         }
         catch (Exception e) {
             log.error("Unable to decode CAS", e);
@@ -167,7 +182,11 @@ public class MtasUimaParser
         }
     }
     
-    private JCas readCas(Reader reader) throws UIMAException, IOException, SAXException
+    /**
+     * Deserializes a CAS from XMI. The index hands over its documents as in-memory JCases, so this
+     * is only used for content which has been added to an MTAS field directly, e.g. in tests.
+     */
+    private JCas readCas(String aXmi) throws UIMAException, IOException, SAXException
     {
         TypeSystemDescription builtInTypes = TypeSystemDescriptionFactory
                 .createTypeSystemDescription();
@@ -175,10 +194,10 @@ public class MtasUimaParser
         TypeSystemDescription allTypes = CasCreationUtils
                 .mergeTypeSystems(asList(projectTypes, builtInTypes));
         JCas jcas = JCasFactory.createJCas(allTypes);
-        String xmi = IOUtils.toString(reader);
-        // Get the annotations from the XMI are back in the CAS.
-        XmiCasDeserializer.deserialize(new ByteArrayInputStream(xmi.getBytes()), jcas.getCas());
 
+        // Get the annotations from the XMI are back in the CAS.
+        XmiCasDeserializer.deserialize(new ByteArrayInputStream(aXmi.getBytes(UTF_8)),
+                jcas.getCas());
         return jcas;
     }
     
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2018
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.search.index.mtas;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+
+import de.tudarmstadt.ukp.clarin.webanno.api.AnnotationSchemaService;
+import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationFeature;
+import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationLayer;
+import de.tudarmstadt.ukp.clarin.webanno.model.Project;
+
+public class MtasParserCacheTest
+{
+    private Project project;
+    private AnnotationLayer enabledLayer;
+    private AnnotationLayer disabledLayer;
+    private AnnotationFeature feature;
+    private @Mock AnnotationSchemaService annotationSchemaService;
+    private @InjectMocks MtasParserCache sut;
+
+    @Before
+    public void setup() throws Exception
+    {
+        initMocks(this);
+
+        project = new Project();
+        project.setId(1l);
+        project.setName("test project");
+
+        enabledLayer = new AnnotationLayer();
+        enabledLayer.setName("custom.Span");
+        enabledLayer.setEnabled(true);
+
+        disabledLayer = new AnnotationLayer();
+        disabledLayer.setName("custom.Disabled");
+        disabledLayer.setEnabled(false);
+
+        feature = new AnnotationFeature();
+        feature.setName("value");
+
+        when(annotationSchemaService.listAnnotationLayer(project))
+                .thenReturn(asList(enabledLayer, disabledLayer));
+        when(annotationSchemaService.listAnnotationFeature(enabledLayer))
+                .thenReturn(Collections.singletonList(feature));
+    }
+
+    @Test
+    public void thatOnlyEnabledLayersAreCached() throws Exception
+    {
+        assertThat(sut.getLayers(project)).containsOnlyKeys("custom.Span");
+        assertThat(sut.getLayerFeatures(project).get("custom.Span")).containsExactly(feature);
+    }
+
+    @Test
+    public void thatLayersAreLoadedOnce() throws Exception
+    {
+        sut.getLayers(project);
+        sut.getLayerFeatures(project);
+        sut.getLayers(project);
+
+        verify(annotationSchemaService, times(1)).listAnnotationLayer(project);
+        verify(annotationSchemaService, times(1)).listAnnotationFeature(enabledLayer);
+    }
+
+    @Test
+    public void thatInvalidationReloadsLayers() throws Exception
+    {
+        sut.getLayers(project);
+
+        sut.invalidate(project);
+        sut.getLayers(project);
+
+        verify(annotationSchemaService, times(2)).listAnnotationLayer(project);
+    }
+}
@@ -18,6 +18,7 @@
 package de.tudarmstadt.ukp.inception.ui.kb;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -25,6 +26,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.stream.Collectors;
 
 import org.apache.wicket.Component;
 import org.apache.wicket.ajax.AjaxRequestTarget;
@@ -59,12 +61,17 @@ public class ConceptTreePanel extends Panel {
     private static final long serialVersionUID = -4032884234215283745L;
     private static final Logger LOG = LoggerFactory.getLogger(ConceptTreePanel.class);
     
+    private static final int CHILDREN_PAGE_SIZE = 100;
+    
     private @SpringBean KnowledgeBaseService kbService;
     
     private IModel<KBHandle> selectedConcept;
     private IModel<KnowledgeBase> kbModel;
     private IModel<Preferences> preferences;
     
+    // Number of children shown per expanded concept if more than one page has been requested
+    private final Map<String, Integer> shownChildren = new HashMap<>();
+    
     public ConceptTreePanel(String aId, IModel<KnowledgeBase> aKbModel,
             IModel<KBHandle> selectedConceptModel) {
         super(aId, selectedConceptModel);
@@ -89,6 +96,9 @@ public class ConceptTreePanel extends Panel {
                     @Override
                     protected IModel<String> newLabelModel(IModel<KBHandle> aModel)
                     {
+                        if (aModel.getObject() instanceof MoreChildrenHandle) {
+                            return new ResourceModel("concept.list.more");
+                        }
                         return Model.of(aModel.getObject().getUiLabel());
                     }
                     
@@ -101,6 +111,12 @@ public class ConceptTreePanel extends Panel {
                     @Override
                     protected void onClick(AjaxRequestTarget aTarget)
                     {
+                        if (getModelObject() instanceof MoreChildrenHandle) {
+                            actionShowMoreChildren(aTarget,
+                                    (MoreChildrenHandle) getModelObject());
+                            return;
+                        }
+                        
                         if (selectedConcept.getObject() != null) {
                             selectedConcept.detach();
                             updateNode(selectedConcept.getObject(), aTarget);
@@ -132,6 +148,14 @@ public class ConceptTreePanel extends Panel {
         add(form);
     }
     
+    private void actionShowMoreChildren(AjaxRequestTarget aTarget, MoreChildrenHandle aHandle)
+    {
+        String parent = aHandle.parentIdentifier;
+        shownChildren.put(parent,
+                shownChildren.getOrDefault(parent, CHILDREN_PAGE_SIZE) + CHILDREN_PAGE_SIZE);
+        aTarget.add(this);
+    }
+    
     private void actionSelectionChanged(AjaxRequestTarget aTarget) {
         // if the selection changes, publish an event denoting the change
         AjaxConceptSelectionEvent e = new AjaxConceptSelectionEvent(aTarget,
@@ -156,9 +180,6 @@ public class ConceptTreePanel extends Panel {
     {
         private static final long serialVersionUID = 5318498575532049499L;
 
-        private Map<KBHandle, Boolean> childrenPresentCache = new HashMap<>();
-        private Map<KBHandle, List<KBHandle>> childrensCache = new HashMap<>();
-        
         @Override
         public void detach()
         {
@@ -169,8 +190,10 @@ public class ConceptTreePanel extends Panel {
         public Iterator<? extends KBHandle> getRoots()
         {
             try {
-                return kbService.listRootConcepts(kbModel.getObject(),
-                        preferences.getObject().showAllConcepts).iterator();
+                List<KBHandle> roots = kbService.listRootConcepts(kbModel.getObject(),
+                        preferences.getObject().showAllConcepts);
+                checkChildrenPresent(roots);
+                return roots.iterator();
             } catch (QueryEvaluationException e) {
                 error(getString("listRootConceptsErrorMsg") + ": " + e.getLocalizedMessage());
                 LOG.error("Unable to list root concepts.", e);
@@ -181,34 +204,15 @@ public class ConceptTreePanel extends Panel {
         @Override
         public boolean hasChildren(KBHandle aNode)
         {
+            if (aNode instanceof MoreChildrenHandle) {
+                return false;
+            }
+            
             try {
-                // If the KB is read-only, then we cache the values and re-use the cached values.
-                if (kbModel.getObject().isReadOnly()) {
-                    // Leaving this code here because we might make the preemptive loading of 
-                    // child presence optional.
-    //                Boolean childrenPresent = childrenPresentCache.get(aNode);
-    //                if (childrenPresent == null) {
-    //                    childrenPresent = kbService.hasChildConcepts(kbModel.getObject(),
-    //                            aNode.getIdentifier(), preferences.getObject().showAllConcepts);
-    //                    childrenPresentCache.put(aNode, childrenPresent);
-    //                }
-    //                return childrenPresent;
-                    
-                    // To avoid having to send a query to the KB for every child node, just assume
-                    // that there might be child nodes and show the expander until we have actually
-                    // loaded the children, cached them and can show the true information.
-                    List<KBHandle> children = childrensCache.get(aNode);
-                    if (children == null) {
-                        return true;
-                    }
-                    else {
-                        return !children.isEmpty();
-                    }
-                }
-                else {
-                    return kbService.hasChildConcepts(kbModel.getObject(),
-                            aNode.getIdentifier(), preferences.getObject().showAllConcepts);
-                }
+                // Usually answered from the cache of the KB service which has been filled by
+                // checkChildrenPresent when the parent of the node was expanded
+                return kbService.hasChildConcepts(kbModel.getObject(), aNode.getIdentifier(),
+                        preferences.getObject().showAllConcepts);
             }
             catch (QueryEvaluationException e) {
                 error(getString("listChildConceptsErrorMsg") + ": " + e.getLocalizedMessage());
@@ -220,21 +224,30 @@ public class ConceptTreePanel extends Panel {
         @Override
         public Iterator<? extends KBHandle> getChildren(KBHandle aNode)
         {
+            String parent = aNode.getIdentifier();
+            boolean all = preferences.getObject().showAllConcepts;
+            int shown = shownChildren.getOrDefault(parent, CHILDREN_PAGE_SIZE);
             try {
-                // If the KB is read-only, then we cache the values and re-use the cached values.
-                if (kbModel.getObject().isReadOnly()) {
-                    List<KBHandle> children = childrensCache.get(aNode);
-                    if (children == null) {
-                        children = kbService.listChildConcepts(kbModel.getObject(),
-                                aNode.getIdentifier(), preferences.getObject().showAllConcepts);
-                        childrensCache.put(aNode, children);
+                // Children are retrieved page by page, so expanding a concept with many children
+                // does not load all of them. One more child than fits on a page is requested to
+                // find out whether there are further pages.
+                List<KBHandle> children = new ArrayList<>();
+                boolean more = false;
+                for (int offset = 0; offset < shown; offset += CHILDREN_PAGE_SIZE) {
+                    List<KBHandle> page = kbService.listChildConcepts(kbModel.getObject(), parent,
+                            all, offset, CHILDREN_PAGE_SIZE + 1);
+                    more = page.size() > CHILDREN_PAGE_SIZE;
+                    children.addAll(more ? page.subList(0, CHILDREN_PAGE_SIZE) : page);
+                    if (!more) {
+                        break;
                     }
-                    return children.iterator();
                 }
-                else {
-                    return kbService.listChildConcepts(kbModel.getObject(), aNode.getIdentifier(),
-                            preferences.getObject().showAllConcepts).iterator();
+                checkChildrenPresent(children);
+                
+                if (more) {
+                    children.add(new MoreChildrenHandle(parent));
                 }
+                return children.iterator();
             }
             catch (QueryEvaluationException e) {
                 error(getString("listChildConceptsErrorMsg") + ": " + e.getLocalizedMessage());
@@ -243,6 +256,17 @@ public class ConceptTreePanel extends Panel {
             }
         }
 
+        /**
+         * Checks for all nodes which are about to be shown at once whether they have children, so
+         * that rendering the expanders does not send one query per node.
+         */
+        private void checkChildrenPresent(List<KBHandle> aNodes)
+        {
+            kbService.hasChildConcepts(kbModel.getObject(),
+                    aNodes.stream().map(KBHandle::getIdentifier).collect(Collectors.toList()),
+                    preferences.getObject().showAllConcepts);
+        }
+
         @Override
         public IModel<KBHandle> model(KBHandle aObject)
         {
@@ -250,6 +274,23 @@ public class ConceptTreePanel extends Panel {
         }
     }
     
+    /**
+     * Placeholder shown after the last page of children of a concept if there are more.
+     */
+    private static class MoreChildrenHandle
+        extends KBHandle
+    {
+        private static final long serialVersionUID = -4512370936185213311L;
+        
+        private final String parentIdentifier;
+
+        public MoreChildrenHandle(String aParentIdentifier)
+        {
+            super(aParentIdentifier + "#more");
+            parentIdentifier = aParentIdentifier;
+        }
+    }
+    
     static class Preferences implements Serializable {
         private static final long serialVersionUID = 8310379405075949753L;
 
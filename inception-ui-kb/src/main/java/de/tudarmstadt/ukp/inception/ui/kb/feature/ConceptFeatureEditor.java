@@ -24,12 +24,13 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.apache.uima.jcas.JCas;
 import org.apache.wicket.Component;
 import org.apache.wicket.MarkupContainer;
+import org.apache.wicket.MetaDataKey;
+import org.apache.wicket.Session;
 import org.apache.wicket.core.request.handler.IPartialPageRequestHandler;
 import org.apache.wicket.feedback.IFeedback;
 import org.apache.wicket.markup.head.IHeaderResponse;
@@ -73,6 +74,14 @@ public class ConceptFeatureEditor
     private static final String MID_FEATURE = "feature";
     private static final String MID_VALUE = "value";
 
+    private static final int MAX_INSTANCE_SUGGESTIONS = 100;
+
+    private static final MetaDataKey<InstanceSearchCache> INSTANCE_SEARCH_CACHE =
+            new MetaDataKey<InstanceSearchCache>()
+    {
+        private static final long serialVersionUID = -2466453906932725735L;
+    };
+
     private static final long serialVersionUID = 7763348613632105600L;
     private static final Logger LOG = LoggerFactory.getLogger(ConceptFeatureEditor.class);
 
@@ -159,18 +168,8 @@ public class ConceptFeatureEditor
                             (aHandler), aTypedString));
                     }
                     else {
-                        if (traits.getScope() != null) {
-                            handles = kbService.listInstances(kb.get(), traits.getScope(), false)
-                                    .stream()
-                                    .filter(inst -> inst.getUiLabel().contains(aTypedString))
-                                    .collect(Collectors.toList());
-                        }
-                        else {
-                            for (KBHandle concept : kbService.listConcepts(kb.get(), false)) {
-                                handles.addAll(kbService.listInstances(kb.get(), 
-                                    concept.getIdentifier(), false));
-                            }
-                        }
+                        handles.addAll(searchInstances(kb.get(), traits.getScope(),
+                                aTypedString));
                     }
                 }
             }
@@ -183,18 +182,7 @@ public class ConceptFeatureEditor
                                 aTypedString));
                     }
                     else {
-                        if (traits.getScope() != null) {
-                            handles.addAll(kbService.listInstances(kb, traits.getScope(), false)
-                                    .stream()
-                                    .filter(inst -> inst.getUiLabel().contains(aTypedString))
-                                    .collect(Collectors.toList()));
-                        }
-                        else {
-                            for (KBHandle concept : kbService.listConcepts(kb, false)) {
-                                handles.addAll(
-                                    kbService.listInstances(kb, concept.getIdentifier(), false));
-                            }
-                        }
+                        handles.addAll(searchInstances(kb, traits.getScope(), aTypedString));
                     }
                 }
             }
@@ -211,6 +199,34 @@ public class ConceptFeatureEditor
         return handles;
     }
 
+    /**
+     * Searches the instances matching the typed string in the given knowledge base. Results are
+     * cached in the session, so repeated requests for the same input are served without querying
+     * the knowledge base.
+     */
+    private List<KBHandle> searchInstances(KnowledgeBase aKB, String aScope, String aTypedString)
+    {
+        InstanceSearchCache cache = getInstanceSearchCache();
+        List<KBHandle> handles = cache.get(aKB, aScope, aTypedString);
+        if (handles == null) {
+            handles = clService.searchInstances(aKB, aScope, aTypedString,
+                    MAX_INSTANCE_SUGGESTIONS);
+            cache.put(aKB, aScope, aTypedString, handles);
+        }
+        return handles;
+    }
+
+    private static InstanceSearchCache getInstanceSearchCache()
+    {
+        Session session = Session.get();
+        InstanceSearchCache cache = session.getMetaData(INSTANCE_SEARCH_CACHE);
+        if (cache == null) {
+            cache = new InstanceSearchCache();
+            session.setMetaData(INSTANCE_SEARCH_CACHE, cache);
+        }
+        return cache;
+    }
+
     @Override
     protected void onInitialize()
     {
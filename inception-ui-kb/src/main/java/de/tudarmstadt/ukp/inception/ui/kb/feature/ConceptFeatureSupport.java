@@ -20,14 +20,18 @@ package de.tudarmstadt.ukp.inception.ui.kb.feature;
 import static java.util.Arrays.asList;
 
 import java.io.IOException;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
-import org.apache.commons.collections4.map.LRUMap;
-import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.uima.cas.CAS;
 import org.apache.uima.resource.metadata.TypeDescription;
 import org.apache.uima.resource.metadata.TypeSystemDescription;
@@ -37,8 +41,12 @@ import org.apache.wicket.model.IModel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
 import de.tudarmstadt.ukp.clarin.webanno.api.annotation.action.AnnotationActionHandler;
 import de.tudarmstadt.ukp.clarin.webanno.api.annotation.feature.FeatureSupport;
 import de.tudarmstadt.ukp.clarin.webanno.api.annotation.feature.FeatureType;
@@ -47,18 +55,23 @@ import de.tudarmstadt.ukp.clarin.webanno.api.annotation.model.AnnotatorState;
 import de.tudarmstadt.ukp.clarin.webanno.api.annotation.model.FeatureState;
 import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationFeature;
 import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationLayer;
+import de.tudarmstadt.ukp.clarin.webanno.model.Project;
 import de.tudarmstadt.ukp.clarin.webanno.support.JSONUtil;
 import de.tudarmstadt.ukp.inception.kb.ConceptFeatureTraits;
 import de.tudarmstadt.ukp.inception.kb.KnowledgeBaseService;
+import de.tudarmstadt.ukp.inception.kb.event.KnowledgeBaseConfigurationChangedEvent;
+import de.tudarmstadt.ukp.inception.kb.event.KnowledgeBaseDataChangedEvent;
+import de.tudarmstadt.ukp.inception.kb.event.KnowledgeBaseRemovedEvent;
 import de.tudarmstadt.ukp.inception.kb.graph.KBHandle;
 import de.tudarmstadt.ukp.inception.kb.graph.KBInstance;
+import de.tudarmstadt.ukp.inception.recommendation.api.BulkFeatureValueRenderer;
 
 /**
  * Extension providing knowledge-base-related features for annotations.
  */
 @Component
 public class ConceptFeatureSupport
-    implements FeatureSupport<ConceptFeatureTraits>
+    implements FeatureSupport<ConceptFeatureTraits>, BulkFeatureValueRenderer
 {
     private final Logger log = LoggerFactory.getLogger(getClass());
 
@@ -66,11 +79,17 @@ public class ConceptFeatureSupport
     public static final String ANY_CONCEPT = "<ANY>";
     public static final String TYPE_ANY_CONCEPT = PREFIX + ANY_CONCEPT;
 
+    static final int RENDER_CACHE_SIZE = 10_000;
+    private static final long RENDER_CACHE_TTL = 10 * 60 * 1000;
+
     private final KnowledgeBaseService kbService;
     
     private String featureSupportId;
-    private Map<ImmutablePair<AnnotationFeature, String>, String> renderValueCache = Collections
-        .synchronizedMap(new LRUMap<>(200));
+    // Rendering happens concurrently for all users, so the cache must not be locked as a whole
+    private final Cache<RenderKey, String> renderValueCache = Caffeine.newBuilder()
+            .maximumSize(RENDER_CACHE_SIZE)
+            .expireAfterWrite(RENDER_CACHE_TTL, TimeUnit.MILLISECONDS)
+            .build();
 
     @Autowired
     public ConceptFeatureSupport(KnowledgeBaseService aKbService)
@@ -125,34 +144,34 @@ public class ConceptFeatureSupport
     @Override
     public String renderFeatureValue(AnnotationFeature aFeature, String aLabel)
     {
+        if (aLabel == null) {
+            return null;
+        }
+
         try {
-            ImmutablePair<AnnotationFeature, String> pair = new ImmutablePair<>(aFeature, aLabel);
-            String renderValue = renderValueCache.get(pair);
+            RenderKey key = new RenderKey(aFeature, aLabel);
+            String renderValue = renderValueCache.getIfPresent(key);
             if (renderValue != null) {
                 return renderValue;
             }
-            // FIXME Since this might be called very often during rendering, it *might* be
-            // worth to set up an LRU cache instead of relying on the performance of the
-            // underlying KB store.
-            if (aLabel != null) {
-                ConceptFeatureTraits t = readTraits(aFeature);
-
-                // Use the concept from a particular knowledge base
-                Optional<KBInstance> instance;
-                if (t.getRepositoryId() != null) {
-                    instance = kbService
-                            .getKnowledgeBaseById(aFeature.getProject(), t.getRepositoryId())
-                            .flatMap(kb -> kbService.readInstance(kb, aLabel));
-                }
-                // Use the concept from any knowledge base (leave KB unselected)
-                else {
-                    instance = kbService.readInstance(aFeature.getProject(), aLabel);
-                }
 
-                renderValue = instance.map(KBInstance::getUiLabel)
-                        .orElseThrow(NoSuchElementException::new);
+            ConceptFeatureTraits t = readTraits(aFeature);
+
+            // Use the concept from a particular knowledge base
+            Optional<KBInstance> instance;
+            if (t.getRepositoryId() != null) {
+                instance = kbService
+                        .getKnowledgeBaseById(aFeature.getProject(), t.getRepositoryId())
+                        .flatMap(kb -> kbService.readInstance(kb, aLabel));
+            }
+            // Use the concept from any knowledge base (leave KB unselected)
+            else {
+                instance = kbService.readInstance(aFeature.getProject(), aLabel);
             }
-            renderValueCache.put(pair, renderValue);
+
+            renderValue = instance.map(KBInstance::getUiLabel)
+                    .orElseThrow(NoSuchElementException::new);
+            renderValueCache.put(key, renderValue);
             return renderValue;
         }
         catch (Exception e) {
@@ -161,6 +180,106 @@ public class ConceptFeatureSupport
         }
     }
 
+    /**
+     * Renders many values of the given feature at once, e.g. all values visible on a page.
+     * Values which are not cached yet are resolved in bulk, so this costs a single query per
+     * knowledge base instead of one query per value.
+     * 
+     * @return the rendered values by their identifier.
+     */
+    @Override
+    public Map<String, String> renderFeatureValues(AnnotationFeature aFeature,
+            Collection<String> aLabels)
+    {
+        Map<String, String> renderValues = new HashMap<>();
+        Set<String> missing = new HashSet<>();
+        for (String label : aLabels) {
+            if (label == null) {
+                continue;
+            }
+
+            String renderValue = renderValueCache.getIfPresent(new RenderKey(aFeature, label));
+            if (renderValue != null) {
+                renderValues.put(label, renderValue);
+            }
+            else {
+                missing.add(label);
+            }
+        }
+
+        if (missing.isEmpty()) {
+            return renderValues;
+        }
+
+        try {
+            ConceptFeatureTraits t = readTraits(aFeature);
+
+            // Use the concepts from a particular knowledge base
+            Map<String, KBHandle> instances;
+            if (t.getRepositoryId() != null) {
+                instances = kbService
+                        .getKnowledgeBaseById(aFeature.getProject(), t.getRepositoryId())
+                        .map(kb -> kbService.resolveInstances(kb, missing))
+                        .orElse(Collections.emptyMap());
+            }
+            // Use the concepts from any knowledge base (leave KB unselected)
+            else {
+                instances = kbService.resolveInstances(aFeature.getProject(), missing);
+            }
+
+            for (String label : missing) {
+                KBHandle instance = instances.get(label);
+                if (instance != null) {
+                    renderValueCache.put(new RenderKey(aFeature, label), instance.getUiLabel());
+                    renderValues.put(label, instance.getUiLabel());
+                }
+                else {
+                    log.error("Unable to render feature value [{}]", label);
+                    renderValues.put(label, "ERROR");
+                }
+            }
+        }
+        catch (Exception e) {
+            log.error("Unable to render feature values", e);
+            missing.forEach(label -> renderValues.put(label, "ERROR"));
+        }
+
+        return renderValues;
+    }
+
+    long getRenderCacheSize()
+    {
+        renderValueCache.cleanUp();
+        return renderValueCache.estimatedSize();
+    }
+
+    @EventListener
+    public void onKnowledgeBaseDataChanged(KnowledgeBaseDataChangedEvent aEvent)
+    {
+        Long projectId = aEvent.getKnowledgeBase().getProject().getId();
+        String identifier = aEvent.getIdentifier();
+        renderValueCache.asMap().keySet().removeIf(key -> Objects.equals(key.projectId, projectId)
+                && (identifier == null || key.identifier.equals(identifier)));
+    }
+
+    @EventListener
+    public void onKnowledgeBaseConfigurationChanged(KnowledgeBaseConfigurationChangedEvent aEvent)
+    {
+        invalidateProject(aEvent.getProject());
+    }
+
+    @EventListener
+    public void onKnowledgeBaseRemoved(KnowledgeBaseRemovedEvent aEvent)
+    {
+        invalidateProject(aEvent.getKnowledgeBase().getProject());
+    }
+
+    private void invalidateProject(Project aProject)
+    {
+        Long projectId = aProject.getId();
+        renderValueCache.asMap().keySet().removeIf(key -> Objects.equals(key.projectId, projectId));
+    }
+
     @Override
     public String unwrapFeatureValue(AnnotationFeature aFeature, CAS aCAS, Object aValue)
     {
@@ -298,4 +417,39 @@ public class ConceptFeatureSupport
         aTD.addFeature(aFeature.getName(), "", CAS.TYPE_NAME_STRING);
     }
 
+    /**
+     * Rendered values are cached per project and feature. The feature determines the knowledge
+     * base which provides the value.
+     */
+    private static class RenderKey
+    {
+        private final Long projectId;
+        private final Long featureId;
+        private final String identifier;
+
+        public RenderKey(AnnotationFeature aFeature, String aIdentifier)
+        {
+            projectId = aFeature.getProject() != null ? aFeature.getProject().getId() : null;
+            featureId = aFeature.getId();
+            identifier = aIdentifier;
+        }
+
+        @Override
+        public boolean equals(Object aOther)
+        {
+            if (!(aOther instanceof RenderKey)) {
+                return false;
+            }
+            RenderKey other = (RenderKey) aOther;
+            return Objects.equals(projectId, other.projectId)
+                    && Objects.equals(featureId, other.featureId)
+                    && identifier.equals(other.identifier);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(projectId, featureId, identifier);
+        }
+    }
 }
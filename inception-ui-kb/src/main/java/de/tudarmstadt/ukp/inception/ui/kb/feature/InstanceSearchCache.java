@@ -0,0 +1,98 @@
+/*
+ * Copyright 2018
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.ui.kb.feature;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import de.tudarmstadt.ukp.inception.kb.graph.KBHandle;
+import de.tudarmstadt.ukp.inception.kb.model.KnowledgeBase;
+
+/**
+ * Remembers the instances recently suggested for the input of an auto-completion field, so that
+ * repeated requests for the same input are not sent to the knowledge base again. The cache is
+ * kept in the session of the user. Entries expire after a short time, so that changes to the
+ * knowledge bases become visible.
+ */
+class InstanceSearchCache
+    implements Serializable
+{
+    private static final long serialVersionUID = 5405913542466396812L;
+
+    private static final int MAX_ENTRIES = 100;
+    private static final long TTL = 60 * 1000;
+
+    private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true)
+    {
+        private static final long serialVersionUID = -6307433520322893140L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> aEldest)
+        {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    /**
+     * @return the cached instances or {@code null} if there are none.
+     */
+    public synchronized List<KBHandle> get(KnowledgeBase aKB, String aScope, String aInput)
+    {
+        String key = key(aKB, aScope, aInput);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expires < System.currentTimeMillis()) {
+            entries.remove(key);
+            return null;
+        }
+        return new ArrayList<>(entry.handles);
+    }
+
+    public synchronized void put(KnowledgeBase aKB, String aScope, String aInput,
+            List<KBHandle> aHandles)
+    {
+        entries.put(key(aKB, aScope, aInput), new Entry(aHandles));
+    }
+
+    private static String key(KnowledgeBase aKB, String aScope, String aInput)
+    {
+        String input = aInput != null ? aInput.trim().toLowerCase(Locale.ROOT) : "";
+        return aKB.getRepositoryId() + "|" + aScope + "|" + input;
+    }
+
+    private static class Entry
+        implements Serializable
+    {
+        private static final long serialVersionUID = 2791404725213389711L;
+
+        private final List<KBHandle> handles;
+        private final long expires;
+
+        public Entry(List<KBHandle> aHandles)
+        {
+            handles = new ArrayList<>(aHandles);
+            expires = System.currentTimeMillis() + TTL;
+        }
+    }
+}
@@ -17,13 +17,20 @@
  */
 package de.tudarmstadt.ukp.inception.ui.kb.feature;
 
+import static java.util.Arrays.asList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 
 import org.junit.Before;
@@ -33,8 +40,10 @@ import org.mockito.Mock;
 import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationFeature;
 import de.tudarmstadt.ukp.clarin.webanno.model.Project;
 import de.tudarmstadt.ukp.inception.kb.KnowledgeBaseService;
+import de.tudarmstadt.ukp.inception.kb.event.KnowledgeBaseDataChangedEvent;
 import de.tudarmstadt.ukp.inception.kb.graph.KBHandle;
 import de.tudarmstadt.ukp.inception.kb.graph.KBInstance;
+import de.tudarmstadt.ukp.inception.kb.model.KnowledgeBase;
 
 public class ConceptFeatureSupportTest
 {
@@ -86,4 +95,86 @@ public class ConceptFeatureSupportTest
         assertThatThrownBy(() -> sut.unwrapFeatureValue(feat1, null, new Object()))
                 .isInstanceOf(IllegalArgumentException.class);
     }
+
+    @Test
+    public void testRenderFeatureValueIsCachedUntilDataChanges() throws Exception
+    {
+        ConceptFeatureSupport sut = new ConceptFeatureSupport(kbService);
+
+        Project project = new Project();
+        project.setId(1L);
+        AnnotationFeature feat1 = new AnnotationFeature("Dummy feature",
+                ConceptFeatureSupport.PREFIX + "someConcept");
+        feat1.setProject(project);
+
+        when(kbService.readInstance((Project) any(), anyString()))
+                .thenReturn(Optional.of(new KBInstance("id1", "name1")));
+
+        assertThat(sut.renderFeatureValue(feat1, "id1")).isEqualTo("name1");
+        // Served from the cache
+        assertThat(sut.renderFeatureValue(feat1, "id1")).isEqualTo("name1");
+        verify(kbService, times(1)).readInstance((Project) any(), eq("id1"));
+
+        // Changes to the knowledge base invalidate the cache
+        KnowledgeBase kb = new KnowledgeBase();
+        kb.setProject(project);
+        sut.onKnowledgeBaseDataChanged(new KnowledgeBaseDataChangedEvent(this, kb, "id1"));
+        sut.renderFeatureValue(feat1, "id1");
+        verify(kbService, times(2)).readInstance((Project) any(), eq("id1"));
+    }
+
+    @Test
+    public void testRenderCacheIsBounded() throws Exception
+    {
+        ConceptFeatureSupport sut = new ConceptFeatureSupport(kbService);
+
+        Project project = new Project();
+        project.setId(1L);
+        AnnotationFeature feat1 = new AnnotationFeature("Dummy feature",
+                ConceptFeatureSupport.PREFIX + "someConcept");
+        feat1.setProject(project);
+
+        when(kbService.readInstance((Project) any(), anyString()))
+                .thenReturn(Optional.of(new KBInstance("id", "name")));
+
+        // Overflow the cache
+        for (int i = 0; i < ConceptFeatureSupport.RENDER_CACHE_SIZE + 100; i++) {
+            sut.renderFeatureValue(feat1, "id" + i);
+        }
+
+        assertThat(sut.getRenderCacheSize())
+                .isLessThanOrEqualTo(ConceptFeatureSupport.RENDER_CACHE_SIZE);
+    }
+
+    @Test
+    public void testRenderFeatureValuesInBulk() throws Exception
+    {
+        ConceptFeatureSupport sut = new ConceptFeatureSupport(kbService);
+
+        Project project = new Project();
+        project.setId(1L);
+        AnnotationFeature feat1 = new AnnotationFeature("Dummy feature",
+                ConceptFeatureSupport.PREFIX + "someConcept");
+        feat1.setProject(project);
+
+        Map<String, KBHandle> instances = new HashMap<>();
+        instances.put("id1", new KBHandle("id1", "name1"));
+        instances.put("id2", new KBHandle("id2", "name2"));
+        when(kbService.resolveInstances((Project) any(), anyCollection())).thenReturn(instances);
+
+        assertThat(sut.renderFeatureValues(feat1, asList("id1", "id2")))
+                .containsEntry("id1", "name1")
+                .containsEntry("id2", "name2");
+        // Served from the cache
+        assertThat(sut.renderFeatureValue(feat1, "id1")).isEqualTo("name1");
+        verify(kbService, times(1)).resolveInstances((Project) any(), anyCollection());
+        verify(kbService, times(0)).readInstance((Project) any(), anyString());
+
+        // Changes to the knowledge base invalidate the cache
+        KnowledgeBase kb = new KnowledgeBase();
+        kb.setProject(project);
+        sut.onKnowledgeBaseDataChanged(new KnowledgeBaseDataChangedEvent(this, kb, "id1"));
+        sut.renderFeatureValues(feat1, asList("id1", "id2"));
+        verify(kbService, times(2)).resolveInstances((Project) any(), anyCollection());
+    }
 }